@@ -0,0 +1,129 @@
+package br.com.pgioseffi.requisicoes.soap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Classe respons&aacute;vel por medir a leitura dos arquivos de
+ * requisi&ccedil;&atilde;o: a interpreta&ccedil;&atilde;o da primeira linha e
+ * a leitura do envelope SOAP, com cargas de 1 KB a 50 MB.
+ *
+ * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
+ *         &lt;pgioseffi@gmail.com&gt;</a>
+ *
+ * @since 1.1.0
+ *
+ * @see ArquivoRequisicao
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class BenchmarkArquivoRequisicao {
+
+	/**
+	 * Tamanho aproximado do envelope SOAP, em kilobytes.
+	 */
+	@Param({ "1", "64", "1024", "51200" })
+	public int tamanhoKb;
+
+	/**
+	 * Caminho absoluto do arquivo de requisi&ccedil;&atilde;o.
+	 */
+	private Path caminho;
+
+	/**
+	 * <i>Buffer</i> reutilizado na leitura do envelope, do mesmo tamanho do
+	 * utilizado pelos transportes.
+	 */
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(16 * 1024);
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por criar o arquivo de
+	 * requisi&ccedil;&atilde;o.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel criar o arquivo.
+	 */
+	@Setup
+	public void preparar() throws IOException {
+		this.caminho = CargaBenchmark.criarArquivoRequisicao(this.tamanhoKb);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por excluir o arquivo de
+	 * requisi&ccedil;&atilde;o.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel excluir o arquivo.
+	 */
+	@TearDown
+	public void encerrar() throws IOException {
+		CargaBenchmark.excluir(this.caminho);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por medir a abertura do arquivo e a
+	 * interpreta&ccedil;&atilde;o da primeira linha.
+	 *
+	 * @param blackhole
+	 *            Consumidor dos cabe&ccedil;alhos, para que n&atilde;o sejam
+	 *            descartados pelo compilador.
+	 *
+	 * @return A URL da requisi&ccedil;&atilde;o.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel ler o arquivo.
+	 */
+	@Benchmark
+	public String abrir(final Blackhole blackhole) throws IOException {
+		try (ArquivoRequisicao requisicao = ArquivoRequisicao.abrir(this.caminho)) {
+			blackhole.consume(requisicao.getMimeHeaders());
+			return requisicao.getUrl();
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por medir a abertura do arquivo e a
+	 * leitura completa do envelope SOAP em blocos, como fazem os transportes
+	 * que n&atilde;o interpretam o envelope.
+	 *
+	 * @return A quantidade de bytes lidos.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel ler o arquivo.
+	 */
+	@Benchmark
+	public long lerCorpo() throws IOException {
+		try (ArquivoRequisicao requisicao = ArquivoRequisicao.abrir(this.caminho)) {
+			long total = 0L;
+			int lidos;
+
+			this.buffer.clear();
+			while ((lidos = requisicao.lerCorpo(this.buffer, total)) > 0) {
+				total += lidos;
+				this.buffer.clear();
+			}
+
+			return total;
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,143 @@
+package br.com.pgioseffi.requisicoes.soap;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.soap.MessageFactory;
+import javax.xml.soap.SOAPException;
+import javax.xml.soap.SOAPMessage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>
+ * Classe respons&aacute;vel por medir o trabalho do {@link TransporteSAAJ
+ * transporte SAAJ} fora da rede: a constru&ccedil;&atilde;o da
+ * {@link SOAPMessage} a partir do arquivo de requisi&ccedil;&atilde;o e a
+ * serializa&ccedil;&atilde;o da resposta no {@link ArquivoResposta arquivo de
+ * resposta}, com cargas de 1 KB a 50 MB.
+ * </p>
+ * <p>
+ * O SAAJ s&oacute; interpreta o envelope quando o mesmo &eacute; acessado,
+ * portanto a constru&ccedil;&atilde;o acessa o envelope para que a
+ * &aacute;rvore DOM seja de fato constru&iacute;da, como acontece no envio.
+ * </p>
+ *
+ * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
+ *         &lt;pgioseffi@gmail.com&gt;</a>
+ *
+ * @since 1.1.0
+ *
+ * @see TransporteSAAJ
+ * @see ArquivoResposta
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class BenchmarkMensagemSOAP {
+
+	/**
+	 * Tamanho aproximado do envelope SOAP, em kilobytes.
+	 */
+	@Param({ "1", "64", "1024", "51200" })
+	public int tamanhoKb;
+
+	/**
+	 * Caminho absoluto do arquivo de requisi&ccedil;&atilde;o.
+	 */
+	private Path caminho;
+
+	/**
+	 * F&aacute;brica de mensagens SOAP, obtida uma &uacute;nica vez, como no
+	 * transporte.
+	 */
+	private MessageFactory fabricaMensagens;
+
+	/**
+	 * Mensagem j&aacute; interpretada, serializada como resposta.
+	 */
+	private SOAPMessage mensagem;
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por criar o arquivo de
+	 * requisi&ccedil;&atilde;o e a mensagem serializada como resposta.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel criar o arquivo.
+	 * @throws SOAPException
+	 *             Caso n&atilde;o seja poss&iacute;vel criar a mensagem.
+	 */
+	@Setup
+	public void preparar() throws IOException, SOAPException {
+		this.caminho = CargaBenchmark.criarArquivoRequisicao(this.tamanhoKb);
+		this.fabricaMensagens = MessageFactory.newInstance();
+		this.mensagem = this.construirMensagem();
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por excluir o arquivo de
+	 * requisi&ccedil;&atilde;o e as respostas.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel excluir os arquivos.
+	 */
+	@TearDown
+	public void encerrar() throws IOException {
+		CargaBenchmark.excluir(this.caminho);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por medir a constru&ccedil;&atilde;o da
+	 * mensagem SOAP a partir do arquivo de requisi&ccedil;&atilde;o.
+	 *
+	 * @return A mensagem constru&iacute;da.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel ler o arquivo.
+	 * @throws SOAPException
+	 *             Caso o envelope seja inv&aacute;lido.
+	 */
+	@Benchmark
+	public SOAPMessage construirMensagem() throws IOException, SOAPException {
+		try (ArquivoRequisicao requisicao = ArquivoRequisicao.abrir(this.caminho)) {
+			final SOAPMessage construida = this.fabricaMensagens.createMessage(requisicao.getMimeHeaders(), requisicao.abrirCorpo());
+			construida.getSOAPPart().getEnvelope();
+			return construida;
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por medir a serializa&ccedil;&atilde;o
+	 * da mensagem SOAP no arquivo de resposta, incluindo a
+	 * confirma&ccedil;&atilde;o do mesmo.
+	 *
+	 * @return O caminho absoluto do arquivo de resposta.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel escrever o arquivo.
+	 * @throws SOAPException
+	 *             Caso n&atilde;o seja poss&iacute;vel serializar a mensagem.
+	 */
+	@Benchmark
+	public Path serializarResposta() throws IOException, SOAPException {
+		try (ArquivoResposta resposta = new ArquivoResposta(this.caminho.resolveSibling("requisicao..RESPONSE"))) {
+			this.mensagem.writeTo(resposta.getSaida());
+			return resposta.confirmar();
+		}
+	}
+}
\ No newline at end of file
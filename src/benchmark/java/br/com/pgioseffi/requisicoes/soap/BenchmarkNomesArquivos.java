@@ -0,0 +1,97 @@
+package br.com.pgioseffi.requisicoes.soap;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>
+ * Classe respons&aacute;vel por medir a classifica&ccedil;&atilde;o dos
+ * arquivos pelo nome, executada para cada arquivo de cada varredura do
+ * diret&oacute;rio.
+ * </p>
+ * <p>
+ * O custo depende apenas do tamanho do nome do arquivo e n&atilde;o do seu
+ * conte&uacute;do, portanto os par&acirc;metros s&atilde;o nomes
+ * t&iacute;picos de cada extens&atilde;o ao inv&eacute;s de tamanhos de carga.
+ * </p>
+ *
+ * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
+ *         &lt;pgioseffi@gmail.com&gt;</a>
+ *
+ * @since 1.1.0
+ *
+ * @see NomesArquivos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BenchmarkNomesArquivos {
+
+	/**
+	 * Nome do arquivo classificado.
+	 */
+	@Param({ "requisicao.pending", "requisicao..DOING", "requisicao...DONE", "requisicao.1.RETRY", "relatorio-mensal-clientes-2020-06-pagina-0001..RESPONSE" })
+	public String nome;
+
+	/**
+	 * Caminho absoluto do arquivo classificado.
+	 */
+	private Path caminho;
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por montar o caminho do arquivo.
+	 */
+	@Setup
+	public void preparar() {
+		this.caminho = Paths.get(System.getProperty("java.io.tmpdir"), this.nome).toAbsolutePath();
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por medir a extra&ccedil;&atilde;o da
+	 * extens&atilde;o.
+	 *
+	 * @return A extens&atilde;o do arquivo.
+	 */
+	@Benchmark
+	public String recuperarExtensaoArquivo() {
+		return NomesArquivos.recuperarExtensaoArquivo(this.caminho);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por medir a extra&ccedil;&atilde;o do
+	 * nome sem a extens&atilde;o.
+	 *
+	 * @return O nome do arquivo sem a extens&atilde;o.
+	 */
+	@Benchmark
+	public String recuperarCaminhoArquivoSemExtensao() {
+		return NomesArquivos.recuperarCaminhoArquivoSemExtensao(this.caminho);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por medir a classifica&ccedil;&atilde;o
+	 * dos arquivos que podem ser exclu&iacute;dos.
+	 *
+	 * @return Se a extens&atilde;o do arquivo &eacute; v&aacute;lida.
+	 */
+	@Benchmark
+	public boolean isExtensaoValida() {
+		return NomesArquivos.isExtensaoValida(this.caminho);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,97 @@
+package br.com.pgioseffi.requisicoes.soap;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * Classe respons&aacute;vel por gerar os arquivos de requisi&ccedil;&atilde;o
+ * utilizados pelos <i>benchmarks</i>, com envelopes SOAP do tamanho desejado.
+ *
+ * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
+ *         &lt;pgioseffi@gmail.com&gt;</a>
+ *
+ * @since 1.1.0
+ *
+ * @see BenchmarkArquivoRequisicao
+ * @see BenchmarkMensagemSOAP
+ */
+final class CargaBenchmark {
+
+	/**
+	 * Primeira linha dos arquivos de requisi&ccedil;&atilde;o gerados.
+	 */
+	private static final String CONFIGURACOES = "http://127.0.0.1:8080/ws;usuario:senha;soapAction=urn:benchmark";
+
+	/**
+	 * Elemento repetido no corpo do envelope at&eacute; atingir o tamanho
+	 * desejado.
+	 */
+	private static final String ITEM = "<item codigo=\"123456\"><descricao>Item do benchmark</descricao><valor>1234.56</valor></item>\n";
+
+	/**
+	 * Construtor padr&atilde;o de maneira a evitar instancia&ccedil;&atilde;o da
+	 * classe.
+	 */
+	private CargaBenchmark() {
+		super();
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por criar um arquivo de requisi&ccedil;&atilde;o
+	 * em um diret&oacute;rio tempor&aacute;rio.
+	 *
+	 * @param tamanhoKb
+	 *            Tamanho aproximado do envelope SOAP, em kilobytes.
+	 *
+	 * @return O caminho absoluto do arquivo criado.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel criar o arquivo.
+	 */
+	static Path criarArquivoRequisicao(final int tamanhoKb) throws IOException {
+		final Path caminho = Files.createTempDirectory("benchmark").resolve("requisicao.pending");
+		final long tamanho = tamanhoKb * 1024L;
+
+		try (BufferedWriter escritor = Files.newBufferedWriter(caminho, StandardCharsets.UTF_8)) {
+			escritor.write(CargaBenchmark.CONFIGURACOES);
+			escritor.write('\n');
+			escritor.write("<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body><itens>\n");
+
+			for (long escritos = 0L; escritos < tamanho; escritos += CargaBenchmark.ITEM.length()) {
+				escritor.write(CargaBenchmark.ITEM);
+			}
+
+			escritor.write("</itens></soap:Body></soap:Envelope>\n");
+		}
+
+		return caminho;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por excluir o diret&oacute;rio
+	 * tempor&aacute;rio de um arquivo criado por
+	 * {@link CargaBenchmark#criarArquivoRequisicao(int)} e todo o seu
+	 * conte&uacute;do.
+	 *
+	 * @param caminho
+	 *            Caminho absoluto do arquivo de requisi&ccedil;&atilde;o.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel excluir os arquivos.
+	 */
+	static void excluir(final Path caminho) throws IOException {
+		final Path diretorio = caminho.getParent();
+
+		try (Stream<Path> arquivos = Files.list(diretorio)) {
+			for (final Path arquivo : (Iterable<Path>) arquivos::iterator) {
+				Files.deleteIfExists(arquivo);
+			}
+		}
+
+		Files.deleteIfExists(diretorio);
+	}
+}
\ No newline at end of file
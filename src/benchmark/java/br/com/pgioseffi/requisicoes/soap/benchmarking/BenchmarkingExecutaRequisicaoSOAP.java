@@ -0,0 +1,56 @@
+package br.com.pgioseffi.requisicoes.soap.benchmarking;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>
+ * Classe respons&aacute;vel por executar os <i>benchmarks</i> JMH do
+ * rob&ocirc; com o perfilador de aloca&ccedil;&otilde;es ({@link GCProfiler})
+ * sempre habilitado, de maneira que cada resultado venha acompanhado da
+ * quantidade de bytes alocados por opera&ccedil;&atilde;o.
+ * </p>
+ * <p>
+ * Os argumentos s&atilde;o os mesmos da linha de comando do JMH, por exemplo
+ * <code>NomesArquivos -p tamanhoKb=1,1024</code> para filtrar os
+ * <i>benchmarks</i> e os tamanhos de carga.
+ * </p>
+ *
+ * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
+ *         &lt;pgioseffi@gmail.com&gt;</a>
+ *
+ * @since 1.0.0
+ *
+ * @see br.com.pgioseffi.requisicoes.soap.BenchmarkNomesArquivos
+ * @see br.com.pgioseffi.requisicoes.soap.BenchmarkArquivoRequisicao
+ * @see br.com.pgioseffi.requisicoes.soap.BenchmarkMensagemSOAP
+ */
+public final class BenchmarkingExecutaRequisicaoSOAP {
+
+	/**
+	 * Construtor padr&atilde;o de maneira a evitar instancia&ccedil;&atilde;o da
+	 * classe.
+	 */
+	private BenchmarkingExecutaRequisicaoSOAP() {
+		super();
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por executar os <i>benchmarks</i>.
+	 *
+	 * @param args
+	 *            Argumentos da linha de comando do JMH.
+	 *
+	 * @throws CommandLineOptionException
+	 *             Caso os argumentos sejam inv&aacute;lidos.
+	 * @throws RunnerException
+	 *             Caso a execu&ccedil;&atilde;o dos <i>benchmarks</i> falhe.
+	 */
+	public static void main(final String[] args) throws CommandLineOptionException, RunnerException {
+		new Runner(new OptionsBuilder().parent(new CommandLineOptions(args)).addProfiler(GCProfiler.class).build()).run();
+	}
+}
\ No newline at end of file
@@ -0,0 +1,217 @@
+package br.com.pgioseffi.requisicoes.soap.benchmarking;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * <p>
+ * Classe respons&aacute;vel por simular um endpoint SOAP local, com
+ * lat&ecirc;ncia, taxa de erros e tamanho de resposta configur&aacute;veis,
+ * atrav&eacute;s do servidor HTTP embutido na JVM.
+ * </p>
+ * <p>
+ * As respostas de sucesso s&atilde;o envelopes SOAP com o tamanho informado.
+ * Os erros s&atilde;o respostas <code>503</code>, que o rob&ocirc; trata como
+ * falha e reenvia.
+ * </p>
+ *
+ * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
+ *         &lt;pgioseffi@gmail.com&gt;</a>
+ *
+ * @since 1.1.0
+ *
+ * @see VazaoExecutaRequisicaoSOAP
+ * @see HttpServer
+ */
+final class ServidorSOAPSimulado implements Closeable {
+
+	/**
+	 * In&iacute;cio do envelope de resposta.
+	 */
+	private static final String INICIO_ENVELOPE = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body><resposta>";
+
+	/**
+	 * Fim do envelope de resposta.
+	 */
+	private static final String FIM_ENVELOPE = "</resposta></soap:Body></soap:Envelope>";
+
+	/**
+	 * Servidor HTTP embutido.
+	 */
+	private final HttpServer servidor;
+
+	/**
+	 * Executor das requisi&ccedil;&otilde;es, sem limite de <i>threads</i> para
+	 * que a lat&ecirc;ncia simulada n&atilde;o vire fila no servidor.
+	 */
+	private final ExecutorService executor;
+
+	/**
+	 * Lat&ecirc;ncia simulada, em milissegundos.
+	 */
+	private final long latenciaMillis;
+
+	/**
+	 * Percentual de requisi&ccedil;&otilde;es respondidas com erro.
+	 */
+	private final int percentualErros;
+
+	/**
+	 * Envelope de resposta, montado uma &uacute;nica vez.
+	 */
+	private final byte[] resposta;
+
+	/**
+	 * Quantidade de requisi&ccedil;&otilde;es recebidas.
+	 */
+	private final AtomicLong requisicoes = new AtomicLong();
+
+	/**
+	 * Quantidade de requisi&ccedil;&otilde;es respondidas com erro.
+	 */
+	private final AtomicLong erros = new AtomicLong();
+
+	/**
+	 * Construtor respons&aacute;vel por criar e iniciar o servidor em uma porta
+	 * livre da interface local.
+	 *
+	 * @param latenciaMillis
+	 *            Lat&ecirc;ncia simulada, em milissegundos.
+	 * @param percentualErros
+	 *            Percentual de requisi&ccedil;&otilde;es respondidas com erro.
+	 * @param tamanhoResposta
+	 *            Tamanho aproximado da resposta, em bytes.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel iniciar o servidor.
+	 */
+	ServidorSOAPSimulado(final long latenciaMillis, final int percentualErros, final int tamanhoResposta) throws IOException {
+		this.latenciaMillis = Math.max(0L, latenciaMillis);
+		this.percentualErros = Math.min(100, Math.max(0, percentualErros));
+		this.resposta = ServidorSOAPSimulado.montarResposta(tamanhoResposta);
+
+		final AtomicInteger contador = new AtomicInteger();
+		this.executor = Executors.newCachedThreadPool(runnable -> {
+			final Thread thread = new Thread(runnable, "servidor-simulado-" + contador.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		this.servidor = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+		this.servidor.createContext("/ws", this::responder);
+		this.servidor.setExecutor(this.executor);
+		this.servidor.start();
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por montar o envelope de resposta com o
+	 * tamanho desejado.
+	 *
+	 * @param tamanho
+	 *            Tamanho aproximado da resposta, em bytes.
+	 *
+	 * @return Os bytes do envelope.
+	 */
+	private static byte[] montarResposta(final int tamanho) {
+		final int preenchimento = Math.max(0, tamanho - ServidorSOAPSimulado.INICIO_ENVELOPE.length() - ServidorSOAPSimulado.FIM_ENVELOPE.length());
+		final char[] conteudo = new char[preenchimento];
+		Arrays.fill(conteudo, 'x');
+
+		return (ServidorSOAPSimulado.INICIO_ENVELOPE + new String(conteudo) + ServidorSOAPSimulado.FIM_ENVELOPE).getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por responder uma requisi&ccedil;&atilde;o
+	 * ap&oacute;s a lat&ecirc;ncia simulada.
+	 *
+	 * @param troca
+	 *            Requisi&ccedil;&atilde;o e resposta HTTP.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel ler a requisi&ccedil;&atilde;o
+	 *             ou escrever a resposta.
+	 */
+	private void responder(final HttpExchange troca) throws IOException {
+		try {
+			// Consome o corpo inteiro para que a conexão possa ser reutilizada.
+			final byte[] buffer = new byte[16 * 1024];
+			try (InputStream entrada = troca.getRequestBody()) {
+				while (entrada.read(buffer) >= 0) {
+					// Descarta.
+				}
+			}
+
+			this.requisicoes.incrementAndGet();
+
+			if (this.latenciaMillis > 0L) {
+				TimeUnit.MILLISECONDS.sleep(this.latenciaMillis);
+			}
+
+			if (ThreadLocalRandom.current().nextInt(100) < this.percentualErros) {
+				this.erros.incrementAndGet();
+				troca.sendResponseHeaders(503, -1L);
+				return;
+			}
+
+			troca.getResponseHeaders().set("Content-Type", "text/xml; charset=utf-8");
+			troca.sendResponseHeaders(200, this.resposta.length);
+			try (OutputStream saida = troca.getResponseBody()) {
+				saida.write(this.resposta);
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			troca.close();
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar a URL do endpoint simulado.
+	 *
+	 * @return A URL do endpoint.
+	 */
+	String getUrl() {
+		return "http://" + this.servidor.getAddress().getHostString() + ':' + this.servidor.getAddress().getPort() + "/ws";
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar a quantidade de
+	 * requisi&ccedil;&otilde;es recebidas.
+	 *
+	 * @return A quantidade de requisi&ccedil;&otilde;es.
+	 */
+	long getRequisicoes() {
+		return this.requisicoes.get();
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar a quantidade de
+	 * requisi&ccedil;&otilde;es respondidas com erro.
+	 *
+	 * @return A quantidade de erros.
+	 */
+	long getErros() {
+		return this.erros.get();
+	}
+
+	@Override
+	public void close() {
+		this.servidor.stop(0);
+		this.executor.shutdownNow();
+	}
+}
\ No newline at end of file
@@ -0,0 +1,576 @@
+package br.com.pgioseffi.requisicoes.soap.benchmarking;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * <p>
+ * Classe respons&aacute;vel por medir a vaz&atilde;o e a lat&ecirc;ncia de
+ * ponta a ponta do rob&ocirc;, sem depender de sistemas parceiros.
+ * </p>
+ * <p>
+ * Um {@link ServidorSOAPSimulado endpoint simulado} &eacute; iniciado
+ * localmente e o rob&ocirc; &eacute; executado em outra JVM, com um
+ * diret&oacute;rio tempor&aacute;rio, o monitoramento do diret&oacute;rio, a
+ * execu&ccedil;&atilde;o concorrente e o limite adaptativo de
+ * concorr&ecirc;ncia habilitados, pois os mesmos n&atilde;o s&atilde;o
+ * habilitados por padr&atilde;o. Com o rob&ocirc; pronto, s&atilde;o criados os arquivos
+ * <code>.pending</code> e a medi&ccedil;&atilde;o termina quando todos chegam
+ * a <code>.RESPONSE</code> ou <code>.FAILED</code>. A lat&ecirc;ncia de cada
+ * arquivo vai da cria&ccedil;&atilde;o do mesmo at&eacute; a
+ * grava&ccedil;&atilde;o da resposta, medidas pelas datas de
+ * modifica&ccedil;&atilde;o dos arquivos, inclusive quando o arquivo passa por
+ * retentativas, e &eacute; reportada como
+ * {@link Histogram histograma} do HdrHistogram.
+ * </p>
+ * <p>
+ * A configura&ccedil;&atilde;o &eacute; feita por propriedades de sistema:
+ * </p>
+ * <ul>
+ * <li><code>vazao.arquivos</code>: quantidade de arquivos;</li>
+ * <li><code>vazao.latencia.ms</code>: lat&ecirc;ncia do endpoint;</li>
+ * <li><code>vazao.erros.percentual</code>: percentual de respostas com
+ * erro;</li>
+ * <li><code>vazao.requisicao.bytes</code> e <code>vazao.resposta.bytes</code>:
+ * tamanhos dos envelopes;</li>
+ * <li><code>vazao.timeout.segundos</code>: tempo m&aacute;ximo de
+ * espera;</li>
+ * <li><code>vazao.baseline</code>: arquivo com a refer&ecirc;ncia de
+ * compara&ccedil;&atilde;o e <code>vazao.tolerancia.percentual</code> a
+ * piora aceita em rela&ccedil;&atilde;o &agrave; mesma;</li>
+ * <li><code>vazao.gravar.baseline=true</code>: grava o resultado como nova
+ * refer&ecirc;ncia ao inv&eacute;s de comparar;</li>
+ * <li><code>vazao.robo.*</code>: propriedades repassadas ao rob&ocirc;, como
+ * <code>vazao.robo.transporte=assincrono</code>.</li>
+ * </ul>
+ * <p>
+ * A execu&ccedil;&atilde;o termina com c&oacute;digo diferente de zero em caso
+ * de regress&atilde;o, de maneira a falhar o <i>build</i> do Maven.
+ * </p>
+ *
+ * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
+ *         &lt;pgioseffi@gmail.com&gt;</a>
+ *
+ * @since 1.1.0
+ *
+ * @see ServidorSOAPSimulado
+ * @see br.com.pgioseffi.requisicoes.soap.ExecutaRequisicaoSOAP
+ */
+public final class VazaoExecutaRequisicaoSOAP {
+
+	/**
+	 * Prefixo das propriedades de sistema repassadas ao rob&ocirc;.
+	 */
+	private static final String PREFIXO_ROBO = "vazao.robo.";
+
+	/**
+	 * Par&acirc;metros da medi&ccedil;&atilde;o que precisam ser iguais aos da
+	 * refer&ecirc;ncia para que a compara&ccedil;&atilde;o fa&ccedil;a sentido.
+	 */
+	private static final String[] PARAMETROS = { "vazao.arquivos", "vazao.latencia.ms", "vazao.erros.percentual", "vazao.requisicao.bytes", "vazao.resposta.bytes" };
+
+	/**
+	 * Construtor padr&atilde;o de maneira a evitar instancia&ccedil;&atilde;o da
+	 * classe.
+	 */
+	private VazaoExecutaRequisicaoSOAP() {
+		super();
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por executar a medi&ccedil;&atilde;o.
+	 *
+	 * @param args
+	 *            N&atilde;o utilizado. A configura&ccedil;&atilde;o &eacute;
+	 *            feita por propriedades de sistema.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel manipular os arquivos.
+	 * @throws InterruptedException
+	 *             Caso a espera seja interrompida.
+	 */
+	public static void main(final String[] args) throws IOException, InterruptedException {
+		final int arquivos = Integer.getInteger("vazao.arquivos", 1000).intValue();
+		final long timeoutNanos = TimeUnit.SECONDS.toNanos(Long.getLong("vazao.timeout.segundos", 300L).longValue());
+
+		final Path diretorioTrabalho = Files.createTempDirectory("vazao");
+		final Path diretorio = Files.createDirectory(diretorioTrabalho.resolve("requisicoes"));
+
+		final Resultado resultado;
+		final Map<String, Long> inicios;
+		try (ServidorSOAPSimulado servidor = new ServidorSOAPSimulado(Long.getLong("vazao.latencia.ms", 20L).longValue(), Integer.getInteger("vazao.erros.percentual", 0).intValue(),
+				Integer.getInteger("vazao.resposta.bytes", 1024).intValue())) {
+			final Properties configuracoes = VazaoExecutaRequisicaoSOAP.criarConfiguracoes(diretorio);
+			final Path controle = diretorio.resolve(configuracoes.getProperty("nome.arquivo.controle.execucao"));
+
+			final Process robo = VazaoExecutaRequisicaoSOAP.iniciarRobo(diretorioTrabalho, configuracoes);
+			try {
+				VazaoExecutaRequisicaoSOAP.aguardar(() -> Files.exists(controle) || !robo.isAlive(), timeoutNanos);
+				if (!robo.isAlive()) {
+					throw new IllegalStateException("Rob\u00F4 encerrado antes de iniciar. Verifique " + diretorioTrabalho.resolve("robo.log"));
+				}
+
+				// Aguarda o monitoramento do diretório ser registrado.
+				TimeUnit.SECONDS.sleep(1L);
+
+				inicios = VazaoExecutaRequisicaoSOAP.criarArquivos(diretorio, servidor.getUrl(), arquivos, Integer.getInteger("vazao.requisicao.bytes", 1024).intValue());
+
+				final long inicio = System.nanoTime();
+				final boolean concluido = VazaoExecutaRequisicaoSOAP.aguardar(() -> VazaoExecutaRequisicaoSOAP.contarConcluidos(diretorio) >= arquivos || !robo.isAlive(), timeoutNanos);
+				System.out.println("Tempo de espera: " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio) + " ms.");
+
+				if (!concluido || VazaoExecutaRequisicaoSOAP.contarConcluidos(diretorio) < arquivos) {
+					throw new IllegalStateException("Apenas " + VazaoExecutaRequisicaoSOAP.contarConcluidos(diretorio) + " de " + arquivos + " arquivos conclu\u00EDdos. Verifique "
+							+ diretorioTrabalho.resolve("robo.log"));
+				}
+			} finally {
+				robo.destroy();
+				robo.waitFor(30L, TimeUnit.SECONDS);
+			}
+
+			resultado = VazaoExecutaRequisicaoSOAP.medir(diretorio, inicios);
+			System.out.println("Requisi\u00E7\u00F5es recebidas pelo endpoint: " + servidor.getRequisicoes() + ". Erros simulados: " + servidor.getErros() + ".");
+		}
+
+		resultado.imprimir();
+		VazaoExecutaRequisicaoSOAP.excluir(diretorioTrabalho);
+
+		if (!VazaoExecutaRequisicaoSOAP.compararBaseline(resultado)) {
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por montar as configura&ccedil;&otilde;es
+	 * do rob&ocirc; a partir das configura&ccedil;&otilde;es do
+	 * <i>build</i>, apontando para o diret&oacute;rio tempor&aacute;rio.
+	 *
+	 * @param diretorio
+	 *            Diret&oacute;rio tempor&aacute;rio das requisi&ccedil;&otilde;es.
+	 *
+	 * @return As configura&ccedil;&otilde;es do rob&ocirc;.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel ler as
+	 *             configura&ccedil;&otilde;es do <i>build</i>.
+	 */
+	private static Properties criarConfiguracoes(final Path diretorio) throws IOException {
+		final Properties configuracoes = new Properties();
+		try (InputStream entrada = VazaoExecutaRequisicaoSOAP.class.getResourceAsStream("/configuracoes.properties")) {
+			if (entrada != null) {
+				configuracoes.load(entrada);
+			}
+		}
+
+		configuracoes.setProperty("diretorio", diretorio.toString());
+		configuracoes.setProperty("monitoramento.diretorio", "true");
+		configuracoes.setProperty("requisicao.concorrente", "true");
+		configuracoes.setProperty("endpoint.concorrencia.adaptativa", "true");
+		if (!configuracoes.containsKey("nome.arquivo.controle.execucao") || configuracoes.getProperty("nome.arquivo.controle.execucao").contains("${")) {
+			configuracoes.setProperty("nome.arquivo.controle.execucao", "controle.execucao.vazao");
+		}
+
+		for (final String chave : System.getProperties().stringPropertyNames()) {
+			if (chave.startsWith(VazaoExecutaRequisicaoSOAP.PREFIXO_ROBO)) {
+				configuracoes.setProperty(chave.substring(VazaoExecutaRequisicaoSOAP.PREFIXO_ROBO.length()), System.getProperty(chave));
+			}
+		}
+
+		return configuracoes;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por iniciar o rob&ocirc; em outra JVM, com
+	 * as configura&ccedil;&otilde;es informadas &agrave; frente do
+	 * <i>classpath</i> atual.
+	 *
+	 * @param diretorioTrabalho
+	 *            Diret&oacute;rio onde as configura&ccedil;&otilde;es e o log do
+	 *            rob&ocirc; s&atilde;o gravados.
+	 * @param configuracoes
+	 *            Configura&ccedil;&otilde;es do rob&ocirc;.
+	 *
+	 * @return O processo do rob&ocirc;.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel gravar as
+	 *             configura&ccedil;&otilde;es ou iniciar o processo.
+	 */
+	private static Process iniciarRobo(final Path diretorioTrabalho, final Properties configuracoes) throws IOException {
+		final Path diretorioConfiguracoes = Files.createDirectory(diretorioTrabalho.resolve("configuracoes"));
+		try (OutputStream saida = Files.newOutputStream(diretorioConfiguracoes.resolve("configuracoes.properties"))) {
+			configuracoes.store(saida, "Gerado pela medi\u00E7\u00E3o de vaz\u00E3o");
+		}
+
+		final String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+		final String classpath = diretorioConfiguracoes + File.pathSeparator + System.getProperty("java.class.path");
+
+		return new ProcessBuilder(java, "-cp", classpath, "br.com.pgioseffi.requisicoes.soap.ExecutaRequisicaoSOAP").redirectErrorStream(true)
+				.redirectOutput(diretorioTrabalho.resolve("robo.log").toFile()).start();
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por criar os arquivos de
+	 * requisi&ccedil;&atilde;o. Cada arquivo &eacute; escrito com outra
+	 * extens&atilde;o e renomeado em seguida, para que o rob&ocirc; nunca leia um
+	 * arquivo pela metade.
+	 *
+	 * @param diretorio
+	 *            Diret&oacute;rio das requisi&ccedil;&otilde;es.
+	 * @param url
+	 *            URL do endpoint simulado.
+	 * @param quantidade
+	 *            Quantidade de arquivos.
+	 * @param tamanho
+	 *            Tamanho aproximado do envelope, em bytes.
+	 *
+	 * @return A data de cria&ccedil;&atilde;o de cada arquivo, em
+	 *         microssegundos, indexada pelo nome da requisi&ccedil;&atilde;o.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel criar os arquivos.
+	 */
+	private static Map<String, Long> criarArquivos(final Path diretorio, final String url, final int quantidade, final int tamanho) throws IOException {
+		final StringBuilder corpo = new StringBuilder("<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body><requisicao>");
+		while (corpo.length() < tamanho) {
+			corpo.append("<item>valor</item>");
+		}
+		corpo.append("</requisicao></soap:Body></soap:Envelope>\n");
+
+		final byte[] conteudo = (url + ";usuario:senha\n" + corpo).getBytes(StandardCharsets.UTF_8);
+
+		final Map<String, Long> inicios = new HashMap<>();
+		for (int i = 1; i <= quantidade; i++) {
+			final Path temporario = Files.write(diretorio.resolve("requisicao" + i + ".criando"), conteudo);
+			inicios.put("requisicao" + i, Long.valueOf(Files.getLastModifiedTime(temporario).to(TimeUnit.MICROSECONDS)));
+			Files.move(temporario, diretorio.resolve("requisicao" + i + ".pending"), StandardCopyOption.ATOMIC_MOVE);
+		}
+
+		return inicios;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por contar os arquivos conclu&iacute;dos,
+	 * com resposta ou com falha definitiva.
+	 *
+	 * @param diretorio
+	 *            Diret&oacute;rio das requisi&ccedil;&otilde;es.
+	 *
+	 * @return A quantidade de arquivos conclu&iacute;dos.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel listar o diret&oacute;rio.
+	 */
+	private static int contarConcluidos(final Path diretorio) throws IOException {
+		int concluidos = 0;
+		try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(diretorio, "*.{RESPONSE,FAILED}")) {
+			for (@SuppressWarnings("unused")
+			final Path arquivo : arquivos) {
+				concluidos++;
+			}
+		}
+
+		return concluidos;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por calcular a vaz&atilde;o e as
+	 * lat&ecirc;ncias a partir das datas de cria&ccedil;&atilde;o das
+	 * requisi&ccedil;&otilde;es e das datas de modifica&ccedil;&atilde;o das
+	 * respostas.
+	 *
+	 * @param diretorio
+	 *            Diret&oacute;rio das requisi&ccedil;&otilde;es.
+	 * @param inicios
+	 *            Data de cria&ccedil;&atilde;o de cada arquivo, em
+	 *            microssegundos, indexada pelo nome da requisi&ccedil;&atilde;o.
+	 *
+	 * @return O resultado da medi&ccedil;&atilde;o.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel ler os arquivos.
+	 */
+	private static Resultado medir(final Path diretorio, final Map<String, Long> inicios) throws IOException {
+		final Map<String, Long> fins = new HashMap<>();
+		int falhas = 0;
+
+		try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(diretorio)) {
+			for (final Path arquivo : arquivos) {
+				final String nome = arquivo.getFileName().toString();
+				if (nome.endsWith(".RESPONSE")) {
+					fins.put(nome.substring(0, nome.indexOf('.')), Long.valueOf(Files.getLastModifiedTime(arquivo).to(TimeUnit.MICROSECONDS)));
+				} else if (nome.endsWith(".FAILED")) {
+					falhas++;
+				}
+			}
+		}
+
+		final Histogram histograma = new Histogram(TimeUnit.HOURS.toMicros(1L), 3);
+		long primeiroInicio = Long.MAX_VALUE;
+		long ultimoFim = Long.MIN_VALUE;
+
+		for (final Map.Entry<String, Long> fim : fins.entrySet()) {
+			final Long inicio = inicios.get(fim.getKey());
+			if (inicio == null) {
+				continue;
+			}
+
+			histograma.recordValue(Math.max(0L, fim.getValue().longValue() - inicio.longValue()));
+			primeiroInicio = Math.min(primeiroInicio, inicio.longValue());
+			ultimoFim = Math.max(ultimoFim, fim.getValue().longValue());
+		}
+
+		final double segundos = Math.max(1L, ultimoFim - primeiroInicio) / 1_000_000D;
+		return new Resultado(histograma, histograma.getTotalCount() / segundos, falhas);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por comparar o resultado com a
+	 * refer&ecirc;ncia ou grav&aacute;-lo como nova refer&ecirc;ncia.
+	 *
+	 * @param resultado
+	 *            Resultado da medi&ccedil;&atilde;o.
+	 *
+	 * @return O intr&iacute;nseco <code><strong>boolean</strong></code> contendo o
+	 *         valor <code><strong>false</strong></code> caso haja
+	 *         regress&atilde;o ou <code><strong>true</strong></code> caso
+	 *         contr&aacute;rio.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel ler ou gravar a
+	 *             refer&ecirc;ncia.
+	 */
+	private static boolean compararBaseline(final Resultado resultado) throws IOException {
+		final String arquivo = System.getProperty("vazao.baseline");
+		if (arquivo == null || arquivo.trim().isEmpty()) {
+			return true;
+		}
+
+		final Path caminho = Paths.get(arquivo);
+
+		if (Boolean.getBoolean("vazao.gravar.baseline")) {
+			final Properties baseline = new Properties();
+			for (final String parametro : VazaoExecutaRequisicaoSOAP.PARAMETROS) {
+				baseline.setProperty(parametro, VazaoExecutaRequisicaoSOAP.recuperarParametro(parametro));
+			}
+			baseline.setProperty("arquivos.por.segundo", String.format(Locale.ROOT, "%.1f", Double.valueOf(resultado.arquivosPorSegundo)));
+			baseline.setProperty("latencia.p99.ms", String.format(Locale.ROOT, "%.1f", Double.valueOf(resultado.getPercentilMillis(99D))));
+
+			try (Writer escritor = Files.newBufferedWriter(caminho, StandardCharsets.ISO_8859_1)) {
+				baseline.store(escritor, "Refer\u00EAncia da medi\u00E7\u00E3o de vaz\u00E3o");
+			}
+
+			System.out.println("Refer\u00EAncia gravada em " + caminho.toAbsolutePath() + ".");
+			return true;
+		}
+
+		if (!Files.exists(caminho)) {
+			System.out.println("Refer\u00EAncia " + caminho.toAbsolutePath() + " inexistente. Compara\u00E7\u00E3o ignorada.");
+			return true;
+		}
+
+		final Properties baseline = new Properties();
+		try (InputStream entrada = Files.newInputStream(caminho)) {
+			baseline.load(entrada);
+		}
+
+		for (final String parametro : VazaoExecutaRequisicaoSOAP.PARAMETROS) {
+			if (!VazaoExecutaRequisicaoSOAP.recuperarParametro(parametro).equals(baseline.getProperty(parametro))) {
+				System.out.println("Par\u00E2metro " + parametro + " diferente da refer\u00EAncia. Compara\u00E7\u00E3o ignorada.");
+				return true;
+			}
+		}
+
+		final double tolerancia = Integer.getInteger("vazao.tolerancia.percentual", 20).intValue() / 100D;
+		final double vazaoMinima = Double.parseDouble(baseline.getProperty("arquivos.por.segundo")) * (1D - tolerancia);
+		final double latenciaMaxima = Double.parseDouble(baseline.getProperty("latencia.p99.ms")) * (1D + tolerancia);
+
+		boolean aprovado = true;
+		if (resultado.arquivosPorSegundo < vazaoMinima) {
+			System.out.println(String.format(Locale.ROOT, "REGRESS\u00C3O: %.1f arquivos/s abaixo do m\u00EDnimo de %.1f.", Double.valueOf(resultado.arquivosPorSegundo), Double.valueOf(vazaoMinima)));
+			aprovado = false;
+		}
+
+		if (resultado.getPercentilMillis(99D) > latenciaMaxima) {
+			System.out.println(String.format(Locale.ROOT, "REGRESS\u00C3O: p99 de %.1f ms acima do m\u00E1ximo de %.1f ms.", Double.valueOf(resultado.getPercentilMillis(99D)), Double.valueOf(latenciaMaxima)));
+			aprovado = false;
+		}
+
+		if (aprovado) {
+			System.out.println("Resultado dentro da toler\u00E2ncia da refer\u00EAncia " + caminho.toAbsolutePath() + ".");
+		}
+
+		return aprovado;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por recuperar o valor efetivo de um
+	 * par&acirc;metro da medi&ccedil;&atilde;o, considerando o valor
+	 * padr&atilde;o.
+	 *
+	 * @param parametro
+	 *            Nome do par&acirc;metro.
+	 *
+	 * @return O valor do par&acirc;metro.
+	 */
+	private static String recuperarParametro(final String parametro) {
+		switch (parametro) {
+			case "vazao.arquivos":
+				return System.getProperty(parametro, "1000");
+			case "vazao.latencia.ms":
+				return System.getProperty(parametro, "20");
+			case "vazao.erros.percentual":
+				return System.getProperty(parametro, "0");
+			default:
+				return System.getProperty(parametro, "1024");
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por aguardar uma condi&ccedil;&atilde;o
+	 * verificando-a periodicamente.
+	 *
+	 * @param condicao
+	 *            Condi&ccedil;&atilde;o aguardada.
+	 * @param timeoutNanos
+	 *            Tempo m&aacute;ximo de espera, em nanossegundos.
+	 *
+	 * @return O intr&iacute;nseco <code><strong>boolean</strong></code> contendo o
+	 *         valor <code><strong>true</strong></code> caso a condi&ccedil;&atilde;o
+	 *         tenha sido atendida ou <code><strong>false</strong></code> caso o
+	 *         tempo tenha se esgotado.
+	 *
+	 * @throws IOException
+	 *             Lan&ccedil;ada pela condi&ccedil;&atilde;o.
+	 * @throws InterruptedException
+	 *             Caso a espera seja interrompida.
+	 */
+	private static boolean aguardar(final Condicao condicao, final long timeoutNanos) throws IOException, InterruptedException {
+		final long limite = System.nanoTime() + timeoutNanos;
+		while (!condicao.verificar()) {
+			if (System.nanoTime() - limite > 0L) {
+				return false;
+			}
+
+			TimeUnit.MILLISECONDS.sleep(50L);
+		}
+
+		return true;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por excluir o diret&oacute;rio de trabalho
+	 * e todo o seu conte&uacute;do.
+	 *
+	 * @param diretorio
+	 *            Diret&oacute;rio de trabalho.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel excluir os arquivos.
+	 */
+	private static void excluir(final Path diretorio) throws IOException {
+		try (Stream<Path> caminhos = Files.walk(diretorio)) {
+			for (final Path caminho : (Iterable<Path>) caminhos.sorted((a, b) -> b.getNameCount() - a.getNameCount())::iterator) {
+				Files.deleteIfExists(caminho);
+			}
+		}
+	}
+
+	/**
+	 * Interface respons&aacute;vel por representar uma condi&ccedil;&atilde;o
+	 * aguardada que pode lan&ccedil;ar {@link IOException}.
+	 */
+	@FunctionalInterface
+	private interface Condicao {
+
+		/**
+		 * M&eacute;todo respons&aacute;vel por verificar a condi&ccedil;&atilde;o.
+		 *
+		 * @return Se a condi&ccedil;&atilde;o foi atendida.
+		 *
+		 * @throws IOException
+		 *             Caso n&atilde;o seja poss&iacute;vel verificar.
+		 */
+		boolean verificar() throws IOException;
+	}
+
+	/**
+	 * Classe respons&aacute;vel por manter o resultado de uma medi&ccedil;&atilde;o.
+	 */
+	private static final class Resultado {
+
+		/**
+		 * Lat&ecirc;ncias de ponta a ponta, em microssegundos.
+		 */
+		private final Histogram histograma;
+
+		/**
+		 * Vaz&atilde;o, em arquivos por segundo.
+		 */
+		private final double arquivosPorSegundo;
+
+		/**
+		 * Quantidade de arquivos com falha definitiva.
+		 */
+		private final int falhas;
+
+		/**
+		 * Construtor respons&aacute;vel por criar o resultado.
+		 *
+		 * @param histograma
+		 *            Lat&ecirc;ncias de ponta a ponta, em microssegundos.
+		 * @param arquivosPorSegundo
+		 *            Vaz&atilde;o, em arquivos por segundo.
+		 * @param falhas
+		 *            Quantidade de arquivos com falha definitiva.
+		 */
+		private Resultado(final Histogram histograma, final double arquivosPorSegundo, final int falhas) {
+			this.histograma = histograma;
+			this.arquivosPorSegundo = arquivosPorSegundo;
+			this.falhas = falhas;
+		}
+
+		/**
+		 * M&eacute;todo respons&aacute;vel por retornar um percentil das
+		 * lat&ecirc;ncias.
+		 *
+		 * @param percentil
+		 *            Percentil, entre zero e cem.
+		 *
+		 * @return O percentil, em milissegundos.
+		 */
+		private double getPercentilMillis(final double percentil) {
+			return this.histograma.getValueAtPercentile(percentil) / 1000D;
+		}
+
+		/**
+		 * M&eacute;todo respons&aacute;vel por imprimir o resultado, com a
+		 * distribui&ccedil;&atilde;o completa das lat&ecirc;ncias em
+		 * milissegundos.
+		 */
+		private void imprimir() {
+			System.out.println("Distribui\u00E7\u00E3o das lat\u00EAncias de ponta a ponta (ms):");
+			this.histograma.outputPercentileDistribution(System.out, Double.valueOf(1000D));
+			System.out.println(String.format(Locale.ROOT, "Arquivos: %d. Falhas definitivas: %d. Vaz\u00E3o: %.1f arquivos/s. p50: %.1f ms. p99: %.1f ms. p99.9: %.1f ms.",
+					Long.valueOf(this.histograma.getTotalCount()), Integer.valueOf(this.falhas), Double.valueOf(this.arquivosPorSegundo), Double.valueOf(this.getPercentilMillis(50D)),
+					Double.valueOf(this.getPercentilMillis(99D)), Double.valueOf(this.getPercentilMillis(99.9D))));
+		}
+	}
+}
\ No newline at end of file
@@ -1,7 +1,9 @@
 /**
  * Pacote que cont&ecirc;m as classes respons&aacute;veis por realizar a
  * an&aacute;lise de performance do rob&ocirc; respons&aacute;vel por realizar
- * as requisi&ccedil;&otilde;es SOAP.
+ * as requisi&ccedil;&otilde;es SOAP, atrav&eacute;s do JMH. Os
+ * <i>benchmarks</i> em si ficam no pacote do rob&ocirc;, de maneira a
+ * exercitarem diretamente as classes de visibilidade de pacote.
  *
  * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
  *         &lt;pgioseffi@gmail.com&gt;</a>
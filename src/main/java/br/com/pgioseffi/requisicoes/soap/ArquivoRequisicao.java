@@ -0,0 +1,1318 @@
+package br.com.pgioseffi.requisicoes.soap;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.soap.MimeHeaders;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * <p>
+ * Classe respons&aacute;vel por representar um arquivo de requisi&ccedil;&atilde;o
+ * SOAP aberto para leitura.
+ * </p>
+ * <p>
+ * Apenas a primeira linha do arquivo, que cont&eacute;m as
+ * configura&ccedil;&otilde;es da requisi&ccedil;&atilde;o (URL e, opcionalmente,
+ * as credenciais de <i>Basic Authentication</i> separadas por
+ * &quot;<code><strong>;</strong></code>&quot;), &eacute; lida e interpretada.
+ * A partir do terceiro campo a linha pode conter op&ccedil;&otilde;es no formato
+ * <code>chave=valor</code>, como em
+ * <code>url;usuario:senha;passagem=direta;soapAction=urn:acao</code> ou, sem
+ * credenciais, <code>url;;passagem=direta</code>:
+ * <ul>
+ * <li><code>passagem=direta</code>: envia o envelope sem interpret&aacute;-lo
+ * atrav&eacute;s do {@link TransporteDireto transporte direto};</li>
+ * <li><code>soapAction</code>: valor do cabe&ccedil;alho
+ * <code>SOAPAction</code>;</li>
+ * <li><code>contentType</code>: valor do cabe&ccedil;alho
+ * <code>Content-Type</code> nos transportes que n&atilde;o interpretam o
+ * envelope. O padr&atilde;o &eacute; o mesmo do SAAJ para SOAP 1.1;</li>
+ * <li><code>timeoutConexao</code> e <code>timeoutLeitura</code>: tempos
+ * m&aacute;ximos, em milissegundos, para estabelecer a conex&atilde;o e de
+ * espera por dados da resposta, sobrescrevendo os valores globais;</li>
+ * <li><code>idempotente=true</code>: indica que a requisi&ccedil;&atilde;o pode
+ * ser repetida sem efeitos colaterais, permitindo o envio de uma
+ * {@link TransporteRedundante segunda requisi&ccedil;&atilde;o} quando a primeira
+ * demora;</li>
+ * <li><code>cacheTtl</code>: validade, em segundos, da resposta no
+ * {@link TransporteCache cache de respostas}, quando habilitado,
+ * sobrescrevendo o valor global. Zero desabilita o cache para a
+ * requisi&ccedil;&atilde;o;</li>
+ * <li><code>compressao=gzip</code>: envia o envelope compactado com
+ * <i>gzip</i> e o cabe&ccedil;alho <code>Content-Encoding</code>, apenas para
+ * endpoints que o aceitem, nos transportes que n&atilde;o interpretam o
+ * envelope;</li>
+ * <li><code>anexos</code>: nomes, separados por
+ * &quot;<code><strong>,</strong></code>&quot;, de arquivos no mesmo
+ * diret&oacute;rio enviados como partes {@link CorpoMtom MTOM/XOP} lidas do
+ * disco, referenciadas no envelope por
+ * <code>&lt;xop:Include href=&quot;cid:nome&quot;/&gt;</code>. A
+ * requisi&ccedil;&atilde;o &eacute; sempre enviada sem interpretar o
+ * envelope;</li>
+ * <li><code>modelo</code>: nome do {@link ModelosEnvelope modelo de envelope}
+ * montado com os par&acirc;metros do restante do arquivo, um por linha no
+ * formato <code>parametro=valor</code>.</li>
+ * </ul>
+ * O restante do arquivo, o envelope SOAP propriamente dito, &eacute;
+ * disponibilizado como um fluxo lido diretamente do {@link FileChannel}, sem
+ * c&oacute;pias intermedi&aacute;rias em {@link String} ou <code>byte[]</code>
+ * e preservando as quebras de linha originais. Com a op&ccedil;&atilde;o
+ * <code>modelo</code> o envelope &eacute; o modelo j&aacute; montado, mantido em
+ * mem&oacute;ria.
+ * </p>
+ * <p>
+ * Um arquivo cuja primeira linha seja <code>#LOTE;fronteira</code> &eacute;
+ * um {@link ArquivoRequisicao#isLote() lote}, que re&uacute;ne v&aacute;rios
+ * envelopes, cada um precedido por uma linha <code>--fronteira;id</code>, com
+ * o identificador de correla&ccedil;&atilde;o do envelope, e por uma linha de
+ * configura&ccedil;&otilde;es no mesmo formato descrito acima:
+ *
+ * <pre>
+ * #LOTE;fronteira
+ * --fronteira;pedido-1
+ * url;usuario:senha;soapAction=urn:acao
+ * &lt;soapenv:Envelope&gt;...&lt;/soapenv:Envelope&gt;
+ * --fronteira;pedido-2
+ * url;;passagem=direta
+ * &lt;soapenv:Envelope&gt;...&lt;/soapenv:Envelope&gt;
+ * --fronteira--
+ * </pre>
+ *
+ * A quebra de linha anterior a cada delimitador n&atilde;o faz parte do
+ * envelope e a linha de encerramento &eacute; opcional. Cada envelope
+ * {@link ArquivoRequisicao#lerEnvelopes() lido} &eacute; uma
+ * requisi&ccedil;&atilde;o independente, que compartilha o canal do lote.
+ * </p>
+ * <p>
+ * O arquivo permanece aberto at&eacute; o {@link ArquivoRequisicao#close()
+ * fechamento} deste objeto, que deve acontecer antes de o arquivo ser
+ * renomeado. Por este mesmo motivo n&atilde;o utilizamos mapeamento em
+ * mem&oacute;ria, cuja libera&ccedil;&atilde;o n&atilde;o &eacute;
+ * determin&iacute;stica e impede a renomea&ccedil;&atilde;o no Windows.
+ * </p>
+ *
+ * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
+ *         &lt;pgioseffi@gmail.com&gt;</a>
+ *
+ * @since 1.1.0
+ *
+ * @see ExecutaRequisicaoSOAP
+ * @see FileChannel
+ * @see Channels#newInputStream(java.nio.channels.ReadableByteChannel)
+ */
+final class ArquivoRequisicao implements Closeable {
+
+	/**
+	 * Tamanho dos blocos lidos enquanto procuramos o fim da primeira linha.
+	 */
+	private static final int TAMANHO_BLOCO_CONFIGURACOES = 512;
+
+	/**
+	 * Marca de ordem de bytes (BOM) UTF-8 que alguns editores gravam no
+	 * in&iacute;cio do arquivo.
+	 */
+	private static final byte[] BOM_UTF8 = { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF };
+
+	/**
+	 * Tipo de conte&uacute;do padr&atilde;o, o mesmo utilizado pelo SAAJ para SOAP
+	 * 1.1.
+	 */
+	private static final String TIPO_CONTEUDO_PADRAO = "text/xml; charset=utf-8";
+
+	/**
+	 * In&iacute;cio da primeira linha de um lote, seguido da fronteira entre os
+	 * envelopes.
+	 */
+	static final String MARCADOR_LOTE = "#LOTE;";
+
+	/**
+	 * Tamanho m&aacute;ximo das linhas de delimitador e de
+	 * configura&ccedil;&otilde;es de um lote. Das demais linhas apenas este
+	 * prefixo &eacute; mantido em mem&oacute;ria durante a leitura dos
+	 * envelopes.
+	 */
+	private static final int TAMANHO_MAXIMO_LINHA_LOTE = 8192;
+
+	/**
+	 * Tamanho do <i>buffer</i> de leitura dos envelopes de um lote.
+	 */
+	private static final int TAMANHO_BUFFER_LOTE = 65536;
+
+	/**
+	 * Canal aberto para o arquivo de requisi&ccedil;&atilde;o.
+	 */
+	private final FileChannel canal;
+
+	/**
+	 * Primeira linha do arquivo, sem a quebra de linha.
+	 */
+	private final String configuracoes;
+
+	/**
+	 * Posi&ccedil;&atilde;o, em bytes, do in&iacute;cio do envelope SOAP.
+	 */
+	private final long inicioCorpo;
+
+	/**
+	 * Posi&ccedil;&atilde;o, em bytes, do fim do envelope SOAP ou
+	 * <code>-1</code> caso o envelope termine junto com o arquivo.
+	 */
+	private final long fimCorpo;
+
+	/**
+	 * Identificador de correla&ccedil;&atilde;o dos envelopes de um lote ou
+	 * <code><strong>null</strong></code> nos arquivos de
+	 * requisi&ccedil;&atilde;o.
+	 */
+	private final String identificador;
+
+	/**
+	 * Op&ccedil;&otilde;es <code>chave=valor</code> da primeira linha.
+	 */
+	private final Map<String, String> opcoes;
+
+	/**
+	 * Diret&oacute;rio do arquivo, onde s&atilde;o procurados os
+	 * {@link ArquivoRequisicao#getAnexos() anexos}.
+	 */
+	private final Path diretorio;
+
+	/**
+	 * Recursos abertos sob demanda, como os {@link CorpoMtom corpos MTOM},
+	 * compartilhados entre um lote e os seus envelopes e fechados junto com o
+	 * arquivo.
+	 */
+	private final List<Closeable> recursos;
+
+	/**
+	 * Corpo MTOM da requisi&ccedil;&atilde;o, criado no primeiro envio.
+	 */
+	private CorpoMtom corpoMtom;
+
+	/**
+	 * Modelos de envelope dispon&iacute;veis ou <code><strong>null</strong></code>
+	 * caso n&atilde;o estejam habilitados.
+	 */
+	private final ModelosEnvelope modelos;
+
+	/**
+	 * Envelope montado a partir do {@link ArquivoRequisicao#getModelo() modelo},
+	 * criado no primeiro uso.
+	 */
+	private volatile byte[] corpoModelo;
+
+	/**
+	 * Dura&ccedil;&otilde;es das etapas do processamento deste arquivo.
+	 */
+	private final MedicaoArquivo medicao = new MedicaoArquivo();
+
+	/**
+	 * Indica se a resposta veio do {@link TransporteCache cache de respostas},
+	 * sem chamada remota.
+	 */
+	private volatile boolean respondidaCache;
+
+	/**
+	 * Construtor respons&aacute;vel por criar o objeto a partir do canal
+	 * j&aacute; aberto.
+	 *
+	 * @param canal
+	 *            Canal aberto para o arquivo.
+	 * @param configuracoes
+	 *            Primeira linha do arquivo.
+	 * @param inicioCorpo
+	 *            Posi&ccedil;&atilde;o do in&iacute;cio do envelope SOAP.
+	 * @param diretorio
+	 *            Diret&oacute;rio do arquivo.
+	 * @param modelos
+	 *            Modelos de envelope ou <code><strong>null</strong></code>.
+	 */
+	private ArquivoRequisicao(final FileChannel canal, final String configuracoes, final long inicioCorpo, final Path diretorio, final ModelosEnvelope modelos) {
+		this(canal, configuracoes, inicioCorpo, -1L, null, diretorio, new ArrayList<>(), modelos);
+	}
+
+	/**
+	 * Construtor respons&aacute;vel por criar o objeto a partir de um trecho do
+	 * canal j&aacute; aberto.
+	 *
+	 * @param canal
+	 *            Canal aberto para o arquivo.
+	 * @param configuracoes
+	 *            Linha de configura&ccedil;&otilde;es da requisi&ccedil;&atilde;o.
+	 * @param inicioCorpo
+	 *            Posi&ccedil;&atilde;o do in&iacute;cio do envelope SOAP.
+	 * @param fimCorpo
+	 *            Posi&ccedil;&atilde;o do fim do envelope SOAP ou <code>-1</code>
+	 *            caso o mesmo termine junto com o arquivo.
+	 * @param identificador
+	 *            Identificador de correla&ccedil;&atilde;o do envelope de um lote
+	 *            ou <code><strong>null</strong></code>.
+	 * @param diretorio
+	 *            Diret&oacute;rio do arquivo.
+	 * @param recursos
+	 *            Recursos abertos sob demanda, compartilhados com o lote.
+	 * @param modelos
+	 *            Modelos de envelope ou <code><strong>null</strong></code>.
+	 */
+	private ArquivoRequisicao(final FileChannel canal, final String configuracoes, final long inicioCorpo, final long fimCorpo, final String identificador, final Path diretorio,
+			final List<Closeable> recursos, final ModelosEnvelope modelos) {
+		this.canal = canal;
+		this.configuracoes = configuracoes;
+		this.inicioCorpo = inicioCorpo;
+		this.fimCorpo = fimCorpo;
+		this.identificador = identificador;
+		this.opcoes = ArquivoRequisicao.lerOpcoes(configuracoes);
+		this.diretorio = diretorio;
+		this.recursos = recursos;
+		this.modelos = modelos;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por ler as op&ccedil;&otilde;es
+	 * <code>chave=valor</code> a partir do terceiro campo da primeira linha.
+	 * Campos sem &quot;<code><strong>=</strong></code>&quot; s&atilde;o ignorados.
+	 *
+	 * @param configuracoes
+	 *            Primeira linha do arquivo.
+	 *
+	 * @return As op&ccedil;&otilde;es encontradas.
+	 */
+	private static Map<String, String> lerOpcoes(final String configuracoes) {
+		final String[] campos = configuracoes.split(";");
+		if (campos.length <= 2) {
+			return Collections.emptyMap();
+		}
+
+		final Map<String, String> opcoes = new HashMap<>();
+		for (int i = 2; i < campos.length; i++) {
+			final int separador = campos[i].indexOf('=');
+			if (separador > 0) {
+				opcoes.put(campos[i].substring(0, separador).trim(), campos[i].substring(separador + 1).trim());
+			}
+		}
+
+		return opcoes;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por abrir o arquivo de
+	 * requisi&ccedil;&atilde;o e ler apenas a sua primeira linha, sem
+	 * {@link ModelosEnvelope modelos de envelope}.
+	 *
+	 * @param caminho
+	 *            Caminho absoluto do arquivo de requisi&ccedil;&atilde;o.
+	 *
+	 * @return O arquivo de requisi&ccedil;&atilde;o aberto. Deve ser fechado por
+	 *         quem o abriu.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel abrir ou ler o arquivo.
+	 *
+	 * @see ArquivoRequisicao#abrir(Path, ModelosEnvelope)
+	 */
+	static ArquivoRequisicao abrir(final Path caminho) throws IOException {
+		return ArquivoRequisicao.abrir(caminho, null);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por abrir o arquivo de
+	 * requisi&ccedil;&atilde;o e ler apenas a sua primeira linha.
+	 *
+	 * @param caminho
+	 *            Caminho absoluto do arquivo de requisi&ccedil;&atilde;o.
+	 * @param modelos
+	 *            Modelos de envelope utilizados pelo arquivo e pelos envelopes de
+	 *            um lote com a op&ccedil;&atilde;o <code>modelo</code>, ou
+	 *            <code><strong>null</strong></code> caso n&atilde;o estejam
+	 *            habilitados.
+	 *
+	 * @return O arquivo de requisi&ccedil;&atilde;o aberto. Deve ser fechado por
+	 *         quem o abriu.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel abrir ou ler o arquivo.
+	 */
+	static ArquivoRequisicao abrir(final Path caminho, final ModelosEnvelope modelos) throws IOException {
+		final FileChannel canal = FileChannel.open(caminho, StandardOpenOption.READ);
+
+		try {
+			final ByteArrayOutputStream linha = new ByteArrayOutputStream(ArquivoRequisicao.TAMANHO_BLOCO_CONFIGURACOES);
+			final ByteBuffer bloco = ByteBuffer.allocate(ArquivoRequisicao.TAMANHO_BLOCO_CONFIGURACOES);
+			long posicao = 0L;
+			long inicioCorpo = -1L;
+
+			while (inicioCorpo < 0L && canal.read(bloco, posicao) > 0) {
+				bloco.flip();
+				while (bloco.hasRemaining()) {
+					final byte lido = bloco.get();
+					posicao++;
+					if (lido == '\n') {
+						inicioCorpo = posicao;
+						break;
+					}
+
+					linha.write(lido);
+				}
+
+				bloco.clear();
+			}
+
+			// Sem quebra de linha o arquivo só contém as configurações.
+			return new ArquivoRequisicao(canal, ArquivoRequisicao.decodificarLinha(linha.toByteArray()), inicioCorpo < 0L ? posicao : inicioCorpo, caminho.getParent(), modelos);
+		} catch (final IOException | RuntimeException e) {
+			canal.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por decodificar a primeira linha do arquivo
+	 * desconsiderando o BOM UTF-8 e o <code>\r</code> final de arquivos gerados
+	 * no Windows.
+	 *
+	 * @param bytes
+	 *            Bytes da primeira linha sem o <code>\n</code>.
+	 *
+	 * @return A linha decodificada em UTF-8.
+	 */
+	private static String decodificarLinha(final byte[] bytes) {
+		int inicio = 0;
+		int fim = bytes.length;
+
+		if (fim >= ArquivoRequisicao.BOM_UTF8.length && bytes[0] == ArquivoRequisicao.BOM_UTF8[0] && bytes[1] == ArquivoRequisicao.BOM_UTF8[1] && bytes[2] == ArquivoRequisicao.BOM_UTF8[2]) {
+			inicio = ArquivoRequisicao.BOM_UTF8.length;
+		}
+
+		if (fim > inicio && bytes[fim - 1] == '\r') {
+			fim--;
+		}
+
+		return new String(bytes, inicio, fim - inicio, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por indicar se o arquivo &eacute; um lote
+	 * de envelopes.
+	 *
+	 * @return O intr&iacute;nseco <code><strong>boolean</strong></code> contendo o
+	 *         valor <code><strong>true</strong></code> caso a primeira linha
+	 *         comece com {@link ArquivoRequisicao#MARCADOR_LOTE} ou
+	 *         <code><strong>false</strong></code> caso contr&aacute;rio.
+	 */
+	boolean isLote() {
+		return this.identificador == null && this.configuracoes.startsWith(ArquivoRequisicao.MARCADOR_LOTE);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar a fronteira entre os
+	 * envelopes de um lote.
+	 *
+	 * @return A fronteira, sem espa&ccedil;os nas extremidades.
+	 */
+	String getFronteiraLote() {
+		return StringUtils.substringBefore(this.configuracoes.substring(ArquivoRequisicao.MARCADOR_LOTE.length()), ";").trim();
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar o identificador de
+	 * correla&ccedil;&atilde;o de um envelope de lote.
+	 *
+	 * @return O identificador ou <code><strong>null</strong></code> nos
+	 *         arquivos de requisi&ccedil;&atilde;o.
+	 */
+	String getIdentificador() {
+		return this.identificador;
+	}
+
+	/**
+	 * <p>
+	 * M&eacute;todo respons&aacute;vel por localizar os envelopes de um lote.
+	 * </p>
+	 * <p>
+	 * O corpo &eacute; percorrido uma &uacute;nica vez, linha a linha, guardando
+	 * apenas as posi&ccedil;&otilde;es de cada envelope, que continuam sendo
+	 * lidos diretamente do arquivo durante o envio. Linhas anteriores ao
+	 * primeiro delimitador s&atilde;o ignoradas.
+	 * </p>
+	 *
+	 * @return Os envelopes, na ordem do arquivo. N&atilde;o precisam ser fechados,
+	 *         pois compartilham o canal deste objeto.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel ler o arquivo ou o mesmo
+	 *             n&atilde;o respeite o formato do lote.
+	 */
+	List<ArquivoRequisicao> lerEnvelopes() throws IOException {
+		final String fronteira = this.getFronteiraLote();
+		if (fronteira.isEmpty()) {
+			throw new IOException("Lote sem fronteira entre os envelopes.");
+		}
+
+		final byte[] delimitador = ("--" + fronteira).getBytes(StandardCharsets.UTF_8);
+		final List<ArquivoRequisicao> envelopes = new ArrayList<>();
+		final Set<String> identificadores = new HashSet<>();
+		final LeitorLinhas leitor = new LeitorLinhas(new BufferedInputStream(this.abrirCorpo(), ArquivoRequisicao.TAMANHO_BUFFER_LOTE), this.inicioCorpo);
+
+		String identificadorAtual = null;
+		String configuracoesAtuais = null;
+		long inicioAtual = -1L;
+		long fimAtual = -1L;
+
+		while (leitor.proxima()) {
+			if (!leitor.comecaCom(delimitador)) {
+				fimAtual = leitor.getFimConteudo();
+				continue;
+			}
+
+			if (identificadorAtual != null) {
+				envelopes.add(new ArquivoRequisicao(this.canal, configuracoesAtuais, inicioAtual, fimAtual, identificadorAtual, this.diretorio, this.recursos, this.modelos));
+				identificadorAtual = null;
+			}
+
+			final String resto = leitor.getTexto(delimitador.length);
+			if (resto.startsWith("--")) {
+				break;
+			}
+
+			identificadorAtual = resto.startsWith(";") ? resto.substring(1).trim() : StringUtils.EMPTY;
+			if (identificadorAtual.isEmpty() || !identificadores.add(identificadorAtual)) {
+				throw new IOException("Envelope " + (envelopes.size() + 1) + " do lote sem identificador ou com identificador repetido: " + resto);
+			}
+
+			if (!leitor.proxima()) {
+				throw new IOException("Envelope " + identificadorAtual + " do lote sem configura\u00E7\u00F5es.");
+			}
+
+			configuracoesAtuais = leitor.getTexto(0);
+			inicioAtual = leitor.getInicioProxima();
+			fimAtual = inicioAtual;
+		}
+
+		if (identificadorAtual != null) {
+			envelopes.add(new ArquivoRequisicao(this.canal, configuracoesAtuais, inicioAtual, fimAtual, identificadorAtual, this.diretorio, this.recursos, this.modelos));
+		}
+
+		return envelopes;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar a primeira linha do arquivo.
+	 *
+	 * @return A primeira linha do arquivo, sem a quebra de linha.
+	 */
+	String getConfiguracoes() {
+		return this.configuracoes;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar a URL da
+	 * requisi&ccedil;&atilde;o, isto &eacute;, o trecho da primeira linha antes do
+	 * primeiro &quot;<code><strong>;</strong></code>&quot;.
+	 *
+	 * @return A URL da requisi&ccedil;&atilde;o sem espa&ccedil;os nas
+	 *         extremidades.
+	 */
+	String getUrl() {
+		return StringUtils.substringBefore(this.configuracoes, ";").trim();
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar as dura&ccedil;&otilde;es
+	 * das etapas do processamento deste arquivo, acumuladas inclusive pelos
+	 * {@link TransporteSOAP transportes}.
+	 *
+	 * @return As dura&ccedil;&otilde;es das etapas.
+	 */
+	MedicaoArquivo getMedicao() {
+		return this.medicao;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por montar os cabe&ccedil;alhos MIME da
+	 * requisi&ccedil;&atilde;o. Caso tenhamos &quot;<code><strong>;</strong></code>&quot;
+	 * na primeira linha seguido de credenciais, sabemos que temos um job com
+	 * necessidade de autentica&ccedil;&atilde;o com <i>Basic
+	 * Authentication</i>. O cabe&ccedil;alho <code>SOAPAction</code> &eacute;
+	 * inclu&iacute;do quando informado nas op&ccedil;&otilde;es.
+	 *
+	 * @return Os cabe&ccedil;alhos MIME ou <code><strong>null</strong></code>
+	 *         caso n&atilde;o haja autentica&ccedil;&atilde;o nem
+	 *         <code>SOAPAction</code>.
+	 */
+	MimeHeaders getMimeHeaders() {
+		final String[] headers = this.configuracoes.split(";");
+		final String soapAction = this.opcoes.get("soapAction");
+		final boolean autenticacao = headers.length > 1 && StringUtils.isNotBlank(headers[1]);
+		if (!autenticacao && soapAction == null) {
+			return null;
+		}
+
+		final MimeHeaders mimeHeaders = new MimeHeaders();
+		if (autenticacao) {
+			// Recupera e encoda em Base64 o login e a senha.
+			mimeHeaders.addHeader("Authorization", "Basic " + Base64.encodeBase64String(headers[1].getBytes(StandardCharsets.UTF_8)));
+		}
+
+		if (soapAction != null) {
+			mimeHeaders.addHeader("SOAPAction", soapAction);
+		}
+
+		return mimeHeaders;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar o tipo de conte&uacute;do a
+	 * ser enviado pelos transportes que n&atilde;o interpretam o envelope SOAP.
+	 *
+	 * @return A op&ccedil;&atilde;o <code>contentType</code> ou o tipo de
+	 *         conte&uacute;do padr&atilde;o do SAAJ para SOAP 1.1.
+	 */
+	String getTipoConteudo() {
+		return this.opcoes.getOrDefault("contentType", ArquivoRequisicao.TIPO_CONTEUDO_PADRAO);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por indicar se o envelope SOAP deve ser
+	 * enviado sem ser interpretado, atrav&eacute;s da op&ccedil;&atilde;o
+	 * <code>passagem=direta</code>.
+	 *
+	 * @return O intr&iacute;nseco <code><strong>boolean</strong></code> contendo o
+	 *         valor <code><strong>true</strong></code> caso a op&ccedil;&atilde;o
+	 *         esteja presente ou <code><strong>false</strong></code> caso
+	 *         contr&aacute;rio.
+	 */
+	boolean isPassagemDireta() {
+		return "direta".equalsIgnoreCase(this.opcoes.get("passagem"));
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar o nome do
+	 * {@link ModelosEnvelope modelo de envelope}, atrav&eacute;s da
+	 * op&ccedil;&atilde;o <code>modelo</code>.
+	 *
+	 * @return A op&ccedil;&atilde;o <code>modelo</code> ou
+	 *         <code><strong>null</strong></code> caso a mesma n&atilde;o seja
+	 *         informada.
+	 */
+	String getModelo() {
+		return StringUtils.trimToNull(this.opcoes.get("modelo"));
+	}
+
+	/**
+	 * <p>
+	 * M&eacute;todo respons&aacute;vel por montar o envelope a partir do
+	 * {@link ArquivoRequisicao#getModelo() modelo}, caso ainda n&atilde;o tenha
+	 * sido montado, com os par&acirc;metros do restante do arquivo.
+	 * </p>
+	 * <p>
+	 * Cada linha no formato <code>parametro=valor</code> informa um
+	 * par&acirc;metro, cujo valor &eacute; tudo ap&oacute;s o primeiro
+	 * &quot;<code><strong>=</strong></code>&quot; e &eacute; escapado para XML
+	 * na montagem. Linhas em branco ou sem
+	 * &quot;<code><strong>=</strong></code>&quot; s&atilde;o ignoradas.
+	 * </p>
+	 *
+	 * @throws IllegalArgumentException
+	 *             Caso os modelos n&atilde;o estejam habilitados, o modelo
+	 *             n&atilde;o exista ou algum dos seus par&acirc;metros n&atilde;o
+	 *             tenha sido informado.
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel ler o arquivo ou o modelo.
+	 *
+	 * @see ModelosEnvelope#montar(String, Map)
+	 */
+	synchronized void montarModelo() throws IOException {
+		if (this.corpoModelo != null) {
+			return;
+		}
+
+		if (this.modelos == null) {
+			throw new IllegalArgumentException("Modelo " + this.getModelo() + " informado sem modelos de envelope habilitados.");
+		}
+
+		// Os parâmetros são poucos, então o trecho é lido de uma só vez.
+		final ByteBuffer conteudo = ByteBuffer.allocate((int) Math.min(Integer.MAX_VALUE, this.getTamanhoArquivo()));
+		while (conteudo.hasRemaining() && this.lerArquivo(conteudo, conteudo.position()) > 0) {
+			// Lê até completar o buffer ou chegar ao fim do trecho.
+		}
+
+		final Map<String, String> parametros = new HashMap<>();
+		for (final String linha : new String(conteudo.array(), 0, conteudo.position(), StandardCharsets.UTF_8).split("\\r?\\n")) {
+			final int separador = linha.indexOf('=');
+			if (separador > 0) {
+				parametros.put(linha.substring(0, separador).trim(), linha.substring(separador + 1));
+			}
+		}
+
+		this.corpoModelo = this.modelos.montar(this.getModelo(), parametros);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar o envelope montado a partir
+	 * do {@link ArquivoRequisicao#getModelo() modelo}, montando-o no primeiro
+	 * uso.
+	 *
+	 * @return O envelope montado ou <code><strong>null</strong></code> caso o
+	 *         arquivo n&atilde;o utilize modelo.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel montar o envelope,
+	 *             inclusive por um modelo ou par&acirc;metro inv&aacute;lido.
+	 */
+	private byte[] getCorpoModelo() throws IOException {
+		final byte[] corpo = this.corpoModelo;
+		if (corpo != null || this.getModelo() == null) {
+			return corpo;
+		}
+
+		try {
+			this.montarModelo();
+		} catch (final IllegalArgumentException e) {
+			throw new IOException(e.getMessage(), e);
+		}
+
+		return this.corpoModelo;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar os nomes dos arquivos
+	 * enviados como partes MTOM/XOP, atrav&eacute;s da op&ccedil;&atilde;o
+	 * <code>anexos</code>.
+	 *
+	 * @return Os nomes, na ordem da op&ccedil;&atilde;o, ou uma lista vazia.
+	 */
+	List<String> getAnexos() {
+		final String anexos = this.opcoes.get("anexos");
+		if (StringUtils.isBlank(anexos)) {
+			return Collections.emptyList();
+		}
+
+		final List<String> nomes = new ArrayList<>();
+		for (final String nome : Arrays.asList(anexos.split(","))) {
+			if (StringUtils.isNotBlank(nome)) {
+				nomes.add(nome.trim());
+			}
+		}
+
+		return nomes;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por indicar se a requisi&ccedil;&atilde;o
+	 * &eacute; enviada como MTOM/XOP, isto &eacute;, se possui
+	 * {@link ArquivoRequisicao#getAnexos() anexos}.
+	 *
+	 * @return O intr&iacute;nseco <code><strong>boolean</strong></code> contendo o
+	 *         valor <code><strong>true</strong></code> caso haja anexos ou
+	 *         <code><strong>false</strong></code> caso contr&aacute;rio.
+	 */
+	boolean isMtom() {
+		return StringUtils.isNotBlank(this.opcoes.get("anexos"));
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar o diret&oacute;rio do
+	 * arquivo, onde s&atilde;o procurados os anexos.
+	 *
+	 * @return O diret&oacute;rio do arquivo.
+	 */
+	Path getDiretorio() {
+		return this.diretorio;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar o tempo m&aacute;ximo para
+	 * estabelecer a conex&atilde;o, atrav&eacute;s da op&ccedil;&atilde;o
+	 * <code>timeoutConexao</code>.
+	 *
+	 * @param padrao
+	 *            Valor global, utilizado caso a op&ccedil;&atilde;o n&atilde;o
+	 *            tenha sido informada ou seja inv&aacute;lida.
+	 *
+	 * @return O tempo m&aacute;ximo, em milissegundos. Zero indica sem limite.
+	 */
+	int getTimeoutConexao(final int padrao) {
+		return this.recuperarOpcaoInteira("timeoutConexao", padrao);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar o tempo m&aacute;ximo de
+	 * espera por dados da resposta, atrav&eacute;s da op&ccedil;&atilde;o
+	 * <code>timeoutLeitura</code>.
+	 *
+	 * @param padrao
+	 *            Valor global, utilizado caso a op&ccedil;&atilde;o n&atilde;o
+	 *            tenha sido informada ou seja inv&aacute;lida.
+	 *
+	 * @return O tempo m&aacute;ximo, em milissegundos. Zero indica sem limite.
+	 */
+	int getTimeoutLeitura(final int padrao) {
+		return this.recuperarOpcaoInteira("timeoutLeitura", padrao);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por indicar se a requisi&ccedil;&atilde;o
+	 * pode ser repetida sem efeitos colaterais, atrav&eacute;s da
+	 * op&ccedil;&atilde;o <code>idempotente=true</code>.
+	 *
+	 * @return O intr&iacute;nseco <code><strong>boolean</strong></code> contendo o
+	 *         valor <code><strong>true</strong></code> caso a op&ccedil;&atilde;o
+	 *         esteja presente ou <code><strong>false</strong></code> caso
+	 *         contr&aacute;rio.
+	 */
+	boolean isIdempotente() {
+		return Boolean.parseBoolean(this.opcoes.get("idempotente"));
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar a validade da resposta no
+	 * {@link TransporteCache cache de respostas}, atrav&eacute;s da
+	 * op&ccedil;&atilde;o <code>cacheTtl</code>.
+	 *
+	 * @param padrao
+	 *            Valor global, utilizado caso a op&ccedil;&atilde;o n&atilde;o
+	 *            tenha sido informada ou seja inv&aacute;lida.
+	 *
+	 * @return A validade, em segundos. Zero indica que a resposta n&atilde;o deve
+	 *         ser armazenada nem recuperada do cache.
+	 */
+	int getCacheTtl(final int padrao) {
+		return this.recuperarOpcaoInteira("cacheTtl", padrao);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por indicar se o envelope deve ser enviado
+	 * compactado com <i>gzip</i>, atrav&eacute;s da op&ccedil;&atilde;o
+	 * <code>compressao=gzip</code>.
+	 *
+	 * @return O intr&iacute;nseco <code><strong>boolean</strong></code> contendo o
+	 *         valor <code><strong>true</strong></code> caso a op&ccedil;&atilde;o
+	 *         esteja presente ou <code><strong>false</strong></code> caso
+	 *         contr&aacute;rio.
+	 */
+	boolean isCompressaoRequisicao() {
+		return "gzip".equalsIgnoreCase(this.opcoes.get("compressao"));
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por registrar que a resposta veio do
+	 * {@link TransporteCache cache de respostas} ou de uma
+	 * requisi&ccedil;&atilde;o id&ecirc;ntica simult&acirc;nea.
+	 */
+	void marcarRespondidaCache() {
+		this.respondidaCache = true;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por indicar se a resposta veio do
+	 * {@link TransporteCache cache de respostas}, caso em que a lat&ecirc;ncia
+	 * n&atilde;o reflete o endpoint.
+	 *
+	 * @return O intr&iacute;nseco <code><strong>boolean</strong></code> contendo o
+	 *         valor <code><strong>true</strong></code> caso n&atilde;o tenha
+	 *         havido chamada remota ou <code><strong>false</strong></code> caso
+	 *         contr&aacute;rio.
+	 */
+	boolean isRespondidaCache() {
+		return this.respondidaCache;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por recuperar uma op&ccedil;&atilde;o
+	 * num&eacute;rica n&atilde;o negativa.
+	 *
+	 * @param chave
+	 *            Chave da op&ccedil;&atilde;o.
+	 * @param padrao
+	 *            Valor utilizado caso a op&ccedil;&atilde;o n&atilde;o tenha sido
+	 *            informada ou seja inv&aacute;lida.
+	 *
+	 * @return O valor da op&ccedil;&atilde;o ou o padr&atilde;o.
+	 */
+	private int recuperarOpcaoInteira(final String chave, final int padrao) {
+		final String valor = this.opcoes.get(chave);
+		if (valor == null) {
+			return padrao;
+		}
+
+		try {
+			final int numero = Integer.parseInt(valor);
+			return numero < 0 ? padrao : numero;
+		} catch (final NumberFormatException e) {
+			return padrao;
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar o tamanho, em bytes, do
+	 * envelope SOAP.
+	 *
+	 * @return O tamanho do envelope SOAP.
+	 *
+	 * @throws IOException
+	 *             Lan&ccedil;ada pelo m&eacute;todo {@link FileChannel#size()} ou
+	 *             na montagem do {@link ArquivoRequisicao#getModelo() modelo}.
+	 */
+	long getTamanhoCorpo() throws IOException {
+		final byte[] modelo = this.getCorpoModelo();
+		return modelo == null ? this.getTamanhoArquivo() : modelo.length;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar o tamanho, em bytes, do
+	 * trecho do arquivo ap&oacute;s a linha de configura&ccedil;&otilde;es: o
+	 * envelope SOAP ou, com modelo, os par&acirc;metros.
+	 *
+	 * @return O tamanho do trecho.
+	 *
+	 * @throws IOException
+	 *             Lan&ccedil;ada pelo m&eacute;todo {@link FileChannel#size()}.
+	 */
+	private long getTamanhoArquivo() throws IOException {
+		return (this.fimCorpo < 0L ? this.canal.size() : this.fimCorpo) - this.inicioCorpo;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar o tamanho, em bytes, do corpo
+	 * HTTP enviado pelos transportes que n&atilde;o interpretam o envelope: o
+	 * pr&oacute;prio envelope ou, com anexos, a mensagem {@link CorpoMtom MTOM}.
+	 *
+	 * @return O tamanho do corpo HTTP.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel ler o arquivo ou abrir os
+	 *             anexos.
+	 */
+	long getTamanhoEnvio() throws IOException {
+		return this.isMtom() ? this.getCorpoMtom().getTamanho() : this.getTamanhoCorpo();
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar o tipo de conte&uacute;do do
+	 * corpo HTTP enviado pelos transportes que n&atilde;o interpretam o envelope.
+	 *
+	 * @return O {@link ArquivoRequisicao#getTipoConteudo() tipo de
+	 *         conte&uacute;do} do envelope ou, com anexos, o da mensagem
+	 *         {@link CorpoMtom MTOM}.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel abrir os anexos.
+	 */
+	String getTipoConteudoEnvio() throws IOException {
+		return this.isMtom() ? this.getCorpoMtom().getTipoConteudo() : this.getTipoConteudo();
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por abrir um fluxo com o corpo HTTP
+	 * enviado pelos transportes que n&atilde;o interpretam o envelope.
+	 *
+	 * @return O fluxo com o {@link ArquivoRequisicao#abrirCorpo() envelope} ou,
+	 *         com anexos, com a mensagem {@link CorpoMtom MTOM}.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel abrir os anexos.
+	 */
+	InputStream abrirEnvio() throws IOException {
+		return this.isMtom() ? this.getCorpoMtom().abrir() : this.abrirCorpo();
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por ler um trecho do corpo HTTP enviado
+	 * pelos transportes que n&atilde;o interpretam o envelope.
+	 *
+	 * @param destino
+	 *            <i>Buffer</i> que receber&aacute; os bytes lidos.
+	 * @param deslocamento
+	 *            Posi&ccedil;&atilde;o, em bytes, relativa ao in&iacute;cio do
+	 *            corpo.
+	 *
+	 * @return A quantidade de bytes lidos ou <code>-1</code> no fim do corpo.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel ler o arquivo ou os
+	 *             anexos.
+	 *
+	 * @see ArquivoRequisicao#lerCorpo(ByteBuffer, long)
+	 */
+	int lerEnvio(final ByteBuffer destino, final long deslocamento) throws IOException {
+		return this.isMtom() ? this.getCorpoMtom().ler(destino, deslocamento) : this.lerCorpo(destino, deslocamento);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar o corpo MTOM, abrindo os
+	 * anexos no primeiro uso. O mesmo corpo &eacute; compartilhado pelos envios
+	 * concorrentes da requisi&ccedil;&atilde;o, pois todas as leituras s&atilde;o
+	 * posicionais.
+	 *
+	 * @return O corpo MTOM.
+	 *
+	 * @throws IOException
+	 *             Caso algum anexo n&atilde;o possa ser aberto.
+	 */
+	private synchronized CorpoMtom getCorpoMtom() throws IOException {
+		if (this.corpoMtom == null) {
+			this.corpoMtom = new CorpoMtom(this);
+			synchronized (this.recursos) {
+				this.recursos.add(this.corpoMtom);
+			}
+		}
+
+		return this.corpoMtom;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por abrir um fluxo com o envelope SOAP
+	 * lido diretamente do arquivo, a partir da segunda linha. Cada fluxo mant&eacute;m
+	 * a sua pr&oacute;pria posi&ccedil;&atilde;o, sem alterar a do canal, de
+	 * maneira que o mesmo envelope possa ser enviado mais de uma vez ao mesmo
+	 * tempo.
+	 *
+	 * @return O fluxo com o envelope SOAP. N&atilde;o precisa ser fechado, pois o
+	 *         canal &eacute; fechado junto com este objeto.
+	 *
+	 * @see ArquivoRequisicao#lerCorpo(ByteBuffer, long)
+	 */
+	InputStream abrirCorpo() {
+		return new FluxoCorpo();
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por ler um trecho do envelope SOAP
+	 * diretamente do arquivo sem alterar a posi&ccedil;&atilde;o do canal,
+	 * permitindo que o mesmo seja enviado em blocos por transportes
+	 * n&atilde;o bloqueantes.
+	 *
+	 * @param destino
+	 *            <i>Buffer</i> que receber&aacute; os bytes lidos.
+	 * @param deslocamento
+	 *            Posi&ccedil;&atilde;o, em bytes, relativa ao in&iacute;cio do
+	 *            envelope SOAP.
+	 *
+	 * @return A quantidade de bytes lidos ou <code>-1</code> no fim do arquivo.
+	 *
+	 * @throws IOException
+	 *             Lan&ccedil;ada pelo m&eacute;todo
+	 *             {@link FileChannel#read(ByteBuffer, long)} ou na montagem do
+	 *             {@link ArquivoRequisicao#getModelo() modelo}.
+	 */
+	int lerCorpo(final ByteBuffer destino, final long deslocamento) throws IOException {
+		final byte[] modelo = this.getCorpoModelo();
+		if (modelo == null) {
+			return this.lerArquivo(destino, deslocamento);
+		}
+
+		if (deslocamento >= modelo.length) {
+			return -1;
+		}
+
+		final int lidos = (int) Math.min(destino.remaining(), modelo.length - deslocamento);
+		destino.put(modelo, (int) deslocamento, lidos);
+		return lidos;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por ler um trecho do arquivo ap&oacute;s a
+	 * linha de configura&ccedil;&otilde;es sem alterar a posi&ccedil;&atilde;o do
+	 * canal.
+	 *
+	 * @param destino
+	 *            <i>Buffer</i> que receber&aacute; os bytes lidos.
+	 * @param deslocamento
+	 *            Posi&ccedil;&atilde;o, em bytes, relativa ao in&iacute;cio do
+	 *            trecho.
+	 *
+	 * @return A quantidade de bytes lidos ou <code>-1</code> no fim do trecho.
+	 *
+	 * @throws IOException
+	 *             Lan&ccedil;ada pelo m&eacute;todo
+	 *             {@link FileChannel#read(ByteBuffer, long)}.
+	 */
+	private int lerArquivo(final ByteBuffer destino, final long deslocamento) throws IOException {
+		if (this.fimCorpo < 0L) {
+			return this.canal.read(destino, this.inicioCorpo + deslocamento);
+		}
+
+		// Nos envelopes de um lote a leitura não pode avançar sobre o próximo
+		// envelope.
+		final long restante = this.fimCorpo - this.inicioCorpo - deslocamento;
+		if (restante <= 0L) {
+			return -1;
+		}
+
+		if (destino.remaining() <= restante) {
+			return this.canal.read(destino, this.inicioCorpo + deslocamento);
+		}
+
+		final ByteBuffer limitado = destino.duplicate();
+		limitado.limit(limitado.position() + (int) restante);
+		final int lidos = this.canal.read(limitado, this.inicioCorpo + deslocamento);
+		destino.position(limitado.position());
+		return lidos;
+	}
+
+	/**
+	 * Fecha o canal do arquivo e os recursos abertos sob demanda, inclusive os
+	 * dos envelopes de um lote. Nos envelopes de um lote nada acontece, pois o
+	 * canal e os recursos pertencem ao lote.
+	 *
+	 * @throws IOException
+	 *             Lan&ccedil;ada pelo m&eacute;todo {@link FileChannel#close()}.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (this.identificador != null) {
+			return;
+		}
+
+		try {
+			synchronized (this.recursos) {
+				for (final Closeable recurso : this.recursos) {
+					recurso.close();
+				}
+
+				this.recursos.clear();
+			}
+		} finally {
+			this.canal.close();
+		}
+	}
+
+	/**
+	 * Classe respons&aacute;vel por ler o envelope SOAP atrav&eacute;s de
+	 * leituras posicionais do canal, com uma posi&ccedil;&atilde;o pr&oacute;pria.
+	 */
+	private final class FluxoCorpo extends InputStream {
+
+		/**
+		 * Posi&ccedil;&atilde;o, em bytes, relativa ao in&iacute;cio do envelope
+		 * SOAP.
+		 */
+		private long posicao;
+
+		@Override
+		public int read() throws IOException {
+			final byte[] umByte = new byte[1];
+			return this.read(umByte, 0, 1) < 0 ? -1 : umByte[0] & 0xFF;
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+
+			final int lidos = ArquivoRequisicao.this.lerCorpo(ByteBuffer.wrap(b, off, len), this.posicao);
+			if (lidos > 0) {
+				this.posicao += lidos;
+			}
+
+			return lidos;
+		}
+
+		@Override
+		public long skip(final long n) throws IOException {
+			final long pulados = Math.max(0L, Math.min(n, ArquivoRequisicao.this.getTamanhoCorpo() - this.posicao));
+			this.posicao += pulados;
+			return pulados;
+		}
+
+		@Override
+		public int available() throws IOException {
+			return (int) Math.min(Integer.MAX_VALUE, Math.max(0L, ArquivoRequisicao.this.getTamanhoCorpo() - this.posicao));
+		}
+	}
+
+	/**
+	 * Classe respons&aacute;vel por ler as linhas do corpo de um lote, mantendo a
+	 * posi&ccedil;&atilde;o absoluta de cada uma no arquivo e apenas um prefixo
+	 * do seu conte&uacute;do.
+	 */
+	private static final class LeitorLinhas {
+
+		/**
+		 * Fluxo com o corpo do lote.
+		 */
+		private final InputStream entrada;
+
+		/**
+		 * Prefixo da &uacute;ltima linha lida.
+		 */
+		private final byte[] prefixo = new byte[ArquivoRequisicao.TAMANHO_MAXIMO_LINHA_LOTE];
+
+		/**
+		 * Quantidade de bytes do prefixo da &uacute;ltima linha lida.
+		 */
+		private int tamanho;
+
+		/**
+		 * Indica se a &uacute;ltima linha lida excedeu o tamanho do prefixo.
+		 */
+		private boolean truncada;
+
+		/**
+		 * &Uacute;ltimo byte do conte&uacute;do da &uacute;ltima linha lida.
+		 */
+		private int ultimo;
+
+		/**
+		 * Posi&ccedil;&atilde;o absoluta do pr&oacute;ximo byte a ser lido.
+		 */
+		private long posicao;
+
+		/**
+		 * Posi&ccedil;&atilde;o absoluta do fim do conte&uacute;do da &uacute;ltima
+		 * linha lida, sem a quebra de linha.
+		 */
+		private long fimConteudo;
+
+		/**
+		 * Construtor respons&aacute;vel por criar o leitor.
+		 *
+		 * @param entrada
+		 *            Fluxo com o corpo do lote.
+		 * @param posicao
+		 *            Posi&ccedil;&atilde;o absoluta do in&iacute;cio do fluxo.
+		 */
+		LeitorLinhas(final InputStream entrada, final long posicao) {
+			this.entrada = entrada;
+			this.posicao = posicao;
+		}
+
+		/**
+		 * M&eacute;todo respons&aacute;vel por ler a pr&oacute;xima linha.
+		 *
+		 * @return O intr&iacute;nseco <code><strong>boolean</strong></code> contendo
+		 *         o valor <code><strong>false</strong></code> no fim do arquivo.
+		 *
+		 * @throws IOException
+		 *             Caso n&atilde;o seja poss&iacute;vel ler o arquivo.
+		 */
+		boolean proxima() throws IOException {
+			this.tamanho = 0;
+			this.truncada = false;
+			this.ultimo = -1;
+			final long inicio = this.posicao;
+			int lido;
+
+			while ((lido = this.entrada.read()) >= 0) {
+				this.posicao++;
+				if (lido == '\n') {
+					this.fimConteudo = this.posicao - 1L;
+					this.descontarRetorno();
+					return true;
+				}
+
+				if (this.tamanho < this.prefixo.length) {
+					this.prefixo[this.tamanho++] = (byte) lido;
+				} else {
+					this.truncada = true;
+				}
+
+				this.ultimo = lido;
+			}
+
+			this.fimConteudo = this.posicao;
+			this.descontarRetorno();
+			return this.posicao > inicio;
+		}
+
+		/**
+		 * M&eacute;todo respons&aacute;vel por desconsiderar o <code>\r</code>
+		 * final das linhas de arquivos gerados no Windows.
+		 */
+		private void descontarRetorno() {
+			if (this.ultimo == '\r') {
+				this.fimConteudo--;
+			}
+		}
+
+		/**
+		 * M&eacute;todo respons&aacute;vel por indicar se a &uacute;ltima linha lida
+		 * come&ccedil;a com os bytes informados.
+		 *
+		 * @param inicio
+		 *            Bytes procurados.
+		 *
+		 * @return O intr&iacute;nseco <code><strong>boolean</strong></code> contendo
+		 *         o valor <code><strong>true</strong></code> caso a linha comece com
+		 *         os bytes ou <code><strong>false</strong></code> caso
+		 *         contr&aacute;rio.
+		 */
+		boolean comecaCom(final byte[] inicio) {
+			if (this.tamanho < inicio.length) {
+				return false;
+			}
+
+			for (int i = 0; i < inicio.length; i++) {
+				if (this.prefixo[i] != inicio[i]) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		/**
+		 * M&eacute;todo respons&aacute;vel por decodificar a &uacute;ltima linha
+		 * lida a partir de uma posi&ccedil;&atilde;o.
+		 *
+		 * @param deslocamento
+		 *            Quantidade de bytes iniciais desconsiderados.
+		 *
+		 * @return O trecho da linha, sem a quebra de linha.
+		 *
+		 * @throws IOException
+		 *             Caso a linha exceda o tamanho m&aacute;ximo.
+		 */
+		String getTexto(final int deslocamento) throws IOException {
+			if (this.truncada) {
+				throw new IOException("Linha do lote maior que " + ArquivoRequisicao.TAMANHO_MAXIMO_LINHA_LOTE + " bytes.");
+			}
+
+			final byte[] trecho = new byte[this.tamanho - deslocamento];
+			System.arraycopy(this.prefixo, deslocamento, trecho, 0, trecho.length);
+			return ArquivoRequisicao.decodificarLinha(trecho);
+		}
+
+		/**
+		 * M&eacute;todo respons&aacute;vel por retornar o fim do conte&uacute;do da
+		 * &uacute;ltima linha lida.
+		 *
+		 * @return A posi&ccedil;&atilde;o absoluta do fim da linha, sem a quebra de
+		 *         linha.
+		 */
+		long getFimConteudo() {
+			return this.fimConteudo;
+		}
+
+		/**
+		 * M&eacute;todo respons&aacute;vel por retornar o in&iacute;cio da
+		 * pr&oacute;xima linha.
+		 *
+		 * @return A posi&ccedil;&atilde;o absoluta do pr&oacute;ximo byte.
+		 */
+		long getInicioProxima() {
+			return this.posicao;
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,532 @@
+package br.com.pgioseffi.requisicoes.soap;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * <p>
+ * Classe respons&aacute;vel por escrever um arquivo de resposta sem que um
+ * consumidor jamais veja o mesmo pela metade.
+ * </p>
+ * <p>
+ * A resposta &eacute; escrita, atrav&eacute;s de um {@link FileChannel} com
+ * <i>buffer</i>, em um arquivo tempor&aacute;rio com a extens&atilde;o
+ * {@link ArquivoResposta#EXTENSAO_TEMPORARIA TMP} no mesmo diret&oacute;rio do
+ * destino e, ao ser {@link ArquivoResposta#confirmar() confirmada}, renomeada
+ * atomicamente para o destino. Desta maneira a resposta n&atilde;o precisa ser
+ * mantida em mem&oacute;ria, independente do seu tamanho.
+ * </p>
+ * <p>
+ * Caso o objeto seja {@link ArquivoResposta#close() fechado} sem ter sido
+ * confirmado, o arquivo tempor&aacute;rio &eacute; exclu&iacute;do.
+ * </p>
+ * <p>
+ * Quando mais de uma tentativa escreve a mesma resposta ao mesmo tempo, cada
+ * uma utiliza uma {@link ArquivoResposta#criarAlternativa(String) resposta
+ * alternativa}, com arquivo tempor&aacute;rio pr&oacute;prio, e a vencedora
+ * &eacute; {@link ArquivoResposta#transferirPara(ArquivoResposta) transferida}
+ * para a resposta original.
+ * </p>
+ * <p>
+ * Os envelopes de um lote utilizam {@link ArquivoResposta#emMemoria()
+ * respostas em mem&oacute;ria}, sem arquivo algum, que s&atilde;o depois
+ * {@link ArquivoResposta#copiarPara(OutputStream) copiadas} para a
+ * {@link RespostaLote resposta do lote}.
+ * </p>
+ * <p>
+ * Uma resposta em arquivo pode ser {@link ArquivoResposta#ArquivoResposta(Path, boolean)
+ * compactada} com <i>gzip</i> enquanto &eacute; escrita, caso em que o destino
+ * recebe o sufixo {@link ArquivoResposta#SUFIXO_GZIP gz}, de maneira que o
+ * consumidor saiba como l&ecirc;-la.
+ * </p>
+ * <p>
+ * As partes de uma resposta MTOM/XOP s&atilde;o escritas, pelo
+ * {@link DivisorMultipart divisor}, em {@link ArquivoResposta#criarAnexo(String)
+ * anexos} ao lado do destino, nunca compactados, que s&atilde;o confirmados e
+ * descartados junto com a pr&oacute;pria resposta.
+ * </p>
+ *
+ * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
+ *         &lt;pgioseffi@gmail.com&gt;</a>
+ *
+ * @since 1.1.0
+ *
+ * @see ExecutaRequisicaoSOAP
+ * @see FileChannel
+ * @see StandardCopyOption#ATOMIC_MOVE
+ */
+final class ArquivoResposta implements Closeable {
+
+	/**
+	 * Constante utilizada para a manipula&ccedil;&atilde;o de arquivos
+	 * tempor&aacute;rios de resposta ainda em escrita.
+	 */
+	static final String EXTENSAO_TEMPORARIA = ".TMP";
+
+	/**
+	 * Sufixo acrescentado ao nome das respostas compactadas com <i>gzip</i>,
+	 * ap&oacute;s a extens&atilde;o
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_RESPONSE RESPONSE}.
+	 */
+	static final String SUFIXO_GZIP = ".gz";
+
+	/**
+	 * Tamanho do <i>buffer</i> de escrita.
+	 */
+	private static final int TAMANHO_BUFFER = 64 * 1024;
+
+	/**
+	 * Caminho absoluto do arquivo de resposta definitivo. Ser&aacute;
+	 * <code><strong>null</strong></code> nas respostas em mem&oacute;ria.
+	 */
+	private final Path destino;
+
+	/**
+	 * Caminho absoluto do arquivo tempor&aacute;rio.
+	 */
+	private final Path temporario;
+
+	/**
+	 * Canal aberto para o arquivo tempor&aacute;rio.
+	 */
+	private final FileChannel canal;
+
+	/**
+	 * Fluxo de escrita no arquivo tempor&aacute;rio ou na mem&oacute;ria.
+	 */
+	private final OutputStream saida;
+
+	/**
+	 * Conte&uacute;do das respostas em mem&oacute;ria. Ser&aacute;
+	 * <code><strong>null</strong></code> nas respostas em arquivo.
+	 */
+	private final ByteArrayOutputStream memoria;
+
+	/**
+	 * Indica se a resposta &eacute; compactada com <i>gzip</i>.
+	 */
+	private final boolean compactada;
+
+	/**
+	 * Sufixo acrescentado ao nome do destino para formar o nome do arquivo
+	 * tempor&aacute;rio, repetido nos anexos.
+	 */
+	private final String sufixoTemporario;
+
+	/**
+	 * Anexos ainda n&atilde;o confirmados da resposta.
+	 */
+	private final List<ArquivoResposta> anexos = new ArrayList<>();
+
+	/**
+	 * Nomes j&aacute; utilizados pelos anexos, de maneira que
+	 * <code>Content-ID</code> diferentes nunca escrevam no mesmo arquivo.
+	 */
+	private final Set<String> nomesAnexos = new HashSet<>();
+
+	/**
+	 * Caminhos absolutos dos anexos confirmados.
+	 */
+	private final List<Path> anexosConfirmados = new ArrayList<>();
+
+	/**
+	 * Tamanho, em bytes, da resposta confirmada.
+	 */
+	private long tamanho;
+
+	/**
+	 * Indica se a resposta j&aacute; foi confirmada.
+	 */
+	private boolean confirmada;
+
+	/**
+	 * Construtor respons&aacute;vel por criar o arquivo tempor&aacute;rio ao lado
+	 * do destino.
+	 *
+	 * @param destino
+	 *            Caminho absoluto do arquivo de resposta definitivo.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel criar o arquivo
+	 *             tempor&aacute;rio.
+	 */
+	ArquivoResposta(final Path destino) throws IOException {
+		this(destino, false);
+	}
+
+	/**
+	 * Construtor respons&aacute;vel por criar o arquivo tempor&aacute;rio ao lado
+	 * do destino, opcionalmente compactando a resposta.
+	 *
+	 * @param destino
+	 *            Caminho absoluto do arquivo de resposta definitivo, sem o sufixo
+	 *            de compress&atilde;o.
+	 * @param compactada
+	 *            Indica se a resposta deve ser compactada com <i>gzip</i>, caso em
+	 *            que o destino recebe o sufixo
+	 *            {@link ArquivoResposta#SUFIXO_GZIP gz}.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel criar o arquivo
+	 *             tempor&aacute;rio.
+	 */
+	ArquivoResposta(final Path destino, final boolean compactada) throws IOException {
+		this(compactada ? destino.resolveSibling(destino.getFileName().toString() + ArquivoResposta.SUFIXO_GZIP) : destino, ArquivoResposta.EXTENSAO_TEMPORARIA, compactada);
+	}
+
+	/**
+	 * Construtor respons&aacute;vel por criar o arquivo tempor&aacute;rio ao lado
+	 * do destino, com o sufixo informado.
+	 *
+	 * @param destino
+	 *            Caminho absoluto do arquivo de resposta definitivo, j&aacute; com
+	 *            o sufixo de compress&atilde;o, quando houver.
+	 * @param sufixoTemporario
+	 *            Sufixo acrescentado ao nome do destino para formar o nome do
+	 *            arquivo tempor&aacute;rio.
+	 * @param compactada
+	 *            Indica se a resposta deve ser compactada com <i>gzip</i>.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel criar o arquivo
+	 *             tempor&aacute;rio.
+	 */
+	private ArquivoResposta(final Path destino, final String sufixoTemporario, final boolean compactada) throws IOException {
+		this.destino = destino;
+		this.temporario = destino.resolveSibling(destino.getFileName().toString() + sufixoTemporario);
+		this.canal = FileChannel.open(this.temporario, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		this.compactada = compactada;
+		this.sufixoTemporario = sufixoTemporario;
+		this.memoria = null;
+
+		// O buffer fica antes do compactador para que escritas pequenas não
+		// cheguem uma a uma ao Deflater.
+		final OutputStream arquivo = Channels.newOutputStream(this.canal);
+		this.saida = new BufferedOutputStream(compactada ? new GZIPOutputStream(arquivo, ArquivoResposta.TAMANHO_BUFFER) : arquivo, ArquivoResposta.TAMANHO_BUFFER);
+	}
+
+	/**
+	 * Construtor respons&aacute;vel por criar uma resposta em mem&oacute;ria.
+	 *
+	 * @see ArquivoResposta#emMemoria()
+	 */
+	private ArquivoResposta() {
+		this.destino = null;
+		this.temporario = null;
+		this.canal = null;
+		this.compactada = false;
+		this.sufixoTemporario = null;
+		this.memoria = new ByteArrayOutputStream();
+		this.saida = this.memoria;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por criar uma resposta mantida apenas em
+	 * mem&oacute;ria, utilizada pelos envelopes de um lote, cujas respostas
+	 * s&atilde;o pequenas e acabam reunidas em um &uacute;nico arquivo, e pelo
+	 * cache de respostas, que copia a mesma resposta para diversos arquivos.
+	 *
+	 * @return A resposta em mem&oacute;ria.
+	 *
+	 * @see RespostaLote
+	 * @see TransporteCache
+	 */
+	static ArquivoResposta emMemoria() {
+		return new ArquivoResposta();
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por indicar se a resposta &eacute;
+	 * mantida em mem&oacute;ria.
+	 *
+	 * @return O intr&iacute;nseco <code><strong>boolean</strong></code> contendo o
+	 *         valor <code><strong>true</strong></code> caso a resposta seja em
+	 *         mem&oacute;ria ou <code><strong>false</strong></code> caso seja em
+	 *         arquivo.
+	 */
+	boolean isEmMemoria() {
+		return this.memoria != null;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar o fluxo de escrita da
+	 * resposta.
+	 *
+	 * @return O fluxo de escrita no arquivo tempor&aacute;rio. N&atilde;o deve ser
+	 *         fechado por quem o utiliza.
+	 */
+	OutputStream getSaida() {
+		return this.saida;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por criar um anexo da resposta, escrito em
+	 * um arquivo ao lado do destino com o nome da requisi&ccedil;&atilde;o, o
+	 * <code>Content-ID</code> da parte e a extens&atilde;o
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_ANEXO ANEXO}.
+	 *
+	 * @param contentId
+	 *            <code>Content-ID</code> da parte. Caracteres que n&atilde;o
+	 *            possam compor um nome de arquivo s&atilde;o substitu&iacute;dos.
+	 *
+	 * @return O anexo, que n&atilde;o deve ser confirmado nem fechado por quem o
+	 *         criou.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel criar o arquivo
+	 *             tempor&aacute;rio.
+	 * @throws IllegalStateException
+	 *             Caso a resposta seja em mem&oacute;ria.
+	 */
+	ArquivoResposta criarAnexo(final String contentId) throws IOException {
+		if (this.memoria != null) {
+			throw new IllegalStateException("Resposta em mem\u00F3ria n\u00E3o possui anexos.");
+		}
+
+		final String base = StringUtils.removeEnd(StringUtils.removeEnd(this.destino.getFileName().toString(), ArquivoResposta.SUFIXO_GZIP), ExecutaRequisicaoSOAP.EXTENSAO_RESPONSE);
+		final String identificador = StringUtils.strip(contentId, "<>").replaceAll("[^A-Za-z0-9@._-]", "_");
+
+		String nome = base + identificador + ExecutaRequisicaoSOAP.EXTENSAO_ANEXO;
+		for (int i = 2; !this.nomesAnexos.add(nome); i++) {
+			nome = base + identificador + '_' + i + ExecutaRequisicaoSOAP.EXTENSAO_ANEXO;
+		}
+
+		final ArquivoResposta anexo = new ArquivoResposta(this.destino.resolveSibling(nome), this.sufixoTemporario, false);
+		this.anexos.add(anexo);
+		return anexo;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar os anexos confirmados junto
+	 * com a resposta.
+	 *
+	 * @return Os caminhos absolutos dos anexos ou uma lista vazia.
+	 */
+	List<Path> getAnexos() {
+		return Collections.unmodifiableList(this.anexosConfirmados);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por criar uma resposta alternativa para o
+	 * mesmo destino, com um arquivo tempor&aacute;rio pr&oacute;prio, para uma
+	 * tentativa concorrente de obter a mesma resposta.
+	 *
+	 * @param identificador
+	 *            Identificador da tentativa, utilizado no nome do arquivo
+	 *            tempor&aacute;rio.
+	 *
+	 * @return A resposta alternativa.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel criar o arquivo
+	 *             tempor&aacute;rio.
+	 */
+	ArquivoResposta criarAlternativa(final String identificador) throws IOException {
+		if (this.memoria != null) {
+			return new ArquivoResposta();
+		}
+
+		return new ArquivoResposta(this.destino, '.' + identificador + ArquivoResposta.EXTENSAO_TEMPORARIA, this.compactada);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por substituir o conte&uacute;do ainda
+	 * n&atilde;o confirmado de outra resposta pelo conte&uacute;do desta. Ambos os
+	 * fluxos de escrita s&atilde;o fechados, de maneira que nada mais seja escrito
+	 * em nenhuma das duas, e esta resposta passa a ser considerada confirmada.
+	 *
+	 * @param outra
+	 *            Resposta que receber&aacute; o conte&uacute;do e que ainda
+	 *            dever&aacute; ser confirmada.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel fechar ou renomear os
+	 *             arquivos tempor&aacute;rios.
+	 */
+	void transferirPara(final ArquivoResposta outra) throws IOException {
+		if (this.memoria != null) {
+			outra.memoria.reset();
+			this.memoria.writeTo(outra.memoria);
+			this.confirmada = true;
+			return;
+		}
+
+		this.saida.close();
+		outra.saida.close();
+
+		// Os anexos da outra resposta são descartados e os desta passam a ser dela.
+		for (final ArquivoResposta anexo : outra.anexos) {
+			anexo.close();
+		}
+
+		outra.anexos.clear();
+		outra.anexos.addAll(this.anexos);
+		this.anexos.clear();
+
+		try {
+			Files.move(this.temporario, outra.temporario, StandardCopyOption.ATOMIC_MOVE);
+		} catch (final AtomicMoveNotSupportedException e) {
+			Files.move(this.temporario, outra.temporario, StandardCopyOption.REPLACE_EXISTING);
+		}
+
+		this.confirmada = true;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por fechar o arquivo tempor&aacute;rio e
+	 * renome&aacute;-lo atomicamente para o destino, substituindo-o caso
+	 * j&aacute; exista.
+	 *
+	 * @return O caminho absoluto do arquivo de resposta definitivo.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel fechar ou renomear o
+	 *             arquivo tempor&aacute;rio.
+	 * @throws IllegalStateException
+	 *             Caso a resposta seja em mem&oacute;ria.
+	 */
+	Path confirmar() throws IOException {
+		if (this.memoria != null) {
+			throw new IllegalStateException("Resposta em mem\u00F3ria n\u00E3o possui arquivo de destino.");
+		}
+
+		// Os anexos são confirmados antes para que, ao aparecer, a resposta já
+		// esteja completa.
+		for (final ArquivoResposta anexo : this.anexos) {
+			this.anexosConfirmados.add(anexo.confirmar());
+		}
+
+		this.anexos.clear();
+
+		// O fechamento escreve o rodapé da compressão e o canal pode já ter sido fechado
+		// por uma transferência, então o tamanho é lido do próprio arquivo.
+		this.saida.close();
+		this.tamanho = Files.size(this.temporario);
+
+		try {
+			Files.move(this.temporario, this.destino, StandardCopyOption.ATOMIC_MOVE);
+		} catch (final AtomicMoveNotSupportedException e) {
+			Files.move(this.temporario, this.destino, StandardCopyOption.REPLACE_EXISTING);
+		}
+
+		this.confirmada = true;
+		return this.destino;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar o tamanho da resposta.
+	 *
+	 * @return O tamanho, em bytes, da resposta confirmada, ap&oacute;s a
+	 *         compress&atilde;o, ou zero caso a mesma ainda n&atilde;o tenha sido
+	 *         confirmada.
+	 */
+	long getTamanho() {
+		return this.memoria != null ? this.memoria.size() : this.tamanho;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por copiar o conte&uacute;do de uma
+	 * resposta em mem&oacute;ria.
+	 *
+	 * @param destino
+	 *            Fluxo que receber&aacute; o conte&uacute;do.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel escrever no destino.
+	 * @throws IllegalStateException
+	 *             Caso a resposta seja em arquivo.
+	 */
+	void copiarPara(final OutputStream destino) throws IOException {
+		if (this.memoria == null) {
+			throw new IllegalStateException("Resposta em arquivo n\u00E3o pode ser copiada.");
+		}
+
+		this.memoria.writeTo(destino);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar uma c&oacute;pia do
+	 * conte&uacute;do de uma resposta em mem&oacute;ria.
+	 *
+	 * @return Os bytes da resposta.
+	 *
+	 * @throws IllegalStateException
+	 *             Caso a resposta seja em arquivo.
+	 */
+	byte[] getConteudo() {
+		if (this.memoria == null) {
+			throw new IllegalStateException("Resposta em arquivo n\u00E3o pode ser copiada.");
+		}
+
+		return this.memoria.toByteArray();
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por sobrescrever um trecho j&aacute;
+	 * escrito do arquivo tempor&aacute;rio, sem alterar a posi&ccedil;&atilde;o
+	 * de escrita do fluxo.
+	 *
+	 * @param posicao
+	 *            Posi&ccedil;&atilde;o, em bytes, do in&iacute;cio do trecho.
+	 * @param dados
+	 *            Bytes que substituir&atilde;o o trecho.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel escrever no arquivo.
+	 * @throws IllegalStateException
+	 *             Caso a resposta seja compactada, pois as posi&ccedil;&otilde;es
+	 *             no arquivo n&atilde;o correspondem &agrave;s do conte&uacute;do.
+	 */
+	void sobrescrever(final long posicao, final byte[] dados) throws IOException {
+		if (this.compactada) {
+			throw new IllegalStateException("Resposta compactada n\u00E3o pode ser sobrescrita.");
+		}
+
+		// O buffer é descarregado antes para que a escrita posicional não seja
+		// sobrescrita depois por bytes ainda pendentes.
+		this.saida.flush();
+
+		final ByteBuffer bytes = ByteBuffer.wrap(dados);
+		while (bytes.hasRemaining()) {
+			this.canal.write(bytes, posicao + bytes.position());
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (this.confirmada || this.memoria != null) {
+			return;
+		}
+
+		try {
+			for (final ArquivoResposta anexo : this.anexos) {
+				anexo.close();
+			}
+		} finally {
+			try {
+				this.saida.close();
+			} finally {
+				Files.deleteIfExists(this.temporario);
+			}
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,357 @@
+package br.com.pgioseffi.requisicoes.soap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * <p>
+ * Classe respons&aacute;vel por armazenar as respostas SOAP indexadas pelo
+ * conte&uacute;do das requisi&ccedil;&otilde;es, isto &eacute;, pelo
+ * <i>hash</i> SHA-256 da linha de configura&ccedil;&otilde;es (URL,
+ * credenciais e op&ccedil;&otilde;es) e do envelope SOAP.
+ * </p>
+ * <p>
+ * As respostas s&atilde;o mantidas em mem&oacute;ria at&eacute; o tamanho
+ * m&aacute;ximo configurado, descartando as menos utilizadas recentemente, e,
+ * opcionalmente, em um diret&oacute;rio, um arquivo por resposta, cuja data de
+ * modifica&ccedil;&atilde;o &eacute; o instante de expira&ccedil;&atilde;o,
+ * assim como nos arquivos <code>RETRY</code>. Desta maneira as respostas em
+ * disco sobrevivem ao rein&iacute;cio do rob&ocirc; e s&atilde;o
+ * compartilhadas entre inst&acirc;ncias que utilizem o mesmo diret&oacute;rio.
+ * </p>
+ * <p>
+ * Respostas maiores que o tamanho m&aacute;ximo por entrada n&atilde;o
+ * s&atilde;o armazenadas.
+ * </p>
+ *
+ * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
+ *         &lt;pgioseffi@gmail.com&gt;</a>
+ *
+ * @since 1.1.0
+ *
+ * @see TransporteCache
+ */
+final class CacheRespostas {
+
+	/**
+	 * Constante utilizada para manter o {@link Logger log} da classe.
+	 *
+	 * @see Logger
+	 */
+	private static final Logger LOGGER = LogManager.getLogger(CacheRespostas.class);
+
+	/**
+	 * Extens&atilde;o dos arquivos de resposta no diret&oacute;rio do cache.
+	 */
+	private static final String EXTENSAO = ".CACHE";
+
+	/**
+	 * Tamanho dos blocos lidos do envelope SOAP no c&aacute;lculo da chave.
+	 */
+	private static final int TAMANHO_BLOCO = 8192;
+
+	/**
+	 * Tamanho m&aacute;ximo, em bytes, das respostas mantidas em mem&oacute;ria.
+	 */
+	private final long maximoBytes;
+
+	/**
+	 * Tamanho m&aacute;ximo, em bytes, de uma resposta armazenada.
+	 */
+	private final long maximoBytesEntrada;
+
+	/**
+	 * Diret&oacute;rio das respostas em disco ou
+	 * <code><strong>null</strong></code> caso o cache seja apenas em
+	 * mem&oacute;ria.
+	 */
+	private final Path diretorio;
+
+	/**
+	 * Respostas em mem&oacute;ria, na ordem de acesso. O acesso &eacute;
+	 * sincronizado pela pr&oacute;pria inst&acirc;ncia.
+	 */
+	private final LinkedHashMap<String, Entrada> entradas = new LinkedHashMap<>(16, 0.75F, true);
+
+	/**
+	 * Soma dos tamanhos das respostas em mem&oacute;ria.
+	 */
+	private long bytes;
+
+	/**
+	 * Construtor respons&aacute;vel por criar o cache.
+	 *
+	 * @param maximoBytes
+	 *            Tamanho m&aacute;ximo, em bytes, das respostas mantidas em
+	 *            mem&oacute;ria.
+	 * @param maximoBytesEntrada
+	 *            Tamanho m&aacute;ximo, em bytes, de uma resposta armazenada.
+	 * @param diretorio
+	 *            Diret&oacute;rio das respostas em disco ou
+	 *            <code><strong>null</strong></code> para um cache apenas em
+	 *            mem&oacute;ria.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel criar o diret&oacute;rio.
+	 */
+	CacheRespostas(final long maximoBytes, final long maximoBytesEntrada, final Path diretorio) throws IOException {
+		this.maximoBytes = Math.max(0L, maximoBytes);
+		this.maximoBytesEntrada = Math.max(0L, maximoBytesEntrada);
+		this.diretorio = diretorio;
+
+		if (diretorio != null) {
+			Files.createDirectories(diretorio);
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por calcular a chave de uma
+	 * requisi&ccedil;&atilde;o, lendo o envelope SOAP sem alterar a
+	 * posi&ccedil;&atilde;o do arquivo.
+	 *
+	 * @param requisicao
+	 *            Arquivo de requisi&ccedil;&atilde;o aberto.
+	 *
+	 * @return O <i>hash</i> SHA-256, em hexadecimal, da linha de
+	 *         configura&ccedil;&otilde;es e do envelope.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel ler o envelope.
+	 */
+	static String calcularChave(final ArquivoRequisicao requisicao) throws IOException {
+		final MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (final NoSuchAlgorithmException e) {
+			// Toda JVM é obrigada a oferecer o SHA-256.
+			throw new IllegalStateException(e);
+		}
+
+		digest.update(requisicao.getConfiguracoes().getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) '\n');
+
+		final byte[] bloco = new byte[CacheRespostas.TAMANHO_BLOCO];
+		try (InputStream corpo = requisicao.abrirCorpo()) {
+			int lidos;
+			while ((lidos = corpo.read(bloco)) >= 0) {
+				digest.update(bloco, 0, lidos);
+			}
+		}
+
+		return Hex.encodeHexString(digest.digest());
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por recuperar uma resposta ainda
+	 * v&aacute;lida, procurando primeiro em mem&oacute;ria e depois em disco.
+	 * As respostas encontradas em disco passam a ser mantidas em mem&oacute;ria.
+	 *
+	 * @param chave
+	 *            Chave da requisi&ccedil;&atilde;o.
+	 *
+	 * @return A resposta ou <code><strong>null</strong></code> caso a mesma
+	 *         n&atilde;o exista ou esteja vencida.
+	 */
+	byte[] recuperar(final String chave) {
+		final long agora = System.currentTimeMillis();
+
+		synchronized (this) {
+			final Entrada entrada = this.entradas.get(chave);
+			if (entrada != null) {
+				if (entrada.expiracao > agora) {
+					return entrada.conteudo;
+				}
+
+				this.remover(chave);
+			}
+		}
+
+		if (this.diretorio == null) {
+			return null;
+		}
+
+		final Path arquivo = this.diretorio.resolve(chave + CacheRespostas.EXTENSAO);
+		try {
+			final long expiracao = Files.getLastModifiedTime(arquivo).toMillis();
+			if (expiracao <= agora) {
+				Files.deleteIfExists(arquivo);
+				return null;
+			}
+
+			final byte[] conteudo = Files.readAllBytes(arquivo);
+			this.armazenarMemoria(chave, conteudo, expiracao);
+			return conteudo;
+		} catch (final NoSuchFileException e) {
+			return null;
+		} catch (final IOException e) {
+			CacheRespostas.LOGGER.warn("Erro ao ler resposta do cache " + arquivo.getFileName() + ". ERRO: " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por armazenar uma resposta.
+	 *
+	 * @param chave
+	 *            Chave da requisi&ccedil;&atilde;o.
+	 * @param conteudo
+	 *            Resposta SOAP.
+	 * @param validadeMillis
+	 *            Tempo, em milissegundos, durante o qual a resposta pode ser
+	 *            reutilizada.
+	 */
+	void armazenar(final String chave, final byte[] conteudo, final long validadeMillis) {
+		if (conteudo.length > this.maximoBytesEntrada) {
+			return;
+		}
+
+		final long expiracao = System.currentTimeMillis() + validadeMillis;
+		this.armazenarMemoria(chave, conteudo, expiracao);
+
+		if (this.diretorio == null) {
+			return;
+		}
+
+		// Assim como as respostas, o arquivo só aparece com o nome definitivo quando
+		// completo, para que outra instância nunca leia uma resposta pela metade.
+		final Path arquivo = this.diretorio.resolve(chave + CacheRespostas.EXTENSAO);
+		try {
+			final Path temporario = Files.createTempFile(this.diretorio, chave, ".tmp");
+			try {
+				Files.write(temporario, conteudo);
+				Files.setLastModifiedTime(temporario, FileTime.fromMillis(expiracao));
+				Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} finally {
+				Files.deleteIfExists(temporario);
+			}
+		} catch (final IOException e) {
+			CacheRespostas.LOGGER.warn("Erro ao gravar resposta do cache " + arquivo.getFileName() + ". ERRO: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por armazenar uma resposta em
+	 * mem&oacute;ria, descartando as menos utilizadas recentemente enquanto o
+	 * tamanho m&aacute;ximo for excedido.
+	 *
+	 * @param chave
+	 *            Chave da requisi&ccedil;&atilde;o.
+	 * @param conteudo
+	 *            Resposta SOAP.
+	 * @param expiracao
+	 *            Instante, em milissegundos, da expira&ccedil;&atilde;o.
+	 */
+	private synchronized void armazenarMemoria(final String chave, final byte[] conteudo, final long expiracao) {
+		if (conteudo.length > this.maximoBytes) {
+			return;
+		}
+
+		this.remover(chave);
+		this.entradas.put(chave, new Entrada(conteudo, expiracao));
+		this.bytes += conteudo.length;
+
+		final Iterator<Entrada> iterator = this.entradas.values().iterator();
+		while (this.bytes > this.maximoBytes && iterator.hasNext()) {
+			this.bytes -= iterator.next().conteudo.length;
+			iterator.remove();
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por remover uma resposta da mem&oacute;ria.
+	 * Deve ser chamado com o monitor da inst&acirc;ncia.
+	 *
+	 * @param chave
+	 *            Chave da requisi&ccedil;&atilde;o.
+	 */
+	private void remover(final String chave) {
+		final Entrada entrada = this.entradas.remove(chave);
+		if (entrada != null) {
+			this.bytes -= entrada.conteudo.length;
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por excluir as respostas vencidas da
+	 * mem&oacute;ria e do disco, chamado periodicamente pelo rob&ocirc;.
+	 *
+	 * @return A quantidade de respostas exclu&iacute;das.
+	 */
+	int removerVencidas() {
+		final long agora = System.currentTimeMillis();
+		int removidas = 0;
+
+		synchronized (this) {
+			for (final Iterator<Map.Entry<String, Entrada>> iterator = this.entradas.entrySet().iterator(); iterator.hasNext();) {
+				final Entrada entrada = iterator.next().getValue();
+				if (entrada.expiracao <= agora) {
+					this.bytes -= entrada.conteudo.length;
+					iterator.remove();
+					removidas++;
+				}
+			}
+		}
+
+		if (this.diretorio == null) {
+			return removidas;
+		}
+
+		try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(this.diretorio, "*" + CacheRespostas.EXTENSAO)) {
+			for (final Path arquivo : arquivos) {
+				if (Files.getLastModifiedTime(arquivo).toMillis() <= agora && Files.deleteIfExists(arquivo)) {
+					removidas++;
+				}
+			}
+		} catch (final IOException e) {
+			CacheRespostas.LOGGER.warn("Erro ao excluir respostas vencidas do cache. ERRO: " + e.getMessage());
+		}
+
+		return removidas;
+	}
+
+	/**
+	 * Classe respons&aacute;vel por manter uma resposta em mem&oacute;ria e a sua
+	 * expira&ccedil;&atilde;o.
+	 */
+	private static final class Entrada {
+
+		/**
+		 * Resposta SOAP.
+		 */
+		private final byte[] conteudo;
+
+		/**
+		 * Instante, em milissegundos, da expira&ccedil;&atilde;o.
+		 */
+		private final long expiracao;
+
+		/**
+		 * Construtor respons&aacute;vel por criar a entrada.
+		 *
+		 * @param conteudo
+		 *            Resposta SOAP.
+		 * @param expiracao
+		 *            Instante, em milissegundos, da expira&ccedil;&atilde;o.
+		 */
+		private Entrada(final byte[] conteudo, final long expiracao) {
+			this.conteudo = conteudo;
+			this.expiracao = expiracao;
+		}
+	}
+}
\ No newline at end of file
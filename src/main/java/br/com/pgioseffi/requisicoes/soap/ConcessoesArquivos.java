@@ -0,0 +1,244 @@
+package br.com.pgioseffi.requisicoes.soap;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * <p>
+ * Classe respons&aacute;vel por coordenar, atrav&eacute;s de concess&otilde;es
+ * (<i>leases</i>), diversos rob&ocirc;s, possivelmente em m&aacute;quinas
+ * diferentes, atendendo o mesmo diret&oacute;rio compartilhado.
+ * </p>
+ * <p>
+ * Cada reivindica&ccedil;&atilde;o &eacute; uma
+ * {@link ExecutaRequisicaoSOAP#renomearSemSubstituir(Path, Path)
+ * renomea&ccedil;&atilde;o at&ocirc;mica que nunca substitui o destino} para um arquivo {@link ExecutaRequisicaoSOAP#EXTENSAO_DOING
+ * DOING} cujo nome carrega o identificador do n&oacute; e cuja data de
+ * modifica&ccedil;&atilde;o &eacute; o vencimento da concess&atilde;o, da mesma
+ * maneira que os arquivos <code>RETRY</code> guardam o instante da
+ * pr&oacute;xima tentativa. Uma <i>thread</i> pr&oacute;pria renova
+ * periodicamente as concess&otilde;es do n&oacute;, de maneira que apenas as
+ * concess&otilde;es de um n&oacute; interrompido vencem e s&atilde;o
+ * devolvidas como pendentes por qualquer outro n&oacute;.
+ * </p>
+ * <p>
+ * Como o vencimento &eacute; comparado com o rel&oacute;gio de outro n&oacute;,
+ * a diferen&ccedil;a entre os rel&oacute;gios deve ser menor que a
+ * diferen&ccedil;a entre a dura&ccedil;&atilde;o e o intervalo de
+ * renova&ccedil;&atilde;o. Um n&oacute; que perde a sua concess&atilde;o
+ * apenas deixa de concluir o arquivo, que ser&aacute; enviado novamente por
+ * outro n&oacute;.
+ * </p>
+ *
+ * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
+ *         &lt;pgioseffi@gmail.com&gt;</a>
+ *
+ * @since 1.1.0
+ *
+ * @see ExecutaRequisicaoSOAP
+ * @see ExecutaRequisicaoSOAP#renomearSemSubstituir(Path, Path)
+ * @see Files#setLastModifiedTime(Path, FileTime)
+ */
+final class ConcessoesArquivos implements Closeable {
+
+	/**
+	 * Constante utilizada para gerar os logs da classe.
+	 *
+	 * @see LogManager
+	 * @see LogManager#getLogger(Class)
+	 * @see Logger
+	 */
+	private static final Logger LOGGER = LogManager.getLogger(ConcessoesArquivos.class);
+
+	/**
+	 * Identificador do n&oacute;, presente no nome dos arquivos reivindicados.
+	 */
+	private final String no;
+
+	/**
+	 * Dura&ccedil;&atilde;o, em milissegundos, de cada concess&atilde;o.
+	 */
+	private final long duracaoMs;
+
+	/**
+	 * Arquivos reivindicados por este n&oacute; cujas concess&otilde;es
+	 * s&atilde;o renovadas. Os arquivos renomeados ou exclu&iacute;dos deixam o
+	 * conjunto na renova&ccedil;&atilde;o seguinte.
+	 */
+	private final Set<Path> concedidos = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Executor da renova&ccedil;&atilde;o peri&oacute;dica, em uma <i>thread</i>
+	 * pr&oacute;pria para que a mesma n&atilde;o atrase por outras tarefas.
+	 */
+	private final ScheduledExecutorService renovador = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		final Thread thread = new Thread(runnable, "robo-concessoes");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * Construtor respons&aacute;vel por iniciar a renova&ccedil;&atilde;o
+	 * peri&oacute;dica das concess&otilde;es.
+	 *
+	 * @param no
+	 *            Identificador do n&oacute;, sem pontos.
+	 * @param duracaoMs
+	 *            Dura&ccedil;&atilde;o, em milissegundos, de cada
+	 *            concess&atilde;o.
+	 * @param renovacaoMs
+	 *            Intervalo, em milissegundos, entre as renova&ccedil;&otilde;es.
+	 *
+	 * @throws IllegalArgumentException
+	 *             Caso o identificador seja vazio ou contenha pontos ou caso o
+	 *             intervalo de renova&ccedil;&atilde;o n&atilde;o seja menor que a
+	 *             dura&ccedil;&atilde;o.
+	 */
+	ConcessoesArquivos(final String no, final long duracaoMs, final long renovacaoMs) {
+		if (no == null || no.isEmpty() || no.indexOf('.') >= 0) {
+			throw new IllegalArgumentException("Identificador de n\u00F3 inv\u00E1lido: " + no + ".");
+		}
+
+		if (renovacaoMs <= 0L || renovacaoMs >= duracaoMs) {
+			throw new IllegalArgumentException("O intervalo de renova\u00E7\u00E3o deve ser positivo e menor que a dura\u00E7\u00E3o das concess\u00F5es.");
+		}
+
+		this.no = no;
+		this.duracaoMs = duracaoMs;
+		this.renovador.scheduleWithFixedDelay(this::renovar, renovacaoMs, renovacaoMs, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar o identificador do
+	 * n&oacute;.
+	 *
+	 * @return O identificador do n&oacute;.
+	 */
+	String getNo() {
+		return this.no;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por reivindicar um arquivo, renomeando-o
+	 * atomicamente para o nome com o identificador do n&oacute;. O vencimento
+	 * &eacute; gravado antes da renomea&ccedil;&atilde;o, de maneira que o
+	 * arquivo nunca seja visto por outro n&oacute; como uma concess&atilde;o
+	 * vencida. Caso o destino j&aacute; exista, o arquivo permanece pendente.
+	 *
+	 * @param origem
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo
+	 *            a ser reivindicado.
+	 * @param destino
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo
+	 *            reivindicado, cujo nome cont&eacute;m o identificador do
+	 *            n&oacute;.
+	 *
+	 * @return O pr&oacute;prio destino ou <code><strong>null</strong></code> caso
+	 *         o arquivo j&aacute; tenha sido reivindicado por outro trabalhador
+	 *         ou n&oacute; ou o destino j&aacute; exista.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel gravar o vencimento ou
+	 *             renomear o arquivo por qualquer motivo que n&atilde;o a
+	 *             aus&ecirc;ncia do mesmo.
+	 */
+	Path reivindicar(final Path origem, final Path destino) throws IOException {
+		try {
+			Files.setLastModifiedTime(origem, this.calcularVencimento());
+		} catch (final NoSuchFileException e) {
+			return null;
+		}
+
+		if (ExecutaRequisicaoSOAP.renomearSemSubstituir(origem, destino) == null) {
+			return null;
+		}
+
+		this.concedidos.add(destino);
+		return destino;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por indicar se a concess&atilde;o de um
+	 * arquivo {@link ExecutaRequisicaoSOAP#EXTENSAO_DOING DOING} venceu. As
+	 * concess&otilde;es deste n&oacute; nunca s&atilde;o consideradas vencidas.
+	 *
+	 * @param doing
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo.
+	 *
+	 * @return O intr&iacute;nseco <code><strong>boolean</strong></code> contendo o
+	 *         valor <code><strong>true</strong></code> caso a concess&atilde;o
+	 *         tenha vencido ou <code><strong>false</strong></code> caso
+	 *         contr&aacute;rio.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel ler a data de
+	 *             modifica&ccedil;&atilde;o do arquivo.
+	 */
+	boolean isVencida(final Path doing) throws IOException {
+		return !this.concedidos.contains(doing) && Files.getLastModifiedTime(doing).toMillis() < System.currentTimeMillis();
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por renovar as concess&otilde;es dos
+	 * arquivos ainda reivindicados por este n&oacute;, esquecendo os que
+	 * j&aacute; foram renomeados ou exclu&iacute;dos.
+	 */
+	private void renovar() {
+		final FileTime vencimento = this.calcularVencimento();
+		for (final Path doing : this.concedidos) {
+			try {
+				Files.setLastModifiedTime(doing, vencimento);
+			} catch (final NoSuchFileException e) {
+				// Arquivo concluído, movido ou recuperado por outro nó.
+				this.concedidos.remove(doing);
+			} catch (final IOException | RuntimeException e) {
+				ConcessoesArquivos.LOGGER.error("Erro ao renovar a concess\u00E3o do arquivo " + doing.getFileName() + ". ERRO: " + e.getMessage(), e);
+			}
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por calcular o vencimento de uma
+	 * concess&atilde;o concedida ou renovada agora.
+	 *
+	 * @return O vencimento.
+	 */
+	private FileTime calcularVencimento() {
+		return FileTime.fromMillis(System.currentTimeMillis() + this.duracaoMs);
+	}
+
+	/**
+	 * Encerra a renova&ccedil;&atilde;o e vence imediatamente as
+	 * concess&otilde;es ainda mantidas, de maneira que outro n&oacute; possa
+	 * recuperar os arquivos sem aguardar a dura&ccedil;&atilde;o.
+	 */
+	@Override
+	public void close() {
+		this.renovador.shutdownNow();
+
+		final FileTime vencida = FileTime.fromMillis(0L);
+		for (final Path doing : this.concedidos) {
+			try {
+				Files.setLastModifiedTime(doing, vencida);
+			} catch (final NoSuchFileException e) {
+				// Arquivo já concluído.
+			} catch (final IOException | RuntimeException e) {
+				ConcessoesArquivos.LOGGER.error("Erro ao liberar a concess\u00E3o do arquivo " + doing.getFileName() + ". ERRO: " + e.getMessage(), e);
+			}
+		}
+
+		this.concedidos.clear();
+	}
+}
\ No newline at end of file
@@ -0,0 +1,334 @@
+package br.com.pgioseffi.requisicoes.soap;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * <p>
+ * Classe respons&aacute;vel por montar o corpo HTTP de uma requisi&ccedil;&atilde;o
+ * MTOM/XOP: uma mensagem <code>multipart/related</code> cuja parte raiz
+ * &eacute; o envelope SOAP e cujas demais partes s&atilde;o os
+ * {@link ArquivoRequisicao#getAnexos() anexos}, referenciados no envelope por
+ * <code>&lt;xop:Include href=&quot;cid:nome&quot;/&gt;</code>.
+ * </p>
+ * <p>
+ * Nada &eacute; copiado para a mem&oacute;ria al&eacute;m dos cabe&ccedil;alhos
+ * das partes: o envelope e os anexos s&atilde;o lidos diretamente dos seus
+ * arquivos atrav&eacute;s de leituras posicionais, de maneira que o corpo tenha
+ * tamanho conhecido, possa ser enviado em blocos por transportes n&atilde;o
+ * bloqueantes e mais de uma vez ao mesmo tempo.
+ * </p>
+ * <p>
+ * Os canais dos anexos permanecem abertos at&eacute; o
+ * {@link CorpoMtom#close() fechamento} deste objeto, que acontece junto com o
+ * da {@link ArquivoRequisicao requisi&ccedil;&atilde;o}.
+ * </p>
+ *
+ * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
+ *         &lt;pgioseffi@gmail.com&gt;</a>
+ *
+ * @since 1.1.0
+ *
+ * @see ArquivoRequisicao#lerEnvio(ByteBuffer, long)
+ * @see DivisorMultipart
+ */
+final class CorpoMtom implements Closeable {
+
+	/**
+	 * Constante utilizada para manter o <code>Content-ID</code> da parte raiz,
+	 * que cont&eacute;m o envelope SOAP.
+	 */
+	static final String ID_RAIZ = "<raiz@robo>";
+
+	/**
+	 * Quebra de linha utilizada pelo formato MIME.
+	 */
+	private static final String CRLF = "\r\n";
+
+	/**
+	 * Requisi&ccedil;&atilde;o cujo envelope &eacute; a parte raiz.
+	 */
+	private final ArquivoRequisicao requisicao;
+
+	/**
+	 * Canais abertos para os anexos, na ordem das partes.
+	 */
+	private final List<FileChannel> anexos = new ArrayList<>();
+
+	/**
+	 * Tamanhos, em bytes, dos anexos no momento da abertura.
+	 */
+	private final List<Long> tamanhosAnexos = new ArrayList<>();
+
+	/**
+	 * Cabe&ccedil;alhos que precedem cada parte, seguidos do delimitador de
+	 * encerramento.
+	 */
+	private final List<byte[]> molduras = new ArrayList<>();
+
+	/**
+	 * Posi&ccedil;&otilde;es iniciais de cada trecho do corpo, intercalando
+	 * molduras e partes, acrescidas do tamanho total.
+	 */
+	private final long[] inicios;
+
+	/**
+	 * Valor do cabe&ccedil;alho <code>Content-Type</code> da mensagem.
+	 */
+	private final String tipoConteudo;
+
+	/**
+	 * Construtor respons&aacute;vel por abrir os anexos da requisi&ccedil;&atilde;o
+	 * e calcular a posi&ccedil;&atilde;o de cada trecho do corpo.
+	 *
+	 * @param requisicao
+	 *            Requisi&ccedil;&atilde;o com anexos.
+	 *
+	 * @throws IOException
+	 *             Caso algum anexo tenha um nome inv&aacute;lido ou n&atilde;o
+	 *             possa ser aberto.
+	 */
+	CorpoMtom(final ArquivoRequisicao requisicao) throws IOException {
+		this.requisicao = requisicao;
+
+		final String fronteira = "uuid:" + UUID.randomUUID();
+		final String tipoEnvelope = StringUtils.substringBefore(requisicao.getTipoConteudo(), ";").trim();
+		this.tipoConteudo = "multipart/related; type=\"application/xop+xml\"; start=\"" + CorpoMtom.ID_RAIZ + "\"; start-info=\"" + tipoEnvelope + "\"; boundary=\"" + fronteira + '"';
+
+		this.molduras.add(CorpoMtom.bytes("--" + fronteira + CorpoMtom.CRLF + "Content-Type: application/xop+xml; charset=UTF-8; type=\"" + tipoEnvelope + '"' + CorpoMtom.CRLF
+				+ "Content-Transfer-Encoding: binary" + CorpoMtom.CRLF + "Content-ID: " + CorpoMtom.ID_RAIZ + CorpoMtom.CRLF + CorpoMtom.CRLF));
+
+		try {
+			for (final String nome : requisicao.getAnexos()) {
+				final FileChannel canal = FileChannel.open(CorpoMtom.resolver(requisicao.getDiretorio(), nome), StandardOpenOption.READ);
+				this.anexos.add(canal);
+				this.tamanhosAnexos.add(canal.size());
+				this.molduras.add(CorpoMtom.bytes(CorpoMtom.CRLF + "--" + fronteira + CorpoMtom.CRLF + "Content-Type: application/octet-stream" + CorpoMtom.CRLF
+						+ "Content-Transfer-Encoding: binary" + CorpoMtom.CRLF + "Content-ID: <" + nome + '>' + CorpoMtom.CRLF + CorpoMtom.CRLF));
+			}
+		} catch (final IOException | RuntimeException e) {
+			this.close();
+			throw e;
+		}
+
+		this.molduras.add(CorpoMtom.bytes(CorpoMtom.CRLF + "--" + fronteira + "--" + CorpoMtom.CRLF));
+
+		// Trechos pares são molduras; ímpares são o envelope, seguido dos anexos.
+		this.inicios = new long[this.molduras.size() * 2];
+		for (int i = 0; i < this.inicios.length - 1; i++) {
+			this.inicios[i + 1] = this.inicios[i] + this.getTamanhoTrecho(i);
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por resolver o nome de um anexo no
+	 * diret&oacute;rio da requisi&ccedil;&atilde;o, recusando nomes que
+	 * escapem do mesmo ou que n&atilde;o possam compor um
+	 * <code>Content-ID</code>.
+	 *
+	 * @param diretorio
+	 *            Diret&oacute;rio da requisi&ccedil;&atilde;o.
+	 * @param nome
+	 *            Nome do anexo.
+	 *
+	 * @return O caminho absoluto do anexo.
+	 *
+	 * @throws IOException
+	 *             Caso o nome seja inv&aacute;lido.
+	 */
+	private static Path resolver(final Path diretorio, final String nome) throws IOException {
+		final Path arquivo = diretorio.resolve(nome).normalize();
+		if (StringUtils.containsAny(nome, '/', '\\', '<', '>', '\r', '\n') || !diretorio.equals(arquivo.getParent())) {
+			throw new IOException("Nome de anexo inv\u00E1lido: " + nome);
+		}
+
+		return arquivo;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por codificar um texto MIME.
+	 *
+	 * @param texto
+	 *            Texto a ser codificado.
+	 *
+	 * @return Os bytes do texto em UTF-8.
+	 */
+	private static byte[] bytes(final String texto) {
+		return texto.getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar o tamanho de um trecho do
+	 * corpo.
+	 *
+	 * @param trecho
+	 *            &Iacute;ndice do trecho.
+	 *
+	 * @return O tamanho, em bytes, do trecho.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel ler o arquivo de
+	 *             requisi&ccedil;&atilde;o.
+	 */
+	private long getTamanhoTrecho(final int trecho) throws IOException {
+		if (trecho % 2 == 0) {
+			return this.molduras.get(trecho / 2).length;
+		}
+
+		return trecho == 1 ? this.requisicao.getTamanhoCorpo() : this.tamanhosAnexos.get(trecho / 2 - 1).longValue();
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar o tamanho do corpo.
+	 *
+	 * @return O tamanho, em bytes, do corpo.
+	 */
+	long getTamanho() {
+		return this.inicios[this.inicios.length - 1];
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar o valor do
+	 * cabe&ccedil;alho <code>Content-Type</code> da mensagem.
+	 *
+	 * @return O tipo <code>multipart/related</code> com a fronteira e a parte
+	 *         raiz.
+	 */
+	String getTipoConteudo() {
+		return this.tipoConteudo;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por ler um trecho do corpo sem alterar a
+	 * posi&ccedil;&atilde;o de nenhum canal. Cada chamada l&ecirc; de uma
+	 * &uacute;nica parte.
+	 *
+	 * @param destino
+	 *            <i>Buffer</i> que receber&aacute; os bytes lidos.
+	 * @param deslocamento
+	 *            Posi&ccedil;&atilde;o, em bytes, relativa ao in&iacute;cio do
+	 *            corpo.
+	 *
+	 * @return A quantidade de bytes lidos ou <code>-1</code> no fim do corpo.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel ler os arquivos ou um
+	 *             anexo tenha diminu&iacute;do desde a abertura.
+	 */
+	int ler(final ByteBuffer destino, final long deslocamento) throws IOException {
+		if (deslocamento >= this.getTamanho()) {
+			return -1;
+		}
+
+		if (!destino.hasRemaining()) {
+			return 0;
+		}
+
+		int trecho = 0;
+		while (this.inicios[trecho + 1] <= deslocamento) {
+			trecho++;
+		}
+
+		final long local = deslocamento - this.inicios[trecho];
+		final long restante = this.inicios[trecho + 1] - deslocamento;
+
+		if (trecho % 2 == 0) {
+			final int quantidade = (int) Math.min(destino.remaining(), restante);
+			destino.put(this.molduras.get(trecho / 2), (int) local, quantidade);
+			return quantidade;
+		}
+
+		final ByteBuffer limitado = destino.duplicate();
+		if (limitado.remaining() > restante) {
+			limitado.limit(limitado.position() + (int) restante);
+		}
+
+		final int lidos = trecho == 1 ? this.requisicao.lerCorpo(limitado, local) : this.anexos.get(trecho / 2 - 1).read(limitado, local);
+		if (lidos < 0) {
+			throw new IOException("Arquivo da requisi\u00E7\u00E3o MTOM diminuiu durante o envio.");
+		}
+
+		destino.position(limitado.position());
+		return lidos;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por abrir um fluxo com o corpo. Cada
+	 * fluxo mant&eacute;m a sua pr&oacute;pria posi&ccedil;&atilde;o.
+	 *
+	 * @return O fluxo com o corpo. N&atilde;o precisa ser fechado.
+	 *
+	 * @see CorpoMtom#ler(ByteBuffer, long)
+	 */
+	InputStream abrir() {
+		return new FluxoMtom();
+	}
+
+	@Override
+	public void close() throws IOException {
+		IOException erro = null;
+		for (final FileChannel canal : this.anexos) {
+			try {
+				canal.close();
+			} catch (final IOException e) {
+				if (erro == null) {
+					erro = e;
+				} else {
+					erro.addSuppressed(e);
+				}
+			}
+		}
+
+		if (erro != null) {
+			throw erro;
+		}
+	}
+
+	/**
+	 * Classe respons&aacute;vel por expor o corpo como um {@link InputStream}
+	 * com posi&ccedil;&atilde;o pr&oacute;pria.
+	 */
+	private final class FluxoMtom extends InputStream {
+
+		/**
+		 * Posi&ccedil;&atilde;o, em bytes, relativa ao in&iacute;cio do corpo.
+		 */
+		private long posicao;
+
+		@Override
+		public int read() throws IOException {
+			final byte[] umByte = new byte[1];
+			return this.read(umByte, 0, 1) < 0 ? -1 : umByte[0] & 0xFF;
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+
+			final int lidos = CorpoMtom.this.ler(ByteBuffer.wrap(b, off, len), this.posicao);
+			if (lidos > 0) {
+				this.posicao += lidos;
+			}
+
+			return lidos;
+		}
+
+		@Override
+		public int available() {
+			return (int) Math.min(Integer.MAX_VALUE, Math.max(0L, CorpoMtom.this.getTamanho() - this.posicao));
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,414 @@
+package br.com.pgioseffi.requisicoes.soap;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * <p>
+ * Classe respons&aacute;vel por descompactar um conte&uacute;do no formato
+ * <i>gzip</i> (RFC 1952) &agrave; medida que o mesmo &eacute; escrito,
+ * repassando os bytes descompactados para outro fluxo.
+ * </p>
+ * <p>
+ * Ao contr&aacute;rio do {@link GZIPInputStream}, que precisa puxar os dados
+ * de uma origem bloqueante, este fluxo recebe os dados empurrados por quem os
+ * l&ecirc;, como as <i>threads</i> de I/O do {@link TransporteHttpAssincrono
+ * transporte ass&iacute;ncrono}, que n&atilde;o podem esperar pelo restante da
+ * resposta. Nenhum dado &eacute; acumulado al&eacute;m do cabe&ccedil;alho e
+ * do rodap&eacute; de cada membro, cuja soma de verifica&ccedil;&atilde;o e
+ * tamanho s&atilde;o conferidos. Membros concatenados s&atilde;o aceitos.
+ * </p>
+ * <p>
+ * O {@link DescompactadorGzip#close() fechamento} apenas confere que o
+ * conte&uacute;do terminou em um membro completo e libera o
+ * {@link Inflater}. O fluxo de destino n&atilde;o &eacute; fechado.
+ * </p>
+ *
+ * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
+ *         &lt;pgioseffi@gmail.com&gt;</a>
+ *
+ * @since 1.1.0
+ *
+ * @see Inflater
+ * @see CRC32
+ * @see TransporteHttpAssincrono
+ */
+final class DescompactadorGzip extends OutputStream {
+
+	/**
+	 * Tamanho do <i>buffer</i> dos bytes descompactados.
+	 */
+	private static final int TAMANHO_BUFFER = 16 * 1024;
+
+	/**
+	 * Tamanho da parte fixa do cabe&ccedil;alho de cada membro.
+	 */
+	private static final int TAMANHO_CABECALHO = 10;
+
+	/**
+	 * Tamanho do rodap&eacute; de cada membro: a soma de verifica&ccedil;&atilde;o
+	 * e o tamanho descompactado.
+	 */
+	private static final int TAMANHO_RODAPE = 8;
+
+	/**
+	 * Indicador de cabe&ccedil;alho com soma de verifica&ccedil;&atilde;o
+	 * pr&oacute;pria.
+	 */
+	private static final int FLAG_CRC_CABECALHO = 2;
+
+	/**
+	 * Indicador de cabe&ccedil;alho com campo extra.
+	 */
+	private static final int FLAG_EXTRA = 4;
+
+	/**
+	 * Indicador de cabe&ccedil;alho com o nome original.
+	 */
+	private static final int FLAG_NOME = 8;
+
+	/**
+	 * Indicador de cabe&ccedil;alho com coment&aacute;rio.
+	 */
+	private static final int FLAG_COMENTARIO = 16;
+
+	/**
+	 * Etapas da leitura de um membro, na ordem em que acontecem.
+	 */
+	private enum Etapa {
+
+		/**
+		 * Parte fixa do cabe&ccedil;alho.
+		 */
+		CABECALHO,
+
+		/**
+		 * Tamanho do campo extra.
+		 */
+		TAMANHO_EXTRA,
+
+		/**
+		 * Campo extra, ignorado.
+		 */
+		EXTRA,
+
+		/**
+		 * Nome original, terminado por zero e ignorado.
+		 */
+		NOME,
+
+		/**
+		 * Coment&aacute;rio, terminado por zero e ignorado.
+		 */
+		COMENTARIO,
+
+		/**
+		 * Soma de verifica&ccedil;&atilde;o do cabe&ccedil;alho, ignorada.
+		 */
+		CRC_CABECALHO,
+
+		/**
+		 * Dados compactados.
+		 */
+		DADOS,
+
+		/**
+		 * Rodap&eacute;.
+		 */
+		RODAPE
+	}
+
+	/**
+	 * Fluxo que recebe os bytes descompactados.
+	 */
+	private final OutputStream destino;
+
+	/**
+	 * Descompactador dos dados, sem o cabe&ccedil;alho e o rodap&eacute;
+	 * <i>zlib</i>.
+	 */
+	private final Inflater inflater = new Inflater(true);
+
+	/**
+	 * Soma de verifica&ccedil;&atilde;o dos bytes descompactados do membro atual.
+	 */
+	private final CRC32 crc = new CRC32();
+
+	/**
+	 * <i>Buffer</i> dos bytes descompactados.
+	 */
+	private final byte[] buffer = new byte[DescompactadorGzip.TAMANHO_BUFFER];
+
+	/**
+	 * Bytes acumulados da parte fixa do cabe&ccedil;alho ou do rodap&eacute;.
+	 */
+	private final byte[] campo = new byte[DescompactadorGzip.TAMANHO_CABECALHO];
+
+	/**
+	 * Etapa atual da leitura.
+	 */
+	private Etapa etapa = Etapa.CABECALHO;
+
+	/**
+	 * Indicadores do cabe&ccedil;alho do membro atual.
+	 */
+	private int flags;
+
+	/**
+	 * Quantidade de bytes j&aacute; acumulados na etapa atual.
+	 */
+	private int acumulados;
+
+	/**
+	 * Quantidade de bytes restantes do campo extra.
+	 */
+	private int restanteExtra;
+
+	/**
+	 * Quantidade de bytes descompactados do membro atual.
+	 */
+	private long tamanhoMembro;
+
+	/**
+	 * Quantidade de membros completos.
+	 */
+	private int membros;
+
+	/**
+	 * Indica se o fluxo j&aacute; foi fechado.
+	 */
+	private boolean fechado;
+
+	/**
+	 * Construtor respons&aacute;vel por criar o descompactador.
+	 *
+	 * @param destino
+	 *            Fluxo que receber&aacute; os bytes descompactados. N&atilde;o
+	 *            &eacute; fechado por este objeto.
+	 */
+	DescompactadorGzip(final OutputStream destino) {
+		this.destino = destino;
+	}
+
+	@Override
+	public void write(final int b) throws IOException {
+		this.write(new byte[] { (byte) b }, 0, 1);
+	}
+
+	@Override
+	public void write(final byte[] b, final int off, final int len) throws IOException {
+		if (this.fechado) {
+			throw new IOException("Descompactador fechado.");
+		}
+
+		int posicao = off;
+		final int fim = off + len;
+		while (posicao < fim) {
+			if (this.etapa == Etapa.DADOS) {
+				posicao = this.inflar(b, posicao, fim);
+			} else {
+				this.consumir(b[posicao++] & 0xFF);
+			}
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por descompactar os dados recebidos
+	 * at&eacute; que acabem ou que o membro termine.
+	 *
+	 * @param b
+	 *            Dados recebidos.
+	 * @param posicao
+	 *            Posi&ccedil;&atilde;o do primeiro byte ainda n&atilde;o
+	 *            consumido.
+	 * @param fim
+	 *            Posi&ccedil;&atilde;o seguinte ao &uacute;ltimo byte recebido.
+	 *
+	 * @return A posi&ccedil;&atilde;o do primeiro byte n&atilde;o consumido pelo
+	 *         {@link Inflater}, que pertence ao rodap&eacute; quando o membro
+	 *         termina.
+	 *
+	 * @throws IOException
+	 *             Caso os dados estejam corrompidos ou n&atilde;o seja
+	 *             poss&iacute;vel escrever no destino.
+	 */
+	private int inflar(final byte[] b, final int posicao, final int fim) throws IOException {
+		this.inflater.setInput(b, posicao, fim - posicao);
+
+		try {
+			while (true) {
+				final int quantidade = this.inflater.inflate(this.buffer);
+				if (quantidade > 0) {
+					this.crc.update(this.buffer, 0, quantidade);
+					this.tamanhoMembro += quantidade;
+					this.destino.write(this.buffer, 0, quantidade);
+				}
+
+				if (this.inflater.finished()) {
+					this.etapa = Etapa.RODAPE;
+					this.acumulados = 0;
+					return fim - this.inflater.getRemaining();
+				}
+
+				if (this.inflater.needsDictionary()) {
+					throw new ZipException("Resposta compactada requer dicion\u00E1rio.");
+				}
+
+				if (quantidade == 0 && this.inflater.needsInput()) {
+					return fim;
+				}
+			}
+		} catch (final DataFormatException e) {
+			throw new ZipException("Resposta compactada corrompida: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por consumir um byte do cabe&ccedil;alho
+	 * ou do rodap&eacute; de um membro.
+	 *
+	 * @param valor
+	 *            Byte recebido, sem sinal.
+	 *
+	 * @throws IOException
+	 *             Caso o cabe&ccedil;alho ou o rodap&eacute; sejam
+	 *             inv&aacute;lidos.
+	 */
+	private void consumir(final int valor) throws IOException {
+		switch (this.etapa) {
+			case CABECALHO:
+				this.campo[this.acumulados++] = (byte) valor;
+				if (this.acumulados == DescompactadorGzip.TAMANHO_CABECALHO) {
+					if ((this.campo[0] & 0xFF) != 0x1F || (this.campo[1] & 0xFF) != 0x8B || this.campo[2] != 8) {
+						throw new ZipException("Resposta n\u00E3o est\u00E1 no formato gzip.");
+					}
+
+					this.flags = this.campo[3] & 0xFF;
+					this.avancar(Etapa.TAMANHO_EXTRA);
+				}
+				break;
+			case TAMANHO_EXTRA:
+				this.campo[this.acumulados++] = (byte) valor;
+				if (this.acumulados == 2) {
+					this.restanteExtra = (this.campo[0] & 0xFF) | (this.campo[1] & 0xFF) << 8;
+					if (this.restanteExtra == 0) {
+						this.avancar(Etapa.NOME);
+					} else {
+						this.etapa = Etapa.EXTRA;
+					}
+				}
+				break;
+			case EXTRA:
+				if (--this.restanteExtra == 0) {
+					this.avancar(Etapa.NOME);
+				}
+				break;
+			case NOME:
+				if (valor == 0) {
+					this.avancar(Etapa.COMENTARIO);
+				}
+				break;
+			case COMENTARIO:
+				if (valor == 0) {
+					this.avancar(Etapa.CRC_CABECALHO);
+				}
+				break;
+			case CRC_CABECALHO:
+				if (++this.acumulados == 2) {
+					this.avancar(Etapa.DADOS);
+				}
+				break;
+			case RODAPE:
+				this.campo[this.acumulados++] = (byte) valor;
+				if (this.acumulados == DescompactadorGzip.TAMANHO_RODAPE) {
+					if (DescompactadorGzip.lerInteiro(this.campo, 0) != this.crc.getValue() || DescompactadorGzip.lerInteiro(this.campo, 4) != (this.tamanhoMembro & 0xFFFFFFFFL)) {
+						throw new ZipException("Resposta compactada corrompida: soma de verifica\u00E7\u00E3o ou tamanho divergente.");
+					}
+
+					this.membros++;
+					this.etapa = Etapa.CABECALHO;
+					this.acumulados = 0;
+				}
+				break;
+			default:
+				throw new IllegalStateException("Etapa inesperada: " + this.etapa);
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por avan&ccedil;ar para a primeira etapa,
+	 * a partir da informada, presente no cabe&ccedil;alho do membro atual.
+	 *
+	 * @param inicio
+	 *            Primeira etapa candidata.
+	 */
+	private void avancar(final Etapa inicio) {
+		this.acumulados = 0;
+
+		if (inicio.compareTo(Etapa.TAMANHO_EXTRA) <= 0 && (this.flags & DescompactadorGzip.FLAG_EXTRA) != 0) {
+			this.etapa = Etapa.TAMANHO_EXTRA;
+		} else if (inicio.compareTo(Etapa.NOME) <= 0 && (this.flags & DescompactadorGzip.FLAG_NOME) != 0) {
+			this.etapa = Etapa.NOME;
+		} else if (inicio.compareTo(Etapa.COMENTARIO) <= 0 && (this.flags & DescompactadorGzip.FLAG_COMENTARIO) != 0) {
+			this.etapa = Etapa.COMENTARIO;
+		} else if (inicio.compareTo(Etapa.CRC_CABECALHO) <= 0 && (this.flags & DescompactadorGzip.FLAG_CRC_CABECALHO) != 0) {
+			this.etapa = Etapa.CRC_CABECALHO;
+		} else {
+			this.etapa = Etapa.DADOS;
+			this.inflater.reset();
+			this.crc.reset();
+			this.tamanhoMembro = 0L;
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por ler um inteiro sem sinal de quatro
+	 * bytes em <i>little-endian</i>.
+	 *
+	 * @param bytes
+	 *            Bytes lidos.
+	 * @param posicao
+	 *            Posi&ccedil;&atilde;o do primeiro byte.
+	 *
+	 * @return O valor lido.
+	 */
+	private static long lerInteiro(final byte[] bytes, final int posicao) {
+		return (bytes[posicao] & 0xFFL) | (bytes[posicao + 1] & 0xFFL) << 8 | (bytes[posicao + 2] & 0xFFL) << 16 | (bytes[posicao + 3] & 0xFFL) << 24;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por liberar o {@link Inflater} sem
+	 * conferir se o conte&uacute;do terminou, utilizado quando a resposta
+	 * j&aacute; falhou.
+	 */
+	void descartar() {
+		this.fechado = true;
+		this.inflater.end();
+	}
+
+	/**
+	 * Confere que o conte&uacute;do terminou em um membro completo e libera o
+	 * {@link Inflater}. O fluxo de destino n&atilde;o &eacute; fechado.
+	 *
+	 * @throws IOException
+	 *             Caso o conte&uacute;do esteja incompleto.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (this.fechado) {
+			return;
+		}
+
+		this.descartar();
+
+		if (this.membros == 0 || this.etapa != Etapa.CABECALHO || this.acumulados != 0) {
+			throw new EOFException("Resposta compactada incompleta.");
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,641 @@
+package br.com.pgioseffi.requisicoes.soap;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.CRC32;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * <p>
+ * Classe respons&aacute;vel por manter o estado dos arquivos de
+ * requisi&ccedil;&atilde;o em um di&aacute;rio (<i>journal</i>) no
+ * diret&oacute;rio do rob&ocirc;, alternativa &agrave; renomea&ccedil;&atilde;o
+ * dos arquivos a cada mudan&ccedil;a de status. Com o di&aacute;rio o arquivo
+ * de requisi&ccedil;&atilde;o mant&eacute;m o seu nome original, e cada
+ * reivindica&ccedil;&atilde;o, conclus&atilde;o, retentativa ou falha custa
+ * apenas uma linha acrescentada ao final do di&aacute;rio.
+ * </p>
+ * <p>
+ * Cada linha &eacute; texto UTF-8 com campos separados por tabula&ccedil;&atilde;o,
+ * de maneira que possa ser lida por um operador ou por qualquer ferramenta de
+ * texto:
+ * </p>
+ *
+ * <pre>
+ * 5f3a09c1	1700000000000	REIVINDICADO	pedido.pending	0	0
+ * 0b7d11e4	1700000000420	CONCLUIDO	pedido.pending	0	0
+ * </pre>
+ * <p>
+ * Os campos s&atilde;o o CRC32 do restante da linha, o instante em
+ * milissegundos, o {@link Estado estado}, o nome do arquivo, a quantidade de
+ * tentativas j&aacute; feitas e o instante da pr&oacute;xima tentativa. Linhas
+ * com CRC32 inv&aacute;lido, como a &uacute;ltima linha de uma escrita
+ * interrompida, s&atilde;o ignoradas na leitura.
+ * </p>
+ * <p>
+ * Ao abrir, o di&aacute;rio &eacute; lido sequencialmente para reconstruir o
+ * estado, e as reivindica&ccedil;&otilde;es sem conclus&atilde;o, deixadas por
+ * uma execu&ccedil;&atilde;o interrompida, s&atilde;o liberadas para que os
+ * arquivos sejam processados novamente. O di&aacute;rio &eacute; ent&atilde;o
+ * compactado, isto &eacute;, reescrito apenas com o estado atual de cada
+ * arquivo, o que tamb&eacute;m acontece quando a quantidade de linhas supera o
+ * dobro da quantidade de arquivos conhecidos.
+ * </p>
+ * <p>
+ * Como o estado fica na mem&oacute;ria deste rob&ocirc;, o di&aacute;rio
+ * &eacute; bloqueado para uso exclusivo e n&atilde;o pode ser compartilhado
+ * entre rob&ocirc;s que utilizem o mesmo diret&oacute;rio.
+ * </p>
+ *
+ * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
+ *         &lt;pgioseffi@gmail.com&gt;</a>
+ *
+ * @since 1.1.0
+ *
+ * @see ExecutaRequisicaoSOAP
+ */
+final class DiarioEstados implements Closeable {
+
+	/**
+	 * Estados registrados no di&aacute;rio.
+	 */
+	enum Estado {
+
+		/**
+		 * Arquivo reivindicado e em processamento.
+		 */
+		REIVINDICADO,
+
+		/**
+		 * Arquivo que falhou e aguarda nova tentativa.
+		 */
+		RETENTATIVA,
+
+		/**
+		 * Arquivo processado, mantido at&eacute; o fim da reten&ccedil;&atilde;o.
+		 */
+		CONCLUIDO,
+
+		/**
+		 * Arquivo que deixou de ser acompanhado pelo di&aacute;rio, por ter sido
+		 * exclu&iacute;do ou movido para falha.
+		 */
+		ESQUECIDO
+	}
+
+	/**
+	 * Constante utilizada para manter o {@link Logger log} da classe.
+	 *
+	 * @see Logger
+	 */
+	private static final Logger LOGGER = LogManager.getLogger(DiarioEstados.class);
+
+	/**
+	 * Nome do arquivo do di&aacute;rio no diret&oacute;rio do rob&ocirc;.
+	 */
+	static final String NOME_ARQUIVO = "robo.diario";
+
+	/**
+	 * Toler&acirc;ncia, em milissegundos, para a reivindica&ccedil;&atilde;o de
+	 * um arquivo antes do instante da sua pr&oacute;xima tentativa, pois a roda
+	 * de temporiza&ccedil;&atilde;o mede o tempo de outra maneira.
+	 */
+	private static final long TOLERANCIA_RETENTATIVA_MS = 1000L;
+
+	/**
+	 * Posi&ccedil;&atilde;o do byte bloqueado para uso exclusivo, al&eacute;m do
+	 * fim de qualquer di&aacute;rio real, pois em alguns sistemas operacionais o
+	 * bloqueio impede a leitura da regi&atilde;o bloqueada inclusive por este
+	 * rob&ocirc;.
+	 */
+	private static final long POSICAO_BLOQUEIO = Long.MAX_VALUE - 1L;
+
+	/**
+	 * Caminho do di&aacute;rio.
+	 */
+	private final Path arquivo;
+
+	/**
+	 * Indica se cada linha deve ser gravada no disco antes de retornar.
+	 */
+	private final boolean sincronizar;
+
+	/**
+	 * Quantidade m&iacute;nima de linhas para que o di&aacute;rio seja
+	 * compactado.
+	 */
+	private final int minimoCompactacao;
+
+	/**
+	 * Estado atual de cada arquivo, pelo nome.
+	 */
+	private final ConcurrentMap<String, Registro> registros = new ConcurrentHashMap<>();
+
+	/**
+	 * Canal de escrita do di&aacute;rio.
+	 */
+	private FileChannel canal;
+
+	/**
+	 * Bloqueio de uso exclusivo do di&aacute;rio.
+	 */
+	private FileLock bloqueio;
+
+	/**
+	 * Quantidade de linhas do di&aacute;rio.
+	 */
+	private long linhas;
+
+	/**
+	 * Construtor respons&aacute;vel por abrir o di&aacute;rio do diret&oacute;rio
+	 * informado, reconstruindo o estado a partir do mesmo.
+	 *
+	 * @param diretorio
+	 *            Diret&oacute;rio do rob&ocirc;.
+	 * @param sincronizar
+	 *            Indica se cada linha deve ser gravada no disco antes de retornar.
+	 * @param minimoCompactacao
+	 *            Quantidade m&iacute;nima de linhas para que o di&aacute;rio seja
+	 *            compactado.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel ler ou reescrever o
+	 *             di&aacute;rio, ou o mesmo esteja em uso por outro rob&ocirc;.
+	 */
+	DiarioEstados(final Path diretorio, final boolean sincronizar, final int minimoCompactacao) throws IOException {
+		this.arquivo = diretorio.resolve(DiarioEstados.NOME_ARQUIVO);
+		this.sincronizar = sincronizar;
+		this.minimoCompactacao = Math.max(1, minimoCompactacao);
+
+		this.abrirCanal(StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		this.bloqueio = this.canal.tryLock(DiarioEstados.POSICAO_BLOQUEIO, 1L, false);
+		if (this.bloqueio == null) {
+			this.canal.close();
+			throw new IOException("Di\u00E1rio " + this.arquivo + " em uso por outro rob\u00F4.");
+		}
+
+		final int invalidas = this.ler();
+
+		// Reivindicações sem conclusão foram interrompidas junto com a execução
+		// anterior e os arquivos voltam a ser pendentes.
+		int liberadas = 0;
+		for (final Map.Entry<String, Registro> entrada : this.registros.entrySet()) {
+			if (entrada.getValue().estado == Estado.REIVINDICADO) {
+				this.registros.remove(entrada.getKey());
+				liberadas++;
+			}
+		}
+
+		DiarioEstados.LOGGER.info("Di\u00E1rio " + this.arquivo + " lido com " + this.registros.size() + " arquivo(s) conhecido(s), " + liberadas + " reivindica\u00E7\u00E3o(\u00F5es) liberada(s) e "
+				+ invalidas + " linha(s) inv\u00E1lida(s).");
+
+		this.compactar();
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por ler o di&aacute;rio, aplicando cada
+	 * linha v&aacute;lida ao estado.
+	 *
+	 * @return A quantidade de linhas inv&aacute;lidas.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel ler o di&aacute;rio.
+	 */
+	private int ler() throws IOException {
+		int invalidas = 0;
+
+		try (BufferedReader leitor = Files.newBufferedReader(this.arquivo, StandardCharsets.UTF_8)) {
+			String linha;
+			while ((linha = leitor.readLine()) != null) {
+				if (linha.isEmpty()) {
+					continue;
+				}
+
+				final int separador = linha.indexOf('\t');
+				final String conteudo = separador < 0 ? null : linha.substring(separador + 1);
+				final String[] campos = conteudo == null ? null : conteudo.split("\t", -1);
+
+				try {
+					if (campos == null || campos.length != 5 || Long.parseLong(linha.substring(0, separador), 16) != DiarioEstados.calcularCrc(conteudo)) {
+						invalidas++;
+						continue;
+					}
+
+					this.aplicar(campos[2], new Registro(Estado.valueOf(campos[1]), Long.parseLong(campos[0]), Integer.parseInt(campos[3]), Long.parseLong(campos[4])));
+				} catch (final IllegalArgumentException e) {
+					// Inclui NumberFormatException e estados desconhecidos.
+					invalidas++;
+				}
+			}
+		}
+
+		return invalidas;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por reivindicar um arquivo pendente ou cuja
+	 * pr&oacute;xima tentativa chegou.
+	 *
+	 * @param nome
+	 *            Nome do arquivo.
+	 *
+	 * @return O intr&iacute;nseco <code><strong>boolean</strong></code> contendo o
+	 *         valor <code><strong>true</strong></code> caso o arquivo tenha sido
+	 *         reivindicado ou <code><strong>false</strong></code> caso o mesmo
+	 *         j&aacute; esteja em processamento, conclu&iacute;do ou aguardando
+	 *         uma tentativa futura.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel escrever no di&aacute;rio.
+	 */
+	synchronized boolean reivindicar(final String nome) throws IOException {
+		final long agora = System.currentTimeMillis();
+		final Registro atual = this.registros.get(nome);
+		if (atual != null && (atual.estado != Estado.RETENTATIVA || atual.proximaTentativa - DiarioEstados.TOLERANCIA_RETENTATIVA_MS > agora)) {
+			return false;
+		}
+
+		this.registrar(nome, new Registro(Estado.REIVINDICADO, agora, atual == null ? 0 : atual.tentativas, 0L));
+		return true;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por registrar a conclus&atilde;o de um
+	 * arquivo.
+	 *
+	 * @param nome
+	 *            Nome do arquivo.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel escrever no di&aacute;rio.
+	 */
+	synchronized void concluir(final String nome) throws IOException {
+		this.registrar(nome, new Registro(Estado.CONCLUIDO, System.currentTimeMillis(), this.getTentativas(nome), 0L));
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por registrar que um arquivo aguarda nova
+	 * tentativa.
+	 *
+	 * @param nome
+	 *            Nome do arquivo.
+	 * @param tentativas
+	 *            Quantidade de tentativas j&aacute; feitas.
+	 * @param proximaTentativa
+	 *            Instante, em milissegundos, da pr&oacute;xima tentativa.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel escrever no di&aacute;rio.
+	 */
+	synchronized void agendarRetentativa(final String nome, final int tentativas, final long proximaTentativa) throws IOException {
+		this.registrar(nome, new Registro(Estado.RETENTATIVA, System.currentTimeMillis(), tentativas, proximaTentativa));
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por deixar de acompanhar um arquivo, que
+	 * volta a ser tratado como pendente caso ainda exista com o mesmo nome.
+	 *
+	 * @param nome
+	 *            Nome do arquivo.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel escrever no di&aacute;rio.
+	 */
+	synchronized void esquecer(final String nome) throws IOException {
+		if (this.registros.containsKey(nome)) {
+			this.registrar(nome, new Registro(Estado.ESQUECIDO, System.currentTimeMillis(), 0, 0L));
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por verificar, sem bloqueio, se um arquivo
+	 * &eacute; acompanhado pelo di&aacute;rio e, portanto, n&atilde;o est&aacute;
+	 * pendente.
+	 *
+	 * @param nome
+	 *            Nome do arquivo.
+	 *
+	 * @return O intr&iacute;nseco <code><strong>boolean</strong></code> contendo o
+	 *         valor <code><strong>true</strong></code> caso o arquivo seja
+	 *         conhecido ou <code><strong>false</strong></code> caso
+	 *         contr&aacute;rio.
+	 */
+	boolean isConhecido(final String nome) {
+		return this.registros.containsKey(nome);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar a quantidade de tentativas
+	 * j&aacute; feitas de um arquivo.
+	 *
+	 * @param nome
+	 *            Nome do arquivo.
+	 *
+	 * @return A quantidade de tentativas ou zero caso o arquivo n&atilde;o seja
+	 *         conhecido.
+	 */
+	int getTentativas(final String nome) {
+		final Registro registro = this.registros.get(nome);
+		return registro == null ? 0 : registro.tentativas;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar o estado atual de um arquivo.
+	 *
+	 * @param nome
+	 *            Nome do arquivo.
+	 *
+	 * @return O registro do arquivo ou <code><strong>null</strong></code> caso o
+	 *         mesmo n&atilde;o seja conhecido.
+	 */
+	Registro getRegistro(final String nome) {
+		return this.registros.get(nome);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar uma c&oacute;pia do estado
+	 * atual de cada arquivo, utilizada para retomar as retentativas e as
+	 * exclus&otilde;es ao iniciar.
+	 *
+	 * @return Mapa n&atilde;o modific&aacute;vel com o registro de cada arquivo,
+	 *         pelo nome.
+	 */
+	Map<String, Registro> getRegistros() {
+		return Collections.unmodifiableMap(new HashMap<>(this.registros));
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por contar os arquivos de cada estado.
+	 *
+	 * @return Mapa com a quantidade de arquivos por estado.
+	 */
+	Map<Estado, Long> contar() {
+		final Map<Estado, Long> quantidades = new EnumMap<>(Estado.class);
+		for (final Estado estado : Estado.values()) {
+			quantidades.put(estado, 0L);
+		}
+
+		for (final Registro registro : this.registros.values()) {
+			quantidades.merge(registro.estado, 1L, Long::sum);
+		}
+
+		return quantidades;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por compactar o di&aacute;rio caso a
+	 * quantidade de linhas tenha superado o m&iacute;nimo e o dobro da quantidade
+	 * de arquivos conhecidos.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel reescrever o di&aacute;rio.
+	 */
+	synchronized void compactarSeNecessario() throws IOException {
+		if (this.linhas >= this.minimoCompactacao && this.linhas > 2L * this.registros.size()) {
+			this.compactar();
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por reescrever o di&aacute;rio apenas com o
+	 * estado atual de cada arquivo. O novo di&aacute;rio &eacute; escrito em um
+	 * arquivo tempor&aacute;rio e s&oacute; ent&atilde;o substitui o atual, de
+	 * maneira que uma interrup&ccedil;&atilde;o nunca deixe o di&aacute;rio
+	 * incompleto.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel reescrever o di&aacute;rio.
+	 */
+	private synchronized void compactar() throws IOException {
+		final long inicio = System.nanoTime();
+		final Path temporario = this.arquivo.resolveSibling(DiarioEstados.NOME_ARQUIVO + ".tmp");
+
+		try (FileChannel novo = FileChannel.open(temporario, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			final StringBuilder linhasAtuais = new StringBuilder();
+			for (final Map.Entry<String, Registro> entrada : this.registros.entrySet()) {
+				linhasAtuais.append(DiarioEstados.formatar(entrada.getKey(), entrada.getValue()));
+
+				// Escreve em blocos para não manter o diário inteiro em memória.
+				if (linhasAtuais.length() >= 65536) {
+					DiarioEstados.escrever(novo, linhasAtuais.toString());
+					linhasAtuais.setLength(0);
+				}
+			}
+
+			DiarioEstados.escrever(novo, linhasAtuais.toString());
+			novo.force(true);
+		}
+
+		// O bloqueio pertence ao canal atual, que é substituído junto com o arquivo.
+		this.bloqueio.release();
+		this.canal.close();
+		Files.move(temporario, this.arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		this.abrirCanal(StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		this.bloqueio = this.canal.lock(DiarioEstados.POSICAO_BLOQUEIO, 1L, false);
+		this.linhas = this.registros.size();
+
+		DiarioEstados.LOGGER.debug("Di\u00E1rio compactado para " + this.linhas + " linha(s) em " + (System.nanoTime() - inicio) / 1000000L + " ms.");
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por acrescentar uma linha ao di&aacute;rio
+	 * e aplic&aacute;-la ao estado.
+	 *
+	 * @param nome
+	 *            Nome do arquivo.
+	 * @param registro
+	 *            Novo registro do arquivo.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel escrever no di&aacute;rio.
+	 */
+	private void registrar(final String nome, final Registro registro) throws IOException {
+		if (nome.indexOf('\t') >= 0 || nome.indexOf('\n') >= 0 || nome.indexOf('\r') >= 0) {
+			throw new IOException("Nome de arquivo inv\u00E1lido para o di\u00E1rio: " + nome);
+		}
+
+		DiarioEstados.escrever(this.canal, DiarioEstados.formatar(nome, registro));
+		if (this.sincronizar) {
+			this.canal.force(false);
+		}
+
+		this.linhas++;
+		this.aplicar(nome, registro);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por aplicar um registro ao estado.
+	 *
+	 * @param nome
+	 *            Nome do arquivo.
+	 * @param registro
+	 *            Registro do arquivo.
+	 */
+	private void aplicar(final String nome, final Registro registro) {
+		if (registro.estado == Estado.ESQUECIDO) {
+			this.registros.remove(nome);
+		} else {
+			this.registros.put(nome, registro);
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por abrir o canal de escrita do
+	 * di&aacute;rio.
+	 *
+	 * @param opcoes
+	 *            Op&ccedil;&otilde;es de abertura.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel abrir o di&aacute;rio.
+	 */
+	private void abrirCanal(final StandardOpenOption... opcoes) throws IOException {
+		this.canal = FileChannel.open(this.arquivo, opcoes);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por formatar a linha de um registro.
+	 *
+	 * @param nome
+	 *            Nome do arquivo.
+	 * @param registro
+	 *            Registro do arquivo.
+	 *
+	 * @return A linha, terminada por <code>\n</code>.
+	 */
+	private static String formatar(final String nome, final Registro registro) {
+		final String conteudo = registro.instante + "\t" + registro.estado.name() + "\t" + nome + "\t" + registro.tentativas + "\t" + registro.proximaTentativa;
+		return String.format("%08x", DiarioEstados.calcularCrc(conteudo)) + "\t" + conteudo + "\n";
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por calcular o CRC32 do conte&uacute;do de
+	 * uma linha.
+	 *
+	 * @param conteudo
+	 *            Conte&uacute;do da linha, sem o CRC32.
+	 *
+	 * @return O CRC32.
+	 */
+	private static long calcularCrc(final String conteudo) {
+		final CRC32 crc = new CRC32();
+		crc.update(conteudo.getBytes(StandardCharsets.UTF_8));
+		return crc.getValue();
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por escrever um texto inteiro em um canal.
+	 *
+	 * @param canal
+	 *            Canal de escrita.
+	 * @param texto
+	 *            Texto a ser escrito.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel escrever no canal.
+	 */
+	private static void escrever(final FileChannel canal, final String texto) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.wrap(texto.getBytes(StandardCharsets.UTF_8));
+		while (buffer.hasRemaining()) {
+			canal.write(buffer);
+		}
+	}
+
+	/**
+	 * Compacta e fecha o di&aacute;rio. Um di&aacute;rio sem arquivos conhecidos
+	 * &eacute; exclu&iacute;do, de maneira que o diret&oacute;rio possa ser
+	 * removido pelo rob&ocirc;.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel reescrever ou fechar o
+	 *             di&aacute;rio.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (!this.canal.isOpen()) {
+			return;
+		}
+
+		this.compactar();
+		this.bloqueio.release();
+		this.canal.close();
+
+		if (this.registros.isEmpty()) {
+			try {
+				Files.delete(this.arquivo);
+			} catch (final NoSuchFileException e) {
+				// Nada a excluir.
+			}
+		}
+	}
+
+	/**
+	 * Classe respons&aacute;vel por manter o estado de um arquivo no
+	 * di&aacute;rio.
+	 *
+	 * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
+	 *         &lt;pgioseffi@gmail.com&gt;</a>
+	 *
+	 * @since 1.1.0
+	 */
+	static final class Registro {
+
+		/**
+		 * Estado do arquivo.
+		 */
+		final Estado estado;
+
+		/**
+		 * Instante, em milissegundos, do registro.
+		 */
+		final long instante;
+
+		/**
+		 * Quantidade de tentativas j&aacute; feitas.
+		 */
+		final int tentativas;
+
+		/**
+		 * Instante, em milissegundos, da pr&oacute;xima tentativa ou zero.
+		 */
+		final long proximaTentativa;
+
+		/**
+		 * Construtor respons&aacute;vel por criar o registro.
+		 *
+		 * @param estado
+		 *            Estado do arquivo.
+		 * @param instante
+		 *            Instante, em milissegundos, do registro.
+		 * @param tentativas
+		 *            Quantidade de tentativas j&aacute; feitas.
+		 * @param proximaTentativa
+		 *            Instante, em milissegundos, da pr&oacute;xima tentativa ou
+		 *            zero.
+		 */
+		Registro(final Estado estado, final long instante, final int tentativas, final long proximaTentativa) {
+			this.estado = estado;
+			this.instante = instante;
+			this.tentativas = tentativas;
+			this.proximaTentativa = proximaTentativa;
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,301 @@
+package br.com.pgioseffi.requisicoes.soap;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * <p>
+ * Classe respons&aacute;vel por manter o estado pr&oacute;prio de um
+ * diret&oacute;rio atendido pelo rob&ocirc;, isto &eacute;, de um perfil: o
+ * arquivo de controle de execu&ccedil;&atilde;o bloqueado, o
+ * {@link DiarioEstados di&aacute;rio}, a reten&ccedil;&atilde;o e a cota de
+ * concorr&ecirc;ncia.
+ * </p>
+ * <p>
+ * Um mesmo processo pode atender diversos perfis compartilhando o
+ * {@link PoolTrabalhadores pool de trabalhadores}, o {@link TransporteSOAP
+ * transporte} e as suas conex&otilde;es. A cota limita a quantidade de
+ * arquivos do perfil em processamento ao mesmo tempo, de maneira que um perfil
+ * com uma carga grande n&atilde;o ocupe todos os trabalhadores. Um arquivo sem
+ * vaga na cota permanece <code>PENDING</code> e &eacute; devolvido quando
+ * outro arquivo do mesmo perfil terminar, como na
+ * {@link ProtecaoEndpoint prote&ccedil;&atilde;o dos endpoints}.
+ * </p>
+ * <p>
+ * O arquivo de controle de execu&ccedil;&atilde;o tem o mesmo nome utilizado
+ * por um rob&ocirc; dedicado ao perfil, de maneira que o diret&oacute;rio
+ * continue sendo atendido por um &uacute;nico rob&ocirc;.
+ * </p>
+ *
+ * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
+ *         &lt;pgioseffi@gmail.com&gt;</a>
+ *
+ * @since 1.1.0
+ *
+ * @see ExecutaRequisicaoSOAP
+ * @see DiarioEstados
+ * @see FileLock
+ */
+final class DiretorioPerfil implements Closeable {
+
+	/**
+	 * Nome do perfil.
+	 */
+	private final String nome;
+
+	/**
+	 * Caminho absoluto do diret&oacute;rio.
+	 */
+	private final Path diretorio;
+
+	/**
+	 * Caminho absoluto do arquivo de controle de execu&ccedil;&atilde;o.
+	 */
+	private final Path arquivoControle;
+
+	/**
+	 * Tempo, em milissegundos, que os arquivos finalizados permanecem no
+	 * diret&oacute;rio.
+	 */
+	private final long retencaoMs;
+
+	/**
+	 * Quantidade m&aacute;xima de arquivos em processamento ao mesmo tempo. Zero
+	 * indica que n&atilde;o h&aacute; cota.
+	 */
+	private final int cota;
+
+	/**
+	 * Bloqueio do arquivo de controle de execu&ccedil;&atilde;o, liberado no
+	 * {@link DiretorioPerfil#close() fechamento}.
+	 */
+	private final FileLock bloqueio;
+
+	/**
+	 * Di&aacute;rio de estados ou <code><strong>null</strong></code> quando o
+	 * status &eacute; mantido nas extens&otilde;es dos arquivos.
+	 */
+	private DiarioEstados diario;
+
+	/**
+	 * Quantidade de arquivos em processamento.
+	 */
+	private int emProcessamento;
+
+	/**
+	 * Arquivos que aguardam uma vaga na cota, na ordem de chegada e sem
+	 * repeti&ccedil;&otilde;es.
+	 */
+	private final Set<Path> aguardandoVaga = new LinkedHashSet<>();
+
+	/**
+	 * Construtor respons&aacute;vel por criar, caso necess&aacute;rio, o
+	 * diret&oacute;rio e por escrever e bloquear o arquivo de controle de
+	 * execu&ccedil;&atilde;o.
+	 *
+	 * @param nome
+	 *            Nome do perfil.
+	 * @param diretorio
+	 *            Diret&oacute;rio do perfil.
+	 * @param nomeArquivoControle
+	 *            Nome do arquivo de controle de execu&ccedil;&atilde;o.
+	 * @param retencaoMs
+	 *            Tempo, em milissegundos, que os arquivos finalizados permanecem
+	 *            no diret&oacute;rio.
+	 * @param cota
+	 *            Quantidade m&aacute;xima de arquivos em processamento ao mesmo
+	 *            tempo. Zero ou negativo desabilita a cota.
+	 *
+	 * @throws FileAlreadyExistsException
+	 *             Caso o arquivo de controle j&aacute; exista, isto &eacute;,
+	 *             caso o diret&oacute;rio j&aacute; seja atendido por outro
+	 *             rob&ocirc;.
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel criar o diret&oacute;rio ou
+	 *             escrever e bloquear o arquivo de controle.
+	 */
+	DiretorioPerfil(final String nome, final Path diretorio, final String nomeArquivoControle, final long retencaoMs, final int cota) throws IOException {
+		this.nome = nome;
+		this.diretorio = diretorio.toAbsolutePath().normalize();
+		this.arquivoControle = this.diretorio.resolve(nomeArquivoControle);
+		this.retencaoMs = retencaoMs;
+		this.cota = Math.max(0, cota);
+
+		final String mensagem = "Job em execu\u00E7\u00E3o pelo usu\u00E1rio "
+				+ NomesArquivos.substring(this.arquivoControle, true, false, '.').toUpperCase(new Locale("pt", "BR"));
+		if (Files.exists(this.arquivoControle)) {
+			throw new FileAlreadyExistsException(this.arquivoControle.toString(), null, mensagem);
+		}
+
+		if (!Files.exists(this.diretorio)) {
+			Files.createDirectory(this.diretorio);
+		}
+
+		Files.write(this.arquivoControle, mensagem.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+
+		// O canal permanece aberto até o fechamento, pois fechá-lo libera o bloqueio.
+		@SuppressWarnings("resource")
+		final FileChannel canal = new RandomAccessFile(this.arquivoControle.toFile(), "rw").getChannel();
+		try {
+			this.bloqueio = canal.lock(0, Long.MAX_VALUE, false);
+		} catch (final IOException | RuntimeException e) {
+			canal.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por abrir o {@link DiarioEstados
+	 * di&aacute;rio} do diret&oacute;rio.
+	 *
+	 * @param sincronizar
+	 *            Indica se cada linha do di&aacute;rio &eacute; sincronizada com o
+	 *            disco.
+	 * @param minimoLinhasCompactacao
+	 *            Quantidade m&iacute;nima de linhas para a compacta&ccedil;&atilde;o.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel abrir o di&aacute;rio,
+	 *             inclusive por estar em uso por outro rob&ocirc;.
+	 */
+	void abrirDiario(final boolean sincronizar, final int minimoLinhasCompactacao) throws IOException {
+		this.diario = new DiarioEstados(this.diretorio, sincronizar, minimoLinhasCompactacao);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar o nome do perfil.
+	 *
+	 * @return O nome do perfil.
+	 */
+	String getNome() {
+		return this.nome;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar o caminho absoluto do
+	 * diret&oacute;rio, que &eacute; tamb&eacute;m o diret&oacute;rio pai dos
+	 * arquivos do perfil.
+	 *
+	 * @return O caminho absoluto do diret&oacute;rio.
+	 */
+	Path getDiretorio() {
+		return this.diretorio;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar a reten&ccedil;&atilde;o dos
+	 * arquivos finalizados.
+	 *
+	 * @return O tempo, em milissegundos, que os arquivos finalizados permanecem
+	 *         no diret&oacute;rio.
+	 */
+	long getRetencaoMs() {
+		return this.retencaoMs;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar o {@link DiarioEstados
+	 * di&aacute;rio} do diret&oacute;rio.
+	 *
+	 * @return O di&aacute;rio ou <code><strong>null</strong></code> quando o
+	 *         status &eacute; mantido nas extens&otilde;es dos arquivos.
+	 */
+	DiarioEstados getDiario() {
+		return this.diario;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por ocupar uma vaga na cota para o
+	 * processamento de um arquivo.
+	 *
+	 * @param caminho
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo
+	 *            a ser processado, guardado caso n&atilde;o haja vaga.
+	 *
+	 * @return O intr&iacute;nseco <code><strong>boolean</strong></code> contendo o
+	 *         valor <code><strong>true</strong></code> caso a vaga tenha sido
+	 *         ocupada ou <code><strong>false</strong></code> caso o arquivo
+	 *         aguarde a libera&ccedil;&atilde;o de uma.
+	 */
+	synchronized boolean ocupar(final Path caminho) {
+		if (this.cota == 0) {
+			return true;
+		}
+
+		if (this.emProcessamento >= this.cota) {
+			this.aguardandoVaga.add(caminho);
+			return false;
+		}
+
+		this.emProcessamento++;
+		return true;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por desocupar a vaga de um arquivo cujo
+	 * processamento terminou.
+	 *
+	 * @return O pr&oacute;ximo arquivo que aguardava vaga ou
+	 *         <code><strong>null</strong></code> caso n&atilde;o haja.
+	 */
+	synchronized Path desocupar() {
+		if (this.cota == 0) {
+			return null;
+		}
+
+		this.emProcessamento--;
+		if (this.aguardandoVaga.isEmpty()) {
+			return null;
+		}
+
+		final Iterator<Path> iterator = this.aguardandoVaga.iterator();
+		final Path proximo = iterator.next();
+		iterator.remove();
+		return proximo;
+	}
+
+	/**
+	 * Libera o bloqueio e exclui o arquivo de controle de execu&ccedil;&atilde;o
+	 * e, caso o mesmo fique vazio, o pr&oacute;prio diret&oacute;rio. O
+	 * {@link DiarioEstados di&aacute;rio} deve ser fechado antes.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel liberar o bloqueio ou
+	 *             excluir os arquivos.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			this.bloqueio.release();
+		} finally {
+			this.bloqueio.channel().close();
+		}
+
+		Files.delete(this.arquivoControle);
+
+		// Se for a última instância do robô a utilizar o diretório, posso apagá-lo.
+		try (Stream<Path> arquivos = Files.list(this.diretorio)) {
+			if (!arquivos.findAny().isPresent()) {
+				Files.delete(this.diretorio);
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return this.nome + " (" + this.diretorio + ")";
+	}
+}
\ No newline at end of file
@@ -0,0 +1,425 @@
+package br.com.pgioseffi.requisicoes.soap;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * <p>
+ * Classe respons&aacute;vel por separar, enquanto &eacute; recebida, uma
+ * resposta MTOM/XOP, isto &eacute;, uma mensagem
+ * <code>multipart/related</code>: a parte raiz, com o envelope SOAP, &eacute;
+ * escrita no pr&oacute;prio {@link ArquivoResposta arquivo de resposta} e cada
+ * uma das demais partes em um {@link ArquivoResposta#criarAnexo(String) anexo}
+ * ao lado do mesmo.
+ * </p>
+ * <p>
+ * Os bytes s&atilde;o empurrados pelos transportes, bloqueantes ou n&atilde;o,
+ * atrav&eacute;s dos m&eacute;todos de escrita. A fronteira &eacute; procurada
+ * com o algoritmo de Knuth-Morris-Pratt, de maneira que apenas os
+ * cabe&ccedil;alhos de cada parte sejam mantidos em mem&oacute;ria,
+ * independente do tamanho das partes.
+ * </p>
+ *
+ * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
+ *         &lt;pgioseffi@gmail.com&gt;</a>
+ *
+ * @since 1.1.0
+ *
+ * @see CorpoMtom
+ * @see ArquivoResposta#criarAnexo(String)
+ */
+final class DivisorMultipart extends OutputStream {
+
+	/**
+	 * Etapas da leitura da mensagem.
+	 */
+	private enum Etapa {
+
+		/**
+		 * Pre&acirc;mbulo, descartado, antes da primeira fronteira.
+		 */
+		PREAMBULO,
+
+		/**
+		 * Restante da linha da fronteira, que indica o fim da mensagem ou o
+		 * in&iacute;cio dos cabe&ccedil;alhos de uma parte.
+		 */
+		FRONTEIRA,
+
+		/**
+		 * Cabe&ccedil;alhos de uma parte.
+		 */
+		CABECALHOS,
+
+		/**
+		 * Conte&uacute;do de uma parte.
+		 */
+		CORPO,
+
+		/**
+		 * Ep&iacute;logo, descartado, ap&oacute;s a fronteira final.
+		 */
+		EPILOGO
+	}
+
+	/**
+	 * Tamanho m&aacute;ximo, em bytes, dos cabe&ccedil;alhos de uma parte.
+	 */
+	private static final int TAMANHO_MAXIMO_CABECALHOS = 64 * 1024;
+
+	/**
+	 * Resposta que recebe a parte raiz e cria os anexos.
+	 */
+	private final ArquivoResposta resposta;
+
+	/**
+	 * <code>Content-ID</code> da parte raiz, ou <code><strong>null</strong></code>
+	 * caso seja a primeira parte.
+	 */
+	private final String idRaiz;
+
+	/**
+	 * Delimitador procurado: quebra de linha, dois h&iacute;fens e a fronteira.
+	 */
+	private final byte[] delimitador;
+
+	/**
+	 * Tabela de falhas do algoritmo de Knuth-Morris-Pratt: para cada prefixo do
+	 * delimitador, o tamanho do maior prefixo pr&oacute;prio que tamb&eacute;m
+	 * &eacute; seu sufixo.
+	 */
+	private final int[] falhas;
+
+	/**
+	 * Cabe&ccedil;alhos da parte atual ou in&iacute;cio da linha da fronteira.
+	 */
+	private final ByteArrayOutputStream cabecalhos = new ByteArrayOutputStream();
+
+	/**
+	 * Etapa atual.
+	 */
+	private Etapa etapa = Etapa.PREAMBULO;
+
+	/**
+	 * Quantidade de bytes do delimitador j&aacute; encontrados. No
+	 * pre&acirc;mbulo a quebra de linha &eacute; considerada encontrada, pois a
+	 * primeira fronteira pode iniciar a mensagem.
+	 */
+	private int casados = 2;
+
+	/**
+	 * &Uacute;ltimos bytes dos cabe&ccedil;alhos, utilizados para encontrar a
+	 * linha em branco que os encerra.
+	 */
+	private int ultimos;
+
+	/**
+	 * Destino do conte&uacute;do da parte atual.
+	 */
+	private OutputStream destino;
+
+	/**
+	 * Indica se a parte raiz j&aacute; foi encontrada.
+	 */
+	private boolean raizEncontrada;
+
+	/**
+	 * Quantidade de partes encontradas, utilizada para nomear anexos sem
+	 * <code>Content-ID</code>.
+	 */
+	private int partes;
+
+	/**
+	 * Construtor respons&aacute;vel por preparar a busca pela fronteira.
+	 *
+	 * @param resposta
+	 *            Resposta que recebe a parte raiz e cria os anexos.
+	 * @param fronteira
+	 *            Par&acirc;metro <code>boundary</code> do tipo de
+	 *            conte&uacute;do.
+	 * @param idRaiz
+	 *            Par&acirc;metro <code>start</code> do tipo de conte&uacute;do,
+	 *            ou <code><strong>null</strong></code>.
+	 */
+	private DivisorMultipart(final ArquivoResposta resposta, final String fronteira, final String idRaiz) {
+		this.resposta = resposta;
+		this.idRaiz = idRaiz;
+		this.delimitador = ("\r\n--" + fronteira).getBytes(StandardCharsets.ISO_8859_1);
+
+		this.falhas = new int[this.delimitador.length];
+		for (int i = 1, k = 0; i < this.delimitador.length; i++) {
+			while (k > 0 && this.delimitador[i] != this.delimitador[k]) {
+				k = this.falhas[k - 1];
+			}
+
+			if (this.delimitador[i] == this.delimitador[k]) {
+				k++;
+			}
+
+			this.falhas[i] = k;
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por criar um divisor para a resposta
+	 * quando a mesma &eacute; uma mensagem <code>multipart/related</code>
+	 * escrita em arquivo.
+	 *
+	 * @param tipoConteudo
+	 *            Valor do cabe&ccedil;alho <code>Content-Type</code> da
+	 *            resposta.
+	 * @param resposta
+	 *            Resposta que receber&aacute; as partes.
+	 *
+	 * @return O divisor ou <code><strong>null</strong></code> caso a resposta
+	 *         n&atilde;o seja multipart ou seja {@link ArquivoResposta#emMemoria()
+	 *         em mem&oacute;ria}, casos em que a mesma deve ser escrita como
+	 *         recebida.
+	 */
+	static DivisorMultipart criar(final String tipoConteudo, final ArquivoResposta resposta) {
+		if (tipoConteudo == null || resposta.isEmMemoria()
+				|| !StringUtils.startsWithIgnoreCase(StringUtils.substringBefore(tipoConteudo, ";").trim(), "multipart/related")) {
+			return null;
+		}
+
+		final Map<String, String> parametros = DivisorMultipart.lerParametros(tipoConteudo);
+		final String fronteira = parametros.get("boundary");
+		if (StringUtils.isEmpty(fronteira)) {
+			return null;
+		}
+
+		return new DivisorMultipart(resposta, fronteira, parametros.get("start"));
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por ler os par&acirc;metros de um tipo de
+	 * conte&uacute;do, respeitando valores entre aspas.
+	 *
+	 * @param tipoConteudo
+	 *            Tipo de conte&uacute;do com par&acirc;metros.
+	 *
+	 * @return Os par&acirc;metros, indexados pelo nome em min&uacute;sculas.
+	 */
+	private static Map<String, String> lerParametros(final String tipoConteudo) {
+		final Map<String, String> parametros = new HashMap<>();
+		int i = tipoConteudo.indexOf(';');
+		while (i >= 0 && i < tipoConteudo.length()) {
+			final int igual = tipoConteudo.indexOf('=', i);
+			if (igual < 0) {
+				break;
+			}
+
+			final String nome = tipoConteudo.substring(i + 1, igual).trim().toLowerCase(Locale.ROOT);
+			final StringBuilder valor = new StringBuilder();
+			int j = igual + 1;
+			while (j < tipoConteudo.length() && Character.isWhitespace(tipoConteudo.charAt(j))) {
+				j++;
+			}
+
+			if (j < tipoConteudo.length() && tipoConteudo.charAt(j) == '"') {
+				for (j++; j < tipoConteudo.length() && tipoConteudo.charAt(j) != '"'; j++) {
+					if (tipoConteudo.charAt(j) == '\\' && j + 1 < tipoConteudo.length()) {
+						j++;
+					}
+
+					valor.append(tipoConteudo.charAt(j));
+				}
+
+				j = tipoConteudo.indexOf(';', j);
+			} else {
+				final int fim = tipoConteudo.indexOf(';', j);
+				valor.append(tipoConteudo, j, fim < 0 ? tipoConteudo.length() : fim);
+				j = fim;
+			}
+
+			parametros.put(nome, valor.toString().trim());
+			i = j;
+		}
+
+		return parametros;
+	}
+
+	@Override
+	public void write(final int b) throws IOException {
+		this.write(new byte[] { (byte) b }, 0, 1);
+	}
+
+	@Override
+	public void write(final byte[] b, final int off, final int len) throws IOException {
+		int posicao = off;
+		final int fim = off + len;
+		while (posicao < fim) {
+			switch (this.etapa) {
+				case PREAMBULO:
+				case CORPO:
+					posicao = this.lerCorpo(b, posicao, fim);
+					break;
+				case FRONTEIRA:
+					this.lerFronteira(b[posicao++]);
+					break;
+				case CABECALHOS:
+					this.lerCabecalho(b[posicao++]);
+					break;
+				default:
+					return;
+			}
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por repassar o conte&uacute;do de uma
+	 * parte ao seu destino at&eacute; encontrar o delimitador. Bytes que
+	 * come&ccedil;am um delimitador s&oacute; s&atilde;o repassados quando se
+	 * descobre que n&atilde;o o completam.
+	 *
+	 * @param b
+	 *            Bytes recebidos.
+	 * @param inicio
+	 *            Posi&ccedil;&atilde;o do primeiro byte a ser lido.
+	 * @param fim
+	 *            Posi&ccedil;&atilde;o seguinte ao &uacute;ltimo byte recebido.
+	 *
+	 * @return A posi&ccedil;&atilde;o seguinte ao &uacute;ltimo byte lido.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel escrever no destino.
+	 */
+	private int lerCorpo(final byte[] b, final int inicio, final int fim) throws IOException {
+		int trecho = inicio;
+		for (int i = inicio; i < fim; i++) {
+			final byte atual = b[i];
+			if (this.casados == 0 && atual != this.delimitador[0]) {
+				continue;
+			}
+
+			this.repassar(b, trecho, i - trecho);
+			trecho = i + 1;
+
+			while (this.casados > 0 && this.delimitador[this.casados] != atual) {
+				final int anterior = this.falhas[this.casados - 1];
+				this.repassar(this.delimitador, 0, this.casados - anterior);
+				this.casados = anterior;
+			}
+
+			if (this.delimitador[this.casados] != atual) {
+				trecho = i;
+				continue;
+			}
+
+			if (++this.casados == this.delimitador.length) {
+				this.casados = 0;
+				this.destino = null;
+				this.cabecalhos.reset();
+				this.etapa = Etapa.FRONTEIRA;
+				return i + 1;
+			}
+		}
+
+		this.repassar(b, trecho, fim - trecho);
+		return fim;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por escrever bytes no destino da parte
+	 * atual, descartando-os no pre&acirc;mbulo.
+	 *
+	 * @param b
+	 *            Bytes a serem escritos.
+	 * @param inicio
+	 *            Posi&ccedil;&atilde;o do primeiro byte.
+	 * @param quantidade
+	 *            Quantidade de bytes.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel escrever no destino.
+	 */
+	private void repassar(final byte[] b, final int inicio, final int quantidade) throws IOException {
+		if (quantidade > 0 && this.destino != null) {
+			this.destino.write(b, inicio, quantidade);
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por ler o restante da linha de uma
+	 * fronteira: dois h&iacute;fens encerram a mensagem e a quebra de linha
+	 * inicia os cabe&ccedil;alhos de uma parte.
+	 *
+	 * @param b
+	 *            Byte recebido.
+	 */
+	private void lerFronteira(final byte b) {
+		if (b == '\n') {
+			this.ultimos = 0x0D0A;
+			this.cabecalhos.reset();
+			this.etapa = Etapa.CABECALHOS;
+			return;
+		}
+
+		this.cabecalhos.write(b);
+		if (this.cabecalhos.size() == 2 && "--".equals(this.cabecalhos.toString())) {
+			this.etapa = Etapa.EPILOGO;
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por acumular os cabe&ccedil;alhos de
+	 * uma parte at&eacute; a linha em branco e, ent&atilde;o, escolher o seu
+	 * destino.
+	 *
+	 * @param b
+	 *            Byte recebido.
+	 *
+	 * @throws IOException
+	 *             Caso os cabe&ccedil;alhos sejam grandes demais ou n&atilde;o
+	 *             seja poss&iacute;vel criar o anexo.
+	 */
+	private void lerCabecalho(final byte b) throws IOException {
+		if (this.cabecalhos.size() >= DivisorMultipart.TAMANHO_MAXIMO_CABECALHOS) {
+			throw new IOException("Cabe\u00E7alhos de parte multipart maiores que " + DivisorMultipart.TAMANHO_MAXIMO_CABECALHOS + " bytes.");
+		}
+
+		this.cabecalhos.write(b);
+		this.ultimos = this.ultimos << 8 | b & 0xFF;
+		if (this.ultimos != 0x0D0A0D0A && (this.ultimos & 0xFFFF) != 0x0A0A) {
+			return;
+		}
+
+		String contentId = null;
+		for (final String linha : new String(this.cabecalhos.toByteArray(), StandardCharsets.ISO_8859_1).replaceAll("\r?\n[ \t]+", " ").split("\r?\n")) {
+			if (StringUtils.startsWithIgnoreCase(linha, "Content-ID:")) {
+				contentId = linha.substring("Content-ID:".length()).trim();
+			}
+		}
+
+		this.partes++;
+		if (!this.raizEncontrada && (this.idRaiz == null || StringUtils.strip(this.idRaiz, "<>").equals(StringUtils.strip(contentId, "<>")))) {
+			this.raizEncontrada = true;
+			this.destino = this.resposta.getSaida();
+		} else {
+			this.destino = this.resposta.criarAnexo(StringUtils.isBlank(contentId) ? "parte" + this.partes : contentId).getSaida();
+		}
+
+		this.etapa = Etapa.CORPO;
+	}
+
+	/**
+	 * Verifica se a mensagem foi recebida at&eacute; a fronteira final. O
+	 * destino n&atilde;o &eacute; fechado, pois pertence &agrave; resposta.
+	 *
+	 * @throws IOException
+	 *             Caso a mensagem esteja incompleta.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (this.etapa != Etapa.EPILOGO) {
+			throw new IOException("Resposta multipart incompleta.");
+		}
+	}
+}
\ No newline at end of file
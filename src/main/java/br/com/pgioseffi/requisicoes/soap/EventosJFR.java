@@ -0,0 +1,342 @@
+package br.com.pgioseffi.requisicoes.soap;
+
+import java.nio.file.Path;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * <p>
+ * Classe respons&aacute;vel por emitir os eventos do rob&ocirc; para o Java
+ * Flight Recorder: um por arquivo processado, com o endpoint, os tamanhos e a
+ * dura&ccedil;&atilde;o de cada etapa, al&eacute;m de um por varredura do
+ * diret&oacute;rio e um por limpeza dos arquivos antigos. Desta maneira uma
+ * grava&ccedil;&atilde;o feita em produ&ccedil;&atilde;o mostra o rob&ocirc;
+ * lado a lado com a atividade do <i>garbage collector</i> e das
+ * <i>threads</i>.
+ * </p>
+ * <p>
+ * Os eventos s&oacute; s&atilde;o criados quando est&atilde;o habilitados em
+ * uma grava&ccedil;&atilde;o em andamento, de maneira que, sem
+ * grava&ccedil;&atilde;o, o custo &eacute; o de uma verifica&ccedil;&atilde;o.
+ * Em JVMs sem a API do JFR (Java 8 anterior &agrave; atualiza&ccedil;&atilde;o
+ * 262) os eventos s&atilde;o simplesmente ignorados.
+ * </p>
+ * <p>
+ * Os m&eacute;todos de in&iacute;cio devolvem o evento j&aacute; iniciado ou
+ * <code><strong>null</strong></code>, valor aceito pelos m&eacute;todos de
+ * t&eacute;rmino.
+ * </p>
+ *
+ * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
+ *         &lt;pgioseffi@gmail.com&gt;</a>
+ *
+ * @since 1.1.0
+ *
+ * @see Event
+ * @see MedicaoArquivo
+ * @see MetricasRobo
+ */
+final class EventosJFR {
+
+	/**
+	 * Categoria de todos os eventos do rob&ocirc;.
+	 */
+	private static final String CATEGORIA = "Rob\u00F4 de Requisi\u00E7\u00F5es SOAP";
+
+	/**
+	 * Indica se a JVM oferece a API do JFR. A verifica&ccedil;&atilde;o &eacute;
+	 * feita sem carregar as classes dos eventos, que s&oacute; s&atilde;o
+	 * carregadas quando instanciadas pela primeira vez.
+	 */
+	private static final boolean DISPONIVEL = EventosJFR.verificarDisponibilidade();
+
+	/**
+	 * Evento emitido ao fim do processamento de cada arquivo reivindicado.
+	 */
+	@Name("br.com.pgioseffi.requisicoes.soap.Arquivo")
+	@Label("Arquivo Processado")
+	@Description("Processamento de um arquivo de requisi\u00E7\u00E3o SOAP, da reivindica\u00E7\u00E3o \u00E0 escrita da resposta")
+	@Category(EventosJFR.CATEGORIA)
+	@StackTrace(false)
+	static final class Arquivo extends Event {
+
+		/**
+		 * Nome do arquivo antes da reivindica&ccedil;&atilde;o.
+		 */
+		@Label("Arquivo")
+		String arquivo;
+
+		/**
+		 * URL do endpoint.
+		 */
+		@Label("Endpoint")
+		String endpoint;
+
+		/**
+		 * N&uacute;mero da tentativa, iniciando em um.
+		 */
+		@Label("Tentativa")
+		int tentativa;
+
+		/**
+		 * Indica se a requisi&ccedil;&atilde;o foi bem sucedida.
+		 */
+		@Label("Sucesso")
+		boolean sucesso;
+
+		/**
+		 * Tamanho do envelope SOAP enviado.
+		 */
+		@Label("Tamanho da Requisi\u00E7\u00E3o")
+		@DataAmount
+		long bytesRequisicao;
+
+		/**
+		 * Tamanho da resposta gravada.
+		 */
+		@Label("Tamanho da Resposta")
+		@DataAmount
+		long bytesResposta;
+
+		/**
+		 * Dura&ccedil;&atilde;o da reivindica&ccedil;&atilde;o.
+		 */
+		@Label("Reivindica\u00E7\u00E3o")
+		@Timespan
+		long reivindicacao;
+
+		/**
+		 * Dura&ccedil;&atilde;o da leitura das configura&ccedil;&otilde;es.
+		 */
+		@Label("Leitura")
+		@Timespan
+		long leitura;
+
+		/**
+		 * Dura&ccedil;&atilde;o da constru&ccedil;&atilde;o da mensagem SOAP.
+		 */
+		@Label("Constru\u00E7\u00E3o da Mensagem")
+		@Timespan
+		long mensagem;
+
+		/**
+		 * Dura&ccedil;&atilde;o da requisi&ccedil;&atilde;o SOAP.
+		 */
+		@Label("Envio")
+		@Timespan
+		long envio;
+
+		/**
+		 * Dura&ccedil;&atilde;o da escrita da resposta.
+		 */
+		@Label("Escrita")
+		@Timespan
+		long escrita;
+	}
+
+	/**
+	 * Evento emitido a cada varredura do diret&oacute;rio em busca de arquivos
+	 * pendentes.
+	 */
+	@Name("br.com.pgioseffi.requisicoes.soap.Varredura")
+	@Label("Varredura do Diret\u00F3rio")
+	@Category(EventosJFR.CATEGORIA)
+	@StackTrace(false)
+	static final class Varredura extends Event {
+
+		/**
+		 * Quantidade de arquivos pendentes encontrados.
+		 */
+		@Label("Arquivos")
+		int arquivos;
+	}
+
+	/**
+	 * Evento emitido a cada limpeza dos arquivos antigos.
+	 */
+	@Name("br.com.pgioseffi.requisicoes.soap.Limpeza")
+	@Label("Limpeza do Diret\u00F3rio")
+	@Category(EventosJFR.CATEGORIA)
+	@StackTrace(false)
+	static final class Limpeza extends Event {
+
+		/**
+		 * Quantidade de arquivos exclu&iacute;dos.
+		 */
+		@Label("Exclus\u00F5es")
+		int exclusoes;
+	}
+
+	/**
+	 * Construtor padr&atilde;o de maneira a evitar instancia&ccedil;&atilde;o da
+	 * classe.
+	 */
+	private EventosJFR() {
+		super();
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por verificar se a JVM oferece a API do
+	 * JFR.
+	 *
+	 * @return O intr&iacute;nseco <code><strong>boolean</strong></code> contendo o
+	 *         valor <code><strong>true</strong></code> caso a API exista ou
+	 *         <code><strong>false</strong></code> caso contr&aacute;rio.
+	 */
+	private static boolean verificarDisponibilidade() {
+		try {
+			Class.forName("jdk.jfr.Event", false, EventosJFR.class.getClassLoader());
+			return true;
+		} catch (final ClassNotFoundException | LinkageError e) {
+			return false;
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por iniciar o evento de um arquivo.
+	 *
+	 * @return O evento iniciado ou <code><strong>null</strong></code> caso o
+	 *         mesmo n&atilde;o esteja sendo gravado.
+	 */
+	static Arquivo iniciarArquivo() {
+		if (!EventosJFR.DISPONIVEL) {
+			return null;
+		}
+
+		final Arquivo evento = new Arquivo();
+		if (!evento.isEnabled()) {
+			return null;
+		}
+
+		evento.begin();
+		return evento;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por finalizar e gravar o evento de um
+	 * arquivo.
+	 *
+	 * @param evento
+	 *            Evento iniciado por {@link EventosJFR#iniciarArquivo()}. Pode ser
+	 *            <code><strong>null</strong></code>.
+	 * @param caminho
+	 *            Caminho do arquivo antes da reivindica&ccedil;&atilde;o.
+	 * @param requisicao
+	 *            Arquivo de requisi&ccedil;&atilde;o, com as dura&ccedil;&otilde;es
+	 *            das etapas. Pode j&aacute; estar fechado.
+	 * @param bytesRequisicao
+	 *            Tamanho do envelope SOAP enviado.
+	 * @param tentativa
+	 *            N&uacute;mero da tentativa, iniciando em um.
+	 * @param sucesso
+	 *            Indica se a requisi&ccedil;&atilde;o foi bem sucedida.
+	 * @param bytesResposta
+	 *            Tamanho da resposta gravada.
+	 */
+	static void finalizarArquivo(final Arquivo evento, final Path caminho, final ArquivoRequisicao requisicao, final long bytesRequisicao, final int tentativa,
+			final boolean sucesso, final long bytesResposta) {
+		if (evento == null) {
+			return;
+		}
+
+		evento.end();
+		if (!evento.shouldCommit()) {
+			return;
+		}
+
+		final MedicaoArquivo medicao = requisicao.getMedicao();
+		evento.arquivo = caminho.getFileName().toString();
+		evento.endpoint = requisicao.getUrl();
+		evento.tentativa = tentativa;
+		evento.sucesso = sucesso;
+		evento.bytesRequisicao = bytesRequisicao;
+		evento.bytesResposta = bytesResposta;
+		evento.reivindicacao = medicao.getDuracao(MedicaoArquivo.Etapa.REIVINDICACAO);
+		evento.leitura = medicao.getDuracao(MedicaoArquivo.Etapa.LEITURA);
+		evento.mensagem = medicao.getDuracao(MedicaoArquivo.Etapa.MENSAGEM);
+		evento.envio = medicao.getDuracao(MedicaoArquivo.Etapa.ENVIO);
+		evento.escrita = medicao.getDuracao(MedicaoArquivo.Etapa.ESCRITA);
+		evento.commit();
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por iniciar o evento de uma varredura.
+	 *
+	 * @return O evento iniciado ou <code><strong>null</strong></code> caso o
+	 *         mesmo n&atilde;o esteja sendo gravado.
+	 */
+	static Varredura iniciarVarredura() {
+		if (!EventosJFR.DISPONIVEL) {
+			return null;
+		}
+
+		final Varredura evento = new Varredura();
+		if (!evento.isEnabled()) {
+			return null;
+		}
+
+		evento.begin();
+		return evento;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por finalizar e gravar o evento de uma
+	 * varredura.
+	 *
+	 * @param evento
+	 *            Evento iniciado por {@link EventosJFR#iniciarVarredura()}. Pode
+	 *            ser <code><strong>null</strong></code>.
+	 * @param arquivos
+	 *            Quantidade de arquivos pendentes encontrados.
+	 */
+	static void finalizarVarredura(final Varredura evento, final int arquivos) {
+		if (evento != null) {
+			evento.arquivos = arquivos;
+			evento.commit();
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por iniciar o evento de uma limpeza.
+	 *
+	 * @return O evento iniciado ou <code><strong>null</strong></code> caso o
+	 *         mesmo n&atilde;o esteja sendo gravado.
+	 */
+	static Limpeza iniciarLimpeza() {
+		if (!EventosJFR.DISPONIVEL) {
+			return null;
+		}
+
+		final Limpeza evento = new Limpeza();
+		if (!evento.isEnabled()) {
+			return null;
+		}
+
+		evento.begin();
+		return evento;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por finalizar e gravar o evento de uma
+	 * limpeza.
+	 *
+	 * @param evento
+	 *            Evento iniciado por {@link EventosJFR#iniciarLimpeza()}. Pode ser
+	 *            <code><strong>null</strong></code>.
+	 * @param exclusoes
+	 *            Quantidade de arquivos exclu&iacute;dos.
+	 */
+	static void finalizarLimpeza(final Limpeza evento, final int exclusoes) {
+		if (evento != null) {
+			evento.exclusoes = exclusoes;
+			evento.commit();
+		}
+	}
+}
\ No newline at end of file
@@ -1,41 +1,49 @@
 package br.com.pgioseffi.requisicoes.soap;
 
-import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.RandomAccessFile;
-import java.io.UncheckedIOException;
-import java.nio.channels.FileLock;
-import java.nio.charset.StandardCharsets;
+import java.lang.management.ManagementFactory;
 import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
-import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
 import java.text.NumberFormat;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import javax.xml.soap.MessageFactory;
-import javax.xml.soap.MimeHeaders;
-import javax.xml.soap.SOAPConnectionFactory;
 import javax.xml.soap.SOAPException;
 import javax.xml.soap.SOAPMessage;
 
-import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.time.DateFormatUtils;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -44,9 +52,9 @@ import org.apache.logging.log4j.Logger;
  * Classe respons&aacute;vel por executar requisi&ccedil;&otilde;es SOAP a cada
  * cinco segundos atrav&eacute;s da leitura de um arquivo
  * {@link ExecutaRequisicaoSOAP#EXTENSAO_PENDING PENDING} com conte&uacute;do
- * XML com um envelope SOAP v&aacute;lido e manter por uma hora a resposta desta
- * mesma requisi&ccedil;&atilde;o em um arquivo
- * {@link ExecutaRequisicaoSOAP#EXTENSAO_RESPONSE RESPONSE}.
+ * XML com um envelope SOAP v&aacute;lido e manter, pelo per&iacute;odo de
+ * reten&ccedil;&atilde;o configurado, a resposta desta mesma requisi&ccedil;&atilde;o
+ * em um arquivo {@link ExecutaRequisicaoSOAP#EXTENSAO_RESPONSE RESPONSE}.
  * </p>
  * <p>
  * N&atilde;o &eacute; responsabilidade desta classe validar o envelope SOAP no
@@ -65,10 +73,61 @@ import org.apache.logging.log4j.Logger;
  * <li>{@link ExecutaRequisicaoSOAP#EXTENSAO_DONE DONE}: Arquivos originais com
  * requisi&ccedil;&otilde;es realizadas;</li>
  * <li>{@link ExecutaRequisicaoSOAP#EXTENSAO_RESPONSE RESPONSE}: Arquivos de
- * resposta das requisi&ccedil;&otilde;es realizadas;</li>
+ * resposta das requisi&ccedil;&otilde;es realizadas, opcionalmente
+ * compactados e com o sufixo {@link ArquivoResposta#SUFIXO_GZIP gz};</li>
+ * <li>{@link ExecutaRequisicaoSOAP#EXTENSAO_ANEXO ANEXO}: Arquivos com as
+ * partes MTOM/XOP das respostas, exceto o envelope, exclu&iacute;dos junto com
+ * as mesmas;</li>
+ * <li>{@link ExecutaRequisicaoSOAP#EXTENSAO_RETRY RETRY}: Arquivos com
+ * requisi&ccedil;&otilde;es que falharam e aguardam nova tentativa;</li>
+ * <li>{@link ExecutaRequisicaoSOAP#EXTENSAO_FAILED FAILED}: Arquivos com
+ * requisi&ccedil;&otilde;es inv&aacute;lidas ou que esgotaram as tentativas,
+ * mantidos para an&aacute;lise;</li>
  * </ul>
  * </p>
  * <p>
+ * Um arquivo {@link ExecutaRequisicaoSOAP#EXTENSAO_PENDING PENDING} pode ainda
+ * ser um {@link ArquivoRequisicao#isLote() lote} com diversos envelopes, cada
+ * um com a sua pr&oacute;pria linha de configura&ccedil;&otilde;es e um
+ * identificador de correla&ccedil;&atilde;o. Os envelopes s&atilde;o
+ * {@link ProcessamentoLote enviados em paralelo} e as respostas reunidas em um
+ * &uacute;nico arquivo {@link ExecutaRequisicaoSOAP#EXTENSAO_RESPONSE RESPONSE}
+ * {@link RespostaLote indexado}, reduzindo a quantidade de arquivos criados,
+ * renomeados e exclu&iacute;dos no diret&oacute;rio.
+ * </p>
+ * <p>
+ * Alternativamente, com a propriedade <code>estado.diario</code>, o status
+ * dos arquivos &eacute; mantido em um {@link DiarioEstados di&aacute;rio} no
+ * pr&oacute;prio diret&oacute;rio em vez das extens&otilde;es
+ * {@link ExecutaRequisicaoSOAP#EXTENSAO_DOING DOING},
+ * {@link ExecutaRequisicaoSOAP#EXTENSAO_DONE DONE} e
+ * {@link ExecutaRequisicaoSOAP#EXTENSAO_RETRY RETRY}. O arquivo
+ * {@link ExecutaRequisicaoSOAP#EXTENSAO_PENDING PENDING} mant&eacute;m o seu
+ * nome at&eacute; ser exclu&iacute;do ao fim da reten&ccedil;&atilde;o ou movido
+ * para {@link ExecutaRequisicaoSOAP#EXTENSAO_FAILED FAILED}, e cada
+ * mudan&ccedil;a de status custa uma linha no di&aacute;rio em vez de uma
+ * renomea&ccedil;&atilde;o. Neste modo o diret&oacute;rio n&atilde;o pode ser
+ * compartilhado com outros rob&ocirc;s.
+ * </p>
+ * <p>
+ * Com a propriedade <code>perfis</code>, um &uacute;nico rob&ocirc; atende os
+ * diret&oacute;rios de diversos {@link DiretorioPerfil perfis}, cada um com o
+ * seu arquivo de controle de execu&ccedil;&atilde;o, reten&ccedil;&atilde;o,
+ * cota de arquivos em processamento e di&aacute;rio, compartilhando o
+ * {@link PoolTrabalhadores pool de trabalhadores}, o {@link TransporteSOAP
+ * transporte} e o {@link MonitorDiretorio monitoramento}.
+ * </p>
+ * <p>
+ * Com a propriedade <code>concessao.habilitada</code>, diversos rob&ocirc;s,
+ * inclusive em m&aacute;quinas diferentes, atendem o mesmo diret&oacute;rio
+ * compartilhado atrav&eacute;s de {@link ConcessoesArquivos
+ * concess&otilde;es}: cada arquivo {@link ExecutaRequisicaoSOAP#EXTENSAO_DOING
+ * DOING} carrega no nome o n&oacute; que o reivindicou, as concess&otilde;es
+ * s&atilde;o renovadas periodicamente e as vencidas, de um n&oacute;
+ * interrompido, voltam a ser {@link ExecutaRequisicaoSOAP#EXTENSAO_PENDING
+ * PENDING}.
+ * </p>
+ * <p>
  * Esta classe tem como premissa iniciar suas constantes atrav&eacute;s de um
  * {@link Properties arquivo de propriedades} para localizar qual
  * diret&oacute;rio utilizar para buscar os arquivos com as
@@ -91,12 +150,14 @@ import org.apache.logging.log4j.Logger;
  * @see ExecutaRequisicaoSOAP#EXTENSAO_DOING EXTENSAO_DOING
  * @see ExecutaRequisicaoSOAP#EXTENSAO_DONE EXTENSAO_DONE
  * @see ExecutaRequisicaoSOAP#EXTENSAO_RESPONSE EXTENSAO_RESPONSE
+ * @see ExecutaRequisicaoSOAP#EXTENSAO_RETRY EXTENSAO_RETRY
+ * @see ExecutaRequisicaoSOAP#EXTENSAO_FAILED EXTENSAO_FAILED
  * @see Runtime
  * @see Thread
  * @see Runnable
  * @see ScheduledExecutorService
  * @see SOAPMessage
- * @see MimeHeaders
+ * @see javax.xml.soap.MimeHeaders MimeHeaders
  * @see Properties
  * @see Files
  * @see Path
@@ -147,7 +208,7 @@ public class ExecutaRequisicaoSOAP {
 	 * @see ExecutaRequisicaoSOAP#EXTENSAO_DOING EXTENSAO_DOING
 	 * @see ExecutaRequisicaoSOAP#EXTENSAO_DONE EXTENSAO_DONE
 	 */
-	private static final String EXTENSAO_RESPONSE = ".RESPONSE";
+	static final String EXTENSAO_RESPONSE = ".RESPONSE";
 
 	/**
 	 * Constante utilizada para a manipula&ccedil;&atilde;o de arquivos do tipo
@@ -156,7 +217,7 @@ public class ExecutaRequisicaoSOAP {
 	 * @see ExecutaRequisicaoSOAP#EXTENSAO_DOING EXTENSAO_DOING
 	 * @see ExecutaRequisicaoSOAP#EXTENSAO_RESPONSE EXTENSAO_RESPONSE
 	 */
-	private static final String EXTENSAO_DONE = ".DONE";
+	static final String EXTENSAO_DONE = ".DONE";
 
 	/**
 	 * Constante utilizada para a manipula&ccedil;&atilde;o de arquivos do tipo
@@ -165,7 +226,46 @@ public class ExecutaRequisicaoSOAP {
 	 * @see ExecutaRequisicaoSOAP#EXTENSAO_DONE EXTENSAO_DONE
 	 * @see ExecutaRequisicaoSOAP#EXTENSAO_RESPONSE EXTENSAO_RESPONSE
 	 */
-	private static final String EXTENSAO_DOING = ".DOING";
+	static final String EXTENSAO_DOING = ".DOING";
+
+	/**
+	 * Constante utilizada para a manipula&ccedil;&atilde;o de arquivos do tipo
+	 * <code>ANEXO</code>, com as partes de uma resposta MTOM/XOP, cujo nome
+	 * cont&eacute;m o <code>Content-ID</code> da parte.
+	 *
+	 * @see ExecutaRequisicaoSOAP#EXTENSAO_RESPONSE EXTENSAO_RESPONSE
+	 * @see ArquivoResposta#criarAnexo(String)
+	 */
+	static final String EXTENSAO_ANEXO = ".ANEXO";
+
+	/**
+	 * <p>
+	 * Constante utilizada para a manipula&ccedil;&atilde;o de arquivos do tipo
+	 * <code>RETRY</code>, que aguardam uma nova tentativa ap&oacute;s uma falha
+	 * de envio.
+	 * </p>
+	 * <p>
+	 * A quantidade de tentativas j&aacute; feitas faz parte do nome do arquivo,
+	 * antes da extens&atilde;o, e o instante da pr&oacute;xima tentativa &eacute;
+	 * a data de modifica&ccedil;&atilde;o do mesmo, de maneira que as
+	 * retentativas sobrevivam ao rein&iacute;cio do rob&ocirc;.
+	 * </p>
+	 *
+	 * @see ExecutaRequisicaoSOAP#EXTENSAO_FAILED EXTENSAO_FAILED
+	 * @see ExecutaRequisicaoSOAP#agendarRetentativa(Path, Path)
+	 *      agendarRetentativa(Path, Path)
+	 */
+	private static final String EXTENSAO_RETRY = ".RETRY";
+
+	/**
+	 * Constante utilizada para a manipula&ccedil;&atilde;o de arquivos do tipo
+	 * <code>FAILED</code>, estado final dos arquivos inv&aacute;lidos e dos que
+	 * esgotaram as tentativas. Estes arquivos n&atilde;o s&atilde;o
+	 * exclu&iacute;dos pelo rob&ocirc;.
+	 *
+	 * @see ExecutaRequisicaoSOAP#EXTENSAO_RETRY EXTENSAO_RETRY
+	 */
+	private static final String EXTENSAO_FAILED = ".FAILED";
 
 	/**
 	 * Constante utilizada para manter o {@link Logger log} da classe.
@@ -179,7 +279,7 @@ public class ExecutaRequisicaoSOAP {
 	 * da classe.
 	 *
 	 * @see Properties
-	 * @see ExecutaRequisicaoSOAP#DIRETORIO DIRETORIO
+	 * @see ExecutaRequisicaoSOAP#DIRETORIOS DIRETORIOS
 	 */
 	private static final Properties ARQUIVO_PROPERTIES = new Properties();
 
@@ -202,362 +302,2375 @@ public class ExecutaRequisicaoSOAP {
 	}
 
 	/**
-	 * Constante utilizada para manter o diret&oacute;rio a ser varrido em busca de
-	 * arquivos do tipo {@link ExecutaRequisicaoSOAP#EXTENSAO_PENDING PENDING} com
-	 * as requisi&ccedil;&otilde;es a serem feitas em formato de envelope SOAP.
+	 * Constante utilizada para indicar se os arquivos
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_PENDING PENDING} ser&atilde;o
+	 * processados concorrentemente pelo
+	 * {@link ExecutaRequisicaoSOAP#POOL_TRABALHADORES pool de trabalhadores} ou
+	 * sequencialmente pela pr&oacute;pria <i>thread</i> do agendador.
 	 *
-	 * @see Properties
-	 * @see ExecutaRequisicaoSOAP#EXTENSAO_PENDING EXTENSAO_PENDING
+	 * @see ExecutaRequisicaoSOAP#POOL_TRABALHADORES POOL_TRABALHADORES
 	 * @see ExecutaRequisicaoSOAP#ARQUIVO_PROPERTIES ARQUIVO_PROPERTIES
 	 */
-	private static final Path DIRETORIO = Paths.get(ExecutaRequisicaoSOAP.ARQUIVO_PROPERTIES.getProperty("diretorio"));
+	private static final boolean EXECUCAO_CONCORRENTE = Boolean.parseBoolean(ExecutaRequisicaoSOAP.ARQUIVO_PROPERTIES.getProperty("requisicao.concorrente", "false"));
+
+	/**
+	 * <p>
+	 * Constante utilizada para manter os pesos das {@link FilaPonderada faixas de
+	 * prioridade}, indexados pelo nome, na ordem da propriedade
+	 * <code>prioridade.faixas</code>, no formato
+	 * <code>urgente:16,normal:4,carga:1</code>. Vazia quando a propriedade
+	 * n&atilde;o &eacute; informada, caso em que os arquivos s&atilde;o
+	 * processados em ordem de chegada.
+	 * </p>
+	 * <p>
+	 * A faixa de um arquivo &eacute; o &uacute;ltimo trecho do nome da
+	 * requisi&ccedil;&atilde;o, como em <code>pedido.urgente.pending</code>.
+	 * Sem o mesmo, o arquivo vai para a faixa da propriedade
+	 * <code>prioridade.faixa.padrao</code>. A faixa vem apenas do nome para que
+	 * o despacho n&atilde;o abra os arquivos, lidos apenas pelos trabalhadores.
+	 * </p>
+	 *
+	 * @see ExecutaRequisicaoSOAP#recuperarFaixa(Path) recuperarFaixa(Path)
+	 * @see PoolTrabalhadores#submeter(String, java.util.function.Supplier)
+	 *      PoolTrabalhadores.submeter(String, Supplier)
+	 */
+	private static final Map<String, Integer> PESOS_FAIXAS = ExecutaRequisicaoSOAP.recuperarPesosFaixas();
 
 	/**
-	 * Constante utilizada para manter o nome do arquivo que controla se o job
-	 * j&aacute; est&aacute; em execu&ccedil;&atilde;o ou n&atilde;o por um
-	 * determinado usu&aacute;rio.
+	 * Constante utilizada para manter o pool limitado de trabalhadores que executam
+	 * as requisi&ccedil;&otilde;es SOAP quando a
+	 * {@link ExecutaRequisicaoSOAP#EXECUCAO_CONCORRENTE execu&ccedil;&atilde;o
+	 * concorrente} estiver habilitada. A quantidade de trabalhadores, o tamanho da
+	 * fila e o uso de <i>threads</i> virtuais s&atilde;o configurados no
+	 * {@link Properties arquivo de propriedades}.
 	 *
-	 * @see Properties
-	 * @see Path
-	 * @see ExecutaRequisicaoSOAP#DIRETORIO DIRETORIO
+	 * @see PoolTrabalhadores
+	 * @see ExecutaRequisicaoSOAP#EXECUCAO_CONCORRENTE EXECUCAO_CONCORRENTE
 	 * @see ExecutaRequisicaoSOAP#ARQUIVO_PROPERTIES ARQUIVO_PROPERTIES
 	 */
-	private static final Path CAMINHO_ABSOLUTO_ARQUIVO_CONTROLE_EXECUCAO = ExecutaRequisicaoSOAP.DIRETORIO
-			.resolve(ExecutaRequisicaoSOAP.ARQUIVO_PROPERTIES.getProperty("nome.arquivo.controle.execucao"));
+	private static final PoolTrabalhadores POOL_TRABALHADORES = ExecutaRequisicaoSOAP.EXECUCAO_CONCORRENTE
+			? new PoolTrabalhadores(ExecutaRequisicaoSOAP.recuperarPropriedade("requisicao.trabalhadores", 8), ExecutaRequisicaoSOAP.recuperarPropriedade("requisicao.fila.tamanho", 256),
+					Boolean.parseBoolean(ExecutaRequisicaoSOAP.ARQUIVO_PROPERTIES.getProperty("requisicao.threads.virtuais", "true")), ExecutaRequisicaoSOAP.PESOS_FAIXAS,
+					ExecutaRequisicaoSOAP.ARQUIVO_PROPERTIES.getProperty("prioridade.faixa.padrao", StringUtils.EMPTY).trim())
+			: null;
 
 	/**
-	 * Constante utilizada para garantir que o arquivo de controle de
-	 * execu&ccedil;&atilde;o do rob&ocirc; por usu&aacute;rio não ser&aacute;
-	 * exclu&iacute;do do sistema operacional onde houver suporte &agrave; tal
-	 * funcionalidae por sistema operacional. Este bloqueio &eacute; liberado ao fim
-	 * da execu&ccedil;&atilde;o do rob&ocirc;.
+	 * Constante utilizada para manter o {@link CacheRespostas cache de respostas}
+	 * quando habilitado pela propriedade <code>cache</code>, com o tamanho
+	 * m&aacute;ximo em mem&oacute;ria da propriedade
+	 * <code>cache.memoria.maximo.mb</code>, o tamanho m&aacute;ximo de cada
+	 * resposta da propriedade <code>cache.entrada.maximo.kb</code> e,
+	 * opcionalmente, o diret&oacute;rio da propriedade
+	 * <code>cache.diretorio</code>.
 	 *
-	 * @see ExecutaRequisicaoSOAP#iniciarAquisicaoBloqueioArquivoControle()
-	 *      iniciarAquisicaoBloqueioArquivoControle()
-	 * @see ExecutaRequisicaoSOAP#finalizarAquisicaoBloqueioArquivoControle()
-	 *      finalizarAquisicaoBloqueioArquivoControle()
-	 * @see Runtime#getRuntime()
-	 * @see Runtime#addShutdownHook(Thread)
-	 * @see FileLock
-	 * @see FileLock#release()
+	 * @see CacheRespostas
+	 * @see TransporteCache
+	 * @see ExecutaRequisicaoSOAP#criarCacheRespostas() criarCacheRespostas()
 	 */
-	private static final FileLock LOCK = ExecutaRequisicaoSOAP.finalizarAquisicaoBloqueioArquivoControle();
+	private static final CacheRespostas CACHE_RESPOSTAS = ExecutaRequisicaoSOAP.criarCacheRespostas();
 
 	/**
-	 * <p>
-	 * M&eacute;todo respons&aacute;vel por iniciar aquisi&ccedil;&atilde;o do
-	 * bloqueio de exclus&atilde;o do arquivo de controle de execu&ccedil;&atilde;o
-	 * por usu&aacute;rio do rob&ocirc;.
-	 * </p>
-	 * <p>
-	 * M&eacute;todo necess&aacute;rio pois utiliza o objeto
-	 * {@link RandomAccessFile} num try-with-resources libera o bloqueio do arquivo
-	 * e n&atilde;o o utilizar, mas n&atilde;o o retornar gera warning de resources
-	 * do compilador Java.
-	 * </p>
+	 * Constante utilizada para manter os {@link ModelosEnvelope modelos de
+	 * envelope} do diret&oacute;rio da propriedade <code>modelos.diretorio</code>,
+	 * utilizados pelos arquivos com a op&ccedil;&atilde;o <code>modelo</code>, ou
+	 * <code><strong>null</strong></code> caso a mesma n&atilde;o seja informada.
 	 *
-	 * @return O objeto {@link RandomAccessFile} que liberar&aacute; o
-	 *         {@link java.nio.channels.FileChannel FileChannel} atrav&eacute;s do
-	 *         m&eacute;todo {@link RandomAccessFile#getChannel()} que nos
-	 *         dar&aacute; o objeto {@link FileLock} que efetivamente garante o
-	 *         bloqueio atrav&eacute;s do m&eacute;todo
-	 *         {@link java.nio.channels.FileChannel#lock(long, long, boolean)
-	 *         FileChannel.lock(long, long, boolean)}.
+	 * @see ArquivoRequisicao#getModelo()
+	 */
+	private static final ModelosEnvelope MODELOS = StringUtils.isBlank(ExecutaRequisicaoSOAP.ARQUIVO_PROPERTIES.getProperty("modelos.diretorio")) ? null
+			: new ModelosEnvelope(Paths.get(ExecutaRequisicaoSOAP.ARQUIVO_PROPERTIES.getProperty("modelos.diretorio").trim()));
+
+	/**
+	 * Constante utilizada para manter o {@link TransporteSOAP transporte} das
+	 * requisi&ccedil;&otilde;es SOAP, escolhido atrav&eacute;s da propriedade
+	 * <code>transporte</code> do {@link Properties arquivo de propriedades}:
+	 * <code>saaj</code> (padr&atilde;o), <code>direto</code> ou
+	 * <code>assincrono</code>.
 	 *
-	 * @throws IOException
-	 *             Exce&ccedil;&atilde;o lan&ccedil;ada em uma das tr&ecirc;s
-	 *             hip&oacute;teses:
-	 *             <ol>
-	 *             <li>Lan&ccedil;ada pelo m&eacute;todo
-	 *             {@link Files#createDirectory(Path, java.nio.file.attribute.FileAttribute...)
-	 *             Files.createDirectory(Path, FileAttribute...)};</li>
-	 *             <li>Lan&ccedil;ada pelo m&eacute;todo
-	 *             {@link Files#write(Path, byte[], java.nio.file.OpenOption...)
-	 *             Files.write(Path, byte[], OpenOption...)}; ou</li>
-	 *             <li>O {@link RandomAccessFile#RandomAccessFile(File, String)
-	 *             construtor} da classe {@link RandomAccessFile}.</li>
-	 *             </ol>
+	 * @see TransporteSOAP
+	 * @see ExecutaRequisicaoSOAP#criarTransporte() criarTransporte()
+	 * @see ExecutaRequisicaoSOAP#ARQUIVO_PROPERTIES ARQUIVO_PROPERTIES
+	 */
+	private static final TransporteSOAP TRANSPORTE = ExecutaRequisicaoSOAP.criarTransporte();
+
+	/**
+	 * Constante utilizada para indicar se os diret&oacute;rios definidos pela
+	 * constante {@link ExecutaRequisicaoSOAP#DIRETORIOS DIRETORIOS} ser&atilde;o
+	 * {@link MonitorDiretorio monitorados} atrav&eacute;s de eventos do sistema
+	 * de arquivos ao inv&eacute;s de varridos a cada cinco segundos.
 	 *
-	 * @see ExecutaRequisicaoSOAP#LOCK LOCK
-	 * @see ExecutaRequisicaoSOAP#finalizarAquisicaoBloqueioArquivoControle()
-	 *      finalizarAquisicaoBloqueioArquivoControle()
-	 * @see java.nio.channels.FileChannel FileChannel
-	 * @see RandomAccessFile
+	 * @see MonitorDiretorio
+	 * @see ExecutaRequisicaoSOAP#ARQUIVO_PROPERTIES ARQUIVO_PROPERTIES
 	 */
-	private static RandomAccessFile iniciarAquisicaoBloqueioArquivoControle() throws IOException {
-		final String mensagem = "Job em execu\u00E7\u00E3o pelo usu\u00E1rio "
-				+ ExecutaRequisicaoSOAP.substring(ExecutaRequisicaoSOAP.CAMINHO_ABSOLUTO_ARQUIVO_CONTROLE_EXECUCAO, true, false, '.').toUpperCase(ExecutaRequisicaoSOAP.LOCALE_DEFAULT);
+	private static final boolean MONITORAMENTO_DIRETORIO = Boolean.parseBoolean(ExecutaRequisicaoSOAP.ARQUIVO_PROPERTIES.getProperty("monitoramento.diretorio", "false"));
 
-		if (Files.exists(ExecutaRequisicaoSOAP.CAMINHO_ABSOLUTO_ARQUIVO_CONTROLE_EXECUCAO)) {
-			// Se o mesmo já existir, o robô já está sendo executado por um usuário. Log e
-			// saia.
-			ExecutaRequisicaoSOAP.LOGGER.error(mensagem);
+	/**
+	 * Constante utilizada para indicar se os arquivos
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_RESPONSE RESPONSE} ser&atilde;o
+	 * {@link ArquivoResposta#ArquivoResposta(Path, boolean) compactados} com
+	 * <i>gzip</i> em disco, recebendo o sufixo {@link ArquivoResposta#SUFIXO_GZIP
+	 * gz}. As respostas de lotes nunca s&atilde;o compactadas, pois o seu
+	 * &iacute;ndice aponta posi&ccedil;&otilde;es no arquivo.
+	 *
+	 * @see ArquivoResposta
+	 * @see ExecutaRequisicaoSOAP#ARQUIVO_PROPERTIES ARQUIVO_PROPERTIES
+	 */
+	private static final boolean COMPACTAR_RESPOSTAS = "gzip".equalsIgnoreCase(ExecutaRequisicaoSOAP.ARQUIVO_PROPERTIES.getProperty("resposta.compressao", "nenhuma").trim());
 
-			// Sai da execução sinalizando condição aceitável.
-			Runtime.getRuntime().exit(0);
-		}
+	/**
+	 * Constante utilizada para indicar se a quantidade de envios
+	 * simult&acirc;neos de cada endpoint &eacute; limitada por um
+	 * {@link LimiteAdaptativo limite adaptativo}, ajustado pela lat&ecirc;ncia e
+	 * pelas falhas observadas, atrav&eacute;s da propriedade
+	 * <code>endpoint.concorrencia.adaptativa</code>.
+	 *
+	 * @see LimiteAdaptativo
+	 * @see ExecutaRequisicaoSOAP#criarProtecaoEndpoint(String)
+	 *      criarProtecaoEndpoint(String)
+	 */
+	private static final boolean CONCORRENCIA_ADAPTATIVA = Boolean.parseBoolean(ExecutaRequisicaoSOAP.ARQUIVO_PROPERTIES.getProperty("endpoint.concorrencia.adaptativa", "false"));
 
-		if (!Files.exists(ExecutaRequisicaoSOAP.DIRETORIO)) {
-			Files.createDirectory(ExecutaRequisicaoSOAP.DIRETORIO);
-		}
+	/**
+	 * Constante utilizada para indicar se os endpoints ser&atilde;o
+	 * {@link ProtecaoEndpoint protegidos} por limite de taxa, disjuntor ou limite
+	 * adaptativo de concorr&ecirc;ncia, isto &eacute;, se ao menos uma das
+	 * propriedades <code>endpoint.taxa.maxima.por.segundo</code> ou
+	 * <code>endpoint.disjuntor.falhas</code> &eacute; maior que zero ou se a
+	 * propriedade <code>endpoint.concorrencia.adaptativa</code> &eacute;
+	 * <code><strong>true</strong></code>. Por padr&atilde;o, nenhuma prote&ccedil;&atilde;o
+	 * est&aacute; habilitada.
+	 *
+	 * @see ProtecaoEndpoint
+	 * @see ExecutaRequisicaoSOAP#PROTECOES_ENDPOINTS PROTECOES_ENDPOINTS
+	 * @see ExecutaRequisicaoSOAP#CONCORRENCIA_ADAPTATIVA CONCORRENCIA_ADAPTATIVA
+	 */
+	private static final boolean PROTECAO_ENDPOINTS = ExecutaRequisicaoSOAP.recuperarPropriedade("endpoint.taxa.maxima.por.segundo", 0) > 0
+			|| ExecutaRequisicaoSOAP.recuperarPropriedade("endpoint.disjuntor.falhas", 0) > 0 || ExecutaRequisicaoSOAP.CONCORRENCIA_ADAPTATIVA;
 
-		return new RandomAccessFile(
-				Files.write(ExecutaRequisicaoSOAP.CAMINHO_ABSOLUTO_ARQUIVO_CONTROLE_EXECUCAO, mensagem.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.WRITE).toFile(),
-				"rw");
-	}
+	/**
+	 * Constante utilizada para manter a {@link ProtecaoEndpoint
+	 * prote&ccedil;&atilde;o} de cada endpoint, indexada pela URL da primeira
+	 * linha dos arquivos de requisi&ccedil;&atilde;o.
+	 *
+	 * @see ProtecaoEndpoint
+	 * @see ExecutaRequisicaoSOAP#criarProtecaoEndpoint(String)
+	 *      criarProtecaoEndpoint(String)
+	 */
+	private static final ConcurrentMap<String, ProtecaoEndpoint> PROTECOES_ENDPOINTS = new ConcurrentHashMap<>();
+
+	/**
+	 * Constante utilizada para manter os arquivos
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_PENDING PENDING} recebidos e ainda
+	 * n&atilde;o reivindicados, cuja quantidade &eacute; publicada nas
+	 * {@link MetricasRobo m&eacute;tricas}. Por ser um conjunto, um arquivo
+	 * entregue mais de uma vez pela varredura peri&oacute;dica ou pela
+	 * reconcilia&ccedil;&atilde;o do monitoramento &eacute; contado uma
+	 * &uacute;nica vez.
+	 *
+	 * @see ExecutaRequisicaoSOAP#despacharArquivo(Path) despacharArquivo(Path)
+	 * @see ExecutaRequisicaoSOAP#contarArquivos() contarArquivos()
+	 */
+	private static final Set<Path> PENDENTES = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Constante utilizada para manter as extens&otilde;es de cada status
+	 * publicado nas {@link MetricasRobo m&eacute;tricas}.
+	 *
+	 * @see ExecutaRequisicaoSOAP#contarArquivos() contarArquivos()
+	 */
+	private static final String[] EXTENSOES_STATUS = { ExecutaRequisicaoSOAP.EXTENSAO_PENDING, ExecutaRequisicaoSOAP.EXTENSAO_DOING, ExecutaRequisicaoSOAP.EXTENSAO_DONE,
+			ExecutaRequisicaoSOAP.EXTENSAO_RESPONSE, ExecutaRequisicaoSOAP.EXTENSAO_RETRY, ExecutaRequisicaoSOAP.EXTENSAO_FAILED, ExecutaRequisicaoSOAP.EXTENSAO_ANEXO };
+
+	/**
+	 * Constante utilizada para manter o agendador que despacha novamente os
+	 * arquivos adiados pela {@link ProtecaoEndpoint prote&ccedil;&atilde;o} de seus
+	 * endpoints quando o diret&oacute;rio &eacute; {@link MonitorDiretorio
+	 * monitorado}, visto que neste caso n&atilde;o h&aacute; varredura
+	 * peri&oacute;dica para encontr&aacute;-los, e os arquivos que aguardavam
+	 * vaga de concorr&ecirc;ncia.
+	 *
+	 * @see ExecutaRequisicaoSOAP#adiarArquivo(Path, long) adiarArquivo(Path, long)
+	 * @see ExecutaRequisicaoSOAP#redespacharArquivo(Path) redespacharArquivo(Path)
+	 */
+	private static final ScheduledExecutorService REAGENDADOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		final Thread thread = new Thread(runnable, "robo-reagendador");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * Constante utilizada para manter a quantidade m&aacute;xima de tentativas de
+	 * envio de um arquivo, incluindo a primeira, antes de o mesmo ser movido para
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_FAILED FAILED}.
+	 *
+	 * @see ExecutaRequisicaoSOAP#agendarRetentativa(Path, Path)
+	 *      agendarRetentativa(Path, Path)
+	 */
+	private static final int RETENTATIVA_MAXIMO_TENTATIVAS = Math.max(1, ExecutaRequisicaoSOAP.recuperarPropriedade("retentativa.maximo.tentativas", 5));
+
+	/**
+	 * Constante utilizada para manter o intervalo, em milissegundos, antes da
+	 * primeira retentativa. O intervalo dobra a cada tentativa.
+	 *
+	 * @see ExecutaRequisicaoSOAP#calcularAtrasoRetentativa(int)
+	 *      calcularAtrasoRetentativa(int)
+	 */
+	private static final long RETENTATIVA_INTERVALO_INICIAL_MS = Math.max(1, ExecutaRequisicaoSOAP.recuperarPropriedade("retentativa.intervalo.inicial.ms", 1000));
+
+	/**
+	 * Constante utilizada para manter o intervalo m&aacute;ximo, em
+	 * milissegundos, entre duas tentativas.
+	 *
+	 * @see ExecutaRequisicaoSOAP#calcularAtrasoRetentativa(int)
+	 *      calcularAtrasoRetentativa(int)
+	 */
+	private static final long RETENTATIVA_INTERVALO_MAXIMO_MS = Math.max(ExecutaRequisicaoSOAP.RETENTATIVA_INTERVALO_INICIAL_MS,
+			ExecutaRequisicaoSOAP.recuperarPropriedade("retentativa.intervalo.maximo.ms", 300000));
+
+	/**
+	 * Constante utilizada para manter a {@link RodaTemporizacao roda de
+	 * temporiza&ccedil;&atilde;o} que despacha novamente os arquivos
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_RETRY RETRY} no instante da
+	 * pr&oacute;xima tentativa, sem varredura do diret&oacute;rio. Os arquivos
+	 * vencidos s&atilde;o entregues ao
+	 * {@link ExecutaRequisicaoSOAP#REAGENDADOR REAGENDADOR}.
+	 *
+	 * @see RodaTemporizacao
+	 * @see ExecutaRequisicaoSOAP#agendarRetentativa(Path, Path)
+	 *      agendarRetentativa(Path, Path)
+	 */
+	private static final RodaTemporizacao RODA_RETENTATIVAS = new RodaTemporizacao(ExecutaRequisicaoSOAP.recuperarPropriedade("retentativa.roda.intervalo.ms", 100), TimeUnit.MILLISECONDS,
+			ExecutaRequisicaoSOAP.recuperarPropriedade("retentativa.roda.compartimentos", 512), ExecutaRequisicaoSOAP.REAGENDADOR);
+
+	/**
+	 * Constante utilizada para manter por quanto tempo, em milissegundos, os
+	 * arquivos {@link ExecutaRequisicaoSOAP#EXTENSAO_DONE DONE} e
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_RESPONSE RESPONSE} permanecem no
+	 * diret&oacute;rio ap&oacute;s a sua &uacute;ltima modifica&ccedil;&atilde;o,
+	 * atrav&eacute;s da propriedade <code>retencao.minutos</code>. Cada
+	 * {@link DiretorioPerfil perfil} pode ter a sua pr&oacute;pria
+	 * reten&ccedil;&atilde;o, sendo esta a padr&atilde;o.
+	 *
+	 * @see DiretorioPerfil#getRetencaoMs()
+	 * @see ExecutaRequisicaoSOAP#excluirArquivoVencido(Path)
+	 *      excluirArquivoVencido(Path)
+	 */
+	private static final long RETENCAO_MS = TimeUnit.MINUTES.toMillis(Math.max(1, ExecutaRequisicaoSOAP.recuperarPropriedade("retencao.minutos", 60)));
+
+	/**
+	 * Constante utilizada para manter a {@link RodaTemporizacao roda de
+	 * temporiza&ccedil;&atilde;o} que exclui cada arquivo
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_DONE DONE} e
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_RESPONSE RESPONSE} no instante em que
+	 * a sua reten&ccedil;&atilde;o vence, sem varredura do diret&oacute;rio. Com
+	 * intervalo de um segundo e a quantidade padr&atilde;o de compartimentos cada
+	 * compartimento &eacute; percorrido a cada 68 minutos, de maneira que a
+	 * reten&ccedil;&atilde;o padr&atilde;o custe no m&aacute;ximo uma volta por
+	 * arquivo. As exclus&otilde;es s&atilde;o feitas por uma <i>thread</i>
+	 * pr&oacute;pria.
+	 *
+	 * @see RodaTemporizacao
+	 * @see ExecutaRequisicaoSOAP#agendarExclusao(Path, long)
+	 *      agendarExclusao(Path, long)
+	 */
+	private static final RodaTemporizacao RODA_EXCLUSOES = new RodaTemporizacao(1L, TimeUnit.SECONDS, ExecutaRequisicaoSOAP.recuperarPropriedade("retencao.roda.compartimentos", 4096),
+			Executors.newSingleThreadExecutor(runnable -> {
+				final Thread thread = new Thread(runnable, "robo-limpeza");
+				thread.setDaemon(true);
+				return thread;
+			}));
+
+	/**
+	 * Constante utilizada para manter a quantidade m&aacute;xima de envelopes de
+	 * um mesmo {@link ArquivoRequisicao#isLote() lote} enviados ao mesmo tempo,
+	 * atrav&eacute;s da propriedade <code>lote.concorrencia</code>.
+	 *
+	 * @see ProcessamentoLote
+	 */
+	private static final int LOTE_CONCORRENCIA = Math.max(1, ExecutaRequisicaoSOAP.recuperarPropriedade("lote.concorrencia", 16));
+
+	/**
+	 * Constante utilizada para manter o executor que envia os envelopes dos
+	 * {@link ArquivoRequisicao#isLote() lotes}, com a quantidade de
+	 * <i>threads</i> da propriedade <code>lote.trabalhadores</code>. O lote ocupa
+	 * um &uacute;nico trabalhador do {@link ExecutaRequisicaoSOAP#POOL_TRABALHADORES
+	 * pool de trabalhadores} enquanto os seus envelopes s&atilde;o enviados por
+	 * este executor, evitando que o pool aguarde a si mesmo.
+	 *
+	 * @see ProcessamentoLote
+	 * @see ExecutaRequisicaoSOAP#criarExecutorLotes() criarExecutorLotes()
+	 */
+	private static final ExecutorService EXECUTOR_LOTES = ExecutaRequisicaoSOAP.criarExecutorLotes();
+
+	/**
+	 * Constante utilizada para manter a {@link RodaTemporizacao roda de
+	 * temporiza&ccedil;&atilde;o} das retentativas dos envelopes dos
+	 * {@link ArquivoRequisicao#isLote() lotes}, que entrega os envelopes vencidos
+	 * diretamente ao {@link ExecutaRequisicaoSOAP#EXECUTOR_LOTES EXECUTOR_LOTES}.
+	 * A mesma &eacute; separada da {@link ExecutaRequisicaoSOAP#RODA_RETENTATIVAS
+	 * roda dos arquivos} porque o {@link ExecutaRequisicaoSOAP#REAGENDADOR
+	 * REAGENDADOR} pode ficar bloqueado aguardando a admiss&atilde;o no
+	 * {@link ExecutaRequisicaoSOAP#POOL_TRABALHADORES pool de trabalhadores},
+	 * enquanto os lotes que ocupam o pool aguardam as retentativas dos seus
+	 * envelopes.
+	 *
+	 * @see ProcessamentoLote
+	 */
+	private static final RodaTemporizacao RODA_RETENTATIVAS_LOTES = new RodaTemporizacao(ExecutaRequisicaoSOAP.recuperarPropriedade("retentativa.roda.intervalo.ms", 100),
+			TimeUnit.MILLISECONDS, ExecutaRequisicaoSOAP.recuperarPropriedade("retentativa.roda.compartimentos", 512), ExecutaRequisicaoSOAP.EXECUTOR_LOTES);
+
+	/**
+	 * Constante utilizada para manter as {@link ConcessoesArquivos
+	 * concess&otilde;es} dos arquivos reivindicados por este n&oacute; quando a
+	 * propriedade <code>concessao.habilitada</code> estiver habilitada, ou
+	 * <code><strong>null</strong></code> caso contr&aacute;rio. As
+	 * concess&otilde;es duram o configurado na propriedade
+	 * <code>concessao.duracao.segundos</code> e s&atilde;o renovadas no intervalo
+	 * da propriedade <code>concessao.renovacao.segundos</code>. Neste modo o
+	 * {@link DiarioEstados di&aacute;rio} n&atilde;o &eacute; utilizado, pois o
+	 * mesmo exige um &uacute;nico rob&ocirc; por diret&oacute;rio.
+	 *
+	 * @see ExecutaRequisicaoSOAP#reivindicarArquivo(Path) reivindicarArquivo(Path)
+	 * @see ExecutaRequisicaoSOAP#recuperarConcessoesVencidas()
+	 *      recuperarConcessoesVencidas()
+	 */
+	private static final ConcessoesArquivos CONCESSOES = ExecutaRequisicaoSOAP.criarConcessoes();
 
 	/**
 	 * <p>
-	 * M&eacute;todo respons&aacute;vel por finalizar aquisi&ccedil;&atilde;o do
-	 * bloqueio de exclus&atilde;o do arquivo de controle de execu&ccedil;&atilde;o
-	 * por usu&aacute;rio do rob&ocirc;.
+	 * Constante utilizada para manter os {@link DiretorioPerfil diret&oacute;rios}
+	 * atendidos pelo rob&ocirc;, indexados pelo caminho absoluto, que &eacute;
+	 * tamb&eacute;m o diret&oacute;rio pai dos arquivos de cada um.
 	 * </p>
 	 * <p>
-	 * M&eacute;todo necess&aacute;rio pois utiliza o objeto {@link FileLock} obtido
-	 * atrav&eacute;s do m&eacute;todo
-	 * {@link java.nio.channels.FileChannel#lock(long, long, boolean)
-	 * FileChannel.lock(long, long, boolean)}, sendo este obtido atrav&eacute;s do
-	 * retorno do m&eacute;todo
-	 * {@link ExecutaRequisicaoSOAP#iniciarAquisicaoBloqueioArquivoControle()
-	 * iniciarAquisicaoBloqueioArquivoControle()}, que deve ter sua
-	 * documenta&ccedil;&atilde;o lida para melhor entendimento.
+	 * Sem a propriedade <code>perfis</code> o rob&ocirc; atende apenas o
+	 * diret&oacute;rio da propriedade <code>diretorio</code>, com o arquivo de
+	 * controle de execu&ccedil;&atilde;o da propriedade
+	 * <code>nome.arquivo.controle.execucao</code>. Com a mesma, no formato
+	 * <code>paulo,tatiana</code>, cada perfil tem o diret&oacute;rio da
+	 * propriedade <code>perfis.&lt;perfil&gt;.diretorio</code>, a
+	 * reten&ccedil;&atilde;o opcional da propriedade
+	 * <code>perfis.&lt;perfil&gt;.retencao.minutos</code>, a cota opcional de
+	 * arquivos em processamento da propriedade
+	 * <code>perfis.&lt;perfil&gt;.cota</code> e o arquivo de controle
+	 * <code>controle.execucao.&lt;perfil&gt;</code>, o mesmo de um rob&ocirc;
+	 * dedicado ao perfil.
 	 * </p>
 	 * <p>
-	 * Este bloqueio do arquivo &eacute; armazenado na constante
-	 * {@link ExecutaRequisicaoSOAP#LOCK LOCK} que &eacute; posteriormente utilizada
-	 * para liberar o bloqueio ao fim da execu&ccedil;&atilde;o do rob&ocirc;.
+	 * Os diret&oacute;rios j&aacute; atendidos por outro rob&ocirc; s&atilde;o
+	 * ignorados. Caso nenhum diret&oacute;rio possa ser atendido, o rob&ocirc;
+	 * aborta sua execu&ccedil;&atilde;o. Com as {@link ConcessoesArquivos
+	 * concess&otilde;es} o arquivo de controle recebe tamb&eacute;m o
+	 * identificador do n&oacute;, de maneira que diversos n&oacute;s atendam o
+	 * mesmo diret&oacute;rio.
 	 * </p>
 	 *
-	 * @return O Objeto {@link FileLock} que efetivamente garantir&aacute; o
-	 *         bloqueio do arquivo de controle de execu&ccedil;&atilde;o por
-	 *         usu&aacute;rio.
+	 * @see DiretorioPerfil
+	 * @see ExecutaRequisicaoSOAP#CONCESSOES CONCESSOES
+	 * @see ExecutaRequisicaoSOAP#criarDiretorios() criarDiretorios()
+	 * @see ExecutaRequisicaoSOAP#recuperarDiretorio(Path)
+	 *      recuperarDiretorio(Path)
+	 */
+	private static final Map<Path, DiretorioPerfil> DIRETORIOS = ExecutaRequisicaoSOAP.criarDiretorios();
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por criar as {@link ConcessoesArquivos
+	 * concess&otilde;es} quando habilitadas, com o identificador do n&oacute;
+	 * da propriedade <code>concessao.no</code> ou, na aus&ecirc;ncia da mesma,
+	 * formado pelo processo e pela m&aacute;quina.
+	 *
+	 * @return As concess&otilde;es ou <code><strong>null</strong></code> caso
+	 *         n&atilde;o estejam habilitadas.
 	 *
-	 * @throws UncheckedIOException
-	 *             <p>
-	 *             Exce&ccedil;&atilde;o lan&ccedil;ada em uma das duas
-	 *             hip&oacute;teses:
-	 *             </p>
-	 *             <p>
-	 *             <ol>
-	 *             <li>Se o m&eacute;todo
-	 *             {@link ExecutaRequisicaoSOAP#iniciarAquisicaoBloqueioArquivoControle()
-	 *             iniciarAquisicaoBloqueioArquivoControle()} lan&ccedil;ar uma
-	 *             {@link IOException}; ou</li>
-	 *             <li>Se o m&eacute;todo
-	 *             {@link java.nio.channels.FileChannel#lock(long, long, boolean)
-	 *             FileChannel.lock(long, long, boolean)} lan&ccedil;ar uma
-	 *             {@link IOException}.</li>
-	 *             </ol>
-	 *             </p>
-	 *             <p>
-	 *             Em ambos os casos a {@link IOException} &eacute; capturada e
-	 *             relan&ccedil;ada em uma {@link UncheckedIOException} de maneira a
-	 *             abortar a execu&ccedil;&atilde;o do rob&eocirc;, visto que o
-	 *             arquivo de controle de execu&ccedil;&atilde;o do rob&ocirc; deve
-	 *             existir e estar bloqueado, mas sem obrigar o tratamento da mesma.
-	 *             </p>
-	 *
-	 * @see ExecutaRequisicaoSOAP#iniciarAquisicaoBloqueioArquivoControle()
-	 *      iniciarAquisicaoBloqueioArquivoControle()
-	 * @see RandomAccessFile#getChannel()
-	 * @see FileLock#release()
-	 * @see Runtime
-	 * @see Runtime#getRuntime()
-	 * @see Runtime#addShutdownHook(Thread)
-	 * @see java.nio.channels.FileChannel#lock(long, long, boolean)
-	 *      FileChannel.lock(long, long, boolean)
+	 * @see ExecutaRequisicaoSOAP#CONCESSOES CONCESSOES
 	 */
-	private static FileLock finalizarAquisicaoBloqueioArquivoControle() throws UncheckedIOException {
-		try {
-			return ExecutaRequisicaoSOAP.iniciarAquisicaoBloqueioArquivoControle().getChannel().lock(0, Long.MAX_VALUE, false);
-		} catch (final IOException e) {
-			final String mensagemErro = "Erro ao escrever arquivo de controle de execu\u00E7\u00E3o. ERRO: " + e.getMessage();
-			ExecutaRequisicaoSOAP.LOGGER.error(mensagemErro, e);
-			throw new UncheckedIOException(mensagemErro, e);
+	private static ConcessoesArquivos criarConcessoes() {
+		if (!Boolean.parseBoolean(ExecutaRequisicaoSOAP.ARQUIVO_PROPERTIES.getProperty("concessao.habilitada", "false"))) {
+			return null;
 		}
+
+		// O identificador faz parte do nome dos arquivos, então não pode conter pontos.
+		final String no = StringUtils.defaultIfBlank(ExecutaRequisicaoSOAP.ARQUIVO_PROPERTIES.getProperty("concessao.no"), ManagementFactory.getRuntimeMXBean().getName())
+				.trim().replaceAll("[^A-Za-z0-9_-]", "-");
+		final ConcessoesArquivos concessoes = new ConcessoesArquivos(no,
+				TimeUnit.SECONDS.toMillis(Math.max(2, ExecutaRequisicaoSOAP.recuperarPropriedade("concessao.duracao.segundos", 30))),
+				TimeUnit.SECONDS.toMillis(Math.max(1, ExecutaRequisicaoSOAP.recuperarPropriedade("concessao.renovacao.segundos", 10))));
+		ExecutaRequisicaoSOAP.LOGGER.info("Reivindica\u00E7\u00E3o por concess\u00F5es habilitada para o n\u00F3 " + no + ".");
+		return concessoes;
 	}
 
 	/**
-	 * Construtor padr&atilde;o de maneira a evitar instancia&ccedil;&atilde;o da
-	 * classe.
+	 * M&eacute;todo respons&aacute;vel por abrir os {@link DiretorioPerfil
+	 * diret&oacute;rios} atendidos pelo rob&ocirc;. No caso de nenhum
+	 * diret&oacute;rio poder ser atendido, o rob&ocirc; aborta sua
+	 * execu&ccedil;&atilde;o, sinalizando erro apenas se algum dos mesmos tiver
+	 * falhado por outro motivo que n&atilde;o a execu&ccedil;&atilde;o de outro
+	 * rob&ocirc;.
+	 *
+	 * @return Os diret&oacute;rios indexados pelo caminho absoluto, na ordem da
+	 *         configura&ccedil;&atilde;o.
+	 *
+	 * @see ExecutaRequisicaoSOAP#DIRETORIOS DIRETORIOS
 	 */
-	private ExecutaRequisicaoSOAP() {
-		super();
+	private static Map<Path, DiretorioPerfil> criarDiretorios() {
+		final Map<Path, DiretorioPerfil> diretorios = new LinkedHashMap<>();
+		boolean erro = false;
+
+		final String perfis = ExecutaRequisicaoSOAP.ARQUIVO_PROPERTIES.getProperty("perfis", StringUtils.EMPTY);
+		if (StringUtils.isBlank(perfis)) {
+			final String nomeArquivoControle = ExecutaRequisicaoSOAP.ARQUIVO_PROPERTIES.getProperty("nome.arquivo.controle.execucao");
+			erro = !ExecutaRequisicaoSOAP.abrirDiretorio(diretorios, StringUtils.defaultIfEmpty(StringUtils.substringAfterLast(nomeArquivoControle, "."), nomeArquivoControle),
+					ExecutaRequisicaoSOAP.ARQUIVO_PROPERTIES.getProperty("diretorio"), nomeArquivoControle, ExecutaRequisicaoSOAP.RETENCAO_MS, 0);
+		} else {
+			final int retencaoMinutos = (int) TimeUnit.MILLISECONDS.toMinutes(ExecutaRequisicaoSOAP.RETENCAO_MS);
+			for (final String perfil : perfis.split(",")) {
+				final String nome = perfil.trim();
+				if (!nome.isEmpty()) {
+					final String prefixo = "perfis." + nome + ".";
+					erro |= !ExecutaRequisicaoSOAP.abrirDiretorio(diretorios, nome, ExecutaRequisicaoSOAP.ARQUIVO_PROPERTIES.getProperty(prefixo + "diretorio"), "controle.execucao." + nome,
+							TimeUnit.MINUTES.toMillis(Math.max(1, ExecutaRequisicaoSOAP.recuperarPropriedade(prefixo + "retencao.minutos", retencaoMinutos))),
+							ExecutaRequisicaoSOAP.recuperarPropriedade(prefixo + "cota", 0));
+				}
+			}
+		}
+
+		if (diretorios.isEmpty()) {
+			ExecutaRequisicaoSOAP.LOGGER.error("Nenhum diret\u00F3rio dispon\u00EDvel para o rob\u00F4.");
+
+			// Sai da execução sinalizando erro ou, se todos os diretórios já são
+			// atendidos por outros robôs, condição aceitável.
+			Runtime.getRuntime().exit(erro ? -1 : 0);
+		}
+
+		ExecutaRequisicaoSOAP.LOGGER.info("Diret\u00F3rio(s) atendido(s) pelo rob\u00F4: " + diretorios.values() + ".");
+		return Collections.unmodifiableMap(diretorios);
 	}
 
 	/**
-	 * M&eacute;todo de entrada do rob&ocirc;. Este m&eacute;todo inicia a
-	 * execu&ccedil;&atilde;o do rob&ocirc; para que o mesmo realize as
-	 * requisi&ccedil;&otilde;es SOAP.
+	 * M&eacute;todo respons&aacute;vel por abrir um {@link DiretorioPerfil
+	 * diret&oacute;rio}, bloqueando o seu arquivo de controle de
+	 * execu&ccedil;&atilde;o e abrindo o seu {@link DiarioEstados di&aacute;rio}
+	 * quando a propriedade <code>estado.diario</code> estiver habilitada.
 	 *
-	 * @param args
-	 *            Par&acirc;metro obrigat&oacute;rio segundo
-	 *            especifica&ccedil;&atilde;o Java para classes que sejam iniciadas
-	 *            com m&eacute;todos <code>main</code>.
+	 * @param diretorios
+	 *            Diret&oacute;rios j&aacute; abertos, onde o novo diret&oacute;rio
+	 *            &eacute; inclu&iacute;do.
+	 * @param nome
+	 *            Nome do perfil.
+	 * @param caminho
+	 *            Caminho do diret&oacute;rio.
+	 * @param nomeArquivoControle
+	 *            Nome do arquivo de controle de execu&ccedil;&atilde;o.
+	 * @param retencaoMs
+	 *            Reten&ccedil;&atilde;o, em milissegundos, dos arquivos
+	 *            finalizados.
+	 * @param cota
+	 *            Quantidade m&aacute;xima de arquivos em processamento ao mesmo
+	 *            tempo, ou zero para n&atilde;o limitar.
 	 *
-	 * @see ExecutaRequisicaoSOAP#executarRequisicao() executarRequisicao()
-	 * @see ExecutaRequisicaoSOAP#excluirArquivos() excluirArquivos()
-	 * @see Runtime
-	 * @see Runtime#getRuntime()
-	 * @see Runtime#addShutdownHook(Thread)
+	 * @return O intr&iacute;nseco <code><strong>boolean</strong></code> contendo o
+	 *         valor <code><strong>false</strong></code> caso o diret&oacute;rio
+	 *         n&atilde;o tenha sido aberto por um erro ou
+	 *         <code><strong>true</strong></code> caso contr&aacute;rio, inclusive
+	 *         quando o mesmo j&aacute; &eacute; atendido por outro rob&ocirc;.
+	 *
+	 * @see DiretorioPerfil#DiretorioPerfil(String, Path, String, long, int)
+	 *      DiretorioPerfil(String, Path, String, long, int)
 	 */
-	public static void main(final String[] args) {
-		ExecutaRequisicaoSOAP.LOGGER.info("Iniciando atividade de execu\u00E7\u00E3o agendada do rob\u00F4.");
-
-		// Instrução para a JVM realizar os passos abaixo de exclusão de arquivos ao fim
-		// da execução do job.
-		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-			// Excluir arquivos do tipo done, response e doing (este caso não deve ocorrer)
-			// do diretório.
-			ExecutaRequisicaoSOAP.excluirArquivos();
+	private static boolean abrirDiretorio(final Map<Path, DiretorioPerfil> diretorios, final String nome, final String caminho, final String nomeArquivoControle,
+			final long retencaoMs, final int cota) {
+		if (StringUtils.isBlank(caminho)) {
+			ExecutaRequisicaoSOAP.LOGGER.error("Diret\u00F3rio do perfil " + nome + " n\u00E3o informado. Perfil ignorado.");
+			return false;
+		}
 
-			try {
-				// TODO: Corrigir problema de não liberar o lock.
-				ExecutaRequisicaoSOAP.LOCK.release();
+		// Com as concessões cada nó tem o seu arquivo de controle, mantendo o perfil no
+		// último trecho do nome.
+		String nomeControle = nomeArquivoControle;
+		if (ExecutaRequisicaoSOAP.CONCESSOES != null) {
+			final int ponto = nomeArquivoControle.lastIndexOf('.');
+			nomeControle = nomeArquivoControle.substring(0, ponto + 1) + ExecutaRequisicaoSOAP.CONCESSOES.getNo() + (ponto < 0 ? "." + nomeArquivoControle : nomeArquivoControle.substring(ponto));
+		}
 
-				Files.delete(ExecutaRequisicaoSOAP.CAMINHO_ABSOLUTO_ARQUIVO_CONTROLE_EXECUCAO);
+		final DiretorioPerfil diretorio;
+		try {
+			diretorio = new DiretorioPerfil(nome, Paths.get(caminho.trim()), nomeControle, retencaoMs, cota);
+		} catch (final FileAlreadyExistsException e) {
+			// Se o mesmo já existir, o diretório já é atendido por outro robô. Log e siga
+			// para o próximo.
+			ExecutaRequisicaoSOAP.LOGGER.error(e.getReason());
+			return true;
+		} catch (final IOException | RuntimeException e) {
+			ExecutaRequisicaoSOAP.LOGGER.error("Erro ao escrever arquivo de controle de execu\u00E7\u00E3o do perfil " + nome + ". ERRO: " + e.getMessage(), e);
+			return false;
+		}
 
-				// Se for a última instância do robô a utilizar o diretório, posso apagá-lo.
-				if (Files.list(ExecutaRequisicaoSOAP.DIRETORIO).count() == 0L) {
-					Files.delete(ExecutaRequisicaoSOAP.DIRETORIO);
-				}
-			} catch (final IOException e) {
-				ExecutaRequisicaoSOAP.LOGGER.error("Erro ao excluir arquivo de controle de execu\u00E7\u00E3o. ERRO: " + e.getMessage(), e);
+		if (Boolean.parseBoolean(ExecutaRequisicaoSOAP.ARQUIVO_PROPERTIES.getProperty("estado.diario", "false"))) {
+			if (ExecutaRequisicaoSOAP.CONCESSOES != null) {
+				ExecutaRequisicaoSOAP.LOGGER.warn("Di\u00E1rio de estados do perfil " + nome + " ignorado, pois o diret\u00F3rio \u00E9 compartilhado atrav\u00E9s de concess\u00F5es.");
+				diretorios.put(diretorio.getDiretorio(), diretorio);
+				return true;
 			}
-		}));
-
-		// Scheduler responsável por iniciar os agendamentos para as requisições SOAP e
-		// exclusões de arquivos de hora em hora.
-		final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
-		scheduler.scheduleAtFixedRate(() -> ExecutaRequisicaoSOAP.executarRequisicao(), 0, 5, TimeUnit.SECONDS);
 
-		// Iniciando cinco segundos depois do robô começar, pois os arquivos pending
-		// ainda não renomeados na fila na primeira execução eram excluídos (alguns sem
-		// dar tempo de executar).
-		scheduler.scheduleAtFixedRate(() -> ExecutaRequisicaoSOAP.excluirArquivos(), 5000, 1, TimeUnit.HOURS);
+			try {
+				diretorio.abrirDiario(Boolean.parseBoolean(ExecutaRequisicaoSOAP.ARQUIVO_PROPERTIES.getProperty("estado.diario.sincronizar", "false")),
+						ExecutaRequisicaoSOAP.recuperarPropriedade("estado.diario.compactacao.minimo.linhas", 10000));
+			} catch (final IOException | RuntimeException e) {
+				ExecutaRequisicaoSOAP.LOGGER.error("Erro inesperado ao abrir o di\u00E1rio de estados do perfil " + nome + ". ERRO: " + e.getMessage(), e);
+				ExecutaRequisicaoSOAP.fecharDiretorio(diretorio);
+				return false;
+			}
+		}
 
-		ExecutaRequisicaoSOAP.LOGGER.info("Atividade agendada em execu\u00E7\u00E3o a cada cinco segundos.");
+		diretorios.put(diretorio.getDiretorio(), diretorio);
+		return true;
 	}
 
 	/**
-	 * M&eacute;todo respons&aacute;vel por varrer o diret&oacute;rio em busca de
-	 * arquivos do tipo {@link ExecutaRequisicaoSOAP#EXTENSAO_PENDING PENDING} e
-	 * executar a requisi&ccedil;&atilde;o.
+	 * M&eacute;todo respons&aacute;vel por recuperar uma propriedade inteira do
+	 * {@link ExecutaRequisicaoSOAP#ARQUIVO_PROPERTIES arquivo de propriedades},
+	 * retornando o valor padr&atilde;o caso a mesma n&atilde;o exista ou n&atilde;o
+	 * seja um n&uacute;mero v&aacute;lido.
 	 *
-	 * @see ExecutaRequisicaoSOAP#EXTENSAO_PENDING EXTENSAO_PENDING
-	 * @see Files
-	 * @see Files#list(Path)
-	 * @see Files#isRegularFile(Path, java.nio.file.LinkOption...)
-	 *      Files.isRegularFile(Path, LinkOption...)
-	 * @see Path
-	 * @see Stream
-	 * @see Stream#collect(java.util.stream.Collector) Stream.collect(Collector)
-	 * @see Collectors
-	 * @see Collectors#toCollection(java.util.function.Supplier)
-	 *      Collectors.toCollection(Supplier)
+	 * @param chave
+	 *            Chave da propriedade.
+	 * @param valorPadrao
+	 *            Valor utilizado na aus&ecirc;ncia da propriedade ou em caso de
+	 *            valor inv&aacute;lido.
+	 *
+	 * @return O valor da propriedade ou o valor padr&atilde;o.
+	 *
+	 * @see ExecutaRequisicaoSOAP#ARQUIVO_PROPERTIES ARQUIVO_PROPERTIES
 	 */
-	private static void executarRequisicao() {
-		final long inicio = System.currentTimeMillis();
-		ExecutaRequisicaoSOAP.LOGGER.info("In\u00EDcio da rotina de execu\u00E7\u00E3o da requisi\u00E7\u00E3o SOAP em: " + DateFormatUtils.format(inicio, "dd/MM/yyyy HH:mm:ss.SSS"));
+	private static int recuperarPropriedade(final String chave, final int valorPadrao) {
+		final String valor = ExecutaRequisicaoSOAP.ARQUIVO_PROPERTIES.getProperty(chave);
 
-		try (final Stream<Path> arquivos = Files.list(ExecutaRequisicaoSOAP.DIRETORIO).filter(path -> Files.isRegularFile(path)
-				&& ExecutaRequisicaoSOAP.recuperarExtensaoArquivo(path).endsWith(ExecutaRequisicaoSOAP.EXTENSAO_PENDING.toLowerCase(ExecutaRequisicaoSOAP.LOCALE_DEFAULT)))) {
-			final Collection<Path> arquivosAsCollection = arquivos.collect(Collectors.toCollection(ArrayList::new));
-			ExecutaRequisicaoSOAP.LOGGER
-					.info("VERIFICANDO SE EXISTEM ARQUIVOS ELEG\u00CDVEIS PARA A ROTINA DE EXECU\u00C7\u00C3O DA REQUISI\u00C7\u00C3O SOAP.\nQuantidade de arquivo(s) para processar: "
-							+ arquivosAsCollection.size());
+		try {
+			return StringUtils.isBlank(valor) ? valorPadrao : Integer.parseInt(valor.trim());
+		} catch (final NumberFormatException e) {
+			ExecutaRequisicaoSOAP.LOGGER.warn("Valor inv\u00E1lido para a propriedade " + chave + ": " + valor + ". Utilizando valor padr\u00E3o " + valorPadrao + ".");
+			return valorPadrao;
+		}
+	}
 
-			for (final Path caminho : arquivosAsCollection) {
-				try {
-					final StringBuilder corpoRequisicao = new StringBuilder();
-					String configuracoes = null;
-					String url = null;
-					MimeHeaders mimeHeaders = null;
-
-					// Como dito no javadoc da classe, a extensão do arquivo é utilizada como
-					// status, então para evitarmos repetições com robôs de outros usuários, mudamos
-					// a extensão para doing.
-					final Path doing = ExecutaRequisicaoSOAP.renomearArquivo(caminho, ExecutaRequisicaoSOAP.EXTENSAO_DOING);
-
-					try (BufferedReader reader = Files.newBufferedReader(doing, StandardCharsets.UTF_8)) {
-						// Leitura do arquivo. A primeira linha contém as "configurações" do mesmo.
-						configuracoes = reader.readLine();
-
-						// Senão tivermos configurações o arquivo é inválido. Devemos avisar e seguir
-						// para o próximo.
-						if (StringUtils.isBlank(configuracoes)) {
-							ExecutaRequisicaoSOAP.LOGGER.error("Arquivo inv\u00E1lido, pois n\u00E3o cont\u00E9m as configura\u00E7\u00F5es da requisi\u00E7\u00E3o SOAP.");
-							continue;
-						}
+	/**
+	 * M&eacute;todo respons&aacute;vel por ler os pesos das
+	 * {@link FilaPonderada faixas de prioridade} da propriedade
+	 * <code>prioridade.faixas</code>. Faixas sem peso ou com peso
+	 * inv&aacute;lido recebem peso um.
+	 *
+	 * @return Os pesos indexados pelo nome das faixas, na ordem da propriedade,
+	 *         ou um mapa vazio caso a mesma n&atilde;o seja informada.
+	 *
+	 * @see ExecutaRequisicaoSOAP#PESOS_FAIXAS PESOS_FAIXAS
+	 */
+	private static Map<String, Integer> recuperarPesosFaixas() {
+		final Map<String, Integer> pesos = new LinkedHashMap<>();
+		for (final String faixa : ExecutaRequisicaoSOAP.ARQUIVO_PROPERTIES.getProperty("prioridade.faixas", StringUtils.EMPTY).split(",")) {
+			final String nome = StringUtils.substringBefore(faixa, ":").trim();
+			if (nome.isEmpty()) {
+				continue;
+			}
 
-						// Caso tenhamos ";" na linha, sabemos que temos um job com necessidade de
-						// utilização de autenticação com Basic Authentication.
-						final String[] headers = configuracoes.split(";");
-						if (headers.length > 1) {
-							mimeHeaders = new MimeHeaders();
+			int peso = 1;
+			try {
+				peso = Math.max(1, Integer.parseInt(StringUtils.defaultIfBlank(StringUtils.substringAfter(faixa, ":"), "1").trim()));
+			} catch (final NumberFormatException e) {
+				ExecutaRequisicaoSOAP.LOGGER.warn("Peso inv\u00E1lido para a faixa de prioridade " + nome + ". Utilizando peso 1.");
+			}
 
-							// Recupera a URL.
-							url = headers[0];
+			pesos.put(nome, Integer.valueOf(peso));
+		}
 
-							// Recupera e encoda em Base64 o login e a senha.
-							mimeHeaders.addHeader("Authorization", "Basic " + Base64.encodeBase64String(headers[1].getBytes(StandardCharsets.UTF_8)));
-						} else {
-							// Caso contrário temos só a URL mesmo.
-							url = configuracoes;
-						}
+		return pesos;
+	}
 
-						// Recuperando o envelope SOAP propriamente dito.
-						String linha = null;
-						while ((linha = reader.readLine()) != null) {
-							corpoRequisicao.append(linha);
-						}
-					}
+	/**
+	 * M&eacute;todo respons&aacute;vel por criar o {@link TransporteSOAP
+	 * transporte} configurado no {@link ExecutaRequisicaoSOAP#ARQUIVO_PROPERTIES
+	 * arquivo de propriedades}. No caso de falha, o rob&ocirc; aborta sua
+	 * execu&ccedil;&atilde;o, pois n&atilde;o h&aacute; como executar
+	 * requisi&ccedil;&otilde;es sem o mesmo.
+	 *
+	 * @return O transporte das requisi&ccedil;&otilde;es SOAP.
+	 *
+	 * @see TransporteSAAJ
+	 * @see TransporteDireto
+	 * @see TransporteHttpAssincrono
+	 * @see TransporteRedundante
+	 * @see TransporteCache
+	 */
+	private static TransporteSOAP criarTransporte() {
+		TransporteSOAP transporte = ExecutaRequisicaoSOAP.criarTransporteBase();
+
+		// Requisições redundantes só são enviadas para arquivos marcados como
+		// idempotentes.
+		if (Boolean.parseBoolean(ExecutaRequisicaoSOAP.ARQUIVO_PROPERTIES.getProperty("requisicao.redundante", "false"))) {
+			transporte = new TransporteRedundante(transporte, ExecutaRequisicaoSOAP.recuperarPropriedade("requisicao.redundante.percentil", 95),
+					ExecutaRequisicaoSOAP.recuperarPropriedade("requisicao.redundante.amostras.minimas", 20),
+					ExecutaRequisicaoSOAP.recuperarPropriedade("requisicao.redundante.percentual.maximo", 10));
+		}
 
-					// Senão tivermos corpo da requisição o arquivo é inválido. Devemos avisar e
-					// seguir para o próximo.
-					if (corpoRequisicao.length() == 0) {
-						ExecutaRequisicaoSOAP.LOGGER.error("Arquivo inv\u00E1lido, pois n\u00E3o cont\u00E9m o corpo (envelope SOAP) da requisi\u00E7\u00E3o SOAP.");
-						continue;
-					}
+		// O cache fica por fora, de maneira que uma resposta armazenada não gere
+		// tentativa alguma.
+		if (ExecutaRequisicaoSOAP.CACHE_RESPOSTAS != null) {
+			transporte = new TransporteCache(transporte, ExecutaRequisicaoSOAP.CACHE_RESPOSTAS, ExecutaRequisicaoSOAP.recuperarPropriedade("cache.ttl.segundos", 300));
+		}
 
-					// Cria o objeto com a mensagem SOAP a ser enviada.
-					final SOAPMessage message = MessageFactory.newInstance().createMessage(mimeHeaders, new ByteArrayInputStream(corpoRequisicao.toString().getBytes(StandardCharsets.UTF_8)));
+		return transporte;
+	}
 
-					// Recupera a resposta depois de executada a requisição com a mensagem SOAP
-					// acima.
-					final SOAPMessage response = SOAPConnectionFactory.newInstance().createConnection().call(message, url.trim());
+	/**
+	 * M&eacute;todo respons&aacute;vel por criar o {@link CacheRespostas cache de
+	 * respostas} quando habilitado. No caso de falha ao criar o diret&oacute;rio
+	 * do cache, o rob&ocirc; aborta sua execu&ccedil;&atilde;o.
+	 *
+	 * @return O cache de respostas ou <code><strong>null</strong></code> caso
+	 *         o mesmo n&atilde;o esteja habilitado.
+	 *
+	 * @see ExecutaRequisicaoSOAP#CACHE_RESPOSTAS CACHE_RESPOSTAS
+	 */
+	private static CacheRespostas criarCacheRespostas() {
+		if (!Boolean.parseBoolean(ExecutaRequisicaoSOAP.ARQUIVO_PROPERTIES.getProperty("cache", "false"))) {
+			return null;
+		}
 
-					// Renomeia arquivo de entrada para constar como feito através da extensão DONE.
-					ExecutaRequisicaoSOAP.renomearArquivo(doing, ExecutaRequisicaoSOAP.EXTENSAO_DONE);
+		final String diretorio = ExecutaRequisicaoSOAP.ARQUIVO_PROPERTIES.getProperty("cache.diretorio", StringUtils.EMPTY).trim();
 
-					// Escreve de fato no arquivo de resposta.
-					try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-						response.writeTo(out);
-						Files.write(ExecutaRequisicaoSOAP.DIRETORIO.resolve(ExecutaRequisicaoSOAP.recuperarCaminhoArquivoSemExtensao(caminho) + ExecutaRequisicaoSOAP.EXTENSAO_RESPONSE),
-								out.toByteArray(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
-					}
-				} catch (final IOException | SOAPException | RuntimeException e) {
-					ExecutaRequisicaoSOAP.LOGGER.error("Erro inesperado ao executar requisi\u00E7\u00E3o SOAP. ERRO: " + e.getMessage(), e);
-				}
-			}
+		try {
+			return new CacheRespostas(ExecutaRequisicaoSOAP.recuperarPropriedade("cache.memoria.maximo.mb", 64) * 1024L * 1024L,
+					ExecutaRequisicaoSOAP.recuperarPropriedade("cache.entrada.maximo.kb", 1024) * 1024L, diretorio.isEmpty() ? null : Paths.get(diretorio));
+		} catch (final IOException | RuntimeException e) {
+			ExecutaRequisicaoSOAP.LOGGER.error("Erro inesperado ao criar o cache de respostas. ERRO: " + e.getMessage(), e);
 
-			final long fim = System.currentTimeMillis();
-			ExecutaRequisicaoSOAP.LOGGER.info("Fim da rotina de execu\u00E7\u00E3o da requisi\u00E7\u00E3o SOAP em: " + DateFormatUtils.format(fim, "dd/MM/yyyy HH:mm:ss.SSS") + ". Foram consumidos "
-					+ ExecutaRequisicaoSOAP.NF_DEFAULT.format((fim - inicio) / 1000D) + " segundos.");
-		} catch (final IOException e) {
-			ExecutaRequisicaoSOAP.LOGGER.error("Erro inesperado ao buscar arquivos do diret\u00F3rio " + ExecutaRequisicaoSOAP.DIRETORIO + ". ERRO: " + e.getMessage(), e);
+			// Sai da execução sinalizando erro.
+			Runtime.getRuntime().exit(-1);
+			return null;
 		}
 	}
 
 	/**
-	 * M&eacute;todo respons&aacute;vel por renomear um arquivo utilizado para uma
-	 * das extens&otilde;es reconhecidas por este rob&ocirc;.
+	 * M&eacute;todo respons&aacute;vel por criar o {@link TransporteSOAP
+	 * transporte} que efetivamente envia as requisi&ccedil;&otilde;es, com os
+	 * tempos m&aacute;ximos de conex&atilde;o e de leitura padr&otilde;es. No caso
+	 * de falha, o rob&ocirc; aborta sua execu&ccedil;&atilde;o.
 	 *
-	 * @param origem
-	 *            Objeto do tipo {@link Path} representando um arquivo f&iacute;sico
-	 *            do sistema contendo o caminho absoluto do arquivo a ser renomeado.
-	 * @param extensaoNova
-	 *            Objeto do tipo {@link String} contendo uma das extens&otilde;es
+	 * @return O transporte das requisi&ccedil;&otilde;es SOAP.
+	 *
+	 * @see ExecutaRequisicaoSOAP#criarTransporte() criarTransporte()
+	 */
+	private static TransporteSOAP criarTransporteBase() {
+		final int maximoPorEndpoint = ExecutaRequisicaoSOAP.recuperarPropriedade("conexoes.maximo.por.endpoint", 8);
+		final int ociosidadeMaxima = ExecutaRequisicaoSOAP.recuperarPropriedade("conexoes.ociosidade.maxima.segundos", 60);
+		final int timeoutConexao = ExecutaRequisicaoSOAP.recuperarPropriedade("requisicao.timeout.conexao.ms", 10000);
+		final int timeoutLeitura = ExecutaRequisicaoSOAP.recuperarPropriedade("requisicao.timeout.leitura.ms", 60000);
+
+		final boolean compressaoResposta = Boolean.parseBoolean(ExecutaRequisicaoSOAP.ARQUIVO_PROPERTIES.getProperty("transporte.compressao.resposta", "true").trim());
+
+		final String transporte = ExecutaRequisicaoSOAP.ARQUIVO_PROPERTIES.getProperty("transporte", "saaj").trim();
+
+		try {
+			if ("direto".equalsIgnoreCase(transporte)) {
+				return new TransporteDireto(maximoPorEndpoint, timeoutConexao, timeoutLeitura, compressaoResposta);
+			}
+
+			if ("assincrono".equalsIgnoreCase(transporte)) {
+				return new TransporteHttpAssincrono(maximoPorEndpoint, ExecutaRequisicaoSOAP.recuperarPropriedade("conexoes.maximo.total", 64), ociosidadeMaxima, TimeUnit.SECONDS,
+						ExecutaRequisicaoSOAP.recuperarPropriedade("transporte.assincrono.threads.io", Runtime.getRuntime().availableProcessors()),
+						HttpVersionPolicy.valueOf(ExecutaRequisicaoSOAP.ARQUIVO_PROPERTIES.getProperty("transporte.assincrono.versao.http", "NEGOTIATE").trim().toUpperCase(ExecutaRequisicaoSOAP.LOCALE_DEFAULT)),
+						timeoutConexao, timeoutLeitura, compressaoResposta);
+			}
+
+			return new TransporteSAAJ(maximoPorEndpoint, ociosidadeMaxima, TimeUnit.SECONDS, timeoutConexao, timeoutLeitura, compressaoResposta);
+		} catch (final SOAPException | RuntimeException e) {
+			ExecutaRequisicaoSOAP.LOGGER.error("Erro inesperado ao criar o transporte das requisi\u00E7\u00F5es SOAP. ERRO: " + e.getMessage(), e);
+
+			// Sai da execução sinalizando erro.
+			Runtime.getRuntime().exit(-1);
+			return null;
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por criar o executor que envia os
+	 * envelopes dos {@link ArquivoRequisicao#isLote() lotes}. As
+	 * <i>threads</i> s&oacute; s&atilde;o criadas quando o primeiro lote
+	 * chega.
+	 *
+	 * @return O executor dos envelopes.
+	 *
+	 * @see ExecutaRequisicaoSOAP#EXECUTOR_LOTES EXECUTOR_LOTES
+	 */
+	private static ExecutorService criarExecutorLotes() {
+		final AtomicInteger contador = new AtomicInteger();
+		return Executors.newFixedThreadPool(Math.max(1, ExecutaRequisicaoSOAP.recuperarPropriedade("lote.trabalhadores", 8)), runnable -> {
+			final Thread thread = new Thread(runnable, "robo-lote-" + contador.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por criar a {@link ProtecaoEndpoint
+	 * prote&ccedil;&atilde;o} de um endpoint com os limites configurados no
+	 * {@link ExecutaRequisicaoSOAP#ARQUIVO_PROPERTIES arquivo de propriedades}.
+	 *
+	 * @param url
+	 *            URL do endpoint.
+	 *
+	 * @return A prote&ccedil;&atilde;o do endpoint.
+	 *
+	 * @see ProtecaoEndpoint
+	 * @see LimiteAdaptativo
+	 */
+	private static ProtecaoEndpoint criarProtecaoEndpoint(final String url) {
+		final int taxa = ExecutaRequisicaoSOAP.recuperarPropriedade("endpoint.taxa.maxima.por.segundo", 0);
+
+		LimiteAdaptativo limiteConcorrencia = null;
+		if (ExecutaRequisicaoSOAP.CONCORRENCIA_ADAPTATIVA) {
+			limiteConcorrencia = new LimiteAdaptativo(ExecutaRequisicaoSOAP.recuperarPropriedade("endpoint.concorrencia.inicial", 4),
+					ExecutaRequisicaoSOAP.recuperarPropriedade("endpoint.concorrencia.minima", 1), ExecutaRequisicaoSOAP.recuperarPropriedade("endpoint.concorrencia.maxima", 50),
+					ExecutaRequisicaoSOAP.recuperarPropriedade("endpoint.concorrencia.tolerancia.latencia.percentual", 200) / 100D);
+			ExecutaRequisicaoSOAP.LOGGER.info("Limite de concorr\u00EAncia do endpoint " + url + " iniciado em " + limiteConcorrencia.getLimite() + ".");
+		}
+
+		return new ProtecaoEndpoint(url, taxa, ExecutaRequisicaoSOAP.recuperarPropriedade("endpoint.rajada.maxima", Math.max(1, taxa)),
+				ExecutaRequisicaoSOAP.recuperarPropriedade("endpoint.disjuntor.falhas", 0), ExecutaRequisicaoSOAP.recuperarPropriedade("endpoint.disjuntor.resfriamento.segundos", 30),
+				TimeUnit.SECONDS, limiteConcorrencia);
+	}
+
+	/**
+	 * Construtor padr&atilde;o de maneira a evitar instancia&ccedil;&atilde;o da
+	 * classe.
+	 */
+	private ExecutaRequisicaoSOAP() {
+		super();
+	}
+
+	/**
+	 * M&eacute;todo de entrada do rob&ocirc;. Este m&eacute;todo inicia a
+	 * execu&ccedil;&atilde;o do rob&ocirc; para que o mesmo realize as
+	 * requisi&ccedil;&otilde;es SOAP.
+	 *
+	 * @param args
+	 *            Par&acirc;metro obrigat&oacute;rio segundo
+	 *            especifica&ccedil;&atilde;o Java para classes que sejam iniciadas
+	 *            com m&eacute;todos <code>main</code>.
+	 *
+	 * @see ExecutaRequisicaoSOAP#executarRequisicao() executarRequisicao()
+	 * @see ExecutaRequisicaoSOAP#excluirArquivos(boolean) excluirArquivos(boolean)
+	 * @see Runtime
+	 * @see Runtime#getRuntime()
+	 * @see Runtime#addShutdownHook(Thread)
+	 */
+	public static void main(final String[] args) {
+		ExecutaRequisicaoSOAP.LOGGER.info("Iniciando atividade de execu\u00E7\u00E3o agendada do rob\u00F4.");
+
+		// Instrução para a JVM realizar os passos abaixo de exclusão de arquivos ao fim
+		// da execução do job.
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			// Aguarda os trabalhadores finalizarem as requisições em andamento antes de
+			// qualquer exclusão.
+			if (ExecutaRequisicaoSOAP.POOL_TRABALHADORES != null) {
+				ExecutaRequisicaoSOAP.POOL_TRABALHADORES.encerrar(30, TimeUnit.SECONDS);
+			}
+
+			// As concessões ainda mantidas vencem imediatamente para que outro nó recupere
+			// os arquivos.
+			if (ExecutaRequisicaoSOAP.CONCESSOES != null) {
+				ExecutaRequisicaoSOAP.CONCESSOES.close();
+			}
+
+			ExecutaRequisicaoSOAP.TRANSPORTE.close();
+
+			// Os arquivos retry permanecem no diretório e são reagendados no próximo início.
+			ExecutaRequisicaoSOAP.RODA_RETENTATIVAS.close();
+
+			// As retentativas dos envelopes existem apenas em memória e são descartadas.
+			ExecutaRequisicaoSOAP.RODA_RETENTATIVAS_LOTES.close();
+
+			// Os arquivos ainda não vencidos são indexados novamente no próximo início.
+			ExecutaRequisicaoSOAP.RODA_EXCLUSOES.close();
+
+			// Os diários são compactados e, sem arquivos acompanhados, excluídos.
+			for (final DiretorioPerfil diretorio : ExecutaRequisicaoSOAP.DIRETORIOS.values()) {
+				if (diretorio.getDiario() != null) {
+					try {
+						diretorio.getDiario().close();
+					} catch (final IOException e) {
+						ExecutaRequisicaoSOAP.LOGGER.error("Erro ao fechar o di\u00E1rio de estados do perfil " + diretorio.getNome() + ". ERRO: " + e.getMessage(), e);
+					}
+				}
+			}
+
+			// Excluir arquivos vencidos do tipo done e response dos diretórios. Arquivos doing
+			// remanescentes são recuperados no próximo início.
+			ExecutaRequisicaoSOAP.excluirArquivos(false);
+
+			ExecutaRequisicaoSOAP.DIRETORIOS.values().forEach(ExecutaRequisicaoSOAP::fecharDiretorio);
+		}));
+
+		// As métricas são publicadas antes de qualquer processamento para que o
+		// monitoramento enxergue o robô desde o início.
+		if (Boolean.parseBoolean(ExecutaRequisicaoSOAP.ARQUIVO_PROPERTIES.getProperty("metricas.jmx", "true"))) {
+			MetricasRobo.publicarJmx(ExecutaRequisicaoSOAP.ARQUIVO_PROPERTIES.getProperty("metricas.jmx.dominio", "soap-request-robot").trim());
+		}
+
+		// Retoma as retentativas e, com o diário, as exclusões deixadas por uma execução
+		// anterior.
+		ExecutaRequisicaoSOAP.recuperarRetentativas();
+
+		// Exclui os arquivos já vencidos e indexa os demais para que sejam excluídos
+		// quando vencerem. Esta é a única varredura de limpeza do diretório e precisa
+		// acontecer antes das requisições, pois um arquivo renomeado para doing mantém
+		// a data de modificação do pending.
+		ExecutaRequisicaoSOAP.excluirArquivos(true);
+
+		// Conta os arquivos de cada status, atualizados a partir daqui a cada mudança de
+		// status. Os arquivos pending são contados à medida que são recebidos.
+		MetricasRobo.registrarArquivos(ExecutaRequisicaoSOAP.recuperarStatus(ExecutaRequisicaoSOAP.EXTENSAO_PENDING), ExecutaRequisicaoSOAP.PENDENTES);
+		ExecutaRequisicaoSOAP.contarArquivos();
+
+		// Scheduler responsável por iniciar os agendamentos para as requisições SOAP.
+		final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+		// No modo de monitoramento os arquivos são entregues assim que chegam ao
+		// diretório. Caso o sistema de arquivos não suporte, voltamos à varredura a
+		// cada cinco segundos.
+		if (!ExecutaRequisicaoSOAP.MONITORAMENTO_DIRETORIO || !ExecutaRequisicaoSOAP.iniciarMonitoramentoDiretorio()) {
+			scheduler.scheduleAtFixedRate(() -> ExecutaRequisicaoSOAP.executarRequisicao(), 0, 5, TimeUnit.SECONDS);
+			ExecutaRequisicaoSOAP.LOGGER.info("Atividade agendada em execu\u00E7\u00E3o a cada cinco segundos.");
+		}
+
+		// Devolve como pendentes os arquivos cujas concessões venceram, isto é, de nós
+		// interrompidos.
+		if (ExecutaRequisicaoSOAP.CONCESSOES != null) {
+			final long intervaloConcessoes = Math.max(1, ExecutaRequisicaoSOAP.recuperarPropriedade("concessao.renovacao.segundos", 10));
+			scheduler.scheduleWithFixedDelay(() -> ExecutaRequisicaoSOAP.recuperarConcessoesVencidas(), 0, intervaloConcessoes, TimeUnit.SECONDS);
+		}
+
+		// Fecha as conexões SOAP ociosas há mais tempo que o configurado.
+		final long ociosidadeMaxima = ExecutaRequisicaoSOAP.recuperarPropriedade("conexoes.ociosidade.maxima.segundos", 60);
+		scheduler.scheduleWithFixedDelay(() -> ExecutaRequisicaoSOAP.TRANSPORTE.removerConexoesOciosas(), ociosidadeMaxima, ociosidadeMaxima, TimeUnit.SECONDS);
+
+		// Exclui as respostas vencidas do cache, inclusive as do disco.
+		if (ExecutaRequisicaoSOAP.CACHE_RESPOSTAS != null) {
+			scheduler.scheduleWithFixedDelay(() -> ExecutaRequisicaoSOAP.CACHE_RESPOSTAS.removerVencidas(), 1, 1, TimeUnit.MINUTES);
+		}
+
+		// Compacta cada diário quando o mesmo acumular linhas de arquivos já
+		// finalizados.
+		for (final DiretorioPerfil diretorio : ExecutaRequisicaoSOAP.DIRETORIOS.values()) {
+			if (diretorio.getDiario() != null) {
+				scheduler.scheduleWithFixedDelay(() -> {
+					try {
+						diretorio.getDiario().compactarSeNecessario();
+					} catch (final IOException e) {
+						ExecutaRequisicaoSOAP.LOGGER.error("Erro ao compactar o di\u00E1rio de estados do perfil " + diretorio.getNome() + ". ERRO: " + e.getMessage(), e);
+					}
+				}, 1, 1, TimeUnit.MINUTES);
+			}
+		}
+
+		// Opcionalmente, reconcilia a quantidade de arquivos por status com uma varredura
+		// dos diretórios, por exemplo quando outros nós atendem o mesmo diretório.
+		final long intervaloContagem = ExecutaRequisicaoSOAP.recuperarPropriedade("metricas.contagem.intervalo.segundos", 0);
+		if (intervaloContagem > 0L) {
+			scheduler.scheduleWithFixedDelay(() -> ExecutaRequisicaoSOAP.contarArquivos(), intervaloContagem, intervaloContagem, TimeUnit.SECONDS);
+		}
+
+		// Registra a profundidade e a espera de cada faixa de prioridade.
+		if (ExecutaRequisicaoSOAP.POOL_TRABALHADORES != null && ExecutaRequisicaoSOAP.POOL_TRABALHADORES.isPriorizado()) {
+			final long intervaloFaixas = Math.max(1, ExecutaRequisicaoSOAP.recuperarPropriedade("prioridade.log.intervalo.segundos", 60));
+			scheduler.scheduleWithFixedDelay(() -> ExecutaRequisicaoSOAP.LOGGER.info(ExecutaRequisicaoSOAP.POOL_TRABALHADORES.resumirFaixas()), intervaloFaixas, intervaloFaixas,
+					TimeUnit.SECONDS);
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por iniciar o {@link MonitorDiretorio
+	 * monitoramento} dos diret&oacute;rios definidos pela constante
+	 * {@link ExecutaRequisicaoSOAP#DIRETORIOS DIRETORIOS}, em uma &uacute;nica
+	 * <i>thread</i>, entregando cada arquivo
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_PENDING PENDING} ao m&eacute;todo
+	 * {@link ExecutaRequisicaoSOAP#despacharArquivo(Path) despacharArquivo(Path)}
+	 * assim que o mesmo chegar.
+	 *
+	 * @return O intr&iacute;nseco <code><strong>boolean</strong></code> contendo o
+	 *         valor <code><strong>true</strong></code> caso o monitoramento tenha
+	 *         sido iniciado ou <code><strong>false</strong></code> caso o sistema
+	 *         de arquivos n&atilde;o o suporte.
+	 *
+	 * @see MonitorDiretorio
+	 * @see ExecutaRequisicaoSOAP#reconciliarArquivosPendentes(Path)
+	 *      reconciliarArquivosPendentes(Path)
+	 */
+	private static boolean iniciarMonitoramentoDiretorio() {
+		try {
+			new MonitorDiretorio(ExecutaRequisicaoSOAP.DIRETORIOS.keySet(), ExecutaRequisicaoSOAP::isArquivoPendente, ExecutaRequisicaoSOAP::despacharArquivo,
+					ExecutaRequisicaoSOAP::reconciliarArquivosPendentes, ExecutaRequisicaoSOAP.recuperarPropriedade("monitoramento.diretorio.estabilizacao.ms", 250)).iniciar();
+			ExecutaRequisicaoSOAP.LOGGER.info("Atividade em execu\u00E7\u00E3o a cada arquivo recebido no(s) diret\u00F3rio(s) " + ExecutaRequisicaoSOAP.DIRETORIOS.keySet() + ".");
+			return true;
+		} catch (final IOException | UnsupportedOperationException e) {
+			ExecutaRequisicaoSOAP.LOGGER.error("N\u00E3o foi poss\u00EDvel monitorar o(s) diret\u00F3rio(s) " + ExecutaRequisicaoSOAP.DIRETORIOS.keySet() + ". Utilizando varredura peri\u00F3dica. ERRO: "
+					+ e.getMessage(), e);
+			return false;
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por varrer os diret&oacute;rios em busca de
+	 * arquivos do tipo {@link ExecutaRequisicaoSOAP#EXTENSAO_PENDING PENDING} e
+	 * executar a requisi&ccedil;&atilde;o, concorrentemente ou n&atilde;o conforme
+	 * a constante {@link ExecutaRequisicaoSOAP#EXECUCAO_CONCORRENTE
+	 * EXECUCAO_CONCORRENTE}. Esta rotina s&oacute; termina ap&oacute;s todos os
+	 * arquivos encontrados terem sido processados.
+	 *
+	 * @see ExecutaRequisicaoSOAP#EXTENSAO_PENDING EXTENSAO_PENDING
+	 * @see ExecutaRequisicaoSOAP#processarArquivo(Path) processarArquivo(Path)
+	 * @see PoolTrabalhadores
+	 * @see Files
+	 * @see Files#list(Path)
+	 * @see Files#isRegularFile(Path, java.nio.file.LinkOption...)
+	 *      Files.isRegularFile(Path, LinkOption...)
+	 * @see Path
+	 * @see Stream
+	 * @see Stream#collect(java.util.stream.Collector) Stream.collect(Collector)
+	 * @see Collectors
+	 * @see Collectors#toCollection(java.util.function.Supplier)
+	 *      Collectors.toCollection(Supplier)
+	 */
+	private static void executarRequisicao() {
+		final long inicio = System.currentTimeMillis();
+		ExecutaRequisicaoSOAP.LOGGER.info("In\u00EDcio da rotina de execu\u00E7\u00E3o da requisi\u00E7\u00E3o SOAP em: " + DateFormatUtils.format(inicio, "dd/MM/yyyy HH:mm:ss.SSS"));
+
+		try {
+			final List<Path> arquivosAsCollection = new ArrayList<>();
+			for (final Path diretorio : ExecutaRequisicaoSOAP.DIRETORIOS.keySet()) {
+				try {
+					arquivosAsCollection.addAll(ExecutaRequisicaoSOAP.listarArquivosPendentes(diretorio));
+				} catch (final IOException e) {
+					ExecutaRequisicaoSOAP.LOGGER.error("Erro inesperado ao buscar arquivos do diret\u00F3rio " + diretorio + ". ERRO: " + e.getMessage(), e);
+				}
+			}
+
+			ExecutaRequisicaoSOAP.PENDENTES.addAll(arquivosAsCollection);
+
+			ExecutaRequisicaoSOAP.LOGGER
+					.info("VERIFICANDO SE EXISTEM ARQUIVOS ELEG\u00CDVEIS PARA A ROTINA DE EXECU\u00C7\u00C3O DA REQUISI\u00C7\u00C3O SOAP.\nQuantidade de arquivo(s) para processar: "
+							+ arquivosAsCollection.size());
+
+			// Com faixas de prioridade os arquivos das faixas de maior peso são
+			// submetidos primeiro, para que não aguardem admissão atrás de uma carga.
+			final Map<Path, String> faixas = new HashMap<>();
+			if (!ExecutaRequisicaoSOAP.PESOS_FAIXAS.isEmpty()) {
+				arquivosAsCollection.forEach(caminho -> faixas.put(caminho, ExecutaRequisicaoSOAP.recuperarFaixa(caminho)));
+				arquivosAsCollection.sort(Comparator.comparingInt(caminho -> -ExecutaRequisicaoSOAP.PESOS_FAIXAS.getOrDefault(faixas.get(caminho), Integer.valueOf(0)).intValue()));
+			}
+
+			if (ExecutaRequisicaoSOAP.EXECUCAO_CONCORRENTE) {
+				// Cada arquivo é submetido ao pool de trabalhadores. Aguardamos todos antes de
+				// encerrar a rotina para que uma execução nunca se sobreponha ao trabalho
+				// ainda não finalizado da execução anterior.
+				final Collection<CompletableFuture<Void>> tarefas = new ArrayList<>(arquivosAsCollection.size());
+				for (final Path caminho : arquivosAsCollection) {
+					tarefas.add(ExecutaRequisicaoSOAP.POOL_TRABALHADORES.submeter(faixas.get(caminho), () -> ExecutaRequisicaoSOAP.processarArquivo(caminho)));
+				}
+
+				CompletableFuture.allOf(tarefas.toArray(new CompletableFuture<?>[tarefas.size()])).join();
+			} else {
+				arquivosAsCollection.forEach(caminho -> ExecutaRequisicaoSOAP.processarArquivo(caminho).join());
+			}
+
+			final long fim = System.currentTimeMillis();
+			ExecutaRequisicaoSOAP.LOGGER.info("Fim da rotina de execu\u00E7\u00E3o da requisi\u00E7\u00E3o SOAP em: " + DateFormatUtils.format(fim, "dd/MM/yyyy HH:mm:ss.SSS") + ". Foram consumidos "
+					+ ExecutaRequisicaoSOAP.NF_DEFAULT.format((fim - inicio) / 1000D) + " segundos.");
+		} catch (final InterruptedException e) {
+			ExecutaRequisicaoSOAP.LOGGER.error("Rotina de execu\u00E7\u00E3o da requisi\u00E7\u00E3o SOAP interrompida. ERRO: " + e.getMessage(), e);
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por varrer um dos diret&oacute;rios
+	 * definidos pela constante {@link ExecutaRequisicaoSOAP#DIRETORIOS
+	 * DIRETORIOS} e despachar, sem aguardar o processamento, todos os arquivos do
+	 * tipo {@link ExecutaRequisicaoSOAP#EXTENSAO_PENDING PENDING} encontrados.
+	 * Utilizado pelo {@link MonitorDiretorio monitoramento} ao iniciar e
+	 * ap&oacute;s perda de eventos, de maneira que nenhum arquivo seja perdido.
+	 *
+	 * @param diretorio
+	 *            Caminho absoluto do diret&oacute;rio a ser varrido.
+	 *
+	 * @see MonitorDiretorio
+	 * @see ExecutaRequisicaoSOAP#listarArquivosPendentes(Path)
+	 *      listarArquivosPendentes(Path)
+	 * @see ExecutaRequisicaoSOAP#despacharArquivo(Path) despacharArquivo(Path)
+	 */
+	private static void reconciliarArquivosPendentes(final Path diretorio) {
+		try {
+			final Collection<Path> arquivos = ExecutaRequisicaoSOAP.listarArquivosPendentes(diretorio);
+			ExecutaRequisicaoSOAP.LOGGER.info("Varredura de reconcilia\u00E7\u00E3o do diret\u00F3rio " + diretorio + " encontrou " + arquivos.size() + " arquivo(s) para processar.");
+			arquivos.forEach(ExecutaRequisicaoSOAP::despacharArquivo);
+		} catch (final IOException e) {
+			ExecutaRequisicaoSOAP.LOGGER.error("Erro inesperado ao buscar arquivos do diret\u00F3rio " + diretorio + ". ERRO: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por despachar um arquivo do tipo
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_PENDING PENDING} para processamento
+	 * sem aguardar seu t&eacute;rmino quando a
+	 * {@link ExecutaRequisicaoSOAP#EXECUCAO_CONCORRENTE execu&ccedil;&atilde;o
+	 * concorrente} estiver habilitada. Caso contr&aacute;rio o arquivo &eacute;
+	 * processado na pr&oacute;pria <i>thread</i> chamadora.
+	 *
+	 * @param caminho
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo
+	 *            a ser processado.
+	 *
+	 * @see ExecutaRequisicaoSOAP#processarArquivo(Path) processarArquivo(Path)
+	 * @see PoolTrabalhadores#submeter(java.util.function.Supplier)
+	 *      PoolTrabalhadores.submeter(Supplier)
+	 */
+	private static void despacharArquivo(final Path caminho) {
+		if (ExecutaRequisicaoSOAP.isArquivoPendente(caminho)) {
+			ExecutaRequisicaoSOAP.PENDENTES.add(caminho);
+		}
+
+		if (!ExecutaRequisicaoSOAP.EXECUCAO_CONCORRENTE) {
+			ExecutaRequisicaoSOAP.processarArquivo(caminho).join();
+			return;
+		}
+
+		try {
+			ExecutaRequisicaoSOAP.POOL_TRABALHADORES.submeter(ExecutaRequisicaoSOAP.recuperarFaixa(caminho), () -> ExecutaRequisicaoSOAP.processarArquivo(caminho));
+		} catch (final InterruptedException e) {
+			ExecutaRequisicaoSOAP.LOGGER.error("Despacho do arquivo " + caminho.getFileName() + " interrompido. ERRO: " + e.getMessage(), e);
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por recuperar a {@link FilaPonderada faixa
+	 * de prioridade} de um arquivo: o &uacute;ltimo trecho do nome da
+	 * requisi&ccedil;&atilde;o, quando o mesmo for uma das faixas. O arquivo
+	 * nunca &eacute; aberto, pois o despacho acontece em uma &uacute;nica
+	 * <i>thread</i>.
+	 *
+	 * @param caminho
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo.
+	 *
+	 * @return O nome da faixa ou <code><strong>null</strong></code> para a faixa
+	 *         padr&atilde;o, inclusive quando as faixas n&atilde;o estiverem
+	 *         habilitadas.
+	 *
+	 * @see ExecutaRequisicaoSOAP#PESOS_FAIXAS PESOS_FAIXAS
+	 */
+	private static String recuperarFaixa(final Path caminho) {
+		if (ExecutaRequisicaoSOAP.PESOS_FAIXAS.isEmpty()) {
+			return null;
+		}
+
+		final String nome = StringUtils.removeEnd(ExecutaRequisicaoSOAP.recuperarNomeRequisicao(caminho), ".");
+		final String marcador = nome.substring(nome.lastIndexOf('.') + 1);
+		return ExecutaRequisicaoSOAP.PESOS_FAIXAS.containsKey(marcador) ? marcador : null;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por listar os arquivos do tipo
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_PENDING PENDING} de um dos
+	 * diret&oacute;rios definidos pela constante
+	 * {@link ExecutaRequisicaoSOAP#DIRETORIOS DIRETORIOS}.
+	 *
+	 * @param diretorio
+	 *            Caminho absoluto do diret&oacute;rio.
+	 *
+	 * @return Cole&ccedil;&atilde;o com os caminhos absolutos dos arquivos
+	 *         encontrados.
+	 *
+	 * @throws IOException
+	 *             Lan&ccedil;ada pelo m&eacute;todo {@link Files#list(Path)}.
+	 *
+	 * @see ExecutaRequisicaoSOAP#isArquivoPendente(Path) isArquivoPendente(Path)
+	 * @see Files#list(Path)
+	 * @see MetricasRobo#VARREDURA
+	 * @see EventosJFR#iniciarVarredura()
+	 */
+	private static List<Path> listarArquivosPendentes(final Path diretorio) throws IOException {
+		final EventosJFR.Varredura evento = EventosJFR.iniciarVarredura();
+		final long inicio = System.nanoTime();
+		try (final Stream<Path> arquivos = Files.list(diretorio).filter(path -> ExecutaRequisicaoSOAP.isArquivoPendente(path) && Files.isRegularFile(path))) {
+			final List<Path> pendentes = arquivos.collect(Collectors.toCollection(ArrayList::new));
+			EventosJFR.finalizarVarredura(evento, pendentes.size());
+			return pendentes;
+		} finally {
+			MetricasRobo.registrar(MetricasRobo.VARREDURA, inicio);
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por verificar, apenas pelo nome, se um
+	 * caminho representa um arquivo do tipo
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_PENDING PENDING}. Arquivos sem
+	 * extens&atilde;o s&atilde;o simplesmente ignorados.
+	 *
+	 * @param caminho
+	 *            Objeto do tipo {@link Path} contendo a representa&ccedil;&atilde;o
+	 *            do caminho absoluto de um arquivo f&iacute;sico ou de seu nome.
+	 *
+	 * @return O intr&iacute;nseco <code><strong>boolean</strong></code> contendo o
+	 *         valor <code><strong>true</strong></code> caso o nome do arquivo
+	 *         termine com a extens&atilde;o
+	 *         {@link ExecutaRequisicaoSOAP#EXTENSAO_PENDING PENDING} em
+	 *         min&uacute;sculas e o arquivo n&atilde;o seja acompanhado pelo
+	 *         {@link DiarioEstados di&aacute;rio} ou
+	 *         <code><strong>false</strong></code> caso contr&aacute;rio.
+	 *
+	 * @see ExecutaRequisicaoSOAP#EXTENSAO_PENDING EXTENSAO_PENDING
+	 * @see DiarioEstados#isConhecido(String)
+	 */
+	private static boolean isArquivoPendente(final Path caminho) {
+		final String nome = caminho.getFileName().toString();
+		if (!nome.endsWith(ExecutaRequisicaoSOAP.EXTENSAO_PENDING.toLowerCase(ExecutaRequisicaoSOAP.LOCALE_DEFAULT))) {
+			return false;
+		}
+
+		final DiarioEstados diario = ExecutaRequisicaoSOAP.recuperarDiario(caminho);
+		return diario == null || !diario.isConhecido(nome);
+	}
+
+	/**
+	 * <p>
+	 * M&eacute;todo respons&aacute;vel por processar um &uacute;nico arquivo do
+	 * tipo {@link ExecutaRequisicaoSOAP#EXTENSAO_PENDING PENDING}: reivindica o
+	 * mesmo atrav&eacute;s da extens&atilde;o
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_DOING DOING}, l&ecirc; a
+	 * requisi&ccedil;&atilde;o e a entrega ao {@link TransporteSOAP transporte},
+	 * que escreve a resposta.
+	 * </p>
+	 * <p>
+	 * Este m&eacute;todo pode ser executado concorrentemente por diversos
+	 * trabalhadores, pois cada arquivo s&oacute; &eacute; processado por quem
+	 * conseguir renome&aacute;-lo para {@link ExecutaRequisicaoSOAP#EXTENSAO_DOING
+	 * DOING}.
+	 * </p>
+	 * <p>
+	 * Antes da reivindica&ccedil;&atilde;o a {@link ProtecaoEndpoint
+	 * prote&ccedil;&atilde;o} do endpoint &eacute; consultada. Caso o limite de
+	 * taxa tenha sido atingido, o disjuntor esteja aberto ou n&atilde;o haja vaga
+	 * no limite de concorr&ecirc;ncia, o arquivo permanece
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_PENDING PENDING}. A lat&ecirc;ncia de
+	 * cada envio &eacute; medida e informada &agrave; prote&ccedil;&atilde;o
+	 * para o ajuste do limite de concorr&ecirc;ncia.
+	 * </p>
+	 * <p>
+	 * Arquivos {@link ExecutaRequisicaoSOAP#EXTENSAO_RETRY RETRY} s&atilde;o
+	 * processados da mesma maneira, preservando o nome da resposta. Arquivos
+	 * inv&aacute;lidos s&atilde;o movidos para
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_FAILED FAILED}. Os
+	 * {@link ArquivoRequisicao#isLote() lotes} s&atilde;o entregues ao
+	 * m&eacute;todo
+	 * {@link ExecutaRequisicaoSOAP#processarLote(Path, Path, ArquivoRequisicao)
+	 * processarLote(Path, Path, ArquivoRequisicao)} ap&oacute;s a
+	 * reivindica&ccedil;&atilde;o.
+	 * </p>
+	 *
+	 * @param caminho
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo
+	 *            {@link ExecutaRequisicaoSOAP#EXTENSAO_PENDING PENDING} ou
+	 *            {@link ExecutaRequisicaoSOAP#EXTENSAO_RETRY RETRY} a ser
+	 *            processado.
+	 *
+	 * @return Objeto {@link CompletableFuture} completado ao fim do processamento
+	 *         do arquivo, sempre sem exce&ccedil;&atilde;o, pois as falhas
+	 *         s&atilde;o registradas no log.
+	 *
+	 * @see ExecutaRequisicaoSOAP#executarRequisicao() executarRequisicao()
+	 * @see ExecutaRequisicaoSOAP#processarArquivoAutorizado(Path)
+	 *      processarArquivoAutorizado(Path)
+	 * @see ExecutaRequisicaoSOAP#reivindicarArquivo(Path) reivindicarArquivo(Path)
+	 * @see ExecutaRequisicaoSOAP#finalizarArquivo(Path, Path, ArquivoRequisicao,
+	 *      ArquivoResposta, Throwable) finalizarArquivo(Path, Path,
+	 *      ArquivoRequisicao, ArquivoResposta, Throwable)
+	 * @see TransporteSOAP
+	 * @see ProtecaoEndpoint
+	 * @see MedicaoArquivo
+	 * @see MetricasRobo
+	 * @see EventosJFR
+	 */
+	private static CompletableFuture<Void> processarArquivo(final Path caminho) {
+		// A cota do perfil é verificada antes da proteção do endpoint para que um
+		// arquivo sem vaga não ocupe a vaga do endpoint.
+		final DiretorioPerfil diretorio = ExecutaRequisicaoSOAP.recuperarDiretorio(caminho);
+		if (!diretorio.ocupar(caminho)) {
+			// Será despachado novamente quando outro arquivo do mesmo perfil terminar.
+			ExecutaRequisicaoSOAP.LOGGER.debug("Perfil " + diretorio.getNome() + " sem vaga na cota. Arquivo " + caminho.getFileName() + " permanece pendente.");
+			return CompletableFuture.completedFuture(null);
+		}
+
+		final CompletableFuture<Void> processamento;
+		try {
+			processamento = ExecutaRequisicaoSOAP.processarArquivoAutorizado(caminho);
+		} catch (final RuntimeException e) {
+			ExecutaRequisicaoSOAP.redespacharArquivo(diretorio.desocupar());
+			throw e;
+		}
+
+		return processamento.whenComplete((nada, erro) -> ExecutaRequisicaoSOAP.redespacharArquivo(diretorio.desocupar()));
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por processar um arquivo que j&aacute;
+	 * ocupou uma vaga na cota do seu {@link DiretorioPerfil perfil}, conforme
+	 * descrito no m&eacute;todo
+	 * {@link ExecutaRequisicaoSOAP#processarArquivo(Path) processarArquivo(Path)}.
+	 *
+	 * @param caminho
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo
+	 *            {@link ExecutaRequisicaoSOAP#EXTENSAO_PENDING PENDING} ou
+	 *            {@link ExecutaRequisicaoSOAP#EXTENSAO_RETRY RETRY} a ser
+	 *            processado.
+	 *
+	 * @return Objeto {@link CompletableFuture} completado ao fim do processamento
+	 *         do arquivo, sempre sem exce&ccedil;&atilde;o.
+	 */
+	private static CompletableFuture<Void> processarArquivoAutorizado(final Path caminho) {
+		final ProtecaoEndpoint protecao;
+		try {
+			// A URL é lida antes da reivindicação para que, com o endpoint protegido, o
+			// arquivo permaneça pendente.
+			protecao = ExecutaRequisicaoSOAP.PROTECAO_ENDPOINTS ? ExecutaRequisicaoSOAP.recuperarProtecaoEndpoint(caminho) : null;
+		} catch (final NoSuchFileException e) {
+			// Outro trabalhador ou robô já reivindicou o arquivo.
+			ExecutaRequisicaoSOAP.PENDENTES.remove(caminho);
+			return CompletableFuture.completedFuture(null);
+		} catch (final IOException | RuntimeException e) {
+			ExecutaRequisicaoSOAP.LOGGER.error("Erro inesperado ao executar requisi\u00E7\u00E3o SOAP. ERRO: " + e.getMessage(), e);
+			return CompletableFuture.completedFuture(null);
+		}
+
+		if (protecao != null) {
+			final long espera = protecao.autorizar(caminho);
+			if (espera == ProtecaoEndpoint.AGUARDAR_VAGA) {
+				// Será despachado novamente quando um envio do mesmo endpoint terminar.
+				ExecutaRequisicaoSOAP.LOGGER.debug("Endpoint do arquivo " + caminho.getFileName() + " sem vaga de concorr\u00EAncia. Arquivo permanece pendente.");
+				return CompletableFuture.completedFuture(null);
+			}
+
+			if (espera > 0L) {
+				ExecutaRequisicaoSOAP.adiarArquivo(caminho, espera);
+				return CompletableFuture.completedFuture(null);
+			}
+		}
+
+		final Path doing;
+		final ArquivoRequisicao requisicao;
+		final ArquivoResposta resposta;
+		final long tamanhoCorpo;
+
+		// O evento JFR cobre o processamento inteiro, da reivindicação à escrita da
+		// resposta.
+		final EventosJFR.Arquivo evento = EventosJFR.iniciarArquivo();
+
+		// Com o diário a retentativa mantém o nome, então o status é verificado antes da
+		// reivindicação.
+		final boolean retentativa = ExecutaRequisicaoSOAP.isAguardandoRetentativa(caminho);
+
+		final long reivindicacao;
+		try {
+			// Como dito no javadoc da classe, a extensão do arquivo é utilizada como
+			// status, então para evitarmos repetições com robôs de outros usuários ou com
+			// outros trabalhadores deste mesmo robô, mudamos a extensão para doing. Se
+			// outro já o fez antes, o arquivo não é mais nosso.
+			final long inicioReivindicacao = System.nanoTime();
+			doing = ExecutaRequisicaoSOAP.reivindicarArquivo(caminho);
+			reivindicacao = System.nanoTime() - inicioReivindicacao;
+			if (doing == null) {
+				// Um arquivo que permanece pendente continua sendo contado como tal.
+				if (!Files.exists(caminho)) {
+					ExecutaRequisicaoSOAP.PENDENTES.remove(caminho);
+				}
+
+				ExecutaRequisicaoSOAP.liberarProtecaoEndpoint(protecao);
+				return CompletableFuture.completedFuture(null);
+			}
+
+			if (!retentativa) {
+				ExecutaRequisicaoSOAP.PENDENTES.remove(caminho);
+			}
+
+			ExecutaRequisicaoSOAP.contarMudancaStatus(retentativa ? ExecutaRequisicaoSOAP.EXTENSAO_RETRY : null, ExecutaRequisicaoSOAP.EXTENSAO_DOING);
+		} catch (final IOException | RuntimeException e) {
+			ExecutaRequisicaoSOAP.LOGGER.error("Erro inesperado ao executar requisi\u00E7\u00E3o SOAP. ERRO: " + e.getMessage(), e);
+			ExecutaRequisicaoSOAP.liberarProtecaoEndpoint(protecao);
+			return CompletableFuture.completedFuture(null);
+		}
+
+		try {
+			final long inicioLeitura = System.nanoTime();
+			requisicao = ArquivoRequisicao.abrir(doing, ExecutaRequisicaoSOAP.MODELOS);
+			requisicao.getMedicao().registrar(MedicaoArquivo.Etapa.LEITURA, inicioLeitura);
+			requisicao.getMedicao().adicionar(MedicaoArquivo.Etapa.REIVINDICACAO, reivindicacao);
+		} catch (final NoSuchFileException e) {
+			// Com o diário o arquivo mantém o nome e pode ter sido excluído entre a
+			// varredura e a reivindicação.
+			ExecutaRequisicaoSOAP.esquecerArquivo(caminho);
+			ExecutaRequisicaoSOAP.contarMudancaStatus(ExecutaRequisicaoSOAP.EXTENSAO_DOING, null);
+			ExecutaRequisicaoSOAP.liberarProtecaoEndpoint(protecao);
+			return CompletableFuture.completedFuture(null);
+		} catch (final IOException | RuntimeException e) {
+			// O arquivo já foi reivindicado, então não pode ficar como doing.
+			ExecutaRequisicaoSOAP.LOGGER.error("Erro inesperado ao executar requisi\u00E7\u00E3o SOAP. ERRO: " + e.getMessage(), e);
+			ExecutaRequisicaoSOAP.liberarProtecaoEndpoint(protecao);
+			ExecutaRequisicaoSOAP.reagendarArquivo(caminho, doing);
+			return CompletableFuture.completedFuture(null);
+		}
+
+		try {
+			// Senão tivermos configurações o arquivo é inválido. Devemos avisar e seguir
+			// para o próximo.
+			if (StringUtils.isBlank(requisicao.getConfiguracoes())) {
+				ExecutaRequisicaoSOAP.LOGGER.error("Arquivo inv\u00E1lido, pois n\u00E3o cont\u00E9m as configura\u00E7\u00F5es da requisi\u00E7\u00E3o SOAP.");
+				MetricasRobo.registrar(requisicao.getMedicao());
+				ExecutaRequisicaoSOAP.fechar(requisicao);
+				ExecutaRequisicaoSOAP.moverParaFalha(caminho, doing);
+				ExecutaRequisicaoSOAP.liberarProtecaoEndpoint(protecao);
+				return CompletableFuture.completedFuture(null);
+			}
+
+			// Um modelo inexistente ou sem algum dos seus parâmetros também torna o
+			// arquivo inválido.
+			if (requisicao.getModelo() != null) {
+				try {
+					requisicao.montarModelo();
+				} catch (final IllegalArgumentException e) {
+					ExecutaRequisicaoSOAP.LOGGER.error("Arquivo inv\u00E1lido, pois o envelope n\u00E3o pode ser montado a partir do modelo. ERRO: " + e.getMessage());
+					MetricasRobo.registrar(requisicao.getMedicao());
+					ExecutaRequisicaoSOAP.fechar(requisicao);
+					ExecutaRequisicaoSOAP.moverParaFalha(caminho, doing);
+					ExecutaRequisicaoSOAP.liberarProtecaoEndpoint(protecao);
+					return CompletableFuture.completedFuture(null);
+				}
+			}
+
+			// Senão tivermos corpo da requisição o arquivo é inválido. Devemos avisar e
+			// seguir para o próximo.
+			tamanhoCorpo = requisicao.getTamanhoCorpo();
+			if (tamanhoCorpo == 0L) {
+				ExecutaRequisicaoSOAP.LOGGER.error("Arquivo inv\u00E1lido, pois n\u00E3o cont\u00E9m o corpo (envelope SOAP) da requisi\u00E7\u00E3o SOAP.");
+				MetricasRobo.registrar(requisicao.getMedicao());
+				ExecutaRequisicaoSOAP.fechar(requisicao);
+				ExecutaRequisicaoSOAP.moverParaFalha(caminho, doing);
+				ExecutaRequisicaoSOAP.liberarProtecaoEndpoint(protecao);
+				return CompletableFuture.completedFuture(null);
+			}
+
+			// Os envelopes de um lote seguem caminho próprio e o lote ocupa o
+			// trabalhador até o último envelope terminar.
+			if (requisicao.isLote()) {
+				return ExecutaRequisicaoSOAP.processarLote(caminho, doing, requisicao);
+			}
+
+			// A resposta é escrita direto em disco através de um arquivo temporário que só
+			// é renomeado para response quando completo.
+			resposta = new ArquivoResposta(caminho.resolveSibling(ExecutaRequisicaoSOAP.recuperarNomeRequisicao(caminho) + ExecutaRequisicaoSOAP.EXTENSAO_RESPONSE),
+					ExecutaRequisicaoSOAP.COMPACTAR_RESPOSTAS);
+		} catch (final IOException | RuntimeException e) {
+			ExecutaRequisicaoSOAP.LOGGER.error("Erro inesperado ao executar requisi\u00E7\u00E3o SOAP. ERRO: " + e.getMessage(), e);
+			ExecutaRequisicaoSOAP.fechar(requisicao);
+			ExecutaRequisicaoSOAP.liberarProtecaoEndpoint(protecao);
+			ExecutaRequisicaoSOAP.reagendarArquivo(caminho, doing);
+			return CompletableFuture.completedFuture(null);
+		}
+
+		// Com transportes não bloqueantes o restante do processamento acontece quando a
+		// resposta terminar de chegar, sem ocupar a thread atual.
+		final long inicio = MetricasRobo.iniciarEnvio();
+		return ExecutaRequisicaoSOAP.TRANSPORTE.enviar(requisicao, resposta).handle((nada, erro) -> {
+			final long latencia = MetricasRobo.finalizarEnvio(requisicao.getUrl(), inicio, erro == null);
+			requisicao.getMedicao().adicionar(MedicaoArquivo.Etapa.ENVIO, latencia);
+			if (protecao != null) {
+				// Respostas do cache não dizem nada sobre o endpoint e distorceriam o limite
+				// de concorrência.
+				if (erro == null && requisicao.isRespondidaCache()) {
+					ExecutaRequisicaoSOAP.liberarProtecaoEndpoint(protecao);
+				} else {
+					ExecutaRequisicaoSOAP.redespacharArquivos(erro == null ? protecao.registrarSucesso(latencia) : protecao.registrarFalha(latencia));
+				}
+			}
+
+			// As tentativas são lidas antes da finalização, que com o diário as atualiza.
+			final int tentativa = ExecutaRequisicaoSOAP.recuperarTentativas(caminho) + 1;
+			ExecutaRequisicaoSOAP.finalizarArquivo(caminho, doing, requisicao, resposta, erro);
+
+			MetricasRobo.registrar(requisicao.getMedicao());
+			EventosJFR.finalizarArquivo(evento, caminho, requisicao, tamanhoCorpo, tentativa, erro == null, resposta.getTamanho());
+			return null;
+		});
+	}
+
+	/**
+	 * <p>
+	 * M&eacute;todo respons&aacute;vel por processar um arquivo
+	 * {@link ArquivoRequisicao#isLote() lote} j&aacute; reivindicado: localiza
+	 * os envelopes, os entrega ao {@link ProcessamentoLote processamento do lote}
+	 * e, quando todos terminam, confirma a {@link RespostaLote resposta do lote}
+	 * e renomeia o arquivo para {@link ExecutaRequisicaoSOAP#EXTENSAO_DONE DONE}.
+	 * </p>
+	 * <p>
+	 * Cada envelope tem as suas pr&oacute;prias tentativas, de maneira que o lote
+	 * termina sempre com todos os envelopes respondidos ou registrados como falha.
+	 * Lotes mal formados s&atilde;o movidos para
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_FAILED FAILED} e, caso a resposta do
+	 * lote n&atilde;o possa ser escrita, o lote inteiro recebe uma
+	 * {@link ExecutaRequisicaoSOAP#agendarRetentativa(Path, Path) nova
+	 * tentativa}.
+	 * </p>
+	 * <p>
+	 * Os envelopes n&atilde;o passam pela {@link ProtecaoEndpoint
+	 * prote&ccedil;&atilde;o} dos endpoints, pois a mesma adia arquivos inteiros,
+	 * mantendo-os pendentes, o que n&atilde;o se aplica a um trecho de arquivo. A
+	 * concorr&ecirc;ncia do lote &eacute; limitada pela propriedade
+	 * <code>lote.concorrencia</code>.
+	 * </p>
+	 *
+	 * @param caminho
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo
+	 *            antes da reivindica&ccedil;&atilde;o.
+	 * @param doing
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo
+	 *            {@link ExecutaRequisicaoSOAP#EXTENSAO_DOING DOING}.
+	 * @param lote
+	 *            Arquivo do lote ainda aberto.
+	 *
+	 * @return Objeto {@link CompletableFuture} completado ao fim do processamento
+	 *         de todos os envelopes, sempre sem exce&ccedil;&atilde;o.
+	 *
+	 * @see ArquivoRequisicao#lerEnvelopes()
+	 * @see ProcessamentoLote
+	 * @see RespostaLote
+	 */
+	private static CompletableFuture<Void> processarLote(final Path caminho, final Path doing, final ArquivoRequisicao lote) {
+		final List<ArquivoRequisicao> envelopes;
+		final RespostaLote resposta;
+		try {
+			envelopes = lote.lerEnvelopes();
+			if (envelopes.isEmpty()) {
+				throw new IOException("Lote sem envelopes.");
+			}
+
+			resposta = new RespostaLote(
+					new ArquivoResposta(caminho.resolveSibling(ExecutaRequisicaoSOAP.recuperarNomeRequisicao(caminho) + ExecutaRequisicaoSOAP.EXTENSAO_RESPONSE)),
+					lote.getFronteiraLote(), envelopes.stream().map(ArquivoRequisicao::getIdentificador).collect(Collectors.toList()));
+		} catch (final IOException | RuntimeException e) {
+			ExecutaRequisicaoSOAP.LOGGER.error("Lote " + caminho.getFileName() + " inv\u00E1lido. ERRO: " + e.getMessage(), e);
+			MetricasRobo.registrar(lote.getMedicao());
+			ExecutaRequisicaoSOAP.fechar(lote);
+			ExecutaRequisicaoSOAP.moverParaFalha(caminho, doing);
+			return CompletableFuture.completedFuture(null);
+		}
+
+		ExecutaRequisicaoSOAP.LOGGER.info("Lote " + caminho.getFileName() + " com " + envelopes.size() + " envelope(s).");
+
+		return new ProcessamentoLote(caminho, envelopes, resposta, ExecutaRequisicaoSOAP.TRANSPORTE, ExecutaRequisicaoSOAP.EXECUTOR_LOTES, ExecutaRequisicaoSOAP.RODA_RETENTATIVAS_LOTES,
+				ExecutaRequisicaoSOAP.LOTE_CONCORRENCIA, ExecutaRequisicaoSOAP.RETENTATIVA_MAXIMO_TENTATIVAS, ExecutaRequisicaoSOAP::calcularAtrasoRetentativa).iniciar()
+						.handle((nada, erro) -> {
+							ExecutaRequisicaoSOAP.finalizarLote(caminho, doing, lote, resposta, erro);
+							return null;
+						});
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por finalizar o processamento de um
+	 * {@link ArquivoRequisicao#isLote() lote} ap&oacute;s o t&eacute;rmino de
+	 * todos os envelopes.
+	 *
+	 * @param caminho
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo
+	 *            antes da reivindica&ccedil;&atilde;o.
+	 * @param doing
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo
+	 *            {@link ExecutaRequisicaoSOAP#EXTENSAO_DOING DOING}.
+	 * @param lote
+	 *            Arquivo do lote ainda aberto.
+	 * @param resposta
+	 *            Resposta do lote ainda n&atilde;o confirmada.
+	 * @param erro
+	 *            Exce&ccedil;&atilde;o da escrita da resposta ou
+	 *            <code><strong>null</strong></code> em caso de sucesso.
+	 *
+	 * @see ExecutaRequisicaoSOAP#processarLote(Path, Path, ArquivoRequisicao)
+	 *      processarLote(Path, Path, ArquivoRequisicao)
+	 */
+	private static void finalizarLote(final Path caminho, final Path doing, final ArquivoRequisicao lote, final RespostaLote resposta, final Throwable erro) {
+		// O arquivo precisa estar fechado antes de ser renomeado para done.
+		ExecutaRequisicaoSOAP.fechar(lote);
+
+		try (RespostaLote respostaLote = resposta) {
+			if (erro != null) {
+				final Throwable causa = erro instanceof CompletionException && erro.getCause() != null ? erro.getCause() : erro;
+				ExecutaRequisicaoSOAP.LOGGER.error("Erro inesperado ao escrever a resposta do lote " + caminho.getFileName() + ". ERRO: " + causa.getMessage(), causa);
+				ExecutaRequisicaoSOAP.reagendarArquivo(caminho, doing);
+				return;
+			}
+
+			final long inicio = System.nanoTime();
+			final Path caminhoResposta = respostaLote.confirmar();
+			ExecutaRequisicaoSOAP.contarMudancaStatus(null, ExecutaRequisicaoSOAP.EXTENSAO_RESPONSE);
+			ExecutaRequisicaoSOAP.agendarExclusao(caminhoResposta, ExecutaRequisicaoSOAP.recuperarDiretorio(caminho).getRetencaoMs());
+			ExecutaRequisicaoSOAP.concluirArquivo(doing);
+			lote.getMedicao().registrar(MedicaoArquivo.Etapa.ESCRITA, inicio);
+		} catch (final IOException | RuntimeException e) {
+			ExecutaRequisicaoSOAP.LOGGER.error("Erro inesperado ao executar requisi\u00E7\u00E3o SOAP. ERRO: " + e.getMessage(), e);
+			ExecutaRequisicaoSOAP.reagendarArquivo(caminho, doing);
+		} finally {
+			MetricasRobo.registrar(lote.getMedicao());
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por recuperar a {@link ProtecaoEndpoint
+	 * prote&ccedil;&atilde;o} do endpoint de um arquivo do tipo
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_PENDING PENDING}, lendo apenas a
+	 * primeira linha do mesmo.
+	 *
+	 * @param caminho
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo
+	 *            {@link ExecutaRequisicaoSOAP#EXTENSAO_PENDING PENDING}.
+	 *
+	 * @return A prote&ccedil;&atilde;o do endpoint ou
+	 *         <code><strong>null</strong></code> caso o arquivo n&atilde;o tenha
+	 *         URL, situa&ccedil;&atilde;o tratada pelo processamento, ou seja um
+	 *         {@link ArquivoRequisicao#isLote() lote}, cujos envelopes podem ter
+	 *         endpoints diferentes.
+	 *
+	 * @throws IOException
+	 *             Lan&ccedil;ada pelo m&eacute;todo
+	 *             {@link ArquivoRequisicao#abrir(Path)}, inclusive
+	 *             {@link NoSuchFileException} caso o arquivo j&aacute; tenha sido
+	 *             reivindicado.
+	 *
+	 * @see ExecutaRequisicaoSOAP#PROTECOES_ENDPOINTS PROTECOES_ENDPOINTS
+	 */
+	private static ProtecaoEndpoint recuperarProtecaoEndpoint(final Path caminho) throws IOException {
+		final String url;
+		try (ArquivoRequisicao requisicao = ArquivoRequisicao.abrir(caminho)) {
+			url = requisicao.isLote() ? StringUtils.EMPTY : requisicao.getUrl();
+		}
+
+		return url.isEmpty() ? null : ExecutaRequisicaoSOAP.PROTECOES_ENDPOINTS.computeIfAbsent(url, ExecutaRequisicaoSOAP::criarProtecaoEndpoint);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por liberar a autoriza&ccedil;&atilde;o da
+	 * {@link ProtecaoEndpoint prote&ccedil;&atilde;o} do endpoint quando o arquivo
+	 * n&atilde;o chegou a ser enviado.
+	 *
+	 * @param protecao
+	 *            A prote&ccedil;&atilde;o do endpoint. Pode ser
+	 *            <code><strong>null</strong></code>.
+	 */
+	private static void liberarProtecaoEndpoint(final ProtecaoEndpoint protecao) {
+		if (protecao != null) {
+			ExecutaRequisicaoSOAP.redespacharArquivos(protecao.liberar());
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por despachar novamente um arquivo que
+	 * aguardava vaga de concorr&ecirc;ncia no seu endpoint. O despacho &eacute;
+	 * feito pelo {@link ExecutaRequisicaoSOAP#REAGENDADOR REAGENDADOR} para que a
+	 * <i>thread</i> que liberou a vaga, possivelmente uma <i>thread</i> de I/O do
+	 * transporte, n&atilde;o aguarde a admiss&atilde;o no
+	 * {@link PoolTrabalhadores pool de trabalhadores}.
+	 *
+	 * @param caminho
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo
+	 *            {@link ExecutaRequisicaoSOAP#EXTENSAO_PENDING PENDING}. Pode ser
+	 *            <code><strong>null</strong></code>.
+	 *
+	 * @see ProtecaoEndpoint#AGUARDAR_VAGA
+	 */
+	private static void redespacharArquivo(final Path caminho) {
+		if (caminho != null) {
+			ExecutaRequisicaoSOAP.REAGENDADOR.execute(() -> ExecutaRequisicaoSOAP.despacharArquivo(caminho));
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por despachar novamente os arquivos que
+	 * aguardavam vaga de concorr&ecirc;ncia no seu endpoint, um para cada vaga
+	 * liberada ou criada pelo crescimento do limite.
+	 *
+	 * @param caminhos
+	 *            Os caminhos absolutos dos arquivos
+	 *            {@link ExecutaRequisicaoSOAP#EXTENSAO_PENDING PENDING}.
+	 *
+	 * @see ExecutaRequisicaoSOAP#redespacharArquivo(Path) redespacharArquivo(Path)
+	 */
+	private static void redespacharArquivos(final List<Path> caminhos) {
+		caminhos.forEach(ExecutaRequisicaoSOAP::redespacharArquivo);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por manter como
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_PENDING PENDING} um arquivo cujo
+	 * endpoint n&atilde;o autorizou o envio. Com o diret&oacute;rio
+	 * {@link MonitorDiretorio monitorado} ou para arquivos
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_RETRY RETRY}, que a varredura
+	 * n&atilde;o encontra, o arquivo &eacute; despachado novamente ap&oacute;s a
+	 * espera. Caso contr&aacute;rio, a pr&oacute;xima varredura o
+	 * encontrar&aacute;.
+	 *
+	 * @param caminho
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo
+	 *            {@link ExecutaRequisicaoSOAP#EXTENSAO_PENDING PENDING}.
+	 * @param esperaNanos
+	 *            Tempo, em nanossegundos, at&eacute; a pr&oacute;xima tentativa.
+	 *
+	 * @see ProtecaoEndpoint#autorizar(Path)
+	 * @see ExecutaRequisicaoSOAP#REAGENDADOR REAGENDADOR
+	 */
+	private static void adiarArquivo(final Path caminho, final long esperaNanos) {
+		ExecutaRequisicaoSOAP.LOGGER.debug("Endpoint do arquivo " + caminho.getFileName() + " n\u00E3o autorizou o envio. Arquivo permanece pendente.");
+
+		if (ExecutaRequisicaoSOAP.MONITORAMENTO_DIRETORIO || ExecutaRequisicaoSOAP.isArquivoRetentativa(caminho)) {
+			ExecutaRequisicaoSOAP.REAGENDADOR.schedule(() -> ExecutaRequisicaoSOAP.despacharArquivo(caminho), esperaNanos, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	/**
+	 * <p>
+	 * M&eacute;todo respons&aacute;vel por finalizar o processamento de um arquivo
+	 * ap&oacute;s o t&eacute;rmino do envio pelo {@link TransporteSOAP
+	 * transporte}.
+	 * </p>
+	 * <p>
+	 * Em caso de sucesso a resposta &eacute; confirmada e o arquivo de entrada
+	 * renomeado para {@link ExecutaRequisicaoSOAP#EXTENSAO_DONE DONE}. Em caso de
+	 * falha a resposta &eacute; descartada e uma
+	 * {@link ExecutaRequisicaoSOAP#agendarRetentativa(Path, Path) nova tentativa}
+	 * &eacute; agendada.
+	 * </p>
+	 *
+	 * @param caminho
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo
+	 *            antes da reivindica&ccedil;&atilde;o.
+	 * @param doing
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo
+	 *            {@link ExecutaRequisicaoSOAP#EXTENSAO_DOING DOING}.
+	 * @param requisicao
+	 *            Arquivo de requisi&ccedil;&atilde;o ainda aberto.
+	 * @param resposta
+	 *            Arquivo de resposta ainda n&atilde;o confirmado.
+	 * @param erro
+	 *            Exce&ccedil;&atilde;o do envio ou <code><strong>null</strong></code>
+	 *            em caso de sucesso.
+	 *
+	 * @see ExecutaRequisicaoSOAP#processarArquivo(Path) processarArquivo(Path)
+	 */
+	private static void finalizarArquivo(final Path caminho, final Path doing, final ArquivoRequisicao requisicao, final ArquivoResposta resposta, final Throwable erro) {
+		// O arquivo precisa estar fechado antes de ser renomeado para done.
+		ExecutaRequisicaoSOAP.fechar(requisicao);
+
+		try (ArquivoResposta arquivoResposta = resposta) {
+			if (erro != null) {
+				final Throwable causa = erro instanceof CompletionException && erro.getCause() != null ? erro.getCause() : erro;
+				ExecutaRequisicaoSOAP.LOGGER.error("Erro inesperado ao executar requisi\u00E7\u00E3o SOAP. ERRO: " + causa.getMessage(), causa);
+				ExecutaRequisicaoSOAP.reagendarArquivo(caminho, doing);
+				return;
+			}
+
+			final long inicio = System.nanoTime();
+			final long retencao = ExecutaRequisicaoSOAP.recuperarDiretorio(caminho).getRetencaoMs();
+			final Path caminhoResposta = arquivoResposta.confirmar();
+			ExecutaRequisicaoSOAP.contarMudancaStatus(null, ExecutaRequisicaoSOAP.EXTENSAO_RESPONSE);
+			ExecutaRequisicaoSOAP.agendarExclusao(caminhoResposta, retencao);
+			for (final Path anexo : arquivoResposta.getAnexos()) {
+				ExecutaRequisicaoSOAP.contarMudancaStatus(null, ExecutaRequisicaoSOAP.EXTENSAO_ANEXO);
+				ExecutaRequisicaoSOAP.agendarExclusao(anexo, retencao);
+			}
+
+			ExecutaRequisicaoSOAP.concluirArquivo(doing);
+			requisicao.getMedicao().registrar(MedicaoArquivo.Etapa.ESCRITA, inicio);
+		} catch (final IOException | RuntimeException e) {
+			ExecutaRequisicaoSOAP.LOGGER.error("Erro inesperado ao executar requisi\u00E7\u00E3o SOAP. ERRO: " + e.getMessage(), e);
+			ExecutaRequisicaoSOAP.reagendarArquivo(caminho, doing);
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por tirar do estado
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_DOING DOING} um arquivo cujo
+	 * processamento falhou ap&oacute;s a reivindica&ccedil;&atilde;o,
+	 * {@link ExecutaRequisicaoSOAP#agendarRetentativa(Path, Path) agendando uma
+	 * nova tentativa} ou, caso nem isso seja poss&iacute;vel, movendo-o para
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_FAILED FAILED}. Desta forma nenhum
+	 * arquivo reivindicado fica esquecido at&eacute; o rein&iacute;cio do
+	 * rob&ocirc;.
+	 *
+	 * @param caminho
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo
+	 *            antes da reivindica&ccedil;&atilde;o.
+	 * @param doing
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo
+	 *            {@link ExecutaRequisicaoSOAP#EXTENSAO_DOING DOING}.
+	 */
+	private static void reagendarArquivo(final Path caminho, final Path doing) {
+		try {
+			ExecutaRequisicaoSOAP.agendarRetentativa(caminho, doing);
+		} catch (final IOException | RuntimeException e) {
+			ExecutaRequisicaoSOAP.LOGGER.error("Erro ao agendar nova tentativa do arquivo " + doing.getFileName() + ". ERRO: " + e.getMessage(), e);
+			ExecutaRequisicaoSOAP.moverParaFalha(caminho, doing);
+		}
+	}
+
+	/**
+	 * <p>
+	 * M&eacute;todo respons&aacute;vel por agendar uma nova tentativa de um
+	 * arquivo cujo envio falhou, renomeando o mesmo para
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_RETRY RETRY} com a quantidade de
+	 * tentativas no nome e o instante da pr&oacute;xima tentativa como data de
+	 * modifica&ccedil;&atilde;o, e entregando-o &agrave;
+	 * {@link ExecutaRequisicaoSOAP#RODA_RETENTATIVAS roda de
+	 * temporiza&ccedil;&atilde;o}.
+	 * </p>
+	 * <p>
+	 * Esgotadas as {@link ExecutaRequisicaoSOAP#RETENTATIVA_MAXIMO_TENTATIVAS
+	 * tentativas}, o arquivo &eacute; movido para
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_FAILED FAILED}.
+	 * </p>
+	 *
+	 * @param caminho
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo
+	 *            antes da reivindica&ccedil;&atilde;o, do qual s&atilde;o obtidos o
+	 *            nome da requisi&ccedil;&atilde;o e as tentativas anteriores.
+	 * @param doing
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo
+	 *            {@link ExecutaRequisicaoSOAP#EXTENSAO_DOING DOING}.
+	 *
+	 * @throws IOException
+	 *             Lan&ccedil;ada pelos m&eacute;todos
+	 *             {@link Files#move(Path, Path, java.nio.file.CopyOption...)
+	 *             Files.move(Path, Path, CopyOption...)} e
+	 *             {@link Files#setLastModifiedTime(Path, FileTime)}.
+	 *
+	 * @see ExecutaRequisicaoSOAP#calcularAtrasoRetentativa(int)
+	 *      calcularAtrasoRetentativa(int)
+	 * @see RodaTemporizacao
+	 */
+	private static void agendarRetentativa(final Path caminho, final Path doing) throws IOException {
+		final int tentativas = ExecutaRequisicaoSOAP.recuperarTentativas(caminho) + 1;
+		if (tentativas >= ExecutaRequisicaoSOAP.RETENTATIVA_MAXIMO_TENTATIVAS) {
+			ExecutaRequisicaoSOAP.moverParaFalha(caminho, doing);
+			return;
+		}
+
+		final long atraso = ExecutaRequisicaoSOAP.calcularAtrasoRetentativa(tentativas);
+
+		// Com o diário o arquivo mantém o nome e apenas o instante da próxima tentativa é
+		// registrado.
+		final DiarioEstados diario = ExecutaRequisicaoSOAP.recuperarDiario(doing);
+		if (diario != null) {
+			diario.agendarRetentativa(doing.getFileName().toString(), tentativas, System.currentTimeMillis() + atraso);
+			ExecutaRequisicaoSOAP.contarMudancaStatus(ExecutaRequisicaoSOAP.EXTENSAO_DOING, ExecutaRequisicaoSOAP.EXTENSAO_RETRY);
+			ExecutaRequisicaoSOAP.RODA_RETENTATIVAS.agendar(() -> ExecutaRequisicaoSOAP.despacharArquivo(doing), atraso, TimeUnit.MILLISECONDS);
+			ExecutaRequisicaoSOAP.LOGGER.warn("Tentativa " + tentativas + " de " + ExecutaRequisicaoSOAP.RETENTATIVA_MAXIMO_TENTATIVAS + " do arquivo " + doing.getFileName()
+					+ " falhou. Nova tentativa em " + ExecutaRequisicaoSOAP.NF_DEFAULT.format(atraso / 1000D) + " segundo(s).");
+			return;
+		}
+
+		final Path retentativa = Files.move(doing, doing.resolveSibling(ExecutaRequisicaoSOAP.recuperarNomeRequisicao(caminho) + tentativas + ExecutaRequisicaoSOAP.EXTENSAO_RETRY),
+				StandardCopyOption.REPLACE_EXISTING);
+		Files.setLastModifiedTime(retentativa, FileTime.fromMillis(System.currentTimeMillis() + atraso));
+		ExecutaRequisicaoSOAP.contarMudancaStatus(ExecutaRequisicaoSOAP.EXTENSAO_DOING, ExecutaRequisicaoSOAP.EXTENSAO_RETRY);
+
+		ExecutaRequisicaoSOAP.RODA_RETENTATIVAS.agendar(() -> ExecutaRequisicaoSOAP.despacharArquivo(retentativa), atraso, TimeUnit.MILLISECONDS);
+		ExecutaRequisicaoSOAP.LOGGER.warn("Tentativa " + tentativas + " de " + ExecutaRequisicaoSOAP.RETENTATIVA_MAXIMO_TENTATIVAS + " do arquivo " + retentativa.getFileName()
+				+ " falhou. Nova tentativa em " + ExecutaRequisicaoSOAP.NF_DEFAULT.format(atraso / 1000D) + " segundo(s).");
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por calcular o atraso at&eacute; a
+	 * pr&oacute;xima tentativa: o intervalo inicial dobrado a cada tentativa,
+	 * limitado ao intervalo m&aacute;ximo, do qual metade &eacute; fixa e metade
+	 * aleat&oacute;ria, de maneira que arquivos que falharam juntos n&atilde;o
+	 * sejam reenviados juntos.
+	 *
+	 * @param tentativas
+	 *            Quantidade de tentativas j&aacute; feitas.
+	 *
+	 * @return O atraso, em milissegundos.
+	 *
+	 * @see ExecutaRequisicaoSOAP#RETENTATIVA_INTERVALO_INICIAL_MS
+	 *      RETENTATIVA_INTERVALO_INICIAL_MS
+	 * @see ExecutaRequisicaoSOAP#RETENTATIVA_INTERVALO_MAXIMO_MS
+	 *      RETENTATIVA_INTERVALO_MAXIMO_MS
+	 */
+	private static long calcularAtrasoRetentativa(final int tentativas) {
+		// O deslocamento é limitado para não estourar o long.
+		final long exponencial = ExecutaRequisicaoSOAP.RETENTATIVA_INTERVALO_INICIAL_MS << Math.min(Math.max(0, tentativas - 1), 30);
+		final long teto = Math.min(ExecutaRequisicaoSOAP.RETENTATIVA_INTERVALO_MAXIMO_MS, exponencial);
+		return teto / 2L + ThreadLocalRandom.current().nextLong(teto / 2L + 1L);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por mover para
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_FAILED FAILED} um arquivo
+	 * inv&aacute;lido ou que esgotou as tentativas, apenas registrando eventuais
+	 * falhas.
+	 *
+	 * @param caminho
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo
+	 *            antes da reivindica&ccedil;&atilde;o.
+	 * @param doing
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo
+	 *            {@link ExecutaRequisicaoSOAP#EXTENSAO_DOING DOING}.
+	 */
+	private static void moverParaFalha(final Path caminho, final Path doing) {
+		try {
+			final int tentativas = ExecutaRequisicaoSOAP.recuperarTentativas(caminho) + 1;
+			final Path falha = Files.move(doing, doing.resolveSibling(ExecutaRequisicaoSOAP.recuperarNomeRequisicao(caminho) + ExecutaRequisicaoSOAP.EXTENSAO_FAILED),
+					StandardCopyOption.REPLACE_EXISTING);
+			ExecutaRequisicaoSOAP.contarMudancaStatus(ExecutaRequisicaoSOAP.EXTENSAO_DOING, ExecutaRequisicaoSOAP.EXTENSAO_FAILED);
+
+			// Com o diário o arquivo deixa de ser acompanhado após ser movido, de maneira
+			// que uma interrupção entre os dois passos apenas o torne pendente novamente.
+			ExecutaRequisicaoSOAP.esquecerArquivo(doing);
+			ExecutaRequisicaoSOAP.LOGGER.error("Arquivo " + falha.getFileName() + " n\u00E3o ser\u00E1 mais processado ap\u00F3s " + tentativas + " tentativa(s).");
+		} catch (final IOException | RuntimeException e) {
+			ExecutaRequisicaoSOAP.LOGGER.error("Erro ao mover arquivo " + doing.getFileName() + " para FAILED. ERRO: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por entregar &agrave;
+	 * {@link ExecutaRequisicaoSOAP#RODA_RETENTATIVAS roda de
+	 * temporiza&ccedil;&atilde;o} os arquivos
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_RETRY RETRY} deixados por uma
+	 * execu&ccedil;&atilde;o anterior, cada um no instante registrado em sua data
+	 * de modifica&ccedil;&atilde;o, em cada um dos
+	 * {@link ExecutaRequisicaoSOAP#DIRETORIOS diret&oacute;rios}. Com o
+	 * {@link DiarioEstados di&aacute;rio} as retentativas e as exclus&otilde;es
+	 * dos arquivos conclu&iacute;dos s&atilde;o retomadas a partir do mesmo, sem
+	 * varredura do diret&oacute;rio.
+	 *
+	 * @see ExecutaRequisicaoSOAP#agendarRetentativa(Path, Path)
+	 *      agendarRetentativa(Path, Path)
+	 * @see DiarioEstados#getRegistros()
+	 */
+	private static void recuperarRetentativas() {
+		ExecutaRequisicaoSOAP.DIRETORIOS.values().forEach(ExecutaRequisicaoSOAP::recuperarRetentativas);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retomar as retentativas e, com o
+	 * {@link DiarioEstados di&aacute;rio}, as exclus&otilde;es de um dos
+	 * diret&oacute;rios, conforme descrito no m&eacute;todo
+	 * {@link ExecutaRequisicaoSOAP#recuperarRetentativas()
+	 * recuperarRetentativas()}.
+	 *
+	 * @param diretorio
+	 *            O diret&oacute;rio do perfil.
+	 */
+	private static void recuperarRetentativas(final DiretorioPerfil diretorio) {
+		final DiarioEstados diario = diretorio.getDiario();
+		if (diario != null) {
+			int retentativas = 0;
+			int concluidos = 0;
+			final long agora = System.currentTimeMillis();
+			for (final Map.Entry<String, DiarioEstados.Registro> entrada : diario.getRegistros().entrySet()) {
+				final Path arquivo = diretorio.getDiretorio().resolve(entrada.getKey());
+				final DiarioEstados.Registro registro = entrada.getValue();
+				if (registro.estado == DiarioEstados.Estado.RETENTATIVA) {
+					ExecutaRequisicaoSOAP.RODA_RETENTATIVAS.agendar(() -> ExecutaRequisicaoSOAP.despacharArquivo(arquivo), registro.proximaTentativa - agora, TimeUnit.MILLISECONDS);
+					retentativas++;
+				} else if (registro.estado == DiarioEstados.Estado.CONCLUIDO) {
+					ExecutaRequisicaoSOAP.agendarExclusaoConcluido(arquivo, registro.instante + diretorio.getRetencaoMs() - agora);
+					concluidos++;
+				}
+			}
+
+			ExecutaRequisicaoSOAP.LOGGER.info("Perfil " + diretorio.getNome() + ": " + retentativas + " arquivo(s) aguardando nova tentativa e " + concluidos
+					+ " arquivo(s) conclu\u00EDdo(s) aguardando exclus\u00E3o.");
+			return;
+		}
+
+		try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(diretorio.getDiretorio(),
+				path -> ExecutaRequisicaoSOAP.isArquivoRetentativa(path) && Files.isRegularFile(path))) {
+			int quantidade = 0;
+			for (final Path arquivo : arquivos) {
+				final long atraso = Files.getLastModifiedTime(arquivo).toMillis() - System.currentTimeMillis();
+				ExecutaRequisicaoSOAP.RODA_RETENTATIVAS.agendar(() -> ExecutaRequisicaoSOAP.despacharArquivo(arquivo), atraso, TimeUnit.MILLISECONDS);
+				quantidade++;
+			}
+
+			ExecutaRequisicaoSOAP.LOGGER.info("Perfil " + diretorio.getNome() + ": " + quantidade + " arquivo(s) aguardando nova tentativa.");
+		} catch (final IOException e) {
+			ExecutaRequisicaoSOAP.LOGGER.error("Erro inesperado ao buscar arquivos do diret\u00F3rio " + diretorio.getDiretorio() + ". ERRO: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por verificar se um arquivo &eacute; do tipo
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_RETRY RETRY}.
+	 *
+	 * @param caminho
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo.
+	 *
+	 * @return O intr&iacute;nseco <code><strong>boolean</strong></code> contendo o
+	 *         valor <code><strong>true</strong></code> caso o arquivo aguarde
+	 *         nova tentativa ou <code><strong>false</strong></code> caso
+	 *         contr&aacute;rio.
+	 */
+	private static boolean isArquivoRetentativa(final Path caminho) {
+		return caminho.getFileName().toString().endsWith(ExecutaRequisicaoSOAP.EXTENSAO_RETRY);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por verificar se um arquivo aguarda nova
+	 * tentativa, seja pela extens&atilde;o {@link ExecutaRequisicaoSOAP#EXTENSAO_RETRY
+	 * RETRY} ou, com o {@link DiarioEstados di&aacute;rio}, pelo estado
+	 * registrado no mesmo.
+	 *
+	 * @param caminho
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo.
+	 *
+	 * @return O intr&iacute;nseco <code><strong>boolean</strong></code> contendo o
+	 *         valor <code><strong>true</strong></code> caso o arquivo aguarde
+	 *         nova tentativa ou <code><strong>false</strong></code> caso
+	 *         contr&aacute;rio.
+	 */
+	private static boolean isAguardandoRetentativa(final Path caminho) {
+		final DiarioEstados diario = ExecutaRequisicaoSOAP.recuperarDiario(caminho);
+		if (diario == null) {
+			return ExecutaRequisicaoSOAP.isArquivoRetentativa(caminho);
+		}
+
+		final DiarioEstados.Registro registro = diario.getRegistro(caminho.getFileName().toString());
+		return registro != null && registro.estado == DiarioEstados.Estado.RETENTATIVA;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por recuperar a quantidade de tentativas
+	 * j&aacute; feitas de um arquivo a partir do seu nome.
+	 *
+	 * @param caminho
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo.
+	 *
+	 * @return A quantidade de tentativas registrada no nome de um arquivo
+	 *         {@link ExecutaRequisicaoSOAP#EXTENSAO_RETRY RETRY} ou no
+	 *         {@link DiarioEstados di&aacute;rio}, ou zero para os
+	 *         demais.
+	 */
+	private static int recuperarTentativas(final Path caminho) {
+		final DiarioEstados diario = ExecutaRequisicaoSOAP.recuperarDiario(caminho);
+		if (diario != null) {
+			return diario.getTentativas(caminho.getFileName().toString());
+		}
+
+		if (!ExecutaRequisicaoSOAP.isArquivoRetentativa(caminho)) {
+			return 0;
+		}
+
+		// Nome no formato <requisição><tentativas>.RETRY, sendo que <requisição>
+		// termina em ponto.
+		final String nome = NomesArquivos.recuperarCaminhoArquivoSemExtensao(caminho);
+		try {
+			return Integer.parseInt(nome.substring(nome.lastIndexOf('.', nome.length() - 2) + 1, nome.length() - 1));
+		} catch (final NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por recuperar o {@link DiretorioPerfil
+	 * diret&oacute;rio} de um arquivo, isto &eacute;, o do seu diret&oacute;rio
+	 * pai.
+	 *
+	 * @param caminho
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo.
+	 *
+	 * @return O diret&oacute;rio do arquivo.
+	 *
+	 * @see ExecutaRequisicaoSOAP#DIRETORIOS DIRETORIOS
+	 */
+	private static DiretorioPerfil recuperarDiretorio(final Path caminho) {
+		return ExecutaRequisicaoSOAP.DIRETORIOS.get(caminho.getParent());
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por recuperar o {@link DiarioEstados
+	 * di&aacute;rio} do diret&oacute;rio de um arquivo.
+	 *
+	 * @param caminho
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo.
+	 *
+	 * @return O di&aacute;rio ou <code><strong>null</strong></code> quando o
+	 *         status &eacute; mantido nas extens&otilde;es dos arquivos.
+	 *
+	 * @see DiretorioPerfil#getDiario()
+	 */
+	private static DiarioEstados recuperarDiario(final Path caminho) {
+		return ExecutaRequisicaoSOAP.recuperarDiretorio(caminho).getDiario();
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por fechar um {@link DiretorioPerfil
+	 * diret&oacute;rio}, liberando e excluindo o seu arquivo de controle de
+	 * execu&ccedil;&atilde;o.
+	 *
+	 * @param diretorio
+	 *            O diret&oacute;rio a ser fechado.
+	 *
+	 * @see DiretorioPerfil#close()
+	 */
+	private static void fecharDiretorio(final DiretorioPerfil diretorio) {
+		try {
+			diretorio.close();
+		} catch (final IOException e) {
+			ExecutaRequisicaoSOAP.LOGGER.error("Erro ao excluir arquivo de controle de execu\u00E7\u00E3o do perfil " + diretorio.getNome() + ". ERRO: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por recuperar o nome da
+	 * requisi&ccedil;&atilde;o de um arquivo, isto &eacute;, o nome sem a
+	 * extens&atilde;o e, para arquivos {@link ExecutaRequisicaoSOAP#EXTENSAO_RETRY
+	 * RETRY} e {@link ExecutaRequisicaoSOAP#EXTENSAO_DOING DOING}, sem a
+	 * quantidade de tentativas ou o n&oacute; da {@link ConcessoesArquivos
+	 * concess&atilde;o}. Desta forma os arquivos
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_DOING DOING} e
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_RESPONSE RESPONSE} de uma
+	 * retentativa t&ecirc;m os mesmos nomes da primeira tentativa.
+	 *
+	 * @param caminho
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo.
+	 *
+	 * @return Objeto do tipo {@link String} contendo o nome da
+	 *         requisi&ccedil;&atilde;o, terminado em ponto.
+	 *
+	 * @see NomesArquivos#recuperarCaminhoArquivoSemExtensao(Path)
+	 *      recuperarCaminhoArquivoSemExtensao(Path)
+	 */
+	private static String recuperarNomeRequisicao(final Path caminho) {
+		final String nome = NomesArquivos.recuperarCaminhoArquivoSemExtensao(caminho);
+		return ExecutaRequisicaoSOAP.isArquivoRetentativa(caminho) || caminho.getFileName().toString().endsWith(ExecutaRequisicaoSOAP.EXTENSAO_DOING)
+				? nome.substring(0, nome.lastIndexOf('.', nome.length() - 2) + 1)
+				: nome;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por fechar um arquivo de
+	 * requisi&ccedil;&atilde;o apenas registrando eventuais falhas.
+	 *
+	 * @param requisicao
+	 *            Arquivo de requisi&ccedil;&atilde;o a ser fechado.
+	 */
+	private static void fechar(final ArquivoRequisicao requisicao) {
+		try {
+			requisicao.close();
+		} catch (final IOException e) {
+			ExecutaRequisicaoSOAP.LOGGER.error("Erro ao fechar arquivo de requisi\u00E7\u00E3o. ERRO: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por reivindicar um arquivo do tipo
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_PENDING PENDING}, renomeando-o
+	 * atomicamente para a extens&atilde;o
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_DOING DOING} sem nunca substituir um
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_DOING DOING} com o mesmo nome,
+	 * conforme o m&eacute;todo {@link ExecutaRequisicaoSOAP#renomearSemSubstituir(Path, Path)
+	 * renomearSemSubstituir(Path, Path)}. Com o {@link DiarioEstados
+	 * di&aacute;rio} o arquivo mant&eacute;m o nome e a reivindica&ccedil;&atilde;o
+	 * &eacute; registrada no mesmo. Com as {@link ConcessoesArquivos
+	 * concess&otilde;es} o nome recebe tamb&eacute;m o identificador do
+	 * n&oacute;.
+	 *
+	 * @param origem
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo
+	 *            a ser reivindicado.
+	 *
+	 * @return Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo
+	 *         renomeado ou <code><strong>null</strong></code> caso o arquivo
+	 *         j&aacute; tenha sido reivindicado por outro trabalhador ou rob&ocirc;.
+	 *
+	 * @throws IOException
+	 *             Lan&ccedil;ada pelo m&eacute;todo
+	 *             {@link ExecutaRequisicaoSOAP#renomearSemSubstituir(Path, Path)
+	 *             renomearSemSubstituir(Path, Path)}.
+	 *
+	 * @see ExecutaRequisicaoSOAP#renomearSemSubstituir(Path, Path)
+	 *      renomearSemSubstituir(Path, Path)
+	 */
+	private static Path reivindicarArquivo(final Path origem) throws IOException {
+		final DiarioEstados diario = ExecutaRequisicaoSOAP.recuperarDiario(origem);
+		if (diario != null) {
+			return diario.reivindicar(origem.getFileName().toString()) ? origem : null;
+		}
+
+		if (ExecutaRequisicaoSOAP.CONCESSOES != null) {
+			return ExecutaRequisicaoSOAP.CONCESSOES.reivindicar(origem,
+					origem.resolveSibling(ExecutaRequisicaoSOAP.recuperarNomeRequisicao(origem) + ExecutaRequisicaoSOAP.CONCESSOES.getNo() + ExecutaRequisicaoSOAP.EXTENSAO_DOING));
+		}
+
+		return ExecutaRequisicaoSOAP.renomearSemSubstituir(origem,
+				origem.resolveSibling(ExecutaRequisicaoSOAP.recuperarNomeRequisicao(origem) + ExecutaRequisicaoSOAP.EXTENSAO_DOING));
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por renomear um arquivo sem nunca
+	 * substituir o destino, j&aacute; que em sistemas POSIX a
+	 * renomea&ccedil;&atilde;o at&ocirc;mica o substitui. O destino &eacute;
+	 * criado como um <i>link</i> f&iacute;sico da origem, o que falha
+	 * atomicamente caso o mesmo j&aacute; exista, e s&oacute; ent&atilde;o a
+	 * origem &eacute; exclu&iacute;da. Desta forma, entre dois trabalhadores ou
+	 * rob&ocirc;s que reivindicam o mesmo destino, apenas um vence. Em sistemas de
+	 * arquivos sem <i>links</i> f&iacute;sicos o destino &eacute; verificado antes
+	 * da renomea&ccedil;&atilde;o at&ocirc;mica.
+	 *
+	 * @param origem
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo
+	 *            a ser renomeado.
+	 * @param destino
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do novo
+	 *            nome.
+	 *
+	 * @return O pr&oacute;prio destino ou <code><strong>null</strong></code> caso
+	 *         a origem n&atilde;o exista mais ou o destino j&aacute; exista.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel criar o destino ou excluir
+	 *             a origem por qualquer motivo que n&atilde;o os acima.
+	 *
+	 * @see Files#createLink(Path, Path)
+	 * @see FileAlreadyExistsException
+	 * @see NoSuchFileException
+	 */
+	static Path renomearSemSubstituir(final Path origem, final Path destino) throws IOException {
+		try {
+			Files.createLink(destino, origem);
+		} catch (final NoSuchFileException e) {
+			return null;
+		} catch (final FileAlreadyExistsException e) {
+			ExecutaRequisicaoSOAP.LOGGER.warn("Arquivo " + destino.getFileName() + " j\u00E1 existe. Arquivo " + origem.getFileName() + " permanece pendente.");
+			return null;
+		} catch (final UnsupportedOperationException e) {
+			if (Files.exists(destino)) {
+				ExecutaRequisicaoSOAP.LOGGER.warn("Arquivo " + destino.getFileName() + " j\u00E1 existe. Arquivo " + origem.getFileName() + " permanece pendente.");
+				return null;
+			}
+
+			try {
+				return Files.move(origem, destino, StandardCopyOption.ATOMIC_MOVE);
+			} catch (final NoSuchFileException e1) {
+				return null;
+			}
+		}
+
+		try {
+			Files.delete(origem);
+		} catch (final NoSuchFileException e) {
+			// A origem já foi removida e o destino, criado por este trabalhador, é o único
+			// nome do arquivo.
+		} catch (final IOException e) {
+			// Sem excluir a origem o arquivo seria enviado novamente, então o destino é
+			// desfeito e o arquivo permanece pendente.
+			Files.deleteIfExists(destino);
+			throw e;
+		}
+
+		return destino;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por registrar a conclus&atilde;o de um
+	 * arquivo j&aacute; reivindicado, renomeando-o para
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_DONE DONE} ou, com o
+	 * {@link DiarioEstados di&aacute;rio}, registrando a
+	 * conclus&atilde;o no mesmo, e agendar a sua exclus&atilde;o ao fim da
+	 * {@link ExecutaRequisicaoSOAP#RETENCAO_MS reten&ccedil;&atilde;o}.
+	 *
+	 * @param doing
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo
+	 *            reivindicado.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel renomear o arquivo ou
+	 *             escrever no di&aacute;rio.
+	 */
+	private static void concluirArquivo(final Path doing) throws IOException {
+		final DiretorioPerfil diretorio = ExecutaRequisicaoSOAP.recuperarDiretorio(doing);
+		if (diretorio.getDiario() != null) {
+			diretorio.getDiario().concluir(doing.getFileName().toString());
+			ExecutaRequisicaoSOAP.contarMudancaStatus(ExecutaRequisicaoSOAP.EXTENSAO_DOING, ExecutaRequisicaoSOAP.EXTENSAO_DONE);
+			ExecutaRequisicaoSOAP.agendarExclusaoConcluido(doing, diretorio.getRetencaoMs());
+			return;
+		}
+
+		if (ExecutaRequisicaoSOAP.CONCESSOES != null) {
+			// O arquivo done mantém o nome de quando a reivindicação não carregava o nó.
+			try {
+				ExecutaRequisicaoSOAP.agendarExclusao(Files.move(doing, doing.resolveSibling(ExecutaRequisicaoSOAP.recuperarNomeRequisicao(doing) + '.' + ExecutaRequisicaoSOAP.EXTENSAO_DONE),
+						StandardCopyOption.REPLACE_EXISTING), diretorio.getRetencaoMs());
+				ExecutaRequisicaoSOAP.contarMudancaStatus(ExecutaRequisicaoSOAP.EXTENSAO_DOING, ExecutaRequisicaoSOAP.EXTENSAO_DONE);
+			} catch (final NoSuchFileException e) {
+				ExecutaRequisicaoSOAP.contarMudancaStatus(ExecutaRequisicaoSOAP.EXTENSAO_DOING, null);
+				ExecutaRequisicaoSOAP.LOGGER.warn("Concess\u00E3o do arquivo " + doing.getFileName() + " perdida antes da conclus\u00E3o. A requisi\u00E7\u00E3o ser\u00E1 enviada novamente por outro n\u00F3.");
+			}
+
+			return;
+		}
+
+		// Renomeia arquivo de entrada para constar como feito através da extensão DONE.
+		ExecutaRequisicaoSOAP.agendarExclusao(ExecutaRequisicaoSOAP.renomearArquivo(doing, ExecutaRequisicaoSOAP.EXTENSAO_DONE), diretorio.getRetencaoMs());
+		ExecutaRequisicaoSOAP.contarMudancaStatus(ExecutaRequisicaoSOAP.EXTENSAO_DOING, ExecutaRequisicaoSOAP.EXTENSAO_DONE);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por devolver como
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_PENDING PENDING} os arquivos
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_DOING DOING} cujas
+	 * {@link ConcessoesArquivos concess&otilde;es} venceram, isto &eacute;, de
+	 * n&oacute;s interrompidos, e despach&aacute;-los novamente. Como a
+	 * devolu&ccedil;&atilde;o &eacute; uma renomea&ccedil;&atilde;o at&ocirc;mica,
+	 * apenas um dos n&oacute;s recupera cada arquivo.
+	 *
+	 * @see ConcessoesArquivos#isVencida(Path)
+	 * @see MetricasRobo#CONCESSOES_RECUPERADAS
+	 */
+	private static void recuperarConcessoesVencidas() {
+		for (final Path diretorio : ExecutaRequisicaoSOAP.DIRETORIOS.keySet()) {
+			try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(diretorio, "*" + ExecutaRequisicaoSOAP.EXTENSAO_DOING)) {
+				for (final Path doing : arquivos) {
+					try {
+						if (!ExecutaRequisicaoSOAP.CONCESSOES.isVencida(doing)) {
+							continue;
+						}
+
+						final Path pendente = Files.move(doing, doing.resolveSibling(StringUtils.chop(ExecutaRequisicaoSOAP.recuperarNomeRequisicao(doing))
+								+ ExecutaRequisicaoSOAP.EXTENSAO_PENDING.toLowerCase(ExecutaRequisicaoSOAP.LOCALE_DEFAULT)), StandardCopyOption.ATOMIC_MOVE);
+						MetricasRobo.CONCESSOES_RECUPERADAS.increment();
+						ExecutaRequisicaoSOAP.LOGGER.warn("Concess\u00E3o do arquivo " + doing.getFileName() + " vencida. Arquivo devolvido como " + pendente.getFileName() + ".");
+						ExecutaRequisicaoSOAP.redespacharArquivo(pendente);
+					} catch (final NoSuchFileException e) {
+						// Arquivo concluído ou recuperado por outro nó durante a varredura.
+					} catch (final IOException e) {
+						ExecutaRequisicaoSOAP.LOGGER.error("Erro ao recuperar a concess\u00E3o do arquivo " + doing.getFileName() + ". ERRO: " + e.getMessage(), e);
+					}
+				}
+			} catch (final IOException e) {
+				ExecutaRequisicaoSOAP.LOGGER.error("Erro inesperado ao listar arquivos do diret\u00F3rio " + diretorio + ". ERRO: " + e.getMessage(), e);
+			}
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por deixar de acompanhar um arquivo no
+	 * {@link DiarioEstados di&aacute;rio}, quando habilitado,
+	 * apenas registrando eventuais falhas.
+	 *
+	 * @param caminho
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo.
+	 *
+	 * @see DiarioEstados#esquecer(String)
+	 */
+	private static void esquecerArquivo(final Path caminho) {
+		final DiarioEstados diario = ExecutaRequisicaoSOAP.recuperarDiario(caminho);
+		if (diario == null) {
+			return;
+		}
+
+		try {
+			diario.esquecer(caminho.getFileName().toString());
+		} catch (final IOException e) {
+			ExecutaRequisicaoSOAP.LOGGER.error("Erro ao registrar o arquivo " + caminho.getFileName() + " no di\u00E1rio de estados. ERRO: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por entregar &agrave;
+	 * {@link ExecutaRequisicaoSOAP#RODA_EXCLUSOES roda de exclus&otilde;es} um
+	 * arquivo conclu&iacute;do e acompanhado pelo
+	 * {@link DiarioEstados di&aacute;rio}.
+	 *
+	 * @param caminho
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo.
+	 * @param atraso
+	 *            Tempo, em milissegundos, at&eacute; o vencimento da
+	 *            reten&ccedil;&atilde;o.
+	 *
+	 * @see ExecutaRequisicaoSOAP#excluirConcluidoVencido(Path)
+	 *      excluirConcluidoVencido(Path)
+	 */
+	private static void agendarExclusaoConcluido(final Path caminho, final long atraso) {
+		try {
+			ExecutaRequisicaoSOAP.RODA_EXCLUSOES.agendar(() -> ExecutaRequisicaoSOAP.excluirConcluidoVencido(caminho), atraso, TimeUnit.MILLISECONDS);
+		} catch (final RejectedExecutionException e) {
+			ExecutaRequisicaoSOAP.LOGGER.debug("Exclus\u00E3o do arquivo " + caminho.getFileName() + " n\u00E3o agendada. ERRO: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por excluir um arquivo conclu&iacute;do e
+	 * acompanhado pelo {@link DiarioEstados di&aacute;rio} cuja
+	 * reten&ccedil;&atilde;o, contada a partir da conclus&atilde;o, venceu. Caso
+	 * o arquivo tenha sido modificado ap&oacute;s a conclus&atilde;o, o mesmo
+	 * nome foi utilizado para uma nova requisi&ccedil;&atilde;o, que deixa de ser
+	 * confundida com a anterior e &eacute; despachada em vez de exclu&iacute;da.
+	 *
+	 * @param caminho
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo.
+	 *
+	 * @see DiarioEstados#getRegistro(String)
+	 * @see MetricasRobo#EXCLUSOES
+	 */
+	private static void excluirConcluidoVencido(final Path caminho) {
+		// O arquivo pode ter sido reprocessado ou esquecido depois do agendamento.
+		final DiretorioPerfil diretorio = ExecutaRequisicaoSOAP.recuperarDiretorio(caminho);
+		final DiarioEstados.Registro registro = diretorio.getDiario().getRegistro(caminho.getFileName().toString());
+		if (registro == null || registro.estado != DiarioEstados.Estado.CONCLUIDO) {
+			return;
+		}
+
+		final long restante = registro.instante + diretorio.getRetencaoMs() - System.currentTimeMillis();
+		if (restante > 0L) {
+			ExecutaRequisicaoSOAP.agendarExclusaoConcluido(caminho, restante);
+			return;
+		}
+
+		try {
+			if (Files.getLastModifiedTime(caminho).toMillis() > registro.instante) {
+				ExecutaRequisicaoSOAP.esquecerArquivo(caminho);
+				ExecutaRequisicaoSOAP.contarMudancaStatus(ExecutaRequisicaoSOAP.EXTENSAO_DONE, null);
+				ExecutaRequisicaoSOAP.redespacharArquivo(caminho);
+				return;
+			}
+
+			Files.delete(caminho);
+			MetricasRobo.EXCLUSOES.increment();
+			ExecutaRequisicaoSOAP.contarMudancaStatus(ExecutaRequisicaoSOAP.EXTENSAO_DONE, null);
+		} catch (final NoSuchFileException e) {
+			// Arquivo já excluído, por exemplo pelo sistema cliente.
+		} catch (final IOException e) {
+			ExecutaRequisicaoSOAP.LOGGER.error("Erro inesperado ao excluir arquivo " + caminho.getFileName().toString() + ". ERRO: " + e.getMessage(), e);
+			return;
+		}
+
+		ExecutaRequisicaoSOAP.esquecerArquivo(caminho);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por renomear um arquivo utilizado para uma
+	 * das extens&otilde;es reconhecidas por este rob&ocirc;.
+	 *
+	 * @param origem
+	 *            Objeto do tipo {@link Path} representando um arquivo f&iacute;sico
+	 *            do sistema contendo o caminho absoluto do arquivo a ser renomeado.
+	 * @param extensaoNova
+	 *            Objeto do tipo {@link String} contendo uma das extens&otilde;es
 	 *            aceitas pelo rob&ocirc;. Esta extens&atilde;o &eacute; verificada
 	 *            antes de renomear o arquivo de fato.
 	 *
@@ -598,8 +2711,8 @@ public class ExecutaRequisicaoSOAP {
 	 *             Files.move(Path, Path, CopyOption...)} e relan&ccedil;ada por
 	 *             este m&eacute;todo para que seja tratado por quem o chamou.
 	 *
-	 * @see ExecutaRequisicaoSOAP#isExtensaoValida(String) isExtensaoValida(String)
-	 * @see ExecutaRequisicaoSOAP#recuperarCaminhoArquivoSemExtensao(Path)
+	 * @see NomesArquivos#isExtensaoValida(String) isExtensaoValida(String)
+	 * @see NomesArquivos#recuperarCaminhoArquivoSemExtensao(Path)
 	 *      recuperarCaminhoArquivoSemExtensao(Path)
 	 * @see String
 	 * @see Path
@@ -610,353 +2723,323 @@ public class ExecutaRequisicaoSOAP {
 	 *      Path, CopyOption...)
 	 */
 	private static Path renomearArquivo(final Path origem, final String extensaoNova) throws IOException {
-		if (!ExecutaRequisicaoSOAP.isExtensaoValida(extensaoNova)) {
+		if (!NomesArquivos.isExtensaoValida(extensaoNova)) {
 			throw new IOException("Extens\u00E3o inv\u00E1lida passada por par\u00E2metro para o m\u00E9todo ExecutaRequisicaoSOAP.renomearArquivo(Path, String).");
 		}
 
 		// Renomeando (mesmo com o nome do método pela API Java sendo estranho) e
 		// retornando caminho absoluto do arquivo renomeado.
-		return Files.move(origem, origem.resolveSibling(ExecutaRequisicaoSOAP.recuperarCaminhoArquivoSemExtensao(origem) + extensaoNova), StandardCopyOption.REPLACE_EXISTING);
+		return Files.move(origem, origem.resolveSibling(NomesArquivos.recuperarCaminhoArquivoSemExtensao(origem) + extensaoNova), StandardCopyOption.REPLACE_EXISTING);
 	}
 
 	/**
 	 * M&eacute;todo respons&aacute;vel por excluir os arquivos dos tipos definidos
-	 * pelas constantes {@link ExecutaRequisicaoSOAP#EXTENSAO_DOING EXTENSAO_DOING},
-	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_DONE EXTENSAO_DONE} e
-	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_RESPONSE EXTENSAO_RESPONSE} no
-	 * diret&oacute;rio definido pela constante
-	 * {@link ExecutaRequisicaoSOAP#DIRETORIO DIRETORIO} que tenham sido criado
-	 * h&aacute; mais de uma hora.
-	 *
-	 * @see ExecutaRequisicaoSOAP#DIRETORIO DIRETORIO
+	 * pelas constantes {@link ExecutaRequisicaoSOAP#EXTENSAO_DONE EXTENSAO_DONE} e
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_RESPONSE EXTENSAO_RESPONSE} nos
+	 * diret&oacute;rios definidos pela constante
+	 * {@link ExecutaRequisicaoSOAP#DIRETORIOS DIRETORIOS} que tenham sido
+	 * modificados h&aacute; mais tempo que a
+	 * {@link DiretorioPerfil#getRetencaoMs() reten&ccedil;&atilde;o} de cada
+	 * um. Esta
+	 * varredura acontece apenas no in&iacute;cio, quando os arquivos
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_DONE DONE} e
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_RESPONSE RESPONSE} ainda n&atilde;o
+	 * vencidos s&atilde;o indexados na
+	 * {@link ExecutaRequisicaoSOAP#RODA_EXCLUSOES roda de exclus&otilde;es}, e no
+	 * encerramento do rob&ocirc;. Os arquivos
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_DOING DOING} nunca s&atilde;o
+	 * exclu&iacute;dos: no in&iacute;cio, sem as {@link ConcessoesArquivos
+	 * concess&otilde;es}, os mesmos foram deixados por uma execu&ccedil;&atilde;o
+	 * interrompida e s&atilde;o {@link ExecutaRequisicaoSOAP#recuperarArquivoInterrompido(Path)
+	 * recuperados}.
+	 *
+	 * @param indexar
+	 *            Indica se os arquivos ainda n&atilde;o vencidos devem ser
+	 *            indexados para exclus&atilde;o e os arquivos
+	 *            {@link ExecutaRequisicaoSOAP#EXTENSAO_DOING DOING} recuperados,
+	 *            isto &eacute;, se a varredura &eacute; a do in&iacute;cio.
+	 *
+	 * @see ExecutaRequisicaoSOAP#DIRETORIOS DIRETORIOS
+	 * @see ExecutaRequisicaoSOAP#RETENCAO_MS RETENCAO_MS
 	 * @see ExecutaRequisicaoSOAP#EXTENSAO_DOING EXTENSAO_DOING
 	 * @see ExecutaRequisicaoSOAP#EXTENSAO_DONE EXTENSAO_DONE
 	 * @see ExecutaRequisicaoSOAP#EXTENSAO_RESPONSE EXTENSAO_RESPONSE
+	 * @see ExecutaRequisicaoSOAP#agendarExclusao(Path, long)
+	 *      agendarExclusao(Path, long)
 	 * @see Files
 	 * @see Files#newDirectoryStream(Path, java.nio.file.DirectoryStream.Filter)
 	 *      Files.newDirectoryStream(Path, DirectoryStream.Filter)
-	 * @see Files#list(Path)
 	 * @see Files#getLastModifiedTime(Path, java.nio.file.LinkOption...)
 	 * @see Files#isRegularFile(Path, java.nio.file.LinkOption...)
 	 *      Files.isRegularFile(Path, LinkOption...)
-	 * @see File#lastModified()
 	 * @see Files#delete(Path)
-	 * @see Iterable#forEach(java.util.function.Consumer) Iterable.forEach(Consumer)
 	 * @see System#currentTimeMillis()
+	 * @see MetricasRobo#LIMPEZA
+	 * @see MetricasRobo#EXCLUSOES
+	 * @see EventosJFR#iniciarLimpeza()
 	 */
-	private static void excluirArquivos() {
-		// Recupero os arquivos do tipo definido pela constante criado há mais de uma
-		// hora, transformo numa lista e excluo.
-		try (final DirectoryStream<Path> arquivos = Files.newDirectoryStream(ExecutaRequisicaoSOAP.DIRETORIO,
-				path -> Files.isRegularFile(path) && System.currentTimeMillis() - Files.getLastModifiedTime(path).toMillis() >= 360000 && ExecutaRequisicaoSOAP.isExtensaoValida(path))) {
-			arquivos.forEach(path -> {
-				try {
-					Files.delete(path);
+	private static void excluirArquivos(final boolean indexar) {
+		final EventosJFR.Limpeza evento = EventosJFR.iniciarLimpeza();
+		final long inicio = System.nanoTime();
+		int exclusoes = 0;
+		int indexados = 0;
+		int recuperados = 0;
+
+		try {
+			for (final DiretorioPerfil diretorio : ExecutaRequisicaoSOAP.DIRETORIOS.values()) {
+				// A extensão é verificada antes dos atributos para evitar acessos ao disco.
+				try (final DirectoryStream<Path> arquivos = Files.newDirectoryStream(diretorio.getDiretorio(),
+						path -> NomesArquivos.isExtensaoValida(path) && Files.isRegularFile(path))) {
+					for (final Path path : arquivos) {
+						// Arquivos doing nunca são excluídos. Com as concessões os mesmos são recuperados
+						// quando a concessão vence. Sem elas, o diretório é exclusivo deste robô e um
+						// arquivo doing no início foi deixado por uma execução interrompida.
+						if (ExecutaRequisicaoSOAP.EXTENSAO_DOING.equals(NomesArquivos.recuperarExtensaoArquivo(path))) {
+							if (indexar && ExecutaRequisicaoSOAP.CONCESSOES == null) {
+								ExecutaRequisicaoSOAP.recuperarArquivoInterrompido(path);
+								recuperados++;
+							}
+
+							continue;
+						}
+
+						try {
+							final long restante = Files.getLastModifiedTime(path).toMillis() + diretorio.getRetencaoMs() - System.currentTimeMillis();
+							if (restante > 0L) {
+								if (indexar) {
+									ExecutaRequisicaoSOAP.agendarExclusao(path, restante);
+									indexados++;
+								}
+
+								continue;
+							}
+
+							Files.delete(path);
+							MetricasRobo.EXCLUSOES.increment();
+							exclusoes++;
+						} catch (final NoSuchFileException e) {
+							// Arquivo excluído ou renomeado durante a varredura.
+						} catch (final IOException e) {
+							ExecutaRequisicaoSOAP.LOGGER.error("Erro inesperado ao excluir arquivo " + path.getFileName().toString() + ". ERRO: " + e.getMessage(), e);
+						}
+					}
 				} catch (final IOException e) {
-					ExecutaRequisicaoSOAP.LOGGER.error("Erro inesperado ao excluir arquivo " + path.getFileName().toString() + ". ERRO: " + e.getMessage(), e);
+					ExecutaRequisicaoSOAP.LOGGER.error("Erro inesperado ao listar arquivos do diret\u00F3rio " + diretorio.getDiretorio().toString() + ". ERRO: ", e);
 				}
-			});
-		} catch (final IOException e) {
-			ExecutaRequisicaoSOAP.LOGGER.error("Erro inesperado ao listar arquivos do diret\u00F3rio " + ExecutaRequisicaoSOAP.DIRETORIO.toString() + ". ERRO: ", e);
+			}
+		} finally {
+			MetricasRobo.registrar(MetricasRobo.LIMPEZA, inicio);
+			EventosJFR.finalizarLimpeza(evento, exclusoes);
+		}
+
+		if (indexar) {
+			ExecutaRequisicaoSOAP.LOGGER.info(exclusoes + " arquivo(s) vencido(s) exclu\u00EDdo(s), " + indexados + " arquivo(s) aguardando exclus\u00E3o e " + recuperados
+					+ " arquivo(s) interrompido(s) recuperado(s).");
 		}
 	}
 
 	/**
-	 * M&eacute;todo respons&aacute;vel por dado um arquivo f&iacute;sico do sistema
-	 * contendo o caminho absoluto do mesmo, retornar o pr&oacute;prio caminho sem a
-	 * extens&atilde;o do mesmo.
+	 * M&eacute;todo respons&aacute;vel por recuperar um arquivo
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_DOING DOING} deixado por uma
+	 * execu&ccedil;&atilde;o interrompida, {@link ExecutaRequisicaoSOAP#reagendarArquivo(Path, Path)
+	 * agendando uma nova tentativa} do mesmo. Com o {@link DiarioEstados
+	 * di&aacute;rio}, que n&atilde;o utiliza arquivos
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_DOING DOING}, o arquivo volta a ser
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_PENDING PENDING}.
 	 *
-	 * @param caminho
-	 *            Objeto do tipo {@link Path} contendo a representa&ccedil;&atilde;o
-	 *            do caminho absoluto de um arquivo f&iacute;sico ou de seu nome.
-	 *
-	 * @return Objeto do tipo {@link String} contendo o caminho absoluto do
-	 *         {@link File arquivo} sem a sua extens&atilde;o.
-	 *
-	 * @see Path
-	 * @see ExecutaRequisicaoSOAP#substring(Path, boolean) substring(Path, boolean)
+	 * @param doing
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo
+	 *            {@link ExecutaRequisicaoSOAP#EXTENSAO_DOING DOING}.
 	 */
-	private static String recuperarCaminhoArquivoSemExtensao(final Path caminho) {
-		return ExecutaRequisicaoSOAP.substring(caminho, false);
+	private static void recuperarArquivoInterrompido(final Path doing) {
+		if (ExecutaRequisicaoSOAP.recuperarDiario(doing) == null) {
+			ExecutaRequisicaoSOAP.LOGGER.warn("Arquivo " + doing.getFileName() + " interrompido por uma execu\u00E7\u00E3o anterior.");
+			ExecutaRequisicaoSOAP.reagendarArquivo(doing, doing);
+			return;
+		}
+
+		try {
+			final Path pendente = Files.move(doing, doing.resolveSibling(ExecutaRequisicaoSOAP.recuperarNomeRequisicao(doing)
+					+ ExecutaRequisicaoSOAP.EXTENSAO_PENDING.substring(1).toLowerCase(ExecutaRequisicaoSOAP.LOCALE_DEFAULT)));
+			ExecutaRequisicaoSOAP.LOGGER.warn("Arquivo " + doing.getFileName() + " interrompido por uma execu\u00E7\u00E3o anterior devolvido como " + pendente.getFileName() + ".");
+		} catch (final IOException e) {
+			ExecutaRequisicaoSOAP.LOGGER.error("Erro ao devolver arquivo interrompido " + doing.getFileName() + " como pendente. ERRO: " + e.getMessage(), e);
+		}
 	}
 
 	/**
-	 * M&eacute;todo respons&aacute;vel por dado o caminho absoluto de um arquivo,
-	 * retornar sua extens&atilde;o com o s&iacute;mbolo de
-	 * &quot;<code><strong>.</strong></code>&quot;.
+	 * M&eacute;todo respons&aacute;vel por entregar um arquivo
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_DONE DONE} ou
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_RESPONSE RESPONSE} &agrave;
+	 * {@link ExecutaRequisicaoSOAP#RODA_EXCLUSOES roda de exclus&otilde;es}.
+	 * Durante o encerramento do rob&ocirc; a roda j&aacute; pode estar encerrada,
+	 * caso em que o arquivo &eacute; indexado novamente no pr&oacute;ximo
+	 * in&iacute;cio.
 	 *
 	 * @param caminho
-	 *            Objeto do tipo {@link Path} contendo a representa&ccedil;&atilde;o
-	 *            do caminho absoluto de um arquivo f&iacute;sico ou de seu nome.
-	 *
-	 * @return Objeto do tipo {@link String} contendo apenas a extens&atilde;o deste
-	 *         mesmo arquivo com o s&iacute;mbolo de
-	 *         &quot;<code><strong>.</strong></code>&quot;.
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo.
+	 * @param atraso
+	 *            Tempo, em milissegundos, at&eacute; o vencimento da
+	 *            reten&ccedil;&atilde;o.
 	 *
-	 * @see Path
-	 * @see ExecutaRequisicaoSOAP#substring(Path) substring(Path)
+	 * @see ExecutaRequisicaoSOAP#excluirArquivoVencido(Path)
+	 *      excluirArquivoVencido(Path)
 	 */
-	private static String recuperarExtensaoArquivo(final Path caminho) {
-		return ExecutaRequisicaoSOAP.substring(caminho);
+	private static void agendarExclusao(final Path caminho, final long atraso) {
+		try {
+			ExecutaRequisicaoSOAP.RODA_EXCLUSOES.agendar(() -> ExecutaRequisicaoSOAP.excluirArquivoVencido(caminho), atraso, TimeUnit.MILLISECONDS);
+		} catch (final RejectedExecutionException e) {
+			ExecutaRequisicaoSOAP.LOGGER.debug("Exclus\u00E3o do arquivo " + caminho.getFileName() + " n\u00E3o agendada. ERRO: " + e.getMessage());
+		}
 	}
 
 	/**
-	 * Sobrecarga para o m&eacute;todo
-	 * {@link ExecutaRequisicaoSOAP#substring(Path, boolean) substring(Path,
-	 * boolean)} passando o par&acirc;metro <code><strong>reverso</strong></code> do
-	 * m&eacute;todo supracitado com o valor <code><strong>true</strong></code> por
-	 * padr&atilde;o.
+	 * M&eacute;todo respons&aacute;vel por excluir um arquivo cuja
+	 * reten&ccedil;&atilde;o venceu. Como o mesmo nome pode ter sido reescrito
+	 * depois do agendamento, a data de modifica&ccedil;&atilde;o &eacute;
+	 * conferida e, caso a reten&ccedil;&atilde;o ainda n&atilde;o tenha vencido,
+	 * a exclus&atilde;o &eacute; agendada novamente.
 	 *
 	 * @param caminho
-	 *            Objeto do tipo {@link Path} contendo a representa&ccedil;&atilde;o
-	 *            do caminho absoluto de um arquivo f&iacute;sico ou de seu nome.
-	 *
-	 * @return Objeto do tipo {@link String} contendo a
-	 *         {@link String#substring(int)} quando o par&acirc;metro
-	 *         <code><strong>reverso</strong></code> est&aacute; com o valor
-	 *         <code><strong>true</strong></code> ou a
-	 *         {@link String#substring(int, int)} quando o par&acirc;metro
-	 *         <code><strong>reverso</strong></code> est&aacute; com o valor
-	 *         <code><strong>false</strong></code> da {@link String} retornada pelo
-	 *         m&eacute;todo {@link Path#toString()} em cima de
-	 *         {@link Path#getFileName()}.
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo.
 	 *
-	 * @see ExecutaRequisicaoSOAP#substring(Path, boolean) substring(Path, boolean)
+	 * @see ExecutaRequisicaoSOAP#RETENCAO_MS RETENCAO_MS
+	 * @see MetricasRobo#EXCLUSOES
 	 */
-	private static String substring(final Path caminho) {
-		return ExecutaRequisicaoSOAP.substring(caminho, true);
+	private static void excluirArquivoVencido(final Path caminho) {
+		try {
+			final long restante = Files.getLastModifiedTime(caminho).toMillis() + ExecutaRequisicaoSOAP.recuperarDiretorio(caminho).getRetencaoMs() - System.currentTimeMillis();
+			if (restante > 0L) {
+				ExecutaRequisicaoSOAP.agendarExclusao(caminho, restante);
+				return;
+			}
+
+			Files.delete(caminho);
+			MetricasRobo.EXCLUSOES.increment();
+			ExecutaRequisicaoSOAP.contarMudancaStatus(ExecutaRequisicaoSOAP.recuperarExtensaoStatus(caminho.getFileName().toString()), null);
+		} catch (final NoSuchFileException e) {
+			// Arquivo já excluído, inclusive por um agendamento anterior do mesmo nome.
+		} catch (final IOException e) {
+			ExecutaRequisicaoSOAP.LOGGER.error("Erro inesperado ao excluir arquivo " + caminho.getFileName().toString() + ". ERRO: " + e.getMessage(), e);
+		}
 	}
 
 	/**
-	 * Sobrecarga para o m&eacute;todo
-	 * {@link ExecutaRequisicaoSOAP#substring(Path, boolean, boolean)
-	 * substring(Path, boolean, boolean)} passando o par&acirc;metro
-	 * <code><strong>caracterSeparacao</strong></code> do m&eacute;todo supracitado
-	 * com o valor <code><strong>&quot;.&quot;</strong></code> por padr&atilde;o.
-	 *
-	 * @param caminho
-	 *            Objeto do tipo {@link Path} contendo a representa&ccedil;&atilde;o
-	 *            do caminho absoluto de um arquivo f&iacute;sico ou de seu nome.
-	 * @param reverso
-	 *            O intr&iacute;nseco <code><strong>boolean</strong></code> que
-	 *            determinar&aacute; se buscaremos at&eacute; acharmos a
-	 *            &uacute;ltima representa&ccedil;&atilde;o do caracter passado por
-	 *            par&acirc;metro <code><strong>caracterSeparacao</strong></code> ou
-	 *            a partir do mesmo conforme documenta&ccedil;&atilde;o do
-	 *            pr&oacute;prio m&eacute;todo.
-	 *
-	 * @return Objeto do tipo {@link String} contendo a
-	 *         {@link String#substring(int)} quando o par&acirc;metro
-	 *         <code><strong>reverso</strong></code> est&aacute; com o valor
-	 *         <code><strong>true</strong></code> ou a
-	 *         {@link String#substring(int, int)} quando o par&acirc;metro
-	 *         <code><strong>reverso</strong></code> est&aacute; com o valor
-	 *         <code><strong>false</strong></code> da {@link String} retornada pelo
-	 *         m&eacute;todo {@link Path#toString()} em cima de
-	 *         {@link Path#getFileName()}.
+	 * M&eacute;todo respons&aacute;vel por contar, em uma &uacute;nica varredura
+	 * de cada diret&oacute;rio definido pela constante
+	 * {@link ExecutaRequisicaoSOAP#DIRETORIOS DIRETORIOS}, os arquivos de cada
+	 * status e atualizar as {@link MetricasRobo m&eacute;tricas} correspondentes
+	 * com a soma de todos os diret&oacute;rios. Executado no in&iacute;cio e,
+	 * apenas quando configurado pela propriedade
+	 * <code>metricas.contagem.intervalo.segundos</code>, periodicamente, pois a
+	 * cada {@link ExecutaRequisicaoSOAP#contarMudancaStatus(String, String)
+	 * mudan&ccedil;a de status} as quantidades s&atilde;o atualizadas sem
+	 * varredura. Os arquivos {@link ExecutaRequisicaoSOAP#EXTENSAO_PENDING
+	 * PENDING} s&atilde;o contados pelo {@link ExecutaRequisicaoSOAP#PENDENTES
+	 * recebimento} e n&atilde;o por esta varredura. Um diret&oacute;rio que
+	 * n&atilde;o pode ser lido &eacute; apenas ignorado.
 	 *
-	 * @see ExecutaRequisicaoSOAP#substring(Path, boolean, boolean) substring(Path,
-	 *      boolean, boolean)
+	 * @see MetricasRobo#atualizarArquivos(String, long)
 	 */
-	private static String substring(final Path caminho, final boolean reverso) {
-		return ExecutaRequisicaoSOAP.substring(caminho, reverso, true);
+	private static void contarArquivos() {
+		final long[] quantidades = new long[ExecutaRequisicaoSOAP.EXTENSOES_STATUS.length];
+
+		for (final DiretorioPerfil diretorio : ExecutaRequisicaoSOAP.DIRETORIOS.values()) {
+			final DiarioEstados diario = diretorio.getDiario();
+			try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(diretorio.getDiretorio())) {
+				for (final Path arquivo : arquivos) {
+					// Respostas compactadas são contadas junto com as demais.
+					final String nome = StringUtils.removeEnd(arquivo.getFileName().toString(), ArquivoResposta.SUFIXO_GZIP);
+
+					// Com o diário os arquivos acompanhados mantêm a extensão pending e são
+					// contados pelo próprio diário.
+					if (diario != null && diario.isConhecido(nome)) {
+						continue;
+					}
+
+					final int indice = ArrayUtils.indexOf(ExecutaRequisicaoSOAP.EXTENSOES_STATUS, ExecutaRequisicaoSOAP.recuperarExtensaoStatus(nome));
+					if (indice >= 0) {
+						quantidades[indice]++;
+					}
+				}
+			} catch (final IOException e) {
+				ExecutaRequisicaoSOAP.LOGGER.error("Erro inesperado ao listar arquivos do diret\u00F3rio " + diretorio.getDiretorio() + ". ERRO: " + e.getMessage(), e);
+				continue;
+			}
+
+			if (diario != null) {
+				final Map<DiarioEstados.Estado, Long> estados = diario.contar();
+				quantidades[1] += estados.get(DiarioEstados.Estado.REIVINDICADO).longValue();
+				quantidades[2] += estados.get(DiarioEstados.Estado.CONCLUIDO).longValue();
+				quantidades[4] += estados.get(DiarioEstados.Estado.RETENTATIVA).longValue();
+			}
+		}
+
+		// A primeira extensão, pending, é publicada a partir dos arquivos recebidos.
+		for (int i = 1; i < ExecutaRequisicaoSOAP.EXTENSOES_STATUS.length; i++) {
+			MetricasRobo.atualizarArquivos(ExecutaRequisicaoSOAP.recuperarStatus(ExecutaRequisicaoSOAP.EXTENSOES_STATUS[i]), quantidades[i]);
+		}
 	}
 
 	/**
-	 * @param caminho
-	 *            Objeto do tipo {@link Path} contendo a representa&ccedil;&atilde;o
-	 *            do caminho absoluto de um arquivo f&iacute;sico ou de seu nome.
-	 * @param reverso
-	 *            O intr&iacute;nseco <code><strong>boolean</strong></code> que
-	 *            determinar&aacute; se buscaremos at&eacute; acharmos a
-	 *            &uacute;ltima representa&ccedil;&atilde;o do caracter passado por
-	 *            par&acirc;metro <code><strong>caracterSeparacao</strong></code> ou
-	 *            a partir do mesmo conforme documenta&ccedil;&atilde;o do
-	 *            pr&oacute;prio m&eacute;todo.
-	 * @param incluiCaracterSeparacao
-	 *            O intr&iacute;nseco <code><strong>boolean</strong></code> que
-	 *            determinar&aacute; se incluiremos ou n&atilde;o no objeto
-	 *            {@link String} de retorno o intr&iacute;nseco
-	 *            <code><strong>char</strong></code> passado no par&acirc;metro
-	 *            <code><strong>caracterSeparacao</strong></code>.
-	 * 
-	 * @return Objeto do tipo {@link String} contendo a
-	 *         {@link String#substring(int)} quando o par&acirc;metro
-	 *         <code><strong>reverso</strong></code> est&aacute; com o valor
-	 *         <code><strong>true</strong></code> ou a
-	 *         {@link String#substring(int, int)} quando o par&acirc;metro
-	 *         <code><strong>reverso</strong></code> est&aacute; com o valor
-	 *         <code><strong>false</strong></code> da {@link String} retornada pelo
-	 *         m&eacute;todo {@link Path#toString()} em cima de
-	 *         {@link Path#getFileName()}, incluindo ou n&atilde;o o
-	 *         intr&iacute;nseco <code><strong>char</strong></code> passado com o
-	 *         valor padr&atilde;o <code><strong>&quot;.&quot;</strong></code> de
-	 *         acordo com o valor do par&acirc;metro
-	 *         <code><strong>incluiCaracterSeparacao</strong></code> do
-	 *         intr&iacute;nseco <code><strong>boolean</strong></code>.
-	 *
-	 * @see ExecutaRequisicaoSOAP#substring(Path, boolean, boolean, char)
-	 *      substring(Path, boolean, boolean, char)
-	 */
-	private static String substring(final Path caminho, final boolean reverso, final boolean incluiCaracterSeparacao) {
-		return ExecutaRequisicaoSOAP.substring(caminho, reverso, incluiCaracterSeparacao, '.');
-	}
-
-	/**
-	 * M&eacute;todo respons&aacute;vel por fazer o que faz o m&eacute;todo
-	 * {@link String#substring(int)} quando o par&acirc;metro
-	 * <code><strong>reverso</strong></code> est&aacute; com o valor
-	 * <code><strong>true</strong></code> e o que faz o m&eacute;todo
-	 * {@link String#substring(int, int)} quando o par&acirc;metro
-	 * <code><strong>reverso</strong></code> est&aacute; com o valor
-	 * <code><strong>false</strong></code> sem o overhead das
-	 * valida&ccedil;&otilde;es feitas em ambos os m&eacute;todos supracitados
-	 * levando em considera&ccedil;&atilde;o a &uacute;ltima posi&ccedil;&atilde;o
-	 * do par&acirc;metro <code><strong>caracterSeparacao</strong></code> obtido da
-	 * {@link String} retornada pelo m&eacute;todo {@link Path#toString()} em cima
-	 * de {@link Path#getFileName()}.
-	 *
-	 * @param caminho
-	 *            Objeto do tipo {@link Path} contendo a representa&ccedil;&atilde;o
-	 *            do caminho absoluto de um arquivo f&iacute;sico ou de seu nome.
-	 * @param reverso
-	 *            O intr&iacute;nseco <code><strong>boolean</strong></code> que
-	 *            determinar&aacute; se buscaremos at&eacute; acharmos a
-	 *            &uacute;ltima representa&ccedil;&atilde;o do caracter passado por
-	 *            par&acirc;metro <code><strong>caracterSeparacao</strong></code> ou
-	 *            a partir do mesmo conforme documenta&ccedil;&atilde;o do
-	 *            pr&oacute;prio m&eacute;todo.
-	 * @param incluiCaracterSeparacao
-	 *            O intr&iacute;nseco <code><strong>boolean</strong></code> que
-	 *            determinar&aacute; se incluiremos ou n&atilde;o no objeto
-	 *            {@link String} de retorno o intr&iacute;nseco
-	 *            <code><strong>char</strong></code> passado no par&acirc;metro
-	 *            <code><strong>caracterSeparacao</strong></code>.
-	 * @param caracterSeparacao
-	 *            O intr&iacute;nseco <code><strong>char</strong></code> contendo o
-	 *            valor do caracter que dever&aacute; ter sua &uacute;ltima
-	 *            ocorr&ecirc;ncia buscado na {@link String} obtida atrav&eacute;s
-	 *            do retorno do m&eacute;todo {@link Path#toString()} em cima de
-	 *            {@link Path#getFileName()} conforme documenta&ccedil;&atilde;o do
-	 *            pr&oacute;prio m&eacute;todo.
-	 *
-	 * @return Objeto do tipo {@link String} contendo a
-	 *         {@link String#substring(int)} quando o par&acirc;metro
-	 *         <code><strong>reverso</strong></code> est&aacute; com o valor
-	 *         <code><strong>true</strong></code> ou a
-	 *         {@link String#substring(int, int)} quando o par&acirc;metro
-	 *         <code><strong>reverso</strong></code> est&aacute; com o valor
-	 *         <code><strong>false</strong></code> da {@link String} retornada pelo
-	 *         m&eacute;todo {@link Path#toString()} em cima de
-	 *         {@link Path#getFileName()}, incluindo ou n&atilde;o o
-	 *         intr&iacute;nseco <code><strong>char</strong></code> passado no
-	 *         par&acirc;metro <code><strong>caracterSeparacao</strong></code> de
-	 *         acordo com o valor do par&acirc;metro
-	 *         <code><strong>incluiCaracterSeparacao</strong></code> do
-	 *         intr&iacute;nseco <code><strong>boolean</strong></code>.
+	 * M&eacute;todo respons&aacute;vel por atualizar nas {@link MetricasRobo
+	 * m&eacute;tricas} a quantidade de arquivos de cada status quando um arquivo
+	 * muda de status, sem varredura do diret&oacute;rio.
 	 *
-	 * @see String
-	 * @see String#lastIndexOf(int)
-	 * @see String#substring(int)
-	 * @see String#substring(int, int)
-	 * @see Path
-	 * @see Path#getFileName()
-	 * @see Path#toString()
-	 */
-	private static String substring(final Path caminho, final boolean reverso, final boolean incluiCaracterSeparacao, final char caracterSeparacao) {
-		final String nomeArquivo = caminho.getFileName().toString();
-		final int posicaoUltimoPonto = nomeArquivo.lastIndexOf(Character.isValidCodePoint(caracterSeparacao) ? caracterSeparacao : '.');
-		final char[] nomeArquivoAsCharArray = nomeArquivo.toCharArray();
-
-		final int novaPosicao = posicaoUltimoPonto + 1;
-
-		return reverso
-				? incluiCaracterSeparacao ? new String(nomeArquivoAsCharArray, posicaoUltimoPonto, nomeArquivoAsCharArray.length - posicaoUltimoPonto)
-						: new String(nomeArquivoAsCharArray, novaPosicao, nomeArquivoAsCharArray.length - novaPosicao)
-				: new String(nomeArquivoAsCharArray, 0, incluiCaracterSeparacao ? novaPosicao : posicaoUltimoPonto);
-
-		// if (reverso) {
-		// if (incluiCaracterSeparacao) {
-		// return new String(nomeArquivoAsCharArray, posicaoUltimoPonto,
-		// nomeArquivoAsCharArray.length - posicaoUltimoPonto);
-		// }
-		//
-		// return new String(nomeArquivoAsCharArray, novaPosicao,
-		// nomeArquivoAsCharArray.length - novaPosicao);
-		// }
-		//
-		// if (incluiCaracterSeparacao) {
-		// return new String(nomeArquivoAsCharArray, 0, posicaoUltimoPonto + 1);
-		// }
-		//
-		// return new String(nomeArquivoAsCharArray, 0, posicaoUltimoPonto);
-	}
-
-	/**
-	 * Sobrecarga para o m&eacute;todo
-	 * {@link ExecutaRequisicaoSOAP#isExtensaoValida(String)
-	 * isExtensaoValida(String)} passando o par&acirc;metro
-	 * <code><strong>caminho</strong></code> do tipo {@link Path} contendo a
-	 * representa&ccedil;&atilde;o do caminho absoluto de um arquivo f&iacute;sico
-	 * ou de seu nome, que ser&aacute; previamente utilizado pelo m&eacute;todo
-	 * {@link ExecutaRequisicaoSOAP#recuperarExtensaoArquivo(Path)
-	 * recuperarExtensaoArquivo(Path)} de maneira a retornar apenas a
-	 * extens&atilde;o contida no par&acirc;metro deste m&eacute;todo em si. Tal
-	 * retorno sim, ser&aacute; passado para o m&eacute;todo
-	 * {@link ExecutaRequisicaoSOAP#isExtensaoValida(String)
-	 * isExtensaoValida(String)}.
+	 * @param origem
+	 *            Extens&atilde;o do status anterior ou
+	 *            <code><strong>null</strong></code> para um arquivo novo.
+	 * @param destino
+	 *            Extens&atilde;o do novo status ou
+	 *            <code><strong>null</strong></code> para um arquivo exclu&iacute;do.
 	 *
-	 * @param caminho
-	 *            Objeto do tipo {@link Path} contendo a representa&ccedil;&atilde;o
-	 *            do caminho absoluto de um arquivo f&iacute;sico ou de seu nome.
+	 * @see MetricasRobo#adicionarArquivos(String, long)
+	 */
+	private static void contarMudancaStatus(final String origem, final String destino) {
+		if (origem != null) {
+			MetricasRobo.adicionarArquivos(ExecutaRequisicaoSOAP.recuperarStatus(origem), -1L);
+		}
+
+		if (destino != null) {
+			MetricasRobo.adicionarArquivos(ExecutaRequisicaoSOAP.recuperarStatus(destino), 1L);
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por recuperar, dentre as
+	 * {@link ExecutaRequisicaoSOAP#EXTENSOES_STATUS extens&otilde;es dos status},
+	 * a extens&atilde;o de um arquivo.
 	 *
-	 * @return O intr&iacute;nseco <code><strong>boolean</strong></code> contendo o
-	 *         valor <code><strong>true</strong></code> caso o valor do
-	 *         par&acirc;metro <code><strong>extensao</strong></code> seja igual
-	 *         &agrave constante {@link ExecutaRequisicaoSOAP#EXTENSAO_DOING
-	 *         EXTENSAO_DOING}, {@link ExecutaRequisicaoSOAP#EXTENSAO_DONE
-	 *         EXTENSAO_DONE} ou {@link ExecutaRequisicaoSOAP#EXTENSAO_DONE
-	 *         EXTENSAO_DONE} ou com o valor <code><strong>false</strong></code>
-	 *         caso contr&aacute;rio.
+	 * @param nome
+	 *            Nome do arquivo, com ou sem o sufixo de compress&atilde;o das
+	 *            respostas.
 	 *
-	 * @see Path
-	 * @String
-	 * @see ExecutaRequisicaoSOAP#isExtensaoValida(String) isExtensaoValida(String)
-	 * @see ExecutaRequisicaoSOAP#recuperarExtensaoArquivo(Path)
-	 *      recuperarExtensaoArquivo(Path)
+	 * @return A extens&atilde;o do status ou <code><strong>null</strong></code>
+	 *         caso o arquivo n&atilde;o perten&ccedil;a ao rob&ocirc;.
 	 */
-	private static boolean isExtensaoValida(final Path caminho) {
-		return ExecutaRequisicaoSOAP.isExtensaoValida(ExecutaRequisicaoSOAP.recuperarExtensaoArquivo(caminho));
+	private static String recuperarExtensaoStatus(final String nome) {
+		final String nomeSemCompressao = StringUtils.removeEnd(nome, ArquivoResposta.SUFIXO_GZIP);
+		for (final String extensao : ExecutaRequisicaoSOAP.EXTENSOES_STATUS) {
+			// Os arquivos pending são criados pelos sistemas clientes em minúsculas.
+			if (StringUtils.endsWithIgnoreCase(nomeSemCompressao, extensao)) {
+				return extensao;
+			}
+		}
+
+		return null;
 	}
 
 	/**
-	 * M&eacute;todo respons&aacute;vel por retornar o intr&iacute;nseco
-	 * <code><strong>boolean</strong></code> contendo o valor
-	 * <code><strong>true</strong></code> caso o valor do par&acirc;metro
-	 * <code><strong>extensao</strong></code> seja igual &agrave constante
-	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_DOING EXTENSAO_DOING},
-	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_DONE EXTENSAO_DONE} ou
-	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_DONE EXTENSAO_DONE} ou com o valor
-	 * <code><strong>false</strong></code> caso contr&aacute;rio.
+	 * M&eacute;todo respons&aacute;vel por recuperar o nome de um status nas
+	 * {@link MetricasRobo m&eacute;tricas}, isto &eacute;, a extens&atilde;o em
+	 * min&uacute;sculas e sem o ponto.
 	 *
 	 * @param extensao
-	 *            Objeto do tipo {@link String} contendo o valor da extens&atilde;o
-	 *            de arquivo a ser testada.
-	 *
-	 * @return O intr&iacute;nseco <code><strong>boolean</strong></code> contendo o
-	 *         valor <code><strong>true</strong></code> caso o valor do
-	 *         par&acirc;metro <code><strong>extensao</strong></code> seja igual
-	 *         &agrave constante {@link ExecutaRequisicaoSOAP#EXTENSAO_DOING
-	 *         EXTENSAO_DOING}, {@link ExecutaRequisicaoSOAP#EXTENSAO_DONE
-	 *         EXTENSAO_DONE} ou {@link ExecutaRequisicaoSOAP#EXTENSAO_DONE
-	 *         EXTENSAO_DONE} ou com o valor <code><strong>false</strong></code>
-	 *         caso contr&aacute;rio.
+	 *            Extens&atilde;o do status.
 	 *
-	 * @see ExecutaRequisicaoSOAP#EXTENSAO_DOING EXTENSAO_DOING
-	 * @see ExecutaRequisicaoSOAP#EXTENSAO_DONE EXTENSAO_DONE
-	 * @see ExecutaRequisicaoSOAP#EXTENSAO_DONE EXTENSAO_DONE
+	 * @return O nome do status.
 	 */
-	private static boolean isExtensaoValida(final String extensao) {
-		return extensao.endsWith(ExecutaRequisicaoSOAP.EXTENSAO_DOING) || extensao.endsWith(ExecutaRequisicaoSOAP.EXTENSAO_DONE) || extensao.endsWith(ExecutaRequisicaoSOAP.EXTENSAO_RESPONSE);
+	private static String recuperarStatus(final String extensao) {
+		return extensao.substring(1).toLowerCase(ExecutaRequisicaoSOAP.LOCALE_DEFAULT);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,312 @@
+package br.com.pgioseffi.requisicoes.soap;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * Classe respons&aacute;vel por ordenar os itens aguardando execu&ccedil;&atilde;o
+ * em faixas de prioridade atendidas por enfileiramento justo ponderado
+ * (<i>self-clocked fair queueing</i>), ao inv&eacute;s da ordem de chegada.
+ * </p>
+ * <p>
+ * Cada faixa tem um peso e cada item recebe, ao chegar, um instante virtual de
+ * t&eacute;rmino que avan&ccedil;a, dentro da faixa, o inverso do peso. O
+ * pr&oacute;ximo item retirado &eacute; sempre o de menor instante entre os
+ * primeiros de cada faixa. Desta maneira uma faixa com peso quatro &eacute;
+ * atendida quatro vezes mais que uma com peso um enquanto ambas tiverem itens,
+ * nenhuma faixa fica sem atendimento e uma faixa ociosa n&atilde;o acumula
+ * cr&eacute;dito para quando voltar a receber itens.
+ * </p>
+ * <p>
+ * A classe n&atilde;o limita a quantidade de itens, pois a mesma &eacute;
+ * limitada pela admiss&atilde;o do {@link PoolTrabalhadores pool de
+ * trabalhadores}.
+ * </p>
+ *
+ * @param <T>
+ *            Tipo dos itens enfileirados.
+ *
+ * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
+ *         &lt;pgioseffi@gmail.com&gt;</a>
+ *
+ * @since 1.1.0
+ *
+ * @see PoolTrabalhadores
+ * @see MetricasRobo#registrarEsperaFaixa(String, long)
+ */
+final class FilaPonderada<T> {
+
+	/**
+	 * Avan&ccedil;o do instante virtual de um item em uma faixa de peso um.
+	 */
+	private static final long ESCALA = 1_000_000L;
+
+	/**
+	 * Faixas indexadas pelo nome, na ordem da configura&ccedil;&atilde;o.
+	 */
+	private final Map<String, Faixa<T>> faixas = new LinkedHashMap<>();
+
+	/**
+	 * Faixa dos itens sem faixa ou com uma faixa desconhecida.
+	 */
+	private final Faixa<T> faixaPadrao;
+
+	/**
+	 * Instante virtual do &uacute;ltimo item retirado.
+	 */
+	private long instanteVirtual;
+
+	/**
+	 * Construtor respons&aacute;vel por criar as faixas.
+	 *
+	 * @param pesos
+	 *            Pesos indexados pelo nome das faixas. Pesos menores que um
+	 *            s&atilde;o considerados um.
+	 * @param faixaPadrao
+	 *            Nome da faixa dos itens sem faixa. Caso n&atilde;o seja uma das
+	 *            faixas, &eacute; utilizada a &uacute;ltima.
+	 *
+	 * @throws IllegalArgumentException
+	 *             Caso n&atilde;o seja informada nenhuma faixa.
+	 */
+	FilaPonderada(final Map<String, Integer> pesos, final String faixaPadrao) {
+		if (pesos.isEmpty()) {
+			throw new IllegalArgumentException("Nenhuma faixa de prioridade informada.");
+		}
+
+		Faixa<T> ultima = null;
+		for (final Map.Entry<String, Integer> peso : pesos.entrySet()) {
+			ultima = new Faixa<>(peso.getKey(), Math.max(1, peso.getValue().intValue()));
+			this.faixas.put(peso.getKey(), ultima);
+			MetricasRobo.registrarFilaFaixa(peso.getKey(), ultima.profundidade);
+		}
+
+		this.faixaPadrao = this.faixas.containsKey(faixaPadrao) ? this.faixas.get(faixaPadrao) : ultima;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por indicar se o nome informado &eacute;
+	 * uma das faixas.
+	 *
+	 * @param faixa
+	 *            Nome da faixa.
+	 *
+	 * @return O intr&iacute;nseco <code><strong>boolean</strong></code> contendo o
+	 *         valor <code><strong>true</strong></code> caso a faixa exista ou
+	 *         <code><strong>false</strong></code> caso contr&aacute;rio.
+	 */
+	boolean isFaixa(final String faixa) {
+		return faixa != null && this.faixas.containsKey(faixa);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar os pesos das faixas.
+	 *
+	 * @return Os pesos indexados pelo nome das faixas, na ordem da
+	 *         configura&ccedil;&atilde;o.
+	 */
+	Map<String, Integer> getPesos() {
+		final Map<String, Integer> pesos = new LinkedHashMap<>();
+		this.faixas.forEach((nome, faixa) -> pesos.put(nome, Integer.valueOf(faixa.peso)));
+		return Collections.unmodifiableMap(pesos);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por enfileirar um item na sua faixa.
+	 *
+	 * @param faixa
+	 *            Nome da faixa. Caso seja <code><strong>null</strong></code> ou
+	 *            desconhecida, o item vai para a faixa padr&atilde;o.
+	 * @param item
+	 *            Item a ser enfileirado.
+	 */
+	synchronized void adicionar(final String faixa, final T item) {
+		final Faixa<T> destino = this.isFaixa(faixa) ? this.faixas.get(faixa) : this.faixaPadrao;
+
+		// Uma faixa ociosa recomeça do instante atual, sem crédito acumulado.
+		destino.ultimoTermino = Math.max(this.instanteVirtual, destino.ultimoTermino) + FilaPonderada.ESCALA / destino.peso;
+		destino.itens.add(new Entrada<>(item, destino.ultimoTermino, System.nanoTime()));
+		destino.profundidade.incrementAndGet();
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retirar o item de menor instante
+	 * virtual de t&eacute;rmino entre os primeiros de cada faixa, registrando a
+	 * sua espera.
+	 *
+	 * @return O item retirado ou <code><strong>null</strong></code> caso todas
+	 *         as faixas estejam vazias.
+	 */
+	synchronized T retirar() {
+		Faixa<T> escolhida = null;
+		for (final Faixa<T> faixa : this.faixas.values()) {
+			final Entrada<T> primeira = faixa.itens.peek();
+			if (primeira != null && (escolhida == null || primeira.termino < escolhida.itens.peek().termino)) {
+				escolhida = faixa;
+			}
+		}
+
+		if (escolhida == null) {
+			return null;
+		}
+
+		final Entrada<T> entrada = escolhida.itens.poll();
+		escolhida.profundidade.decrementAndGet();
+		this.instanteVirtual = entrada.termino;
+
+		final long espera = System.nanoTime() - entrada.chegada;
+		escolhida.atendidos++;
+		escolhida.esperaTotal += espera;
+		escolhida.esperaMaxima = Math.max(escolhida.esperaMaxima, espera);
+		MetricasRobo.registrarEsperaFaixa(escolhida.nome, espera);
+
+		return entrada.item;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por remover um item ainda n&atilde;o
+	 * retirado, caso o mesmo n&atilde;o possa mais ser executado.
+	 *
+	 * @param item
+	 *            Item a ser removido.
+	 */
+	synchronized void remover(final T item) {
+		for (final Faixa<T> faixa : this.faixas.values()) {
+			if (faixa.itens.removeIf(entrada -> entrada.item == item)) {
+				faixa.profundidade.decrementAndGet();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por resumir, para o log, a profundidade
+	 * de cada faixa e a espera dos itens retirados desde o resumo anterior.
+	 *
+	 * @return O resumo das faixas.
+	 */
+	synchronized String resumir() {
+		final StringBuilder resumo = new StringBuilder("Faixas de prioridade:");
+		for (final Faixa<T> faixa : this.faixas.values()) {
+			resumo.append(' ').append(faixa.nome).append("[peso=").append(faixa.peso).append(", fila=").append(faixa.itens.size()).append(", atendidos=").append(faixa.atendidos)
+					.append(", espera m\u00E9dia=").append(faixa.atendidos == 0L ? 0L : TimeUnit.NANOSECONDS.toMillis(faixa.esperaTotal / faixa.atendidos)).append("ms, espera m\u00E1xima=")
+					.append(TimeUnit.NANOSECONDS.toMillis(faixa.esperaMaxima)).append("ms]");
+
+			faixa.atendidos = 0L;
+			faixa.esperaTotal = 0L;
+			faixa.esperaMaxima = 0L;
+		}
+
+		return resumo.toString();
+	}
+
+	/**
+	 * Classe respons&aacute;vel por manter os itens e o estado de uma faixa.
+	 *
+	 * @param <T>
+	 *            Tipo dos itens enfileirados.
+	 */
+	private static final class Faixa<T> {
+
+		/**
+		 * Nome da faixa.
+		 */
+		private final String nome;
+
+		/**
+		 * Peso da faixa.
+		 */
+		private final int peso;
+
+		/**
+		 * Itens aguardando, em ordem de chegada.
+		 */
+		private final Queue<Entrada<T>> itens = new ArrayDeque<>();
+
+		/**
+		 * Quantidade de itens aguardando, publicada nas m&eacute;tricas sem
+		 * sincroniza&ccedil;&atilde;o.
+		 */
+		private final AtomicInteger profundidade = new AtomicInteger();
+
+		/**
+		 * Instante virtual de t&eacute;rmino do &uacute;ltimo item enfileirado.
+		 */
+		private long ultimoTermino;
+
+		/**
+		 * Itens retirados desde o &uacute;ltimo resumo.
+		 */
+		private long atendidos;
+
+		/**
+		 * Soma das esperas, em nanossegundos, desde o &uacute;ltimo resumo.
+		 */
+		private long esperaTotal;
+
+		/**
+		 * Maior espera, em nanossegundos, desde o &uacute;ltimo resumo.
+		 */
+		private long esperaMaxima;
+
+		/**
+		 * Construtor respons&aacute;vel por criar uma faixa vazia.
+		 *
+		 * @param nome
+		 *            Nome da faixa.
+		 * @param peso
+		 *            Peso da faixa.
+		 */
+		Faixa(final String nome, final int peso) {
+			this.nome = nome;
+			this.peso = peso;
+		}
+	}
+
+	/**
+	 * Classe respons&aacute;vel por manter um item enfileirado com o seu
+	 * instante virtual de t&eacute;rmino e o instante real de chegada.
+	 *
+	 * @param <T>
+	 *            Tipo do item.
+	 */
+	private static final class Entrada<T> {
+
+		/**
+		 * Item enfileirado.
+		 */
+		private final T item;
+
+		/**
+		 * Instante virtual de t&eacute;rmino.
+		 */
+		private final long termino;
+
+		/**
+		 * Instante, obtido de {@link System#nanoTime()}, da chegada.
+		 */
+		private final long chegada;
+
+		/**
+		 * Construtor respons&aacute;vel por criar a entrada.
+		 *
+		 * @param item
+		 *            Item enfileirado.
+		 * @param termino
+		 *            Instante virtual de t&eacute;rmino.
+		 * @param chegada
+		 *            Instante da chegada.
+		 */
+		Entrada(final T item, final long termino, final long chegada) {
+			this.item = item;
+			this.termino = termino;
+			this.chegada = chegada;
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,253 @@
+package br.com.pgioseffi.requisicoes.soap;
+
+/**
+ * <p>
+ * Classe respons&aacute;vel por calcular o limite de requisi&ccedil;&otilde;es
+ * simult&acirc;neas de um endpoint a partir da lat&ecirc;ncia e das falhas
+ * observadas, no estilo AIMD (<i>additive increase, multiplicative
+ * decrease</i>).
+ * </p>
+ * <p>
+ * A cada resposta bem sucedida com a lat&ecirc;ncia recente dentro da
+ * toler&acirc;ncia em rela&ccedil;&atilde;o &agrave; lat&ecirc;ncia base, o
+ * limite cresce de
+ * <code>1 / limite</code>, ou seja, cerca de uma unidade a cada ciclo completo
+ * de requisi&ccedil;&otilde;es. Falhas e lat&ecirc;ncias acima da
+ * toler&acirc;ncia reduzem o limite em dez por cento, no m&aacute;ximo uma
+ * vez por janela: as amostras de requisi&ccedil;&otilde;es enviadas antes da
+ * &uacute;ltima redu&ccedil;&atilde;o refletem a carga anterior &agrave; mesma e
+ * n&atilde;o reduzem o limite novamente. O limite s&oacute;
+ * cresce quando ao menos metade do mesmo est&aacute; em uso, para que um
+ * endpoint pouco utilizado n&atilde;o acumule um limite que nunca foi
+ * testado.
+ * </p>
+ * <p>
+ * A lat&ecirc;ncia base e a lat&ecirc;ncia recente s&atilde;o m&eacute;dias
+ * m&oacute;veis exponenciais das amostras, a primeira lenta e a segunda
+ * r&aacute;pida. O limite &eacute; reduzido quando a lat&ecirc;ncia recente
+ * cresce em rela&ccedil;&atilde;o &agrave; m&eacute;dia de longo prazo, e
+ * n&atilde;o em rela&ccedil;&atilde;o &agrave; menor lat&ecirc;ncia observada:
+ * a menor lat&ecirc;ncia corresponde a uma &uacute;nica requisi&ccedil;&atilde;o
+ * em andamento e qualquer concorr&ecirc;ncia real a ultrapassaria. Da mesma
+ * forma, uma &uacute;nica resposta lenta, como em uma pausa do coletor de lixo,
+ * n&atilde;o reduz o limite.
+ * </p>
+ * <p>
+ * Esta classe n&atilde;o &eacute; <i>thread-safe</i>: o acesso &eacute;
+ * sincronizado pela {@link ProtecaoEndpoint prote&ccedil;&atilde;o} do
+ * endpoint.
+ * </p>
+ *
+ * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
+ *         &lt;pgioseffi@gmail.com&gt;</a>
+ *
+ * @since 1.1.0
+ *
+ * @see ProtecaoEndpoint
+ */
+final class LimiteAdaptativo {
+
+	/**
+	 * Fator aplicado ao limite em caso de falha ou lat&ecirc;ncia acima da
+	 * toler&acirc;ncia.
+	 */
+	private static final double FATOR_REDUCAO = 0.9D;
+
+	/**
+	 * Peso de cada amostra na m&eacute;dia m&oacute;vel da lat&ecirc;ncia
+	 * base.
+	 */
+	private static final double DERIVA_LATENCIA_BASE = 0.01D;
+
+	/**
+	 * Peso de cada amostra na m&eacute;dia m&oacute;vel da lat&ecirc;ncia
+	 * recente.
+	 */
+	private static final double PESO_LATENCIA_RECENTE = 0.1D;
+
+	/**
+	 * Limite m&iacute;nimo.
+	 */
+	private final int minimo;
+
+	/**
+	 * Limite m&aacute;ximo.
+	 */
+	private final int maximo;
+
+	/**
+	 * Raz&atilde;o m&aacute;xima entre a lat&ecirc;ncia recente e a
+	 * lat&ecirc;ncia base antes de o limite ser reduzido.
+	 */
+	private final double tolerancia;
+
+	/**
+	 * Limite atual, fracion&aacute;rio para permitir o crescimento aditivo.
+	 */
+	private double limite;
+
+	/**
+	 * M&eacute;dia m&oacute;vel exponencial de longo prazo da lat&ecirc;ncia, em
+	 * nanossegundos, ou zero caso ainda n&atilde;o haja amostras.
+	 */
+	private double latenciaBase;
+
+	/**
+	 * M&eacute;dia m&oacute;vel exponencial da lat&ecirc;ncia, em
+	 * nanossegundos, ou zero caso ainda n&atilde;o haja amostras.
+	 */
+	private double latenciaRecente;
+
+	/**
+	 * Quantidade de requisi&ccedil;&otilde;es em andamento.
+	 */
+	private int emAndamento;
+
+	/**
+	 * Instante, em nanossegundos, da &uacute;ltima redu&ccedil;&atilde;o do
+	 * limite ou da cria&ccedil;&atilde;o do mesmo.
+	 */
+	private long ultimaReducao = System.nanoTime();
+
+	/**
+	 * Construtor respons&aacute;vel por criar o limite com o valor inicial.
+	 *
+	 * @param inicial
+	 *            Limite inicial.
+	 * @param minimo
+	 *            Limite m&iacute;nimo.
+	 * @param maximo
+	 *            Limite m&aacute;ximo.
+	 * @param tolerancia
+	 *            Raz&atilde;o m&aacute;xima entre a lat&ecirc;ncia recente e a
+	 *            lat&ecirc;ncia base.
+	 */
+	LimiteAdaptativo(final int inicial, final int minimo, final int maximo, final double tolerancia) {
+		this.minimo = Math.max(1, minimo);
+		this.maximo = Math.max(this.minimo, maximo);
+		this.tolerancia = Math.max(1D, tolerancia);
+		this.limite = Math.min(this.maximo, Math.max(this.minimo, inicial));
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por verificar se h&aacute; vaga para mais
+	 * uma requisi&ccedil;&atilde;o.
+	 *
+	 * @return O intr&iacute;nseco <code><strong>boolean</strong></code> contendo o
+	 *         valor <code><strong>true</strong></code> caso haja vaga ou
+	 *         <code><strong>false</strong></code> caso contr&aacute;rio.
+	 */
+	boolean isVagaDisponivel() {
+		return this.getVagasDisponiveis() > 0;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar a quantidade de vagas
+	 * dispon&iacute;veis.
+	 *
+	 * @return A diferen&ccedil;a entre o limite atual e a quantidade de
+	 *         requisi&ccedil;&otilde;es em andamento, nunca negativa.
+	 */
+	int getVagasDisponiveis() {
+		return Math.max(0, this.getLimite() - this.emAndamento);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por ocupar uma vaga.
+	 */
+	void ocupar() {
+		this.emAndamento++;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por desocupar uma vaga sem registrar
+	 * amostra, quando a requisi&ccedil;&atilde;o n&atilde;o chegou a ser
+	 * enviada.
+	 */
+	void desocupar() {
+		this.emAndamento = Math.max(0, this.emAndamento - 1);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por desocupar uma vaga registrando a
+	 * amostra da requisi&ccedil;&atilde;o e ajustar o limite.
+	 *
+	 * @param latenciaNanos
+	 *            Lat&ecirc;ncia da requisi&ccedil;&atilde;o, em nanossegundos.
+	 * @param sucesso
+	 *            Indica se a requisi&ccedil;&atilde;o foi bem sucedida.
+	 */
+	void registrar(final long latenciaNanos, final boolean sucesso) {
+		// Considera a ocupação no momento do envio para decidir se o limite estava em uso.
+		final int ocupacao = this.emAndamento;
+		this.desocupar();
+
+		final long envio = System.nanoTime() - latenciaNanos;
+		if (!sucesso) {
+			this.reduzir(envio);
+			return;
+		}
+
+		this.latenciaBase = LimiteAdaptativo.mediaMovel(this.latenciaBase, latenciaNanos, LimiteAdaptativo.DERIVA_LATENCIA_BASE);
+		this.latenciaRecente = LimiteAdaptativo.mediaMovel(this.latenciaRecente, latenciaNanos, LimiteAdaptativo.PESO_LATENCIA_RECENTE);
+
+		if (this.latenciaRecente > this.latenciaBase * this.tolerancia) {
+			this.reduzir(envio);
+		} else if (ocupacao * 2 >= this.getLimite()) {
+			this.limite = Math.min(this.maximo, this.limite + 1D / this.limite);
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por incorporar uma amostra a uma
+	 * m&eacute;dia m&oacute;vel exponencial.
+	 *
+	 * @param media
+	 *            M&eacute;dia atual, ou zero caso ainda n&atilde;o haja amostras.
+	 * @param amostra
+	 *            Nova amostra.
+	 * @param peso
+	 *            Peso da nova amostra.
+	 *
+	 * @return A nova m&eacute;dia.
+	 */
+	private static double mediaMovel(final double media, final long amostra, final double peso) {
+		return media == 0D ? amostra : media + (amostra - media) * peso;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por reduzir o limite multiplicativamente,
+	 * respeitando o m&iacute;nimo, caso a requisi&ccedil;&atilde;o tenha sido
+	 * enviada ap&oacute;s a &uacute;ltima redu&ccedil;&atilde;o.
+	 *
+	 * @param envio
+	 *            Instante, em nanossegundos, do envio da requisi&ccedil;&atilde;o.
+	 */
+	private void reduzir(final long envio) {
+		if (envio - this.ultimaReducao < 0L) {
+			return;
+		}
+
+		this.limite = Math.max(this.minimo, this.limite * LimiteAdaptativo.FATOR_REDUCAO);
+		this.ultimaReducao = System.nanoTime();
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar o limite atual.
+	 *
+	 * @return O limite atual arredondado para baixo.
+	 */
+	int getLimite() {
+		return (int) this.limite;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar a lat&ecirc;ncia base.
+	 *
+	 * @return A lat&ecirc;ncia base, em milissegundos, ou zero caso ainda
+	 *         n&atilde;o haja amostras.
+	 */
+	double getLatenciaBaseMillis() {
+		return this.latenciaBase / 1_000_000D;
+	}
+}
\ No newline at end of file
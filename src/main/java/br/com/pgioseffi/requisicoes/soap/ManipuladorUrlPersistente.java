@@ -0,0 +1,355 @@
+package br.com.pgioseffi.requisicoes.soap;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.ProtocolException;
+import java.net.Proxy;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * Classe respons&aacute;vel por abrir conex&otilde;es HTTP que preservam o
+ * <i>keep-alive</i> mesmo quando utilizadas pelo SAAJ.
+ * </p>
+ * <p>
+ * A implementa&ccedil;&atilde;o padr&atilde;o do
+ * {@link javax.xml.soap.SOAPConnection SOAPConnection} chama
+ * {@link HttpURLConnection#disconnect()} ao fim de toda requisi&ccedil;&atilde;o,
+ * o que fecha o <i>socket</i> e obriga um novo <i>handshake</i> TCP/TLS na
+ * requisi&ccedil;&atilde;o seguinte. As conex&otilde;es abertas por esta classe
+ * ignoram esta chamada quando a resposta foi lida at&eacute; o fim, permitindo
+ * que a JVM devolva o <i>socket</i> ao seu cache de conex&otilde;es
+ * <i>keep-alive</i>.
+ * </p>
+ * <p>
+ * As conex&otilde;es abertas recebem os tempos m&aacute;ximos de
+ * conex&atilde;o e de leitura informados na cria&ccedil;&atilde;o do
+ * manipulador, visto que o SAAJ n&atilde;o permite configur&aacute;-los.
+ * </p>
+ *
+ * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
+ *         &lt;pgioseffi@gmail.com&gt;</a>
+ *
+ * @since 1.1.0
+ *
+ * @see PoolConexoesSOAP
+ * @see URLStreamHandler
+ * @see HttpURLConnection
+ */
+final class ManipuladorUrlPersistente extends URLStreamHandler {
+
+	/**
+	 * Tempo m&aacute;ximo, em milissegundos, para estabelecer a conex&atilde;o.
+	 * Zero indica sem limite.
+	 */
+	private final int timeoutConexao;
+
+	/**
+	 * Tempo m&aacute;ximo, em milissegundos, de espera por dados da resposta.
+	 * Zero indica sem limite.
+	 */
+	private final int timeoutLeitura;
+
+	/**
+	 * Construtor respons&aacute;vel por criar o manipulador com os tempos
+	 * m&aacute;ximos das conex&otilde;es abertas pelo mesmo.
+	 *
+	 * @param timeoutConexao
+	 *            Tempo m&aacute;ximo, em milissegundos, para estabelecer a
+	 *            conex&atilde;o. Zero indica sem limite.
+	 * @param timeoutLeitura
+	 *            Tempo m&aacute;ximo, em milissegundos, de espera por dados da
+	 *            resposta. Zero indica sem limite.
+	 */
+	ManipuladorUrlPersistente(final int timeoutConexao, final int timeoutLeitura) {
+		this.timeoutConexao = Math.max(0, timeoutConexao);
+		this.timeoutLeitura = Math.max(0, timeoutLeitura);
+	}
+
+	@Override
+	protected URLConnection openConnection(final URL url) throws IOException {
+		return this.envolver(new URL(url.toExternalForm()).openConnection());
+	}
+
+	@Override
+	protected URLConnection openConnection(final URL url, final Proxy proxy) throws IOException {
+		return this.envolver(new URL(url.toExternalForm()).openConnection(proxy));
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por aplicar os tempos m&aacute;ximos e
+	 * envolver a conex&atilde;o criada pelo manipulador padr&atilde;o da JVM
+	 * quando a mesma for HTTP ou HTTPS.
+	 *
+	 * @param conexao
+	 *            Conex&atilde;o criada pelo manipulador padr&atilde;o.
+	 *
+	 * @return A conex&atilde;o envolvida ou a pr&oacute;pria conex&atilde;o caso
+	 *         n&atilde;o seja HTTP.
+	 */
+	private URLConnection envolver(final URLConnection conexao) {
+		conexao.setConnectTimeout(this.timeoutConexao);
+		conexao.setReadTimeout(this.timeoutLeitura);
+		return conexao instanceof HttpURLConnection ? new ConexaoHttpPersistente((HttpURLConnection) conexao) : conexao;
+	}
+
+	/**
+	 * Classe respons&aacute;vel por delegar todas as chamadas utilizadas pelo SAAJ
+	 * para a conex&atilde;o real, com exce&ccedil;&atilde;o de
+	 * {@link HttpURLConnection#disconnect()} quando a resposta foi consumida por
+	 * completo.
+	 */
+	private static final class ConexaoHttpPersistente extends HttpURLConnection {
+
+		/**
+		 * Conex&atilde;o real criada pelo manipulador padr&atilde;o da JVM.
+		 */
+		private final HttpURLConnection delegada;
+
+		/**
+		 * Indica se a resposta foi lida at&eacute; o fim e fechada, ou seja, se o
+		 * <i>socket</i> pode voltar ao cache de conex&otilde;es <i>keep-alive</i>.
+		 */
+		private volatile boolean respostaConsumida;
+
+		/**
+		 * Construtor respons&aacute;vel por envolver a conex&atilde;o real.
+		 *
+		 * @param delegada
+		 *            Conex&atilde;o real criada pelo manipulador padr&atilde;o da
+		 *            JVM.
+		 */
+		ConexaoHttpPersistente(final HttpURLConnection delegada) {
+			super(delegada.getURL());
+			this.delegada = delegada;
+		}
+
+		@Override
+		public void disconnect() {
+			// Com a resposta consumida o socket já voltou ao cache de keep-alive. Desconectar
+			// aqui o fecharia.
+			if (!this.respostaConsumida) {
+				this.delegada.disconnect();
+			}
+		}
+
+		@Override
+		public boolean usingProxy() {
+			return this.delegada.usingProxy();
+		}
+
+		@Override
+		public void connect() throws IOException {
+			this.delegada.connect();
+		}
+
+		@Override
+		public InputStream getInputStream() throws IOException {
+			return this.monitorar(this.delegada.getInputStream());
+		}
+
+		@Override
+		public InputStream getErrorStream() {
+			final InputStream erro = this.delegada.getErrorStream();
+			return erro == null ? null : this.monitorar(erro);
+		}
+
+		@Override
+		public OutputStream getOutputStream() throws IOException {
+			return this.delegada.getOutputStream();
+		}
+
+		@Override
+		public int getResponseCode() throws IOException {
+			return this.delegada.getResponseCode();
+		}
+
+		@Override
+		public String getResponseMessage() throws IOException {
+			return this.delegada.getResponseMessage();
+		}
+
+		@Override
+		public void setRequestMethod(final String method) throws ProtocolException {
+			this.delegada.setRequestMethod(method);
+		}
+
+		@Override
+		public String getRequestMethod() {
+			return this.delegada.getRequestMethod();
+		}
+
+		@Override
+		public void setInstanceFollowRedirects(final boolean followRedirects) {
+			this.delegada.setInstanceFollowRedirects(followRedirects);
+		}
+
+		@Override
+		public boolean getInstanceFollowRedirects() {
+			return this.delegada.getInstanceFollowRedirects();
+		}
+
+		@Override
+		public void setChunkedStreamingMode(final int chunklen) {
+			this.delegada.setChunkedStreamingMode(chunklen);
+		}
+
+		@Override
+		public void setFixedLengthStreamingMode(final long contentLength) {
+			this.delegada.setFixedLengthStreamingMode(contentLength);
+		}
+
+		@Override
+		public void setDoInput(final boolean doinput) {
+			this.delegada.setDoInput(doinput);
+		}
+
+		@Override
+		public boolean getDoInput() {
+			return this.delegada.getDoInput();
+		}
+
+		@Override
+		public void setDoOutput(final boolean dooutput) {
+			this.delegada.setDoOutput(dooutput);
+		}
+
+		@Override
+		public boolean getDoOutput() {
+			return this.delegada.getDoOutput();
+		}
+
+		@Override
+		public void setUseCaches(final boolean usecaches) {
+			this.delegada.setUseCaches(usecaches);
+		}
+
+		@Override
+		public boolean getUseCaches() {
+			return this.delegada.getUseCaches();
+		}
+
+		@Override
+		public void setConnectTimeout(final int timeout) {
+			this.delegada.setConnectTimeout(timeout);
+		}
+
+		@Override
+		public int getConnectTimeout() {
+			return this.delegada.getConnectTimeout();
+		}
+
+		@Override
+		public void setReadTimeout(final int timeout) {
+			this.delegada.setReadTimeout(timeout);
+		}
+
+		@Override
+		public int getReadTimeout() {
+			return this.delegada.getReadTimeout();
+		}
+
+		@Override
+		public void setRequestProperty(final String key, final String value) {
+			this.delegada.setRequestProperty(key, value);
+		}
+
+		@Override
+		public void addRequestProperty(final String key, final String value) {
+			this.delegada.addRequestProperty(key, value);
+		}
+
+		@Override
+		public String getRequestProperty(final String key) {
+			return this.delegada.getRequestProperty(key);
+		}
+
+		@Override
+		public Map<String, List<String>> getRequestProperties() {
+			return this.delegada.getRequestProperties();
+		}
+
+		@Override
+		public String getHeaderFieldKey(final int n) {
+			return this.delegada.getHeaderFieldKey(n);
+		}
+
+		@Override
+		public String getHeaderField(final int n) {
+			return this.delegada.getHeaderField(n);
+		}
+
+		@Override
+		public String getHeaderField(final String name) {
+			return this.delegada.getHeaderField(name);
+		}
+
+		@Override
+		public Map<String, List<String>> getHeaderFields() {
+			return this.delegada.getHeaderFields();
+		}
+
+		@Override
+		public int getContentLength() {
+			return this.delegada.getContentLength();
+		}
+
+		@Override
+		public long getContentLengthLong() {
+			return this.delegada.getContentLengthLong();
+		}
+
+		@Override
+		public String getContentType() {
+			return this.delegada.getContentType();
+		}
+
+		@Override
+		public String getContentEncoding() {
+			return this.delegada.getContentEncoding();
+		}
+
+		/**
+		 * M&eacute;todo respons&aacute;vel por envolver o fluxo de resposta para
+		 * saber se o mesmo foi lido at&eacute; o fim antes de ser fechado.
+		 *
+		 * @param entrada
+		 *            Fluxo de resposta da conex&atilde;o real.
+		 *
+		 * @return O fluxo envolvido.
+		 */
+		private InputStream monitorar(final InputStream entrada) {
+			return new FilterInputStream(entrada) {
+
+				private boolean fimAlcancado;
+
+				@Override
+				public int read() throws IOException {
+					final int lido = super.read();
+					this.fimAlcancado |= lido < 0;
+					return lido;
+				}
+
+				@Override
+				public int read(final byte[] b, final int off, final int len) throws IOException {
+					final int lido = super.read(b, off, len);
+					this.fimAlcancado |= lido < 0;
+					return lido;
+				}
+
+				@Override
+				public void close() throws IOException {
+					super.close();
+					ConexaoHttpPersistente.this.respostaConsumida = this.fimAlcancado;
+				}
+			};
+		}
+	}
+}
\ No newline at end of file
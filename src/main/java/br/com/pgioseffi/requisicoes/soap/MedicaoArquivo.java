@@ -0,0 +1,108 @@
+package br.com.pgioseffi.requisicoes.soap;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>
+ * Classe respons&aacute;vel por acumular a dura&ccedil;&atilde;o de cada etapa
+ * do processamento de um &uacute;nico arquivo de requisi&ccedil;&atilde;o.
+ * </p>
+ * <p>
+ * As dura&ccedil;&otilde;es s&atilde;o somadas, pois uma mesma etapa pode
+ * acontecer mais de uma vez, inclusive concorrentemente, como nas
+ * {@link TransporteRedundante requisi&ccedil;&otilde;es redundantes}. Ao fim do
+ * processamento as dura&ccedil;&otilde;es s&atilde;o registradas nas
+ * {@link MetricasRobo m&eacute;tricas} e no {@link EventosJFR evento JFR} do
+ * arquivo.
+ * </p>
+ *
+ * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
+ *         &lt;pgioseffi@gmail.com&gt;</a>
+ *
+ * @since 1.1.0
+ *
+ * @see ArquivoRequisicao#getMedicao()
+ * @see MetricasRobo#registrar(MedicaoArquivo)
+ * @see EventosJFR
+ */
+final class MedicaoArquivo {
+
+	/**
+	 * Etapas do processamento de um arquivo.
+	 */
+	enum Etapa {
+
+		/**
+		 * Renomea&ccedil;&atilde;o do arquivo pendente para <code>DOING</code>.
+		 */
+		REIVINDICACAO,
+
+		/**
+		 * Leitura das configura&ccedil;&otilde;es do arquivo.
+		 */
+		LEITURA,
+
+		/**
+		 * Constru&ccedil;&atilde;o da mensagem SOAP, apenas no
+		 * {@link TransporteSAAJ transporte SAAJ}.
+		 */
+		MENSAGEM,
+
+		/**
+		 * Requisi&ccedil;&atilde;o SOAP, do envio at&eacute; o fim da resposta.
+		 */
+		ENVIO,
+
+		/**
+		 * Escrita e confirma&ccedil;&atilde;o da resposta em disco.
+		 */
+		ESCRITA
+	}
+
+	/**
+	 * Dura&ccedil;&otilde;es acumuladas, em nanossegundos, indexadas pelo
+	 * ordinal da {@link Etapa etapa}.
+	 */
+	private final AtomicLongArray duracoes = new AtomicLongArray(Etapa.values().length);
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por somar &agrave; etapa o tempo decorrido
+	 * desde o instante informado.
+	 *
+	 * @param etapa
+	 *            Etapa medida.
+	 * @param inicioNanos
+	 *            Instante do in&iacute;cio da etapa, obtido de
+	 *            {@link System#nanoTime()}.
+	 */
+	void registrar(final Etapa etapa, final long inicioNanos) {
+		this.adicionar(etapa, System.nanoTime() - inicioNanos);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por somar &agrave; etapa a
+	 * dura&ccedil;&atilde;o informada.
+	 *
+	 * @param etapa
+	 *            Etapa medida.
+	 * @param nanos
+	 *            Dura&ccedil;&atilde;o, em nanossegundos.
+	 */
+	void adicionar(final Etapa etapa, final long nanos) {
+		this.duracoes.addAndGet(etapa.ordinal(), nanos);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar a dura&ccedil;&atilde;o
+	 * acumulada de uma etapa.
+	 *
+	 * @param etapa
+	 *            Etapa desejada.
+	 *
+	 * @return A dura&ccedil;&atilde;o, em nanossegundos, ou zero caso a etapa
+	 *         n&atilde;o tenha acontecido.
+	 */
+	long getDuracao(final Etapa etapa) {
+		return this.duracoes.get(etapa.ordinal());
+	}
+}
\ No newline at end of file
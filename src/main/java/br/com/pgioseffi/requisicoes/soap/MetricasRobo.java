@@ -0,0 +1,345 @@
+package br.com.pgioseffi.requisicoes.soap;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.jmx.JmxConfig;
+import io.micrometer.jmx.JmxMeterRegistry;
+
+/**
+ * <p>
+ * Classe respons&aacute;vel por manter as m&eacute;tricas do rob&ocirc;:
+ * tempos de cada etapa do processamento dos arquivos, tempos das
+ * requisi&ccedil;&otilde;es SOAP por endpoint, quantidade de arquivos por
+ * status e de requisi&ccedil;&otilde;es em andamento.
+ * </p>
+ * <p>
+ * As m&eacute;tricas s&atilde;o registradas no {@link Metrics#globalRegistry
+ * registro global} do Micrometer. Enquanto nenhum registro concreto for
+ * {@link MetricasRobo#publicarJmx(String) adicionado} as medi&ccedil;&otilde;es
+ * s&atilde;o descartadas a custo praticamente nulo, de maneira que os
+ * transportes e os <i>benchmarks</i> possam medir sem a
+ * inicializa&ccedil;&atilde;o do rob&ocirc;.
+ * </p>
+ * <p>
+ * Os tempos publicam os percentis 50, 95 e 99, calculados no pr&oacute;prio
+ * rob&ocirc;, al&eacute;m da contagem, do total e do m&aacute;ximo.
+ * </p>
+ *
+ * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
+ *         &lt;pgioseffi@gmail.com&gt;</a>
+ *
+ * @since 1.1.0
+ *
+ * @see ExecutaRequisicaoSOAP
+ * @see MeterRegistry
+ * @see JmxMeterRegistry
+ * @see MedicaoArquivo
+ */
+final class MetricasRobo {
+
+	/**
+	 * Prefixo dos nomes de todas as m&eacute;tricas do rob&ocirc;.
+	 */
+	private static final String PREFIXO = "robo.";
+
+	/**
+	 * Tempo da varredura do diret&oacute;rio em busca de arquivos pendentes.
+	 */
+	static final Timer VARREDURA = MetricasRobo.criarEtapa("varredura");
+
+	/**
+	 * <p>
+	 * Tempos das etapas do processamento de cada arquivo, exceto o envio, que
+	 * tem um tempo por endpoint.
+	 * </p>
+	 * <p>
+	 * Nos transportes que escrevem a resposta &agrave; medida que a mesma chega,
+	 * o tempo de escrita do corpo faz parte do tempo do envio e a etapa de
+	 * escrita mede apenas a confirma&ccedil;&atilde;o do arquivo.
+	 * </p>
+	 *
+	 * @see MetricasRobo#registrar(MedicaoArquivo) registrar(MedicaoArquivo)
+	 */
+	private static final Map<MedicaoArquivo.Etapa, Timer> ETAPAS_ARQUIVO = new EnumMap<>(MedicaoArquivo.Etapa.class);
+
+	/**
+	 * Tempo da exclus&atilde;o peri&oacute;dica dos arquivos antigos.
+	 */
+	static final Timer LIMPEZA = MetricasRobo.criarEtapa("limpeza");
+
+	/**
+	 * Quantidade de arquivos exclu&iacute;dos pela limpeza peri&oacute;dica.
+	 */
+	static final Counter EXCLUSOES = Counter.builder(MetricasRobo.PREFIXO + "exclusoes").description("Arquivos exclu\u00EDdos pela limpeza peri\u00F3dica")
+			.register(Metrics.globalRegistry);
+
+	/**
+	 * Quantidade de arquivos cujas {@link ConcessoesArquivos concess&otilde;es}
+	 * venceram e foram devolvidos como pendentes.
+	 */
+	static final Counter CONCESSOES_RECUPERADAS = Counter.builder(MetricasRobo.PREFIXO + "concessoes.recuperadas")
+			.description("Arquivos de concess\u00F5es vencidas devolvidos como pendentes").register(Metrics.globalRegistry);
+
+	/**
+	 * Quantidade de requisi&ccedil;&otilde;es SOAP em andamento.
+	 */
+	private static final AtomicInteger EM_ANDAMENTO = new AtomicInteger();
+
+	/**
+	 * Quantidade de arquivos por status, contada no in&iacute;cio e atualizada
+	 * pelo rob&ocirc; a cada mudan&ccedil;a de status.
+	 */
+	private static final ConcurrentMap<String, AtomicLong> ARQUIVOS = new ConcurrentHashMap<>();
+
+	static {
+		MetricasRobo.ETAPAS_ARQUIVO.put(MedicaoArquivo.Etapa.REIVINDICACAO, MetricasRobo.criarEtapa("reivindicacao"));
+		MetricasRobo.ETAPAS_ARQUIVO.put(MedicaoArquivo.Etapa.LEITURA, MetricasRobo.criarEtapa("leitura"));
+		MetricasRobo.ETAPAS_ARQUIVO.put(MedicaoArquivo.Etapa.MENSAGEM, MetricasRobo.criarEtapa("mensagem"));
+		MetricasRobo.ETAPAS_ARQUIVO.put(MedicaoArquivo.Etapa.ESCRITA, MetricasRobo.criarEtapa("escrita"));
+
+		Gauge.builder(MetricasRobo.PREFIXO + "requisicoes.andamento", MetricasRobo.EM_ANDAMENTO, AtomicInteger::get).description("Requisi\u00E7\u00F5es SOAP em andamento")
+				.register(Metrics.globalRegistry);
+	}
+
+	/**
+	 * Construtor padr&atilde;o de maneira a evitar instancia&ccedil;&atilde;o da
+	 * classe.
+	 */
+	private MetricasRobo() {
+		super();
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por criar o tempo de uma etapa do
+	 * processamento.
+	 *
+	 * @param etapa
+	 *            Nome da etapa, utilizado como valor da <i>tag</i>
+	 *            <code>etapa</code>.
+	 *
+	 * @return O tempo da etapa.
+	 */
+	private static Timer criarEtapa(final String etapa) {
+		return Timer.builder(MetricasRobo.PREFIXO + "etapa").tag("etapa", etapa).description("Tempo das etapas do processamento dos arquivos").publishPercentiles(0.5, 0.95, 0.99)
+				.register(Metrics.globalRegistry);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por adicionar ao registro global o
+	 * registro JMX, publicando todas as m&eacute;tricas como MBeans.
+	 *
+	 * @param dominio
+	 *            Dom&iacute;nio JMX dos MBeans.
+	 *
+	 * @see JmxMeterRegistry
+	 */
+	static void publicarJmx(final String dominio) {
+		final JmxConfig configuracao = new JmxConfig() {
+
+			@Override
+			public String get(final String chave) {
+				return null;
+			}
+
+			@Override
+			public String domain() {
+				return dominio;
+			}
+		};
+
+		Metrics.addRegistry(new JmxMeterRegistry(configuracao, Clock.SYSTEM));
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por registrar o tempo decorrido de uma etapa
+	 * desde o instante informado.
+	 *
+	 * @param etapa
+	 *            Tempo da etapa.
+	 * @param inicioNanos
+	 *            Instante do in&iacute;cio da etapa, obtido de
+	 *            {@link System#nanoTime()}.
+	 */
+	static void registrar(final Timer etapa, final long inicioNanos) {
+		etapa.record(System.nanoTime() - inicioNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por registrar, uma &uacute;nica vez por
+	 * arquivo, a dura&ccedil;&atilde;o de cada etapa do processamento do mesmo.
+	 * As etapas que n&atilde;o aconteceram, como a constru&ccedil;&atilde;o da
+	 * mensagem nos transportes que n&atilde;o interpretam o envelope, s&atilde;o
+	 * ignoradas.
+	 *
+	 * @param medicao
+	 *            Dura&ccedil;&otilde;es das etapas do arquivo.
+	 */
+	static void registrar(final MedicaoArquivo medicao) {
+		for (final Map.Entry<MedicaoArquivo.Etapa, Timer> etapa : MetricasRobo.ETAPAS_ARQUIVO.entrySet()) {
+			final long duracao = medicao.getDuracao(etapa.getKey());
+			if (duracao > 0L) {
+				etapa.getValue().record(duracao, TimeUnit.NANOSECONDS);
+			}
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por registrar o in&iacute;cio de uma
+	 * requisi&ccedil;&atilde;o SOAP.
+	 *
+	 * @return Instante do in&iacute;cio da requisi&ccedil;&atilde;o, a ser
+	 *         informado ao m&eacute;todo
+	 *         {@link MetricasRobo#finalizarEnvio(String, long, boolean)
+	 *         finalizarEnvio(String, long, boolean)}.
+	 */
+	static long iniciarEnvio() {
+		MetricasRobo.EM_ANDAMENTO.incrementAndGet();
+		return System.nanoTime();
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por registrar o t&eacute;rmino de uma
+	 * requisi&ccedil;&atilde;o SOAP no tempo do seu endpoint.
+	 *
+	 * @param url
+	 *            URL do endpoint.
+	 * @param inicioNanos
+	 *            Instante do in&iacute;cio da requisi&ccedil;&atilde;o.
+	 * @param sucesso
+	 *            Indica se a requisi&ccedil;&atilde;o foi bem sucedida.
+	 *
+	 * @return A lat&ecirc;ncia da requisi&ccedil;&atilde;o, em nanossegundos.
+	 */
+	static long finalizarEnvio(final String url, final long inicioNanos, final boolean sucesso) {
+		final long latencia = System.nanoTime() - inicioNanos;
+		MetricasRobo.EM_ANDAMENTO.decrementAndGet();
+
+		// O Micrometer devolve o mesmo tempo para o mesmo nome e tags, então cada
+		// endpoint tem apenas um tempo por resultado.
+		Timer.builder(MetricasRobo.PREFIXO + "envio").tag("endpoint", url).tag("resultado", sucesso ? "sucesso" : "falha").description("Tempo das requisi\u00E7\u00F5es SOAP por endpoint")
+				.publishPercentiles(0.5, 0.95, 0.99).register(Metrics.globalRegistry).record(latencia, TimeUnit.NANOSECONDS);
+
+		return latencia;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por contar uma consulta ao
+	 * {@link TransporteCache cache de respostas}.
+	 *
+	 * @param resultado
+	 *            Resultado da consulta, utilizado como valor da <i>tag</i>
+	 *            <code>resultado</code>: <code>acerto</code>, <code>agrupada</code>
+	 *            ou <code>falta</code>.
+	 */
+	static void registrarCache(final String resultado) {
+		Counter.builder(MetricasRobo.PREFIXO + "cache").tag("resultado", resultado).description("Consultas ao cache de respostas").register(Metrics.globalRegistry).increment();
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por publicar a quantidade de arquivos
+	 * aguardando em uma {@link FilaPonderada faixa de prioridade}.
+	 *
+	 * @param faixa
+	 *            Nome da faixa, utilizado como valor da <i>tag</i>
+	 *            <code>faixa</code>.
+	 * @param profundidade
+	 *            Quantidade de arquivos aguardando, lida a cada coleta.
+	 */
+	static void registrarFilaFaixa(final String faixa, final AtomicInteger profundidade) {
+		Gauge.builder(MetricasRobo.PREFIXO + "faixa.fila", profundidade, AtomicInteger::get).tag("faixa", faixa).description("Arquivos aguardando por faixa de prioridade")
+				.register(Metrics.globalRegistry);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por registrar a espera de um arquivo em
+	 * uma {@link FilaPonderada faixa de prioridade}, da chegada at&eacute; o
+	 * in&iacute;cio da execu&ccedil;&atilde;o.
+	 *
+	 * @param faixa
+	 *            Nome da faixa, utilizado como valor da <i>tag</i>
+	 *            <code>faixa</code>.
+	 * @param esperaNanos
+	 *            Espera, em nanossegundos.
+	 */
+	static void registrarEsperaFaixa(final String faixa, final long esperaNanos) {
+		Timer.builder(MetricasRobo.PREFIXO + "faixa.espera").tag("faixa", faixa).description("Espera dos arquivos por faixa de prioridade").publishPercentiles(0.5, 0.95, 0.99)
+				.register(Metrics.globalRegistry).record(esperaNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por atualizar a quantidade de arquivos de
+	 * um status, criando a m&eacute;trica na primeira atualiza&ccedil;&atilde;o.
+	 *
+	 * @param status
+	 *            Status dos arquivos, utilizado como valor da <i>tag</i>
+	 *            <code>status</code>.
+	 * @param quantidade
+	 *            Quantidade de arquivos no status.
+	 */
+	static void atualizarArquivos(final String status, final long quantidade) {
+		MetricasRobo.recuperarArquivos(status).set(quantidade);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por somar uma varia&ccedil;&atilde;o
+	 * &agrave; quantidade de arquivos de um status, criando a m&eacute;trica na
+	 * primeira atualiza&ccedil;&atilde;o.
+	 *
+	 * @param status
+	 *            Status dos arquivos, utilizado como valor da <i>tag</i>
+	 *            <code>status</code>.
+	 * @param variacao
+	 *            Quantidade de arquivos que entraram, se positiva, ou sa&iacute;ram,
+	 *            se negativa, do status.
+	 */
+	static void adicionarArquivos(final String status, final long variacao) {
+		MetricasRobo.recuperarArquivos(status).addAndGet(variacao);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por publicar como quantidade de arquivos
+	 * de um status o tamanho de uma cole&ccedil;&atilde;o mantida pelo
+	 * rob&ocirc;.
+	 *
+	 * @param status
+	 *            Status dos arquivos, utilizado como valor da <i>tag</i>
+	 *            <code>status</code>.
+	 * @param arquivos
+	 *            Cole&ccedil;&atilde;o com os arquivos do status.
+	 */
+	static void registrarArquivos(final String status, final Collection<?> arquivos) {
+		Gauge.builder(MetricasRobo.PREFIXO + "arquivos", arquivos, Collection::size).tag("status", status).description("Arquivos no diret\u00F3rio por status")
+				.register(Metrics.globalRegistry);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por recuperar a quantidade de arquivos de
+	 * um status, criando a m&eacute;trica na primeira chamada.
+	 *
+	 * @param status
+	 *            Status dos arquivos, utilizado como valor da <i>tag</i>
+	 *            <code>status</code>.
+	 *
+	 * @return A quantidade de arquivos do status.
+	 */
+	private static AtomicLong recuperarArquivos(final String status) {
+		return MetricasRobo.ARQUIVOS.computeIfAbsent(status, chave -> {
+			final AtomicLong valor = new AtomicLong();
+			Gauge.builder(MetricasRobo.PREFIXO + "arquivos", valor, AtomicLong::get).tag("status", chave).description("Arquivos no diret\u00F3rio por status").register(Metrics.globalRegistry);
+			return valor;
+		});
+	}
+}
\ No newline at end of file
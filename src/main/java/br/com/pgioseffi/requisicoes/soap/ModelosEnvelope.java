@@ -0,0 +1,275 @@
+package br.com.pgioseffi.requisicoes.soap;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * Classe respons&aacute;vel por manter os modelos de envelope SOAP utilizados
+ * pelos arquivos de requisi&ccedil;&atilde;o com a op&ccedil;&atilde;o
+ * <code>modelo</code>, cujo corpo cont&eacute;m apenas os par&acirc;metros do
+ * envelope.
+ * </p>
+ * <p>
+ * Cada modelo &eacute; o arquivo <code>&lt;nome&gt;.xml</code> do
+ * diret&oacute;rio de modelos, com os par&acirc;metros no formato
+ * <code>${parametro}</code>. O modelo &eacute; lido uma &uacute;nica vez, no
+ * primeiro uso, e compilado em trechos literais j&aacute; codificados em
+ * UTF-8 intercalados pelos par&acirc;metros, de maneira que a montagem de um
+ * envelope apenas copie bytes para um &uacute;nico <code>byte[]</code> do
+ * tamanho exato do envelope. Os valores dos par&acirc;metros s&atilde;o
+ * escapados para XML. Altera&ccedil;&otilde;es nos modelos exigem o
+ * rein&iacute;cio do rob&ocirc;.
+ * </p>
+ *
+ * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
+ *         &lt;pgioseffi@gmail.com&gt;</a>
+ *
+ * @since 1.1.0
+ *
+ * @see ArquivoRequisicao#montarModelo()
+ */
+final class ModelosEnvelope {
+
+	/**
+	 * Nomes de modelo aceitos, que n&atilde;o permitem sair do diret&oacute;rio
+	 * de modelos.
+	 */
+	private static final Pattern NOME_VALIDO = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9_.-]*");
+
+	/**
+	 * Diret&oacute;rio dos modelos.
+	 */
+	private final Path diretorio;
+
+	/**
+	 * Modelos j&aacute; compilados, indexados pelo nome.
+	 */
+	private final ConcurrentMap<String, Modelo> modelos = new ConcurrentHashMap<>();
+
+	/**
+	 * Construtor respons&aacute;vel por criar o objeto sem ler nenhum modelo.
+	 *
+	 * @param diretorio
+	 *            Diret&oacute;rio dos modelos.
+	 */
+	ModelosEnvelope(final Path diretorio) {
+		this.diretorio = diretorio.toAbsolutePath().normalize();
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar o diret&oacute;rio dos
+	 * modelos.
+	 *
+	 * @return O caminho absoluto do diret&oacute;rio.
+	 */
+	Path getDiretorio() {
+		return this.diretorio;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por montar um envelope a partir de um
+	 * modelo, compilando o mesmo no primeiro uso.
+	 *
+	 * @param nome
+	 *            Nome do modelo, sem a extens&atilde;o <code>.xml</code>.
+	 * @param parametros
+	 *            Valores dos par&acirc;metros, ainda n&atilde;o escapados.
+	 *
+	 * @return O envelope montado, codificado em UTF-8.
+	 *
+	 * @throws IllegalArgumentException
+	 *             Caso o nome seja inv&aacute;lido, o modelo n&atilde;o exista ou
+	 *             algum par&acirc;metro do mesmo n&atilde;o tenha sido informado.
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel ler o modelo.
+	 */
+	byte[] montar(final String nome, final Map<String, String> parametros) throws IOException {
+		Modelo modelo = this.modelos.get(nome);
+		if (modelo == null) {
+			if (!ModelosEnvelope.NOME_VALIDO.matcher(nome).matches()) {
+				throw new IllegalArgumentException("Nome de modelo inv\u00E1lido: " + nome + ".");
+			}
+
+			final String texto;
+			try {
+				texto = new String(Files.readAllBytes(this.diretorio.resolve(nome + ".xml")), StandardCharsets.UTF_8);
+			} catch (final NoSuchFileException e) {
+				throw new IllegalArgumentException("Modelo " + nome + " n\u00E3o encontrado no diret\u00F3rio " + this.diretorio + ".", e);
+			}
+
+			// Leituras simultâneas do mesmo modelo compilam cópias idênticas e apenas a
+			// primeira é mantida.
+			final Modelo compilado = new Modelo(texto);
+			modelo = this.modelos.putIfAbsent(nome, compilado);
+			if (modelo == null) {
+				modelo = compilado;
+			}
+		}
+
+		return modelo.montar(nome, parametros);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por escapar um valor para o conte&uacute;do
+	 * de um elemento ou atributo XML. Valores sem caracteres especiais s&atilde;o
+	 * retornados sem c&oacute;pia.
+	 *
+	 * @param valor
+	 *            Valor a ser escapado.
+	 *
+	 * @return O valor escapado.
+	 */
+	static String escapar(final String valor) {
+		StringBuilder escapado = null;
+		for (int i = 0; i < valor.length(); i++) {
+			final char caracter = valor.charAt(i);
+			final String entidade;
+			switch (caracter) {
+			case '&':
+				entidade = "&amp;";
+				break;
+			case '<':
+				entidade = "&lt;";
+				break;
+			case '>':
+				entidade = "&gt;";
+				break;
+			case '"':
+				entidade = "&quot;";
+				break;
+			case '\'':
+				entidade = "&apos;";
+				break;
+			default:
+				if (escapado != null) {
+					escapado.append(caracter);
+				}
+
+				continue;
+			}
+
+			if (escapado == null) {
+				escapado = new StringBuilder(valor.length() + 16).append(valor, 0, i);
+			}
+
+			escapado.append(entidade);
+		}
+
+		return escapado == null ? valor : escapado.toString();
+	}
+
+	/**
+	 * Classe respons&aacute;vel por manter um modelo compilado: os trechos
+	 * literais, um a mais que os par&acirc;metros, e os nomes dos
+	 * par&acirc;metros entre os mesmos.
+	 */
+	private static final class Modelo {
+
+		/**
+		 * Trechos literais codificados em UTF-8.
+		 */
+		private final byte[][] literais;
+
+		/**
+		 * Nomes dos par&acirc;metros, na ordem do modelo.
+		 */
+		private final String[] parametros;
+
+		/**
+		 * Soma dos tamanhos dos trechos literais.
+		 */
+		private final int tamanhoLiterais;
+
+		/**
+		 * Construtor respons&aacute;vel por compilar o modelo. Um
+		 * <code>${</code> sem o <code>}</code> correspondente &eacute; mantido
+		 * como literal.
+		 *
+		 * @param texto
+		 *            Conte&uacute;do do modelo.
+		 */
+		Modelo(final String texto) {
+			// Arquivos gerados no Windows podem começar com o BOM.
+			final String conteudo = texto.startsWith("\uFEFF") ? texto.substring(1) : texto;
+			final List<byte[]> trechos = new ArrayList<>();
+			final List<String> nomes = new ArrayList<>();
+
+			int inicio = 0;
+			int abertura;
+			while ((abertura = conteudo.indexOf("${", inicio)) >= 0) {
+				final int fechamento = conteudo.indexOf('}', abertura + 2);
+				if (fechamento < 0) {
+					break;
+				}
+
+				trechos.add(conteudo.substring(inicio, abertura).getBytes(StandardCharsets.UTF_8));
+				nomes.add(conteudo.substring(abertura + 2, fechamento).trim());
+				inicio = fechamento + 1;
+			}
+
+			trechos.add(conteudo.substring(inicio).getBytes(StandardCharsets.UTF_8));
+
+			this.literais = trechos.toArray(new byte[trechos.size()][]);
+			this.parametros = nomes.toArray(new String[nomes.size()]);
+
+			int tamanho = 0;
+			for (final byte[] literal : this.literais) {
+				tamanho += literal.length;
+			}
+
+			this.tamanhoLiterais = tamanho;
+		}
+
+		/**
+		 * M&eacute;todo respons&aacute;vel por montar um envelope, escapando e
+		 * codificando cada valor uma &uacute;nica vez antes de copiar os trechos
+		 * para o resultado.
+		 *
+		 * @param nome
+		 *            Nome do modelo, utilizado nas mensagens de erro.
+		 * @param valores
+		 *            Valores dos par&acirc;metros.
+		 *
+		 * @return O envelope montado.
+		 *
+		 * @throws IllegalArgumentException
+		 *             Caso algum par&acirc;metro n&atilde;o tenha sido informado.
+		 */
+		byte[] montar(final String nome, final Map<String, String> valores) {
+			final byte[][] codificados = new byte[this.parametros.length][];
+			int tamanho = this.tamanhoLiterais;
+			for (int i = 0; i < this.parametros.length; i++) {
+				final String valor = valores.get(this.parametros[i]);
+				if (valor == null) {
+					throw new IllegalArgumentException("Par\u00E2metro " + this.parametros[i] + " do modelo " + nome + " n\u00E3o informado.");
+				}
+
+				codificados[i] = ModelosEnvelope.escapar(valor).getBytes(StandardCharsets.UTF_8);
+				tamanho += codificados[i].length;
+			}
+
+			final byte[] envelope = new byte[tamanho];
+			int posicao = 0;
+			for (int i = 0; i < this.parametros.length; i++) {
+				System.arraycopy(this.literais[i], 0, envelope, posicao, this.literais[i].length);
+				posicao += this.literais[i].length;
+				System.arraycopy(codificados[i], 0, envelope, posicao, codificados[i].length);
+				posicao += codificados[i].length;
+			}
+
+			final byte[] ultimo = this.literais[this.parametros.length];
+			System.arraycopy(ultimo, 0, envelope, posicao, ultimo.length);
+			return envelope;
+		}
+	}
+}
\ No newline at end of file
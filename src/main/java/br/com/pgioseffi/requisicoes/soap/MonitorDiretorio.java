@@ -0,0 +1,290 @@
+package br.com.pgioseffi.requisicoes.soap;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * <p>
+ * Classe respons&aacute;vel por monitorar os diret&oacute;rios do rob&ocirc;
+ * atrav&eacute;s de um {@link WatchService} e entregar os arquivos
+ * <code>PENDING</code> assim que estes forem criados ou
+ * renomeados para dentro de um dos diret&oacute;rios, evitando a varredura
+ * peri&oacute;dica dos mesmos. Todos os diret&oacute;rios s&atilde;o
+ * registrados no mesmo {@link WatchService} e atendidos pela mesma
+ * <i>thread</i>, independentemente da quantidade.
+ * </p>
+ * <p>
+ * Como o evento de cria&ccedil;&atilde;o pode chegar antes do produtor terminar
+ * de escrever o arquivo, cada arquivo s&oacute; &eacute; entregue depois de
+ * permanecer sem novos eventos pelo intervalo de estabiliza&ccedil;&atilde;o
+ * configurado.
+ * </p>
+ * <p>
+ * Para que nenhum arquivo seja perdido, uma varredura de
+ * reconcilia&ccedil;&atilde;o de cada diret&oacute;rio &eacute; executada ao
+ * iniciar o monitoramento e sempre que o sistema operacional sinalizar
+ * {@link StandardWatchEventKinds#OVERFLOW perda de eventos} no mesmo.
+ * </p>
+ *
+ * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
+ *         &lt;pgioseffi@gmail.com&gt;</a>
+ *
+ * @since 1.1.0
+ *
+ * @see ExecutaRequisicaoSOAP
+ * @see WatchService
+ * @see StandardWatchEventKinds
+ */
+final class MonitorDiretorio implements Runnable, Closeable {
+
+	/**
+	 * Constante utilizada para manter o {@link Logger log} da classe.
+	 *
+	 * @see Logger
+	 */
+	private static final Logger LOGGER = LogManager.getLogger(MonitorDiretorio.class);
+
+	/**
+	 * Diret&oacute;rios monitorados, indexados pela chave do registro no
+	 * {@link WatchService}.
+	 */
+	private final Map<WatchKey, Path> diretorios = new LinkedHashMap<>();
+
+	/**
+	 * Objeto {@link WatchService} registrado nos diret&oacute;rios monitorados.
+	 */
+	private final WatchService watchService;
+
+	/**
+	 * Filtro aplicado ao caminho de cada evento recebido para saber se o mesmo
+	 * &eacute; de um arquivo a ser entregue.
+	 */
+	private final Predicate<Path> filtro;
+
+	/**
+	 * Destino dos arquivos est&aacute;veis.
+	 */
+	private final Consumer<Path> destino;
+
+	/**
+	 * Varredura completa de um diret&oacute;rio executada no in&iacute;cio e
+	 * ap&oacute;s perda de eventos no mesmo.
+	 */
+	private final Consumer<Path> reconciliacao;
+
+	/**
+	 * Intervalo, em nanossegundos, que um arquivo deve permanecer sem eventos
+	 * antes de ser entregue.
+	 */
+	private final long estabilizacaoNanos;
+
+	/**
+	 * Arquivos aguardando estabiliza&ccedil;&atilde;o com o instante, em
+	 * nanossegundos, do &uacute;ltimo evento recebido para cada um.
+	 */
+	private final Map<Path, Long> aguardando = new LinkedHashMap<>();
+
+	/**
+	 * Indica se o monitoramento continua ativo.
+	 */
+	private volatile boolean ativo = true;
+
+	/**
+	 * Construtor respons&aacute;vel por registrar o {@link WatchService} nos
+	 * diret&oacute;rios informados.
+	 *
+	 * @param diretorios
+	 *            Diret&oacute;rios a serem monitorados.
+	 * @param filtro
+	 *            Filtro aplicado a cada caminho recebido nos eventos.
+	 * @param destino
+	 *            Destino de cada arquivo est&aacute;vel.
+	 * @param reconciliacao
+	 *            Varredura completa de um diret&oacute;rio.
+	 * @param estabilizacaoMillis
+	 *            Intervalo, em milissegundos, que um arquivo deve permanecer sem
+	 *            eventos antes de ser entregue.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel criar o {@link WatchService}
+	 *             ou registr&aacute;-lo em algum dos diret&oacute;rios.
+	 * @throws IllegalArgumentException
+	 *             Caso n&atilde;o seja informado nenhum diret&oacute;rio.
+	 */
+	MonitorDiretorio(final Collection<Path> diretorios, final Predicate<Path> filtro, final Consumer<Path> destino, final Consumer<Path> reconciliacao, final long estabilizacaoMillis)
+			throws IOException {
+		if (diretorios.isEmpty()) {
+			throw new IllegalArgumentException("Nenhum diret\u00F3rio informado.");
+		}
+
+		this.filtro = filtro;
+		this.destino = destino;
+		this.reconciliacao = reconciliacao;
+		this.estabilizacaoNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, estabilizacaoMillis));
+		this.watchService = diretorios.iterator().next().getFileSystem().newWatchService();
+
+		try {
+			for (final Path diretorio : diretorios) {
+				this.diretorios.put(diretorio.register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY), diretorio);
+			}
+		} catch (final IOException | RuntimeException e) {
+			this.watchService.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por iniciar o monitoramento em uma
+	 * <i>thread</i> pr&oacute;pria.
+	 */
+	void iniciar() {
+		final Thread thread = new Thread(this, "robo-monitor-diretorio");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	@Override
+	public void run() {
+		MonitorDiretorio.LOGGER.info("Monitoramento do(s) diret\u00F3rio(s) " + this.diretorios.values() + " iniciado.");
+
+		for (final Path diretorio : this.diretorios.values()) {
+			this.reconciliar(diretorio);
+		}
+
+		try {
+			while (this.ativo) {
+				// Sem arquivos aguardando estabilização podemos bloquear até o próximo evento.
+				final WatchKey chave = this.aguardando.isEmpty() ? this.watchService.take() : this.watchService.poll(this.estabilizacaoNanos, TimeUnit.NANOSECONDS);
+
+				if (chave != null) {
+					final Path diretorio = this.diretorios.get(chave);
+					this.registrarEventos(chave, diretorio);
+
+					if (!chave.reset()) {
+						this.diretorios.remove(chave);
+						MonitorDiretorio.LOGGER.error("Diret\u00F3rio " + diretorio + " n\u00E3o est\u00E1 mais acess\u00EDvel e deixou de ser monitorado.");
+
+						if (this.diretorios.isEmpty()) {
+							return;
+						}
+					}
+				}
+
+				this.entregarArquivosEstaveis();
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (final ClosedWatchServiceException e) {
+			// Encerramento solicitado através do método close().
+		}
+
+		MonitorDiretorio.LOGGER.info("Monitoramento do(s) diret\u00F3rio(s) " + this.diretorios.values() + " finalizado.");
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por registrar os eventos de uma chave,
+	 * executando a reconcilia&ccedil;&atilde;o em caso de perda de eventos.
+	 *
+	 * @param chave
+	 *            Chave sinalizada pelo {@link WatchService}.
+	 * @param diretorio
+	 *            Diret&oacute;rio registrado com a chave.
+	 */
+	private void registrarEventos(final WatchKey chave, final Path diretorio) {
+		final long agora = System.nanoTime();
+
+		for (final WatchEvent<?> evento : chave.pollEvents()) {
+			if (evento.kind() == StandardWatchEventKinds.OVERFLOW) {
+				MonitorDiretorio.LOGGER.warn("Eventos do diret\u00F3rio " + diretorio + " foram perdidos. Executando varredura de reconcilia\u00E7\u00E3o.");
+				this.aguardando.keySet().removeIf(caminho -> caminho.getParent().equals(diretorio));
+				this.reconciliar(diretorio);
+				continue;
+			}
+
+			final Path caminho = diretorio.resolve((Path) evento.context());
+			if (this.filtro.test(caminho)) {
+				// Reinsere para manter a ordem de chegada pelo último evento recebido.
+				this.aguardando.remove(caminho);
+				this.aguardando.put(caminho, Long.valueOf(agora));
+			}
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por entregar ao destino os arquivos que
+	 * est&atilde;o sem eventos h&aacute; pelo menos o intervalo de
+	 * estabiliza&ccedil;&atilde;o.
+	 */
+	private void entregarArquivosEstaveis() {
+		final long agora = System.nanoTime();
+
+		for (final Iterator<Map.Entry<Path, Long>> iterator = this.aguardando.entrySet().iterator(); iterator.hasNext();) {
+			final Map.Entry<Path, Long> entrada = iterator.next();
+
+			// Os arquivos estão ordenados pelo último evento, então o primeiro ainda
+			// instável encerra a busca.
+			if (agora - entrada.getValue().longValue() < this.estabilizacaoNanos) {
+				return;
+			}
+
+			iterator.remove();
+			if (Files.isRegularFile(entrada.getKey())) {
+				this.entregar(entrada.getKey());
+			}
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por entregar um arquivo ao destino sem
+	 * permitir que uma falha encerre o monitoramento.
+	 *
+	 * @param caminho
+	 *            Arquivo a ser entregue.
+	 */
+	private void entregar(final Path caminho) {
+		try {
+			this.destino.accept(caminho);
+		} catch (final RuntimeException e) {
+			MonitorDiretorio.LOGGER.error("Erro inesperado ao entregar arquivo " + caminho.getFileName() + ". ERRO: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por executar a varredura de
+	 * reconcilia&ccedil;&atilde;o de um diret&oacute;rio sem permitir que uma
+	 * falha encerre o monitoramento.
+	 *
+	 * @param diretorio
+	 *            Diret&oacute;rio a ser varrido.
+	 */
+	private void reconciliar(final Path diretorio) {
+		try {
+			this.reconciliacao.accept(diretorio);
+		} catch (final RuntimeException e) {
+			MonitorDiretorio.LOGGER.error("Erro inesperado na varredura de reconcilia\u00E7\u00E3o do diret\u00F3rio " + diretorio + ". ERRO: " + e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.ativo = false;
+		this.watchService.close();
+	}
+}
\ No newline at end of file
@@ -0,0 +1,347 @@
+package br.com.pgioseffi.requisicoes.soap;
+
+import java.nio.file.Path;
+
+/**
+ * <p>
+ * Classe respons&aacute;vel por extrair as extens&otilde;es e os nomes dos
+ * arquivos manipulados pelo rob&ocirc; e por classificar os mesmos.
+ * </p>
+ * <p>
+ * Os m&eacute;todos n&atilde;o dependem do estado do
+ * {@link ExecutaRequisicaoSOAP rob&ocirc;}, de maneira que possam ser
+ * executados isoladamente, inclusive pelos <i>benchmarks</i>, sem a
+ * inicializa&ccedil;&atilde;o do mesmo.
+ * </p>
+ *
+ * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
+ *         &lt;pgioseffi@gmail.com&gt;</a>
+ *
+ * @since 1.1.0
+ *
+ * @see ExecutaRequisicaoSOAP
+ */
+final class NomesArquivos {
+
+	/**
+	 * Construtor padr&atilde;o de maneira a evitar instancia&ccedil;&atilde;o da
+	 * classe.
+	 */
+	private NomesArquivos() {
+		super();
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por dado um arquivo f&iacute;sico do sistema
+	 * contendo o caminho absoluto do mesmo, retornar o pr&oacute;prio caminho sem a
+	 * extens&atilde;o do mesmo.
+	 *
+	 * @param caminho
+	 *            Objeto do tipo {@link Path} contendo a representa&ccedil;&atilde;o
+	 *            do caminho absoluto de um arquivo f&iacute;sico ou de seu nome.
+	 *
+	 * @return Objeto do tipo {@link String} contendo o caminho absoluto do
+	 *         {@link java.io.File arquivo} sem a sua extens&atilde;o.
+	 *
+	 * @see Path
+	 * @see NomesArquivos#substring(Path, boolean) substring(Path, boolean)
+	 */
+	static String recuperarCaminhoArquivoSemExtensao(final Path caminho) {
+		return NomesArquivos.substring(caminho, false);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por dado o caminho absoluto de um arquivo,
+	 * retornar sua extens&atilde;o com o s&iacute;mbolo de
+	 * &quot;<code><strong>.</strong></code>&quot;.
+	 *
+	 * @param caminho
+	 *            Objeto do tipo {@link Path} contendo a representa&ccedil;&atilde;o
+	 *            do caminho absoluto de um arquivo f&iacute;sico ou de seu nome.
+	 *
+	 * @return Objeto do tipo {@link String} contendo apenas a extens&atilde;o deste
+	 *         mesmo arquivo com o s&iacute;mbolo de
+	 *         &quot;<code><strong>.</strong></code>&quot;.
+	 *
+	 * @see Path
+	 * @see NomesArquivos#substring(Path) substring(Path)
+	 */
+	static String recuperarExtensaoArquivo(final Path caminho) {
+		return NomesArquivos.substring(caminho);
+	}
+
+	/**
+	 * Sobrecarga para o m&eacute;todo
+	 * {@link NomesArquivos#substring(Path, boolean) substring(Path,
+	 * boolean)} passando o par&acirc;metro <code><strong>reverso</strong></code> do
+	 * m&eacute;todo supracitado com o valor <code><strong>true</strong></code> por
+	 * padr&atilde;o.
+	 *
+	 * @param caminho
+	 *            Objeto do tipo {@link Path} contendo a representa&ccedil;&atilde;o
+	 *            do caminho absoluto de um arquivo f&iacute;sico ou de seu nome.
+	 *
+	 * @return Objeto do tipo {@link String} contendo a
+	 *         {@link String#substring(int)} quando o par&acirc;metro
+	 *         <code><strong>reverso</strong></code> est&aacute; com o valor
+	 *         <code><strong>true</strong></code> ou a
+	 *         {@link String#substring(int, int)} quando o par&acirc;metro
+	 *         <code><strong>reverso</strong></code> est&aacute; com o valor
+	 *         <code><strong>false</strong></code> da {@link String} retornada pelo
+	 *         m&eacute;todo {@link Path#toString()} em cima de
+	 *         {@link Path#getFileName()}.
+	 *
+	 * @see NomesArquivos#substring(Path, boolean) substring(Path, boolean)
+	 */
+	private static String substring(final Path caminho) {
+		return NomesArquivos.substring(caminho, true);
+	}
+
+	/**
+	 * Sobrecarga para o m&eacute;todo
+	 * {@link NomesArquivos#substring(Path, boolean, boolean)
+	 * substring(Path, boolean, boolean)} passando o par&acirc;metro
+	 * <code><strong>caracterSeparacao</strong></code> do m&eacute;todo supracitado
+	 * com o valor <code><strong>&quot;.&quot;</strong></code> por padr&atilde;o.
+	 *
+	 * @param caminho
+	 *            Objeto do tipo {@link Path} contendo a representa&ccedil;&atilde;o
+	 *            do caminho absoluto de um arquivo f&iacute;sico ou de seu nome.
+	 * @param reverso
+	 *            O intr&iacute;nseco <code><strong>boolean</strong></code> que
+	 *            determinar&aacute; se buscaremos at&eacute; acharmos a
+	 *            &uacute;ltima representa&ccedil;&atilde;o do caracter passado por
+	 *            par&acirc;metro <code><strong>caracterSeparacao</strong></code> ou
+	 *            a partir do mesmo conforme documenta&ccedil;&atilde;o do
+	 *            pr&oacute;prio m&eacute;todo.
+	 *
+	 * @return Objeto do tipo {@link String} contendo a
+	 *         {@link String#substring(int)} quando o par&acirc;metro
+	 *         <code><strong>reverso</strong></code> est&aacute; com o valor
+	 *         <code><strong>true</strong></code> ou a
+	 *         {@link String#substring(int, int)} quando o par&acirc;metro
+	 *         <code><strong>reverso</strong></code> est&aacute; com o valor
+	 *         <code><strong>false</strong></code> da {@link String} retornada pelo
+	 *         m&eacute;todo {@link Path#toString()} em cima de
+	 *         {@link Path#getFileName()}.
+	 *
+	 * @see NomesArquivos#substring(Path, boolean, boolean) substring(Path,
+	 *      boolean, boolean)
+	 */
+	private static String substring(final Path caminho, final boolean reverso) {
+		return NomesArquivos.substring(caminho, reverso, true);
+	}
+
+	/**
+	 * @param caminho
+	 *            Objeto do tipo {@link Path} contendo a representa&ccedil;&atilde;o
+	 *            do caminho absoluto de um arquivo f&iacute;sico ou de seu nome.
+	 * @param reverso
+	 *            O intr&iacute;nseco <code><strong>boolean</strong></code> que
+	 *            determinar&aacute; se buscaremos at&eacute; acharmos a
+	 *            &uacute;ltima representa&ccedil;&atilde;o do caracter passado por
+	 *            par&acirc;metro <code><strong>caracterSeparacao</strong></code> ou
+	 *            a partir do mesmo conforme documenta&ccedil;&atilde;o do
+	 *            pr&oacute;prio m&eacute;todo.
+	 * @param incluiCaracterSeparacao
+	 *            O intr&iacute;nseco <code><strong>boolean</strong></code> que
+	 *            determinar&aacute; se incluiremos ou n&atilde;o no objeto
+	 *            {@link String} de retorno o intr&iacute;nseco
+	 *            <code><strong>char</strong></code> passado no par&acirc;metro
+	 *            <code><strong>caracterSeparacao</strong></code>.
+	 * 
+	 * @return Objeto do tipo {@link String} contendo a
+	 *         {@link String#substring(int)} quando o par&acirc;metro
+	 *         <code><strong>reverso</strong></code> est&aacute; com o valor
+	 *         <code><strong>true</strong></code> ou a
+	 *         {@link String#substring(int, int)} quando o par&acirc;metro
+	 *         <code><strong>reverso</strong></code> est&aacute; com o valor
+	 *         <code><strong>false</strong></code> da {@link String} retornada pelo
+	 *         m&eacute;todo {@link Path#toString()} em cima de
+	 *         {@link Path#getFileName()}, incluindo ou n&atilde;o o
+	 *         intr&iacute;nseco <code><strong>char</strong></code> passado com o
+	 *         valor padr&atilde;o <code><strong>&quot;.&quot;</strong></code> de
+	 *         acordo com o valor do par&acirc;metro
+	 *         <code><strong>incluiCaracterSeparacao</strong></code> do
+	 *         intr&iacute;nseco <code><strong>boolean</strong></code>.
+	 *
+	 * @see NomesArquivos#substring(Path, boolean, boolean, char)
+	 *      substring(Path, boolean, boolean, char)
+	 */
+	private static String substring(final Path caminho, final boolean reverso, final boolean incluiCaracterSeparacao) {
+		return NomesArquivos.substring(caminho, reverso, incluiCaracterSeparacao, '.');
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por fazer o que faz o m&eacute;todo
+	 * {@link String#substring(int)} quando o par&acirc;metro
+	 * <code><strong>reverso</strong></code> est&aacute; com o valor
+	 * <code><strong>true</strong></code> e o que faz o m&eacute;todo
+	 * {@link String#substring(int, int)} quando o par&acirc;metro
+	 * <code><strong>reverso</strong></code> est&aacute; com o valor
+	 * <code><strong>false</strong></code> sem o overhead das
+	 * valida&ccedil;&otilde;es feitas em ambos os m&eacute;todos supracitados
+	 * levando em considera&ccedil;&atilde;o a &uacute;ltima posi&ccedil;&atilde;o
+	 * do par&acirc;metro <code><strong>caracterSeparacao</strong></code> obtido da
+	 * {@link String} retornada pelo m&eacute;todo {@link Path#toString()} em cima
+	 * de {@link Path#getFileName()}.
+	 *
+	 * @param caminho
+	 *            Objeto do tipo {@link Path} contendo a representa&ccedil;&atilde;o
+	 *            do caminho absoluto de um arquivo f&iacute;sico ou de seu nome.
+	 * @param reverso
+	 *            O intr&iacute;nseco <code><strong>boolean</strong></code> que
+	 *            determinar&aacute; se buscaremos at&eacute; acharmos a
+	 *            &uacute;ltima representa&ccedil;&atilde;o do caracter passado por
+	 *            par&acirc;metro <code><strong>caracterSeparacao</strong></code> ou
+	 *            a partir do mesmo conforme documenta&ccedil;&atilde;o do
+	 *            pr&oacute;prio m&eacute;todo.
+	 * @param incluiCaracterSeparacao
+	 *            O intr&iacute;nseco <code><strong>boolean</strong></code> que
+	 *            determinar&aacute; se incluiremos ou n&atilde;o no objeto
+	 *            {@link String} de retorno o intr&iacute;nseco
+	 *            <code><strong>char</strong></code> passado no par&acirc;metro
+	 *            <code><strong>caracterSeparacao</strong></code>.
+	 * @param caracterSeparacao
+	 *            O intr&iacute;nseco <code><strong>char</strong></code> contendo o
+	 *            valor do caracter que dever&aacute; ter sua &uacute;ltima
+	 *            ocorr&ecirc;ncia buscado na {@link String} obtida atrav&eacute;s
+	 *            do retorno do m&eacute;todo {@link Path#toString()} em cima de
+	 *            {@link Path#getFileName()} conforme documenta&ccedil;&atilde;o do
+	 *            pr&oacute;prio m&eacute;todo.
+	 *
+	 * @return Objeto do tipo {@link String} contendo a
+	 *         {@link String#substring(int)} quando o par&acirc;metro
+	 *         <code><strong>reverso</strong></code> est&aacute; com o valor
+	 *         <code><strong>true</strong></code> ou a
+	 *         {@link String#substring(int, int)} quando o par&acirc;metro
+	 *         <code><strong>reverso</strong></code> est&aacute; com o valor
+	 *         <code><strong>false</strong></code> da {@link String} retornada pelo
+	 *         m&eacute;todo {@link Path#toString()} em cima de
+	 *         {@link Path#getFileName()}, incluindo ou n&atilde;o o
+	 *         intr&iacute;nseco <code><strong>char</strong></code> passado no
+	 *         par&acirc;metro <code><strong>caracterSeparacao</strong></code> de
+	 *         acordo com o valor do par&acirc;metro
+	 *         <code><strong>incluiCaracterSeparacao</strong></code> do
+	 *         intr&iacute;nseco <code><strong>boolean</strong></code>.
+	 *
+	 * @see String
+	 * @see String#lastIndexOf(int)
+	 * @see String#substring(int)
+	 * @see String#substring(int, int)
+	 * @see Path
+	 * @see Path#getFileName()
+	 * @see Path#toString()
+	 */
+	static String substring(final Path caminho, final boolean reverso, final boolean incluiCaracterSeparacao, final char caracterSeparacao) {
+		final String nomeArquivo = caminho.getFileName().toString();
+		final int posicaoUltimoPonto = nomeArquivo.lastIndexOf(Character.isValidCodePoint(caracterSeparacao) ? caracterSeparacao : '.');
+		final char[] nomeArquivoAsCharArray = nomeArquivo.toCharArray();
+
+		final int novaPosicao = posicaoUltimoPonto + 1;
+
+		return reverso
+				? incluiCaracterSeparacao ? new String(nomeArquivoAsCharArray, posicaoUltimoPonto, nomeArquivoAsCharArray.length - posicaoUltimoPonto)
+						: new String(nomeArquivoAsCharArray, novaPosicao, nomeArquivoAsCharArray.length - novaPosicao)
+				: new String(nomeArquivoAsCharArray, 0, incluiCaracterSeparacao ? novaPosicao : posicaoUltimoPonto);
+
+		// if (reverso) {
+		// if (incluiCaracterSeparacao) {
+		// return new String(nomeArquivoAsCharArray, posicaoUltimoPonto,
+		// nomeArquivoAsCharArray.length - posicaoUltimoPonto);
+		// }
+		//
+		// return new String(nomeArquivoAsCharArray, novaPosicao,
+		// nomeArquivoAsCharArray.length - novaPosicao);
+		// }
+		//
+		// if (incluiCaracterSeparacao) {
+		// return new String(nomeArquivoAsCharArray, 0, posicaoUltimoPonto + 1);
+		// }
+		//
+		// return new String(nomeArquivoAsCharArray, 0, posicaoUltimoPonto);
+	}
+
+	/**
+	 * Sobrecarga para o m&eacute;todo
+	 * {@link NomesArquivos#isExtensaoValida(String)
+	 * isExtensaoValida(String)} passando o par&acirc;metro
+	 * <code><strong>caminho</strong></code> do tipo {@link Path} contendo a
+	 * representa&ccedil;&atilde;o do caminho absoluto de um arquivo f&iacute;sico
+	 * ou de seu nome, que ser&aacute; previamente utilizado pelo m&eacute;todo
+	 * {@link NomesArquivos#recuperarExtensaoArquivo(Path)
+	 * recuperarExtensaoArquivo(Path)} de maneira a retornar apenas a
+	 * extens&atilde;o contida no par&acirc;metro deste m&eacute;todo em si. Tal
+	 * retorno sim, ser&aacute; passado para o m&eacute;todo
+	 * {@link NomesArquivos#isExtensaoValida(String)
+	 * isExtensaoValida(String)}. Respostas
+	 * {@link ArquivoResposta#SUFIXO_GZIP compactadas} s&atilde;o reconhecidas
+	 * pela extens&atilde;o anterior ao sufixo.
+	 *
+	 * @param caminho
+	 *            Objeto do tipo {@link Path} contendo a representa&ccedil;&atilde;o
+	 *            do caminho absoluto de um arquivo f&iacute;sico ou de seu nome.
+	 *
+	 * @return O intr&iacute;nseco <code><strong>boolean</strong></code> contendo o
+	 *         valor <code><strong>true</strong></code> caso o valor do
+	 *         par&acirc;metro <code><strong>extensao</strong></code> seja igual
+	 *         &agrave constante {@link ExecutaRequisicaoSOAP#EXTENSAO_DOING
+	 *         EXTENSAO_DOING}, {@link ExecutaRequisicaoSOAP#EXTENSAO_DONE
+	 *         EXTENSAO_DONE} ou {@link ExecutaRequisicaoSOAP#EXTENSAO_DONE
+	 *         EXTENSAO_DONE} ou com o valor <code><strong>false</strong></code>
+	 *         caso contr&aacute;rio.
+	 *
+	 * @see Path
+	 * @String
+	 * @see NomesArquivos#isExtensaoValida(String) isExtensaoValida(String)
+	 * @see NomesArquivos#recuperarExtensaoArquivo(Path)
+	 *      recuperarExtensaoArquivo(Path)
+	 */
+	static boolean isExtensaoValida(final Path caminho) {
+		// Apenas respostas recebem o sufixo de compressão. Outros arquivos gz no
+		// diretório não pertencem ao robô.
+		final String nome = caminho.getFileName().toString();
+		if (nome.endsWith(ArquivoResposta.SUFIXO_GZIP)) {
+			return nome.endsWith(ExecutaRequisicaoSOAP.EXTENSAO_RESPONSE + ArquivoResposta.SUFIXO_GZIP);
+		}
+
+		return NomesArquivos.isExtensaoValida(NomesArquivos.recuperarExtensaoArquivo(caminho));
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retornar o intr&iacute;nseco
+	 * <code><strong>boolean</strong></code> contendo o valor
+	 * <code><strong>true</strong></code> caso o valor do par&acirc;metro
+	 * <code><strong>extensao</strong></code> seja igual &agrave constante
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_DOING EXTENSAO_DOING},
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_DONE EXTENSAO_DONE} ou
+	 * {@link ExecutaRequisicaoSOAP#EXTENSAO_DONE EXTENSAO_DONE} ou com o valor
+	 * <code><strong>false</strong></code> caso contr&aacute;rio. Arquivos
+	 * {@link ArquivoResposta#EXTENSAO_TEMPORARIA tempor&aacute;rios} de resposta
+	 * tamb&eacute;m s&atilde;o considerados v&aacute;lidos, de maneira que sobras
+	 * de uma execu&ccedil;&atilde;o interrompida sejam exclu&iacute;das, assim
+	 * como os {@link ExecutaRequisicaoSOAP#EXTENSAO_ANEXO anexos} das respostas.
+	 *
+	 * @param extensao
+	 *            Objeto do tipo {@link String} contendo o valor da extens&atilde;o
+	 *            de arquivo a ser testada.
+	 *
+	 * @return O intr&iacute;nseco <code><strong>boolean</strong></code> contendo o
+	 *         valor <code><strong>true</strong></code> caso o valor do
+	 *         par&acirc;metro <code><strong>extensao</strong></code> seja igual
+	 *         &agrave constante {@link ExecutaRequisicaoSOAP#EXTENSAO_DOING
+	 *         EXTENSAO_DOING}, {@link ExecutaRequisicaoSOAP#EXTENSAO_DONE
+	 *         EXTENSAO_DONE} ou {@link ExecutaRequisicaoSOAP#EXTENSAO_DONE
+	 *         EXTENSAO_DONE} ou com o valor <code><strong>false</strong></code>
+	 *         caso contr&aacute;rio.
+	 *
+	 * @see ExecutaRequisicaoSOAP#EXTENSAO_DOING EXTENSAO_DOING
+	 * @see ExecutaRequisicaoSOAP#EXTENSAO_DONE EXTENSAO_DONE
+	 * @see ExecutaRequisicaoSOAP#EXTENSAO_DONE EXTENSAO_DONE
+	 * @see ArquivoResposta#EXTENSAO_TEMPORARIA
+	 */
+	static boolean isExtensaoValida(final String extensao) {
+		return extensao.endsWith(ExecutaRequisicaoSOAP.EXTENSAO_DOING) || extensao.endsWith(ExecutaRequisicaoSOAP.EXTENSAO_DONE) || extensao.endsWith(ExecutaRequisicaoSOAP.EXTENSAO_RESPONSE)
+				|| extensao.endsWith(ExecutaRequisicaoSOAP.EXTENSAO_ANEXO) || extensao.endsWith(ArquivoResposta.EXTENSAO_TEMPORARIA);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,431 @@
+package br.com.pgioseffi.requisicoes.soap;
+
+import java.io.Closeable;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.soap.SOAPConnection;
+import javax.xml.soap.SOAPConnectionFactory;
+import javax.xml.soap.SOAPException;
+import javax.xml.soap.SOAPMessage;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * <p>
+ * Classe respons&aacute;vel por manter, por endpoint, as conex&otilde;es SOAP
+ * utilizadas pelo rob&ocirc;.
+ * </p>
+ * <p>
+ * A {@link SOAPConnectionFactory f&aacute;brica de conex&otilde;es} &eacute;
+ * obtida uma &uacute;nica vez e as {@link SOAPConnection conex&otilde;es}
+ * s&atilde;o reaproveitadas entre requisi&ccedil;&otilde;es para a mesma URL,
+ * limitadas a uma quantidade m&aacute;xima simult&acirc;nea por endpoint e
+ * fechadas ap&oacute;s ficarem ociosas pelo tempo configurado.
+ * </p>
+ * <p>
+ * As chamadas s&atilde;o feitas atrav&eacute;s de uma {@link URL} com o
+ * {@link ManipuladorUrlPersistente manipulador} que preserva o
+ * <i>keep-alive</i> HTTP, de maneira que o <i>socket</i> (e o <i>handshake</i>
+ * TLS) seja reaproveitado pela JVM. O limite de <i>sockets</i> ociosos mantidos
+ * por destino &eacute; a propriedade de sistema
+ * <code>http.maxConnections</code>, que &eacute; ajustada para o mesmo limite
+ * por endpoint caso n&atilde;o tenha sido informada.
+ * </p>
+ *
+ * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
+ *         &lt;pgioseffi@gmail.com&gt;</a>
+ *
+ * @since 1.1.0
+ *
+ * @see ExecutaRequisicaoSOAP
+ * @see ManipuladorUrlPersistente
+ * @see SOAPConnectionFactory
+ * @see SOAPConnection
+ */
+final class PoolConexoesSOAP implements Closeable {
+
+	/**
+	 * Constante utilizada para manter o {@link Logger log} da classe.
+	 *
+	 * @see Logger
+	 */
+	private static final Logger LOGGER = LogManager.getLogger(PoolConexoesSOAP.class);
+
+	/**
+	 * F&aacute;brica de conex&otilde;es obtida uma &uacute;nica vez.
+	 */
+	private final SOAPConnectionFactory fabrica;
+
+	/**
+	 * Manipulador compartilhado pelas {@link URL URLs} dos endpoints, com os
+	 * tempos m&aacute;ximos padr&atilde;o.
+	 */
+	private final ManipuladorUrlPersistente manipulador;
+
+	/**
+	 * Tempo m&aacute;ximo padr&atilde;o, em milissegundos, para estabelecer a
+	 * conex&atilde;o.
+	 */
+	private final int timeoutConexao;
+
+	/**
+	 * Tempo m&aacute;ximo padr&atilde;o, em milissegundos, de espera por dados da
+	 * resposta.
+	 */
+	private final int timeoutLeitura;
+
+	/**
+	 * Quantidade m&aacute;xima de conex&otilde;es simult&acirc;neas por endpoint.
+	 */
+	private final int maximoPorEndpoint;
+
+	/**
+	 * Tempo m&aacute;ximo, em nanossegundos, que uma conex&atilde;o pode ficar
+	 * ociosa antes de ser fechada.
+	 */
+	private final long ociosidadeMaximaNanos;
+
+	/**
+	 * Endpoints conhecidos indexados pela URL.
+	 */
+	private final ConcurrentMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+	/**
+	 * Indica se o pool j&aacute; foi fechado.
+	 */
+	private volatile boolean fechado;
+
+	/**
+	 * Construtor respons&aacute;vel por obter a f&aacute;brica de conex&otilde;es
+	 * e configurar os limites do pool.
+	 *
+	 * @param maximoPorEndpoint
+	 *            Quantidade m&aacute;xima de conex&otilde;es simult&acirc;neas por
+	 *            endpoint.
+	 * @param ociosidadeMaxima
+	 *            Tempo m&aacute;ximo que uma conex&atilde;o pode ficar ociosa.
+	 * @param unidade
+	 *            Unidade do tempo m&aacute;ximo de ociosidade.
+	 * @param timeoutConexao
+	 *            Tempo m&aacute;ximo padr&atilde;o, em milissegundos, para
+	 *            estabelecer a conex&atilde;o. Zero indica sem limite.
+	 * @param timeoutLeitura
+	 *            Tempo m&aacute;ximo padr&atilde;o, em milissegundos, de espera por
+	 *            dados da resposta. Zero indica sem limite.
+	 *
+	 * @throws SOAPException
+	 *             Lan&ccedil;ada pelo m&eacute;todo
+	 *             {@link SOAPConnectionFactory#newInstance()}.
+	 */
+	PoolConexoesSOAP(final int maximoPorEndpoint, final long ociosidadeMaxima, final TimeUnit unidade, final int timeoutConexao, final int timeoutLeitura) throws SOAPException {
+		this.maximoPorEndpoint = Math.max(1, maximoPorEndpoint);
+		this.ociosidadeMaximaNanos = unidade.toNanos(ociosidadeMaxima);
+		this.timeoutConexao = timeoutConexao;
+		this.timeoutLeitura = timeoutLeitura;
+		this.manipulador = new ManipuladorUrlPersistente(timeoutConexao, timeoutLeitura);
+
+		// Precisa ser definida antes da primeira conexão HTTP da JVM, pois é lida uma
+		// única vez pelo cache de keep-alive.
+		if (System.getProperty("http.maxConnections") == null) {
+			System.setProperty("http.maxConnections", String.valueOf(this.maximoPorEndpoint));
+		}
+
+		this.fabrica = SOAPConnectionFactory.newInstance();
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por executar a chamada SOAP utilizando uma
+	 * conex&atilde;o do pool do endpoint, aguardando caso o limite de
+	 * conex&otilde;es simult&acirc;neas do mesmo tenha sido atingido.
+	 *
+	 * @param mensagem
+	 *            Mensagem SOAP a ser enviada.
+	 * @param url
+	 *            URL do endpoint.
+	 * @param timeoutConexao
+	 *            Tempo m&aacute;ximo, em milissegundos, para estabelecer a
+	 *            conex&atilde;o.
+	 * @param timeoutLeitura
+	 *            Tempo m&aacute;ximo, em milissegundos, de espera por dados da
+	 *            resposta.
+	 *
+	 * @return A resposta da chamada SOAP.
+	 *
+	 * @throws SOAPException
+	 *             Lan&ccedil;ada pela chamada SOAP, inclusive quando um dos tempos
+	 *             m&aacute;ximos &eacute; excedido, ou caso a URL seja
+	 *             inv&aacute;lida.
+	 * @throws InterruptedException
+	 *             Caso a <i>thread</i> seja interrompida enquanto aguarda uma
+	 *             conex&atilde;o.
+	 *
+	 * @see SOAPConnection#call(SOAPMessage, Object)
+	 */
+	SOAPMessage chamar(final SOAPMessage mensagem, final String url, final int timeoutConexao, final int timeoutLeitura) throws SOAPException, InterruptedException {
+		if (this.fechado) {
+			throw new SOAPException("Pool de conex\u00F5es SOAP fechado.");
+		}
+
+		final Endpoint endpoint = this.recuperarEndpoint(url);
+		endpoint.permissoes.acquire();
+
+		SOAPConnection conexao = null;
+		boolean sucesso = false;
+		try {
+			conexao = endpoint.retirar();
+			if (conexao == null) {
+				conexao = this.fabrica.createConnection();
+			}
+
+			final SOAPMessage resposta = conexao.call(mensagem, this.recuperarUrl(endpoint, url, timeoutConexao, timeoutLeitura));
+			sucesso = true;
+			return resposta;
+		} finally {
+			// Conexões que falharam são descartadas para não contaminar o pool.
+			if (sucesso && !this.fechado) {
+				endpoint.devolver(conexao);
+			} else {
+				PoolConexoesSOAP.fechar(conexao);
+			}
+
+			endpoint.permissoes.release();
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por recuperar a {@link URL} a ser chamada:
+	 * a do endpoint quando os tempos m&aacute;ximos s&atilde;o os padr&otilde;es
+	 * ou uma nova, com um manipulador pr&oacute;prio, quando o arquivo os
+	 * sobrescreve.
+	 *
+	 * @param endpoint
+	 *            Endpoint da URL.
+	 * @param url
+	 *            URL do endpoint.
+	 * @param timeoutConexao
+	 *            Tempo m&aacute;ximo, em milissegundos, para estabelecer a
+	 *            conex&atilde;o.
+	 * @param timeoutLeitura
+	 *            Tempo m&aacute;ximo, em milissegundos, de espera por dados da
+	 *            resposta.
+	 *
+	 * @return A {@link URL} a ser chamada.
+	 *
+	 * @throws SOAPException
+	 *             Caso a URL seja inv&aacute;lida.
+	 */
+	private URL recuperarUrl(final Endpoint endpoint, final String url, final int timeoutConexao, final int timeoutLeitura) throws SOAPException {
+		if (timeoutConexao == this.timeoutConexao && timeoutLeitura == this.timeoutLeitura) {
+			return endpoint.url;
+		}
+
+		try {
+			return new URL(null, url, new ManipuladorUrlPersistente(timeoutConexao, timeoutLeitura));
+		} catch (final MalformedURLException e) {
+			throw new SOAPException("URL inv\u00E1lida: " + url, e);
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por recuperar ou criar o endpoint da URL
+	 * informada.
+	 *
+	 * @param url
+	 *            URL do endpoint.
+	 *
+	 * @return O endpoint da URL.
+	 *
+	 * @throws SOAPException
+	 *             Caso a URL seja inv&aacute;lida.
+	 */
+	private Endpoint recuperarEndpoint(final String url) throws SOAPException {
+		final Endpoint existente = this.endpoints.get(url);
+		if (existente != null) {
+			return existente;
+		}
+
+		try {
+			final Endpoint novo = new Endpoint(new URL(null, url, this.manipulador), this.maximoPorEndpoint);
+			final Endpoint anterior = this.endpoints.putIfAbsent(url, novo);
+			return anterior == null ? novo : anterior;
+		} catch (final MalformedURLException e) {
+			throw new SOAPException("URL inv\u00E1lida: " + url, e);
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por fechar as conex&otilde;es ociosas
+	 * h&aacute; mais tempo que o m&aacute;ximo configurado. Deve ser chamado
+	 * periodicamente.
+	 */
+	void removerConexoesOciosas() {
+		final long limite = System.nanoTime() - this.ociosidadeMaximaNanos;
+		int removidas = 0;
+
+		for (final Endpoint endpoint : this.endpoints.values()) {
+			removidas += endpoint.removerOciosas(limite);
+		}
+
+		if (removidas > 0) {
+			PoolConexoesSOAP.LOGGER.info(removidas + " conex\u00E3o(\u00F5es) SOAP ociosa(s) fechada(s).");
+		}
+	}
+
+	@Override
+	public void close() {
+		this.fechado = true;
+
+		for (final Endpoint endpoint : this.endpoints.values()) {
+			endpoint.removerOciosas(Long.MAX_VALUE);
+		}
+
+		this.endpoints.clear();
+		PoolConexoesSOAP.LOGGER.info("Pool de conex\u00F5es SOAP fechado.");
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por fechar uma conex&atilde;o ignorando
+	 * falhas, visto que a mesma est&aacute; sendo descartada.
+	 *
+	 * @param conexao
+	 *            Conex&atilde;o a ser fechada. Pode ser
+	 *            <code><strong>null</strong></code>.
+	 */
+	private static void fechar(final SOAPConnection conexao) {
+		if (conexao == null) {
+			return;
+		}
+
+		try {
+			conexao.close();
+		} catch (final SOAPException e) {
+			PoolConexoesSOAP.LOGGER.debug("Falha ao fechar conex\u00E3o SOAP descartada. ERRO: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Classe respons&aacute;vel por manter as conex&otilde;es ociosas e o limite
+	 * de conex&otilde;es simult&acirc;neas de um &uacute;nico endpoint.
+	 */
+	private static final class Endpoint {
+
+		/**
+		 * URL do endpoint com o {@link ManipuladorUrlPersistente manipulador} que
+		 * preserva o <i>keep-alive</i>.
+		 */
+		private final URL url;
+
+		/**
+		 * Sem&aacute;foro que limita as conex&otilde;es simult&acirc;neas.
+		 */
+		private final Semaphore permissoes;
+
+		/**
+		 * Conex&otilde;es ociosas, da mais recente para a mais antiga.
+		 */
+		private final Deque<ConexaoOciosa> ociosas = new ArrayDeque<>();
+
+		/**
+		 * Construtor respons&aacute;vel por criar o endpoint.
+		 *
+		 * @param url
+		 *            URL do endpoint.
+		 * @param maximo
+		 *            Quantidade m&aacute;xima de conex&otilde;es simult&acirc;neas.
+		 */
+		Endpoint(final URL url, final int maximo) {
+			this.url = url;
+			this.permissoes = new Semaphore(maximo);
+		}
+
+		/**
+		 * M&eacute;todo respons&aacute;vel por retirar a conex&atilde;o ociosa mais
+		 * recente.
+		 *
+		 * @return A conex&atilde;o ou <code><strong>null</strong></code> caso
+		 *         n&atilde;o haja conex&otilde;es ociosas.
+		 */
+		synchronized SOAPConnection retirar() {
+			final ConexaoOciosa ociosa = this.ociosas.pollFirst();
+			return ociosa == null ? null : ociosa.conexao;
+		}
+
+		/**
+		 * M&eacute;todo respons&aacute;vel por devolver uma conex&atilde;o ao pool.
+		 *
+		 * @param conexao
+		 *            Conex&atilde;o a ser devolvida.
+		 */
+		synchronized void devolver(final SOAPConnection conexao) {
+			this.ociosas.offerFirst(new ConexaoOciosa(conexao, System.nanoTime()));
+		}
+
+		/**
+		 * M&eacute;todo respons&aacute;vel por fechar as conex&otilde;es ociosas
+		 * desde antes do instante informado.
+		 *
+		 * @param limite
+		 *            Instante, em nanossegundos, a partir do qual as conex&otilde;es
+		 *            s&atilde;o mantidas.
+		 *
+		 * @return A quantidade de conex&otilde;es fechadas.
+		 */
+		synchronized int removerOciosas(final long limite) {
+			int removidas = 0;
+
+			// As mais antigas ficam no fim da fila.
+			for (final Iterator<ConexaoOciosa> iterator = this.ociosas.descendingIterator(); iterator.hasNext();) {
+				final ConexaoOciosa ociosa = iterator.next();
+				if (limite != Long.MAX_VALUE && ociosa.desde - limite >= 0) {
+					break;
+				}
+
+				iterator.remove();
+				PoolConexoesSOAP.fechar(ociosa.conexao);
+				removidas++;
+			}
+
+			return removidas;
+		}
+	}
+
+	/**
+	 * Classe respons&aacute;vel por manter uma conex&atilde;o ociosa e o instante
+	 * em que a mesma foi devolvida ao pool.
+	 */
+	private static final class ConexaoOciosa {
+
+		/**
+		 * Conex&atilde;o ociosa.
+		 */
+		private final SOAPConnection conexao;
+
+		/**
+		 * Instante, em nanossegundos, em que a conex&atilde;o foi devolvida.
+		 */
+		private final long desde;
+
+		/**
+		 * Construtor respons&aacute;vel por criar a conex&atilde;o ociosa.
+		 *
+		 * @param conexao
+		 *            Conex&atilde;o ociosa.
+		 * @param desde
+		 *            Instante, em nanossegundos, em que a conex&atilde;o foi
+		 *            devolvida.
+		 */
+		ConexaoOciosa(final SOAPConnection conexao, final long desde) {
+			this.conexao = conexao;
+			this.desde = desde;
+		}
+	}
+}
\ No newline at end of file
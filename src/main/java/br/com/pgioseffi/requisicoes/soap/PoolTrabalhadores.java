@@ -0,0 +1,370 @@
+package br.com.pgioseffi.requisicoes.soap;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * <p>
+ * Classe respons&aacute;vel por manter o conjunto limitado de trabalhadores que
+ * executam as requisi&ccedil;&otilde;es SOAP de maneira concorrente.
+ * </p>
+ * <p>
+ * Quando a JVM oferece <i>threads</i> virtuais (Java 21 ou superior) e estas
+ * est&atilde;o habilitadas, cada tarefa ganha sua pr&oacute;pria
+ * <i>thread</i> virtual e a concorr&ecirc;ncia &eacute; limitada por um
+ * {@link Semaphore sem&aacute;foro}. Caso contr&aacute;rio &eacute; utilizado
+ * um {@link ThreadPoolExecutor pool} fixo de <i>threads</i> de plataforma.
+ * </p>
+ * <p>
+ * Em ambos os casos a quantidade de tarefas aceitas (em execu&ccedil;&atilde;o
+ * mais aguardando na fila) &eacute; limitada, bloqueando quem submete quando a
+ * fila est&aacute; cheia ao inv&eacute;s de rejeitar a tarefa.
+ * </p>
+ * <p>
+ * Cada tarefa devolve um {@link CompletableFuture} e s&oacute; deixa de contar
+ * como aceita quando o mesmo &eacute; completado. Desta maneira, com um
+ * {@link TransporteSOAP transporte} n&atilde;o bloqueante, o trabalhador
+ * &eacute; liberado assim que a requisi&ccedil;&atilde;o &eacute; enviada,
+ * enquanto o limite de tarefas aceitas passa a limitar as
+ * requisi&ccedil;&otilde;es aguardando resposta.
+ * </p>
+ * <p>
+ * Com {@link FilaPonderada faixas de prioridade}, cada tarefa aceita &eacute;
+ * enfileirada na sua faixa e o executor recebe apenas um aviso de que
+ * h&aacute; uma tarefa a mais. A tarefa executada &eacute; escolhida pelo
+ * enfileiramento justo ponderado no momento em que um trabalhador fica livre,
+ * de maneira que uma tarefa urgente passe &agrave; frente das que
+ * j&aacute; aguardavam em faixas de menor peso.
+ * </p>
+ *
+ * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
+ *         &lt;pgioseffi@gmail.com&gt;</a>
+ *
+ * @since 1.1.0
+ *
+ * @see ExecutaRequisicaoSOAP
+ * @see ExecutorService
+ * @see Semaphore
+ */
+final class PoolTrabalhadores {
+
+	/**
+	 * Constante utilizada para manter o {@link Logger log} da classe.
+	 *
+	 * @see Logger
+	 */
+	private static final Logger LOGGER = LogManager.getLogger(PoolTrabalhadores.class);
+
+	/**
+	 * Objeto {@link ExecutorService} que efetivamente executa as tarefas.
+	 */
+	private final ExecutorService executor;
+
+	/**
+	 * Sem&aacute;foro que limita a quantidade de tarefas aceitas, isto &eacute;,
+	 * em execu&ccedil;&atilde;o, aguardando na fila ou aguardando o
+	 * t&eacute;rmino do futuro devolvido.
+	 */
+	private final Semaphore admissao;
+
+	/**
+	 * Sem&aacute;foro que limita a quantidade de tarefas em execu&ccedil;&atilde;o
+	 * simult&acirc;nea quando utilizamos <i>threads</i> virtuais. Ser&aacute;
+	 * <code><strong>null</strong></code> quando utilizarmos o pool de
+	 * <i>threads</i> de plataforma, pois o pr&oacute;prio pool j&aacute; limita.
+	 */
+	private final Semaphore execucao;
+
+	/**
+	 * Faixas de prioridade das tarefas aceitas e ainda n&atilde;o iniciadas.
+	 * Ser&aacute; <code><strong>null</strong></code> quando as tarefas forem
+	 * executadas em ordem de chegada.
+	 */
+	private final FilaPonderada<Pendente> faixas;
+
+	/**
+	 * Construtor respons&aacute;vel por criar o pool de trabalhadores.
+	 *
+	 * @param trabalhadores
+	 *            Quantidade m&aacute;xima de tarefas em execu&ccedil;&atilde;o
+	 *            simult&acirc;nea.
+	 * @param tamanhoFila
+	 *            Quantidade m&aacute;xima de tarefas aguardando execu&ccedil;&atilde;o.
+	 * @param threadsVirtuais
+	 *            Indica se devemos utilizar <i>threads</i> virtuais quando a JVM
+	 *            as suportar.
+	 * @param pesosFaixas
+	 *            Pesos das {@link FilaPonderada faixas de prioridade}, indexados
+	 *            pelo nome. Vazio para executar as tarefas em ordem de chegada.
+	 * @param faixaPadrao
+	 *            Faixa das tarefas submetidas sem faixa.
+	 */
+	PoolTrabalhadores(final int trabalhadores, final int tamanhoFila, final boolean threadsVirtuais, final Map<String, Integer> pesosFaixas, final String faixaPadrao) {
+		final int quantidadeTrabalhadores = Math.max(1, trabalhadores);
+		final int quantidadeFila = Math.max(0, tamanhoFila);
+
+		this.faixas = pesosFaixas.isEmpty() ? null : new FilaPonderada<>(pesosFaixas, faixaPadrao);
+		if (this.faixas != null) {
+			PoolTrabalhadores.LOGGER.info("Faixas de prioridade habilitadas: " + this.faixas.getPesos() + ".");
+		}
+
+		this.admissao = new Semaphore(quantidadeTrabalhadores + quantidadeFila);
+
+		final ExecutorService virtual = threadsVirtuais ? PoolTrabalhadores.criarExecutorThreadsVirtuais() : null;
+		if (virtual != null) {
+			this.executor = virtual;
+			this.execucao = new Semaphore(quantidadeTrabalhadores);
+			PoolTrabalhadores.LOGGER.info("Pool de trabalhadores iniciado com threads virtuais. Limite de concorr\u00EAncia: " + quantidadeTrabalhadores + ". Tamanho da fila: " + quantidadeFila + ".");
+		} else {
+			final AtomicInteger contador = new AtomicInteger();
+			final ThreadFactory fabrica = runnable -> {
+				final Thread thread = new Thread(runnable, "robo-trabalhador-" + contador.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			};
+
+			// A fila nunca rejeitará tarefas, pois o semáforo de admissão garante que não
+			// submetemos mais do que cabe nela. A vaga é devolvida pelo próprio trabalhador
+			// ao fim da tarefa, antes de o mesmo voltar a consumir a fila, então a fila
+			// também comporta uma tarefa por trabalhador.
+			this.executor = new ThreadPoolExecutor(quantidadeTrabalhadores, quantidadeTrabalhadores, 0L, TimeUnit.MILLISECONDS,
+					new ArrayBlockingQueue<>(quantidadeTrabalhadores + quantidadeFila), fabrica);
+			this.execucao = null;
+			PoolTrabalhadores.LOGGER.info("Pool de trabalhadores iniciado com threads de plataforma. Trabalhadores: " + quantidadeTrabalhadores + ". Tamanho da fila: " + quantidadeFila + ".");
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por criar, atrav&eacute;s de
+	 * reflex&atilde;o, um {@link ExecutorService} com uma <i>thread</i> virtual por
+	 * tarefa, visto que o rob&ocirc; &eacute; compilado para Java 8.
+	 *
+	 * @return O {@link ExecutorService} de <i>threads</i> virtuais ou
+	 *         <code><strong>null</strong></code> caso a JVM n&atilde;o as
+	 *         suporte.
+	 */
+	private static ExecutorService criarExecutorThreadsVirtuais() {
+		try {
+			final Method metodo = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) metodo.invoke(null);
+		} catch (final ReflectiveOperationException | RuntimeException e) {
+			PoolTrabalhadores.LOGGER.info("JVM sem suporte a threads virtuais. Utilizando pool de threads de plataforma.");
+			return null;
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por indicar se o nome informado &eacute;
+	 * uma das {@link FilaPonderada faixas de prioridade} do pool.
+	 *
+	 * @param faixa
+	 *            Nome da faixa.
+	 *
+	 * @return O intr&iacute;nseco <code><strong>boolean</strong></code> contendo o
+	 *         valor <code><strong>true</strong></code> caso a faixa exista ou
+	 *         <code><strong>false</strong></code> caso contr&aacute;rio ou caso
+	 *         o pool n&atilde;o tenha faixas.
+	 */
+	boolean isFaixa(final String faixa) {
+		return this.faixas != null && this.faixas.isFaixa(faixa);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por indicar se o pool utiliza
+	 * {@link FilaPonderada faixas de prioridade}.
+	 *
+	 * @return O intr&iacute;nseco <code><strong>boolean</strong></code> contendo o
+	 *         valor <code><strong>true</strong></code> caso utilize ou
+	 *         <code><strong>false</strong></code> caso as tarefas sejam executadas
+	 *         em ordem de chegada.
+	 */
+	boolean isPriorizado() {
+		return this.faixas != null;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por resumir, para o log, a profundidade
+	 * e a espera de cada {@link FilaPonderada faixa de prioridade}.
+	 *
+	 * @return O resumo das faixas ou <code><strong>null</strong></code> caso o
+	 *         pool n&atilde;o tenha faixas.
+	 *
+	 * @see FilaPonderada#resumir()
+	 */
+	String resumirFaixas() {
+		return this.faixas == null ? null : this.faixas.resumir();
+	}
+
+	/**
+	 * Sobrecarga para o m&eacute;todo
+	 * {@link PoolTrabalhadores#submeter(String, Supplier) submeter(String,
+	 * Supplier)} submetendo a tarefa na faixa padr&atilde;o.
+	 *
+	 * @param tarefa
+	 *            Tarefa a ser executada. O futuro devolvido pela mesma indica o
+	 *            seu t&eacute;rmino.
+	 *
+	 * @return Objeto {@link CompletableFuture} completado ao t&eacute;rmino do
+	 *         futuro devolvido pela tarefa, com ou sem sucesso.
+	 *
+	 * @throws InterruptedException
+	 *             Caso a <i>thread</i> chamadora seja interrompida enquanto aguarda
+	 *             espa&ccedil;o na fila.
+	 */
+	CompletableFuture<Void> submeter(final Supplier<CompletableFuture<Void>> tarefa) throws InterruptedException {
+		return this.submeter(null, tarefa);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por submeter uma tarefa ao pool,
+	 * bloqueando a <i>thread</i> chamadora enquanto a fila estiver cheia.
+	 *
+	 * @param faixa
+	 *            {@link FilaPonderada Faixa de prioridade} da tarefa. Ignorada
+	 *            quando o pool n&atilde;o tem faixas e, quando
+	 *            <code><strong>null</strong></code> ou desconhecida, substitu&iacute;da
+	 *            pela faixa padr&atilde;o.
+	 * @param tarefa
+	 *            Tarefa a ser executada. O futuro devolvido pela mesma indica o
+	 *            seu t&eacute;rmino.
+	 *
+	 * @return Objeto {@link CompletableFuture} completado ao t&eacute;rmino do
+	 *         futuro devolvido pela tarefa, com ou sem sucesso.
+	 *
+	 * @throws InterruptedException
+	 *             Caso a <i>thread</i> chamadora seja interrompida enquanto aguarda
+	 *             espa&ccedil;o na fila.
+	 */
+	CompletableFuture<Void> submeter(final String faixa, final Supplier<CompletableFuture<Void>> tarefa) throws InterruptedException {
+		this.admissao.acquire();
+
+		final Pendente pendente = new Pendente(tarefa);
+		final Runnable execucaoTarefa;
+		if (this.faixas == null) {
+			execucaoTarefa = () -> this.executar(pendente);
+		} else {
+			// O executor recebe apenas o aviso. A tarefa é escolhida quando o aviso for
+			// atendido.
+			this.faixas.adicionar(faixa, pendente);
+			execucaoTarefa = () -> this.executar(null);
+		}
+
+		try {
+			this.executor.execute(execucaoTarefa);
+		} catch (final RuntimeException e) {
+			if (this.faixas != null) {
+				this.faixas.remover(pendente);
+			}
+
+			this.admissao.release();
+			throw e;
+		}
+
+		return pendente.termino;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por executar uma tarefa respeitando o
+	 * limite de concorr&ecirc;ncia quando utilizamos <i>threads</i> virtuais. O
+	 * limite vale apenas para a parte s&iacute;ncrona da tarefa. A vaga de
+	 * admiss&atilde;o &eacute; devolvida ao t&eacute;rmino do futuro da tarefa.
+	 *
+	 * @param tarefa
+	 *            Tarefa a ser executada ou <code><strong>null</strong></code> para
+	 *            retirar a pr&oacute;xima das {@link FilaPonderada faixas}
+	 *            ap&oacute;s obter a vaga de execu&ccedil;&atilde;o.
+	 */
+	private void executar(final Pendente tarefa) {
+		if (this.execucao != null) {
+			this.execucao.acquireUninterruptibly();
+		}
+
+		final Pendente pendente;
+		CompletableFuture<Void> futuro;
+		try {
+			pendente = tarefa != null ? tarefa : this.faixas.retirar();
+			try {
+				futuro = pendente.tarefa.get();
+			} catch (final RuntimeException | Error e) {
+				futuro = new CompletableFuture<>();
+				futuro.completeExceptionally(e);
+			}
+		} finally {
+			if (this.execucao != null) {
+				this.execucao.release();
+			}
+		}
+
+		futuro.whenComplete((nada, erro) -> {
+			this.admissao.release();
+			if (erro == null) {
+				pendente.termino.complete(null);
+			} else {
+				pendente.termino.completeExceptionally(erro);
+			}
+		});
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por encerrar o pool aguardando as tarefas
+	 * em andamento pelo tempo informado.
+	 *
+	 * @param tempo
+	 *            Tempo m&aacute;ximo de espera.
+	 * @param unidade
+	 *            Unidade do tempo de espera.
+	 */
+	void encerrar(final long tempo, final TimeUnit unidade) {
+		this.executor.shutdown();
+
+		try {
+			if (!this.executor.awaitTermination(tempo, unidade)) {
+				PoolTrabalhadores.LOGGER.warn("Pool de trabalhadores encerrado com tarefas ainda em andamento.");
+				this.executor.shutdownNow();
+			}
+		} catch (final InterruptedException e) {
+			this.executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Classe respons&aacute;vel por manter uma tarefa aceita junto com o futuro
+	 * devolvido a quem a submeteu.
+	 */
+	private static final class Pendente {
+
+		/**
+		 * Tarefa a ser executada.
+		 */
+		private final Supplier<CompletableFuture<Void>> tarefa;
+
+		/**
+		 * Futuro completado ao t&eacute;rmino do futuro devolvido pela tarefa.
+		 */
+		private final CompletableFuture<Void> termino = new CompletableFuture<>();
+
+		/**
+		 * Construtor respons&aacute;vel por criar a tarefa pendente.
+		 *
+		 * @param tarefa
+		 *            Tarefa a ser executada.
+		 */
+		Pendente(final Supplier<CompletableFuture<Void>> tarefa) {
+			this.tarefa = tarefa;
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,334 @@
+package br.com.pgioseffi.requisicoes.soap;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntToLongFunction;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * <p>
+ * Classe respons&aacute;vel por enviar os envelopes de um
+ * {@link ArquivoRequisicao#isLote() lote} em paralelo, mantendo para cada um a
+ * mesma sem&acirc;ntica de um arquivo de requisi&ccedil;&atilde;o individual:
+ * o envelope &eacute; entregue ao {@link TransporteSOAP transporte}, a falha
+ * &eacute; repetida ap&oacute;s o mesmo atraso exponencial e, esgotadas as
+ * tentativas, registrada como falha na {@link RespostaLote resposta do lote}.
+ * </p>
+ * <p>
+ * No m&aacute;ximo {@link ProcessamentoLote#concorrencia} envelopes do lote
+ * s&atilde;o enviados ao mesmo tempo, de maneira que um lote grande n&atilde;o
+ * monopolize o executor. Um envelope aguardando nova tentativa libera a sua
+ * vaga para o pr&oacute;ximo, e a nova tentativa &eacute; enviada fora da
+ * janela.
+ * </p>
+ * <p>
+ * As retentativas acontecem apenas em mem&oacute;ria, pois o arquivo do lote
+ * s&oacute; &eacute; renomeado quando todos os envelopes terminam.
+ * </p>
+ *
+ * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
+ *         &lt;pgioseffi@gmail.com&gt;</a>
+ *
+ * @since 1.1.0
+ *
+ * @see ArquivoRequisicao#lerEnvelopes()
+ * @see RespostaLote
+ * @see ExecutaRequisicaoSOAP
+ */
+final class ProcessamentoLote {
+
+	/**
+	 * Constante utilizada para manter o {@link Logger log} da classe.
+	 *
+	 * @see Logger
+	 */
+	private static final Logger LOGGER = LogManager.getLogger(ProcessamentoLote.class);
+
+	/**
+	 * Caminho do arquivo do lote antes da reivindica&ccedil;&atilde;o,
+	 * utilizado nos logs e nos eventos.
+	 */
+	private final Path caminho;
+
+	/**
+	 * Envelopes do lote, na ordem do arquivo.
+	 */
+	private final List<ArquivoRequisicao> envelopes;
+
+	/**
+	 * Resposta do lote, que recebe o resultado de cada envelope.
+	 */
+	private final RespostaLote resposta;
+
+	/**
+	 * Transporte que envia cada envelope.
+	 */
+	private final TransporteSOAP transporte;
+
+	/**
+	 * Executor das tentativas.
+	 */
+	private final Executor executor;
+
+	/**
+	 * Roda de temporiza&ccedil;&atilde;o que aguarda o atraso das retentativas,
+	 * cujas tarefas vencidas s&atilde;o executadas pelo pr&oacute;prio
+	 * {@link ProcessamentoLote#executor executor} dos envelopes.
+	 */
+	private final RodaTemporizacao retentativas;
+
+	/**
+	 * Quantidade m&aacute;xima de envelopes do lote enviados ao mesmo tempo.
+	 */
+	private final int concorrencia;
+
+	/**
+	 * Quantidade m&aacute;xima de tentativas de cada envelope, incluindo a
+	 * primeira.
+	 */
+	private final int maximoTentativas;
+
+	/**
+	 * C&aacute;lculo do atraso, em milissegundos, at&eacute; a pr&oacute;xima
+	 * tentativa a partir da quantidade de tentativas j&aacute; feitas.
+	 */
+	private final IntToLongFunction atrasoRetentativa;
+
+	/**
+	 * &Iacute;ndice do pr&oacute;ximo envelope a ser enviado.
+	 */
+	private final AtomicInteger proximo = new AtomicInteger();
+
+	/**
+	 * Quantidade de envelopes ainda n&atilde;o registrados na resposta.
+	 */
+	private final AtomicInteger pendentes;
+
+	/**
+	 * Completado quando todos os envelopes foram registrados na resposta.
+	 */
+	private final CompletableFuture<Void> termino = new CompletableFuture<>();
+
+	/**
+	 * Construtor respons&aacute;vel por criar o processamento de um lote.
+	 *
+	 * @param caminho
+	 *            Caminho do arquivo do lote antes da reivindica&ccedil;&atilde;o.
+	 * @param envelopes
+	 *            Envelopes do lote.
+	 * @param resposta
+	 *            Resposta do lote.
+	 * @param transporte
+	 *            Transporte que envia cada envelope.
+	 * @param executor
+	 *            Executor das tentativas.
+	 * @param retentativas
+	 *            Roda de temporiza&ccedil;&atilde;o das retentativas, que entrega
+	 *            as tarefas vencidas ao executor informado. Nunca deve ser a roda
+	 *            das retentativas de arquivos, cuja <i>thread</i> pode aguardar a
+	 *            admiss&atilde;o no {@link PoolTrabalhadores pool de
+	 *            trabalhadores} ocupado pelo pr&oacute;prio lote.
+	 * @param concorrencia
+	 *            Quantidade m&aacute;xima de envelopes enviados ao mesmo tempo.
+	 * @param maximoTentativas
+	 *            Quantidade m&aacute;xima de tentativas de cada envelope.
+	 * @param atrasoRetentativa
+	 *            C&aacute;lculo do atraso at&eacute; a pr&oacute;xima tentativa.
+	 */
+	ProcessamentoLote(final Path caminho, final List<ArquivoRequisicao> envelopes, final RespostaLote resposta, final TransporteSOAP transporte, final Executor executor,
+			final RodaTemporizacao retentativas, final int concorrencia, final int maximoTentativas, final IntToLongFunction atrasoRetentativa) {
+		this.caminho = caminho;
+		this.envelopes = envelopes;
+		this.resposta = resposta;
+		this.transporte = transporte;
+		this.executor = executor;
+		this.retentativas = retentativas;
+		this.concorrencia = Math.max(1, concorrencia);
+		this.maximoTentativas = Math.max(1, maximoTentativas);
+		this.atrasoRetentativa = atrasoRetentativa;
+		this.pendentes = new AtomicInteger(envelopes.size());
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por iniciar o envio dos envelopes.
+	 *
+	 * @return Objeto {@link CompletableFuture} completado quando todos os
+	 *         envelopes tiverem sido registrados na resposta.
+	 */
+	CompletableFuture<Void> iniciar() {
+		if (this.envelopes.isEmpty()) {
+			this.termino.complete(null);
+		}
+
+		for (int i = Math.min(this.concorrencia, this.envelopes.size()); i > 0; i--) {
+			this.enviarProximo();
+		}
+
+		return this.termino;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por ocupar uma vaga da janela com o
+	 * pr&oacute;ximo envelope, caso ainda haja algum.
+	 */
+	private void enviarProximo() {
+		final int indice = this.proximo.getAndIncrement();
+		if (indice < this.envelopes.size()) {
+			this.executor.execute(() -> this.enviar(this.envelopes.get(indice), 1, true));
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por enviar uma tentativa de um envelope.
+	 *
+	 * @param envelope
+	 *            Envelope a ser enviado.
+	 * @param tentativa
+	 *            N&uacute;mero da tentativa, iniciando em um.
+	 * @param ocupaVaga
+	 *            Indica se a tentativa ocupa uma vaga da janela, que deve ser
+	 *            liberada ao seu t&eacute;rmino.
+	 */
+	private void enviar(final ArquivoRequisicao envelope, final int tentativa, final boolean ocupaVaga) {
+		final long tamanhoCorpo;
+		try {
+			tamanhoCorpo = envelope.getTamanhoCorpo();
+		} catch (final IOException e) {
+			this.registrarFalha(envelope, e.getMessage(), ocupaVaga);
+			return;
+		}
+
+		// Assim como nos arquivos individuais, envelopes inválidos não são repetidos.
+		if (StringUtils.isBlank(envelope.getUrl()) || tamanhoCorpo == 0L) {
+			ProcessamentoLote.LOGGER.error("Envelope " + envelope.getIdentificador() + " do lote " + this.caminho.getFileName() + " inv\u00E1lido, pois n\u00E3o cont\u00E9m URL ou corpo.");
+			this.registrarFalha(envelope, "Envelope inv\u00E1lido, pois n\u00E3o cont\u00E9m URL ou corpo.", ocupaVaga);
+			return;
+		}
+
+		final ArquivoResposta respostaEnvelope = ArquivoResposta.emMemoria();
+		final EventosJFR.Arquivo evento = EventosJFR.iniciarArquivo();
+		final long inicio = MetricasRobo.iniciarEnvio();
+
+		CompletableFuture<Void> envio;
+		try {
+			envio = this.transporte.enviar(envelope, respostaEnvelope);
+		} catch (final RuntimeException e) {
+			envio = new CompletableFuture<>();
+			envio.completeExceptionally(e);
+		}
+
+		envio.whenComplete((nada, erro) -> {
+			final long latencia = MetricasRobo.finalizarEnvio(envelope.getUrl(), inicio, erro == null);
+			envelope.getMedicao().adicionar(MedicaoArquivo.Etapa.ENVIO, latencia);
+			EventosJFR.finalizarArquivo(evento, this.caminho, envelope, tamanhoCorpo, tentativa, erro == null, respostaEnvelope.getTamanho());
+
+			if (erro == null) {
+				this.registrarSucesso(envelope, respostaEnvelope, ocupaVaga);
+				return;
+			}
+
+			final Throwable causa = erro instanceof CompletionException && erro.getCause() != null ? erro.getCause() : erro;
+			if (tentativa >= this.maximoTentativas) {
+				ProcessamentoLote.LOGGER.error("Envelope " + envelope.getIdentificador() + " do lote " + this.caminho.getFileName() + " falhou ap\u00F3s " + tentativa + " tentativa(s). ERRO: "
+						+ causa.getMessage(), causa);
+				this.registrarFalha(envelope, StringUtils.defaultString(causa.getMessage(), causa.getClass().getName()), ocupaVaga);
+				return;
+			}
+
+			final long atraso = this.atrasoRetentativa.applyAsLong(tentativa);
+			ProcessamentoLote.LOGGER.warn("Tentativa " + tentativa + " de " + this.maximoTentativas + " do envelope " + envelope.getIdentificador() + " do lote " + this.caminho.getFileName()
+					+ " falhou. Nova tentativa em " + atraso + " ms. ERRO: " + causa.getMessage());
+
+			this.retentativas.agendar(() -> this.enviar(envelope, tentativa + 1, false), atraso, TimeUnit.MILLISECONDS);
+			if (ocupaVaga) {
+				this.enviarProximo();
+			}
+		});
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por registrar a resposta de um envelope
+	 * bem sucedido.
+	 *
+	 * @param envelope
+	 *            Envelope enviado.
+	 * @param respostaEnvelope
+	 *            Resposta em mem&oacute;ria do envelope.
+	 * @param ocupaVaga
+	 *            Indica se a tentativa ocupava uma vaga da janela.
+	 */
+	private void registrarSucesso(final ArquivoRequisicao envelope, final ArquivoResposta respostaEnvelope, final boolean ocupaVaga) {
+		try {
+			final long inicio = System.nanoTime();
+			this.resposta.registrarSucesso(envelope.getIdentificador(), respostaEnvelope);
+			envelope.getMedicao().registrar(MedicaoArquivo.Etapa.ESCRITA, inicio);
+			this.concluir(envelope, ocupaVaga);
+		} catch (final IOException | RuntimeException e) {
+			this.falharLote(e);
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por registrar a falha definitiva de um
+	 * envelope.
+	 *
+	 * @param envelope
+	 *            Envelope que falhou.
+	 * @param mensagem
+	 *            Mensagem do erro.
+	 * @param ocupaVaga
+	 *            Indica se a tentativa ocupava uma vaga da janela.
+	 */
+	private void registrarFalha(final ArquivoRequisicao envelope, final String mensagem, final boolean ocupaVaga) {
+		try {
+			this.resposta.registrarFalha(envelope.getIdentificador(), mensagem);
+			this.concluir(envelope, ocupaVaga);
+		} catch (final IOException | RuntimeException e) {
+			this.falharLote(e);
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por concluir um envelope, liberando a sua
+	 * vaga e completando o lote ap&oacute;s o &uacute;ltimo.
+	 *
+	 * @param envelope
+	 *            Envelope conclu&iacute;do.
+	 * @param ocupaVaga
+	 *            Indica se a tentativa ocupava uma vaga da janela.
+	 */
+	private void concluir(final ArquivoRequisicao envelope, final boolean ocupaVaga) {
+		MetricasRobo.registrar(envelope.getMedicao());
+
+		if (ocupaVaga) {
+			this.enviarProximo();
+		}
+
+		if (this.pendentes.decrementAndGet() == 0) {
+			this.termino.complete(null);
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por interromper o lote quando a sua
+	 * resposta n&atilde;o pode mais ser escrita.
+	 *
+	 * @param erro
+	 *            Exce&ccedil;&atilde;o da escrita.
+	 */
+	private void falharLote(final Throwable erro) {
+		// Os envelopes restantes deixam de ser enviados, pois o lote inteiro será
+		// repetido.
+		this.proximo.set(this.envelopes.size());
+		this.termino.completeExceptionally(erro);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,368 @@
+package br.com.pgioseffi.requisicoes.soap;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * <p>
+ * Classe respons&aacute;vel por proteger um &uacute;nico endpoint, identificado
+ * pela URL da primeira linha dos arquivos de requisi&ccedil;&atilde;o, com um
+ * limite de taxa, um disjuntor e um limite adaptativo de concorr&ecirc;ncia.
+ * </p>
+ * <p>
+ * O limite de taxa &eacute; um <i>token bucket</i>: cada envio consome uma
+ * ficha, as fichas s&atilde;o repostas continuamente na taxa configurada e o
+ * balde comporta no m&aacute;ximo a rajada configurada.
+ * </p>
+ * <p>
+ * O disjuntor abre ap&oacute;s a quantidade configurada de falhas
+ * consecutivas e, enquanto aberto, nenhum envio &eacute; autorizado. Passado o
+ * tempo de resfriamento apenas um envio de sondagem &eacute; autorizado: o
+ * sucesso do mesmo fecha o disjuntor e a falha o reabre por mais um
+ * resfriamento.
+ * </p>
+ * <p>
+ * O {@link LimiteAdaptativo limite de concorr&ecirc;ncia} restringe a
+ * quantidade de envios em andamento e &eacute; ajustado a cada resposta pela
+ * lat&ecirc;ncia e pelas falhas observadas. Cada altera&ccedil;&atilde;o do
+ * limite &eacute; registrada no log.
+ * </p>
+ * <p>
+ * Quando um envio n&atilde;o &eacute; autorizado, o tempo de espera
+ * at&eacute; a pr&oacute;xima tentativa &eacute; devolvido e o arquivo
+ * permanece {@link ExecutaRequisicaoSOAP PENDING}. Caso o motivo seja a falta
+ * de vaga, o arquivo &eacute; guardado e devolvido quando uma vaga for
+ * liberada. A cada envio conclu&iacute;do s&atilde;o devolvidos tantos
+ * arquivos quantas forem as vagas dispon&iacute;veis, de maneira que o
+ * crescimento do limite se traduza em mais envios simult&acirc;neos.
+ * </p>
+ *
+ * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
+ *         &lt;pgioseffi@gmail.com&gt;</a>
+ *
+ * @since 1.1.0
+ *
+ * @see ExecutaRequisicaoSOAP
+ * @see LimiteAdaptativo
+ */
+final class ProtecaoEndpoint {
+
+	/**
+	 * Valor devolvido por {@link ProtecaoEndpoint#autorizar(Path)
+	 * autorizar(Path)} quando n&atilde;o h&aacute; vaga de concorr&ecirc;ncia
+	 * e o arquivo aguarda a libera&ccedil;&atilde;o de uma.
+	 */
+	static final long AGUARDAR_VAGA = -1L;
+
+	/**
+	 * Constante utilizada para manter o {@link Logger log} da classe.
+	 *
+	 * @see Logger
+	 */
+	private static final Logger LOGGER = LogManager.getLogger(ProtecaoEndpoint.class);
+
+	/**
+	 * URL do endpoint protegido.
+	 */
+	private final String url;
+
+	/**
+	 * Fichas repostas por nanossegundo. Zero indica que n&atilde;o h&aacute;
+	 * limite de taxa.
+	 */
+	private final double fichasPorNano;
+
+	/**
+	 * Quantidade m&aacute;xima de fichas no balde.
+	 */
+	private final double rajada;
+
+	/**
+	 * Quantidade de falhas consecutivas que abre o disjuntor. Zero indica que
+	 * n&atilde;o h&aacute; disjuntor.
+	 */
+	private final int limiteFalhas;
+
+	/**
+	 * Tempo, em nanossegundos, que o disjuntor permanece aberto antes da
+	 * sondagem.
+	 */
+	private final long resfriamentoNanos;
+
+	/**
+	 * Fichas dispon&iacute;veis.
+	 */
+	private double fichas;
+
+	/**
+	 * Instante, em nanossegundos, da &uacute;ltima reposi&ccedil;&atilde;o de
+	 * fichas.
+	 */
+	private long ultimaReposicao;
+
+	/**
+	 * Quantidade de falhas consecutivas observadas.
+	 */
+	private int falhasConsecutivas;
+
+	/**
+	 * Indica se o disjuntor est&aacute; aberto.
+	 */
+	private boolean aberto;
+
+	/**
+	 * Instante, em nanossegundos, a partir do qual a sondagem &eacute;
+	 * autorizada.
+	 */
+	private long abertoAte;
+
+	/**
+	 * Indica se h&aacute; um envio de sondagem em andamento.
+	 */
+	private boolean sondando;
+
+	/**
+	 * Limite adaptativo de concorr&ecirc;ncia ou
+	 * <code><strong>null</strong></code> caso a concorr&ecirc;ncia n&atilde;o
+	 * seja limitada.
+	 */
+	private final LimiteAdaptativo limiteConcorrencia;
+
+	/**
+	 * Arquivos que aguardam uma vaga de concorr&ecirc;ncia, na ordem de chegada e
+	 * sem repeti&ccedil;&otilde;es.
+	 */
+	private final Set<Path> aguardandoVaga = new LinkedHashSet<>();
+
+	/**
+	 * Construtor respons&aacute;vel por criar a prote&ccedil;&atilde;o do
+	 * endpoint com o balde cheio e o disjuntor fechado.
+	 *
+	 * @param url
+	 *            URL do endpoint protegido.
+	 * @param taxaPorSegundo
+	 *            Quantidade de envios autorizados por segundo. Zero ou negativo
+	 *            desabilita o limite de taxa.
+	 * @param rajada
+	 *            Quantidade m&aacute;xima de envios autorizados de uma vez.
+	 * @param limiteFalhas
+	 *            Quantidade de falhas consecutivas que abre o disjuntor. Zero ou
+	 *            negativo desabilita o disjuntor.
+	 * @param resfriamento
+	 *            Tempo que o disjuntor permanece aberto antes da sondagem.
+	 * @param unidade
+	 *            Unidade do tempo de resfriamento.
+	 * @param limiteConcorrencia
+	 *            Limite adaptativo de concorr&ecirc;ncia. Pode ser
+	 *            <code><strong>null</strong></code>.
+	 */
+	ProtecaoEndpoint(final String url, final double taxaPorSegundo, final int rajada, final int limiteFalhas, final long resfriamento, final TimeUnit unidade,
+			final LimiteAdaptativo limiteConcorrencia) {
+		this.url = url;
+		this.fichasPorNano = Math.max(0D, taxaPorSegundo) / TimeUnit.SECONDS.toNanos(1L);
+		this.rajada = Math.max(1, rajada);
+		this.limiteFalhas = Math.max(0, limiteFalhas);
+		this.resfriamentoNanos = unidade.toNanos(Math.max(0L, resfriamento));
+		this.fichas = this.rajada;
+		this.ultimaReposicao = System.nanoTime();
+		this.limiteConcorrencia = limiteConcorrencia;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por autorizar um envio, consumindo uma
+	 * ficha quando houver limite de taxa e ocupando uma vaga quando houver
+	 * limite de concorr&ecirc;ncia.
+	 *
+	 * @param caminho
+	 *            Objeto do tipo {@link Path} contendo o caminho absoluto do arquivo
+	 *            a ser enviado, guardado caso n&atilde;o haja vaga.
+	 *
+	 * @return Zero caso o envio esteja autorizado,
+	 *         {@link ProtecaoEndpoint#AGUARDAR_VAGA AGUARDAR_VAGA} caso o
+	 *         arquivo aguarde uma vaga ou o tempo, em nanossegundos, a aguardar
+	 *         antes de uma nova tentativa.
+	 */
+	synchronized long autorizar(final Path caminho) {
+		final long agora = System.nanoTime();
+
+		if (this.aberto) {
+			if (agora - this.abertoAte < 0L) {
+				return this.abertoAte - agora;
+			}
+
+			// Apenas uma sondagem por vez enquanto o disjuntor não fecha.
+			if (this.sondando) {
+				return Math.max(this.resfriamentoNanos, TimeUnit.SECONDS.toNanos(1L));
+			}
+		}
+
+		// A vaga é verificada antes da ficha para que um arquivo sem vaga não a desperdice.
+		if (this.limiteConcorrencia != null && !this.limiteConcorrencia.isVagaDisponivel()) {
+			this.aguardandoVaga.add(caminho);
+			return ProtecaoEndpoint.AGUARDAR_VAGA;
+		}
+
+		if (this.fichasPorNano > 0D) {
+			this.fichas = Math.min(this.rajada, this.fichas + (agora - this.ultimaReposicao) * this.fichasPorNano);
+			this.ultimaReposicao = agora;
+
+			if (this.fichas < 1D) {
+				return (long) Math.ceil((1D - this.fichas) / this.fichasPorNano);
+			}
+
+			this.fichas -= 1D;
+		}
+
+		if (this.limiteConcorrencia != null) {
+			this.limiteConcorrencia.ocupar();
+		}
+
+		if (this.aberto) {
+			this.sondando = true;
+			ProtecaoEndpoint.LOGGER.info("Disjuntor do endpoint " + this.url + " em sondagem.");
+		}
+
+		return 0L;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por registrar um envio bem sucedido,
+	 * fechando o disjuntor caso o mesmo esteja aberto e ajustando o limite de
+	 * concorr&ecirc;ncia.
+	 *
+	 * @param latenciaNanos
+	 *            Lat&ecirc;ncia do envio, em nanossegundos.
+	 *
+	 * @return Os arquivos que aguardavam vaga, at&eacute; a quantidade de vagas
+	 *         dispon&iacute;veis, na ordem de chegada. Vazia caso n&atilde;o
+	 *         haja.
+	 */
+	synchronized List<Path> registrarSucesso(final long latenciaNanos) {
+		this.falhasConsecutivas = 0;
+
+		if (this.aberto) {
+			this.aberto = false;
+			this.sondando = false;
+			ProtecaoEndpoint.LOGGER.info("Disjuntor do endpoint " + this.url + " fechado.");
+		}
+
+		return this.registrarConcorrencia(latenciaNanos, true);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por registrar uma falha de envio, abrindo
+	 * ou reabrindo o disjuntor quando for o caso e reduzindo o limite de
+	 * concorr&ecirc;ncia.
+	 *
+	 * @param latenciaNanos
+	 *            Lat&ecirc;ncia do envio, em nanossegundos.
+	 *
+	 * @return Os arquivos que aguardavam vaga, at&eacute; a quantidade de vagas
+	 *         dispon&iacute;veis, na ordem de chegada. Vazia caso n&atilde;o
+	 *         haja.
+	 */
+	synchronized List<Path> registrarFalha(final long latenciaNanos) {
+		if (this.limiteFalhas == 0) {
+			return this.registrarConcorrencia(latenciaNanos, false);
+		}
+
+		this.falhasConsecutivas++;
+
+		if (this.aberto || this.falhasConsecutivas >= this.limiteFalhas) {
+			this.aberto = true;
+			this.sondando = false;
+			this.abertoAte = System.nanoTime() + this.resfriamentoNanos;
+			ProtecaoEndpoint.LOGGER.warn("Disjuntor do endpoint " + this.url + " aberto ap\u00F3s " + this.falhasConsecutivas + " falha(s) consecutiva(s). Nova tentativa em "
+					+ TimeUnit.NANOSECONDS.toSeconds(this.resfriamentoNanos) + " segundo(s).");
+		}
+
+		return this.registrarConcorrencia(latenciaNanos, false);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por desocupar a vaga de um envio
+	 * conclu&iacute;do, ajustando o limite de concorr&ecirc;ncia e registrando no
+	 * log quando o mesmo for alterado.
+	 *
+	 * @param latenciaNanos
+	 *            Lat&ecirc;ncia do envio, em nanossegundos.
+	 * @param sucesso
+	 *            Indica se o envio foi bem sucedido.
+	 *
+	 * @return Os arquivos que aguardavam vaga, at&eacute; a quantidade de vagas
+	 *         dispon&iacute;veis, na ordem de chegada. Vazia caso n&atilde;o
+	 *         haja.
+	 */
+	private List<Path> registrarConcorrencia(final long latenciaNanos, final boolean sucesso) {
+		if (this.limiteConcorrencia == null) {
+			return Collections.emptyList();
+		}
+
+		final int anterior = this.limiteConcorrencia.getLimite();
+		this.limiteConcorrencia.registrar(latenciaNanos, sucesso);
+
+		final int atual = this.limiteConcorrencia.getLimite();
+		if (atual != anterior) {
+			ProtecaoEndpoint.LOGGER.info("Limite de concorr\u00EAncia do endpoint " + this.url + " ajustado de " + anterior + " para " + atual + " (lat\u00EAncia base de "
+					+ String.format("%.1f", this.limiteConcorrencia.getLatenciaBaseMillis()) + " ms).");
+		}
+
+		return this.proximosAguardandoVaga();
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por retirar os pr&oacute;ximos arquivos
+	 * que aguardam vaga, um para cada vaga dispon&iacute;vel. Os arquivos
+	 * n&atilde;o ocupam a vaga ao serem retirados, apenas ao serem
+	 * {@link ProtecaoEndpoint#autorizar(Path) autorizados} novamente.
+	 *
+	 * @return Os arquivos que aguardavam vaga, at&eacute; a quantidade de vagas
+	 *         dispon&iacute;veis, na ordem de chegada. Vazia caso n&atilde;o
+	 *         haja.
+	 */
+	private List<Path> proximosAguardandoVaga() {
+		final int vagas = Math.min(this.aguardandoVaga.size(), this.limiteConcorrencia.getVagasDisponiveis());
+		if (vagas == 0) {
+			return Collections.emptyList();
+		}
+
+		final List<Path> proximos = new ArrayList<>(vagas);
+		final Iterator<Path> iterator = this.aguardandoVaga.iterator();
+		while (proximos.size() < vagas) {
+			proximos.add(iterator.next());
+			iterator.remove();
+		}
+
+		return proximos;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por liberar uma autoriza&ccedil;&atilde;o
+	 * que n&atilde;o resultou em envio, como quando o arquivo j&aacute; foi
+	 * reivindicado por outro trabalhador ou &eacute; inv&aacute;lido, sem
+	 * alterar o estado do disjuntor nem o limite de concorr&ecirc;ncia.
+	 *
+	 * @return Os arquivos que aguardavam vaga, at&eacute; a quantidade de vagas
+	 *         dispon&iacute;veis, na ordem de chegada. Vazia caso n&atilde;o
+	 *         haja.
+	 */
+	synchronized List<Path> liberar() {
+		this.sondando = false;
+
+		if (this.limiteConcorrencia == null) {
+			return Collections.emptyList();
+		}
+
+		this.limiteConcorrencia.desocupar();
+		return this.proximosAguardandoVaga();
+	}
+}
\ No newline at end of file
@@ -0,0 +1,254 @@
+package br.com.pgioseffi.requisicoes.soap;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * <p>
+ * Classe respons&aacute;vel por escrever o arquivo de resposta de um lote,
+ * reunindo as respostas de todos os envelopes em um &uacute;nico arquivo
+ * indexado:
+ * </p>
+ *
+ * <pre>
+ * #LOTE;fronteira;0000000000000000412
+ * --fronteira;pedido-2;SUCESSO;180
+ * &lt;soapenv:Envelope&gt;...&lt;/soapenv:Envelope&gt;
+ * --fronteira;pedido-1;FALHA;27
+ * Connection refused (refused)
+ * --fronteira--
+ * pedido-1;FALHA;283;27
+ * pedido-2;SUCESSO;68;180
+ * </pre>
+ * <p>
+ * As se&ccedil;&otilde;es s&atilde;o escritas &agrave; medida que os envelopes
+ * terminam, cada uma com o identificador de correla&ccedil;&atilde;o, o
+ * resultado e o tamanho do conte&uacute;do, que &eacute; a resposta SOAP ou, na
+ * falha, a mensagem do erro. Ap&oacute;s o encerramento segue o
+ * &iacute;ndice, na ordem dos envelopes no lote, com a posi&ccedil;&atilde;o e
+ * o tamanho de cada conte&uacute;do, de maneira que um consumidor possa ler uma
+ * &uacute;nica resposta sem percorrer o arquivo. A posi&ccedil;&atilde;o do
+ * &iacute;ndice &eacute; gravada na primeira linha, com largura fixa, depois de
+ * conhecida.
+ * </p>
+ * <p>
+ * Assim como as respostas individuais, o arquivo &eacute; escrito em um
+ * {@link ArquivoResposta arquivo tempor&aacute;rio} e s&oacute; aparece com o
+ * nome definitivo quando completo.
+ * </p>
+ *
+ * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
+ *         &lt;pgioseffi@gmail.com&gt;</a>
+ *
+ * @since 1.1.0
+ *
+ * @see ArquivoRequisicao#lerEnvelopes()
+ * @see ArquivoResposta#emMemoria()
+ * @see ExecutaRequisicaoSOAP
+ */
+final class RespostaLote implements Closeable {
+
+	/**
+	 * Resultado dos envelopes respondidos pelo endpoint.
+	 */
+	private static final String SUCESSO = "SUCESSO";
+
+	/**
+	 * Resultado dos envelopes que falharam em todas as tentativas.
+	 */
+	private static final String FALHA = "FALHA";
+
+	/**
+	 * Quantidade de d&iacute;gitos da posi&ccedil;&atilde;o do &iacute;ndice na
+	 * primeira linha, suficiente para qualquer <code>long</code>.
+	 */
+	private static final int DIGITOS_POSICAO_INDICE = 19;
+
+	/**
+	 * Arquivo de resposta do lote.
+	 */
+	private final ArquivoResposta arquivo;
+
+	/**
+	 * Fronteira entre as se&ccedil;&otilde;es, a mesma do lote.
+	 */
+	private final String fronteira;
+
+	/**
+	 * Identificadores dos envelopes, na ordem do lote.
+	 */
+	private final List<String> identificadores;
+
+	/**
+	 * Entradas do &iacute;ndice j&aacute; escritas, por identificador.
+	 */
+	private final Map<String, String> indice;
+
+	/**
+	 * Posi&ccedil;&atilde;o, na primeira linha, dos d&iacute;gitos da
+	 * posi&ccedil;&atilde;o do &iacute;ndice.
+	 */
+	private final long posicaoCabecalho;
+
+	/**
+	 * Quantidade de bytes j&aacute; escritos.
+	 */
+	private long escritos;
+
+	/**
+	 * Construtor respons&aacute;vel por criar a resposta do lote e escrever a sua
+	 * primeira linha.
+	 *
+	 * @param arquivo
+	 *            Arquivo de resposta do lote.
+	 * @param fronteira
+	 *            Fronteira entre as se&ccedil;&otilde;es.
+	 * @param identificadores
+	 *            Identificadores dos envelopes, na ordem do lote.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel escrever no arquivo.
+	 */
+	RespostaLote(final ArquivoResposta arquivo, final String fronteira, final List<String> identificadores) throws IOException {
+		this.arquivo = arquivo;
+		this.fronteira = fronteira;
+		this.identificadores = identificadores;
+		this.indice = new HashMap<>(identificadores.size() * 2);
+
+		final String inicio = ArquivoRequisicao.MARCADOR_LOTE + fronteira + ";";
+		this.posicaoCabecalho = inicio.getBytes(StandardCharsets.UTF_8).length;
+		this.escreverLinha(inicio + StringUtils.repeat('0', RespostaLote.DIGITOS_POSICAO_INDICE));
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por escrever a resposta de um envelope
+	 * bem sucedido.
+	 *
+	 * @param identificador
+	 *            Identificador de correla&ccedil;&atilde;o do envelope.
+	 * @param resposta
+	 *            Resposta em mem&oacute;ria do envelope.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel escrever no arquivo.
+	 */
+	synchronized void registrarSucesso(final String identificador, final ArquivoResposta resposta) throws IOException {
+		final long tamanho = resposta.getTamanho();
+		final long posicao = this.escreverCabecalhoSecao(identificador, RespostaLote.SUCESSO, tamanho);
+		resposta.copiarPara(this.arquivo.getSaida());
+		this.escritos += tamanho;
+		this.escreverLinha(StringUtils.EMPTY);
+		this.indice.put(identificador, identificador + ";" + RespostaLote.SUCESSO + ";" + posicao + ";" + tamanho);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por escrever a falha de um envelope.
+	 *
+	 * @param identificador
+	 *            Identificador de correla&ccedil;&atilde;o do envelope.
+	 * @param mensagem
+	 *            Mensagem do erro.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel escrever no arquivo.
+	 */
+	synchronized void registrarFalha(final String identificador, final String mensagem) throws IOException {
+		final byte[] conteudo = StringUtils.defaultString(mensagem).getBytes(StandardCharsets.UTF_8);
+		final long posicao = this.escreverCabecalhoSecao(identificador, RespostaLote.FALHA, conteudo.length);
+		this.arquivo.getSaida().write(conteudo);
+		this.escritos += conteudo.length;
+		this.escreverLinha(StringUtils.EMPTY);
+		this.indice.put(identificador, identificador + ";" + RespostaLote.FALHA + ";" + posicao + ";" + conteudo.length);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por escrever o encerramento e o
+	 * &iacute;ndice e tornar o arquivo vis&iacute;vel com o nome definitivo.
+	 *
+	 * @return O caminho do arquivo de resposta.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel escrever ou renomear o
+	 *             arquivo.
+	 * @throws IllegalStateException
+	 *             Caso algum envelope ainda n&atilde;o tenha sido registrado.
+	 */
+	synchronized Path confirmar() throws IOException {
+		if (this.indice.size() != this.identificadores.size()) {
+			throw new IllegalStateException("Lote com " + (this.identificadores.size() - this.indice.size()) + " envelope(s) sem resposta.");
+		}
+
+		this.escreverLinha("--" + this.fronteira + "--");
+
+		final long posicaoIndice = this.escritos;
+		for (final String identificador : this.identificadores) {
+			this.escreverLinha(this.indice.get(identificador));
+		}
+
+		this.arquivo.sobrescrever(this.posicaoCabecalho,
+				StringUtils.leftPad(Long.toString(posicaoIndice), RespostaLote.DIGITOS_POSICAO_INDICE, '0').getBytes(StandardCharsets.UTF_8));
+		return this.arquivo.confirmar();
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por escrever a linha que inicia a
+	 * se&ccedil;&atilde;o de um envelope.
+	 *
+	 * @param identificador
+	 *            Identificador de correla&ccedil;&atilde;o do envelope.
+	 * @param resultado
+	 *            Resultado do envelope.
+	 * @param tamanho
+	 *            Tamanho do conte&uacute;do da se&ccedil;&atilde;o.
+	 *
+	 * @return A posi&ccedil;&atilde;o do conte&uacute;do da se&ccedil;&atilde;o.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel escrever no arquivo.
+	 */
+	private long escreverCabecalhoSecao(final String identificador, final String resultado, final long tamanho) throws IOException {
+		if (this.indice.containsKey(identificador)) {
+			throw new IllegalStateException("Envelope " + identificador + " j\u00E1 registrado.");
+		}
+
+		this.escreverLinha("--" + this.fronteira + ";" + identificador + ";" + resultado + ";" + tamanho);
+		return this.escritos;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por escrever uma linha terminada por
+	 * <code>\n</code>.
+	 *
+	 * @param linha
+	 *            Conte&uacute;do da linha.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel escrever no arquivo.
+	 */
+	private void escreverLinha(final String linha) throws IOException {
+		final byte[] bytes = (linha + "\n").getBytes(StandardCharsets.UTF_8);
+		final OutputStream saida = this.arquivo.getSaida();
+		saida.write(bytes);
+		this.escritos += bytes.length;
+	}
+
+	/**
+	 * Descarta o arquivo tempor&aacute;rio caso o lote n&atilde;o tenha sido
+	 * {@link RespostaLote#confirmar() confirmado}.
+	 *
+	 * @throws IOException
+	 *             Lan&ccedil;ada pelo m&eacute;todo {@link ArquivoResposta#close()}.
+	 */
+	@Override
+	public void close() throws IOException {
+		this.arquivo.close();
+	}
+}
\ No newline at end of file
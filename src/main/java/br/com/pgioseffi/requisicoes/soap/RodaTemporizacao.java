@@ -0,0 +1,287 @@
+package br.com.pgioseffi.requisicoes.soap;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * <p>
+ * Classe respons&aacute;vel por agendar tarefas atrav&eacute;s de uma roda de
+ * temporiza&ccedil;&atilde;o (<i>hashed timing wheel</i>).
+ * </p>
+ * <p>
+ * A roda possui uma quantidade fixa de compartimentos, percorridos um a cada
+ * intervalo (<i>tick</i>) por uma &uacute;nica <i>thread</i>. Cada tarefa
+ * &eacute; colocada no compartimento correspondente ao seu prazo, junto com a
+ * quantidade de voltas completas que ainda faltam. Agendar custa O(1)
+ * independentemente da quantidade de tarefas agendadas, ao contr&aacute;rio
+ * da fila de prioridade de um {@link java.util.concurrent.ScheduledExecutorService
+ * ScheduledExecutorService}, ao custo de uma precis&atilde;o limitada ao
+ * intervalo da roda, adequada para as retentativas do rob&ocirc;.
+ * </p>
+ * <p>
+ * As tarefas vencidas s&atilde;o entregues ao {@link Executor} informado na
+ * cria&ccedil;&atilde;o, de maneira que a <i>thread</i> da roda nunca fique
+ * ocupada com o trabalho das mesmas.
+ * </p>
+ *
+ * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
+ *         &lt;pgioseffi@gmail.com&gt;</a>
+ *
+ * @since 1.1.0
+ *
+ * @see ExecutaRequisicaoSOAP
+ */
+final class RodaTemporizacao implements Closeable {
+
+	/**
+	 * Constante utilizada para manter o {@link Logger log} da classe.
+	 *
+	 * @see Logger
+	 */
+	private static final Logger LOGGER = LogManager.getLogger(RodaTemporizacao.class);
+
+	/**
+	 * Intervalo, em nanossegundos, entre dois compartimentos.
+	 */
+	private final long intervaloNanos;
+
+	/**
+	 * Compartimentos da roda. A quantidade &eacute; sempre uma pot&ecirc;ncia de
+	 * dois para que o compartimento seja obtido por m&aacute;scara.
+	 */
+	private final Queue<Agendamento>[] compartimentos;
+
+	/**
+	 * M&aacute;scara aplicada ao n&uacute;mero do <i>tick</i> para obter o
+	 * compartimento.
+	 */
+	private final int mascara;
+
+	/**
+	 * Tarefas agendadas ainda n&atilde;o colocadas em um compartimento. Apenas a
+	 * <i>thread</i> da roda acessa os compartimentos, de maneira que agendar
+	 * n&atilde;o exige bloqueio.
+	 */
+	private final Queue<Agendamento> novos = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * Executor das tarefas vencidas.
+	 */
+	private final Executor executor;
+
+	/**
+	 * <i>Thread</i> que percorre a roda.
+	 */
+	private final Thread thread;
+
+	/**
+	 * Instante, em nanossegundos, de in&iacute;cio da roda.
+	 */
+	private final long inicio;
+
+	/**
+	 * Indica se a roda foi encerrada.
+	 */
+	private volatile boolean encerrada;
+
+	/**
+	 * Construtor respons&aacute;vel por criar e iniciar a roda.
+	 *
+	 * @param intervalo
+	 *            Intervalo entre dois compartimentos, isto &eacute;, a
+	 *            precis&atilde;o da roda.
+	 * @param unidade
+	 *            Unidade do intervalo.
+	 * @param quantidadeCompartimentos
+	 *            Quantidade de compartimentos, arredondada para a pr&oacute;xima
+	 *            pot&ecirc;ncia de dois.
+	 * @param executor
+	 *            Executor das tarefas vencidas.
+	 */
+	RodaTemporizacao(final long intervalo, final TimeUnit unidade, final int quantidadeCompartimentos, final Executor executor) {
+		this.intervaloNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(1L), unidade.toNanos(intervalo));
+
+		int quantidade = 1;
+		while (quantidade < quantidadeCompartimentos && quantidade < 1 << 20) {
+			quantidade <<= 1;
+		}
+
+		this.compartimentos = RodaTemporizacao.criarCompartimentos(quantidade);
+
+		this.mascara = quantidade - 1;
+		this.executor = executor;
+		this.inicio = System.nanoTime();
+		this.thread = new Thread(this::girar, "robo-roda-temporizacao");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por agendar uma tarefa.
+	 *
+	 * @param tarefa
+	 *            Tarefa a ser executada ap&oacute;s o atraso.
+	 * @param atraso
+	 *            Atraso at&eacute; a execu&ccedil;&atilde;o.
+	 * @param unidade
+	 *            Unidade do atraso.
+	 *
+	 * @throws RejectedExecutionException
+	 *             Caso a roda tenha sido encerrada.
+	 */
+	void agendar(final Runnable tarefa, final long atraso, final TimeUnit unidade) {
+		if (this.encerrada) {
+			throw new RejectedExecutionException("Roda de temporiza\u00E7\u00E3o encerrada.");
+		}
+
+		this.novos.add(new Agendamento(tarefa, System.nanoTime() - this.inicio + unidade.toNanos(Math.max(0L, atraso))));
+	}
+
+	/**
+	 * M&eacute;todo executado pela <i>thread</i> da roda, que aguarda cada
+	 * <i>tick</i>, distribui as tarefas novas nos compartimentos e entrega as
+	 * tarefas vencidas do compartimento atual ao executor.
+	 */
+	private void girar() {
+		long tick = 0L;
+
+		while (!this.encerrada) {
+			// Aguarda o fim do tick atual, medido desde o início da roda para não acumular
+			// atrasos.
+			final long espera = (tick + 1L) * this.intervaloNanos - (System.nanoTime() - this.inicio);
+			if (espera > 0L) {
+				try {
+					TimeUnit.NANOSECONDS.sleep(espera);
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+
+			this.distribuirNovos(tick);
+			this.vencer(this.compartimentos[(int) (tick & this.mascara)]);
+			tick++;
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por colocar as tarefas novas em seus
+	 * compartimentos.
+	 *
+	 * @param tick
+	 *            <i>Tick</i> atual.
+	 */
+	private void distribuirNovos(final long tick) {
+		Agendamento agendamento;
+		while ((agendamento = this.novos.poll()) != null) {
+			// Prazos já vencidos vão para o compartimento atual.
+			final long ticks = Math.max(tick, (agendamento.prazo + this.intervaloNanos - 1L) / this.intervaloNanos);
+			agendamento.voltas = (ticks - tick) / this.compartimentos.length;
+			this.compartimentos[(int) (ticks & this.mascara)].add(agendamento);
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por criar os compartimentos vazios da roda.
+	 *
+	 * @param quantidade
+	 *            Quantidade de compartimentos.
+	 *
+	 * @return Os compartimentos criados.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static Queue<Agendamento>[] criarCompartimentos(final int quantidade) {
+		// Java não permite criar arrays de tipos genéricos; cada posição recebe apenas Queue<Agendamento>.
+		final Queue<Agendamento>[] compartimentos = new Queue[quantidade];
+		for (int i = 0; i < quantidade; i++) {
+			compartimentos[i] = new ArrayDeque<>();
+		}
+
+		return compartimentos;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por entregar ao executor as tarefas
+	 * vencidas de um compartimento e descontar uma volta das demais.
+	 *
+	 * @param compartimento
+	 *            Compartimento do <i>tick</i> atual.
+	 */
+	private void vencer(final Queue<Agendamento> compartimento) {
+		for (final Iterator<Agendamento> iterator = compartimento.iterator(); iterator.hasNext();) {
+			final Agendamento agendamento = iterator.next();
+
+			if (agendamento.voltas > 0L) {
+				agendamento.voltas--;
+				continue;
+			}
+
+			iterator.remove();
+
+			try {
+				this.executor.execute(agendamento.tarefa);
+			} catch (final RejectedExecutionException e) {
+				RodaTemporizacao.LOGGER.error("Tarefa agendada rejeitada pelo executor. ERRO: " + e.getMessage(), e);
+			}
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por encerrar a roda. As tarefas ainda
+	 * n&atilde;o vencidas s&atilde;o descartadas.
+	 */
+	@Override
+	public void close() {
+		this.encerrada = true;
+		this.thread.interrupt();
+	}
+
+	/**
+	 * Classe respons&aacute;vel por manter uma tarefa agendada.
+	 *
+	 * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
+	 *         &lt;pgioseffi@gmail.com&gt;</a>
+	 *
+	 * @since 1.1.0
+	 */
+	private static final class Agendamento {
+
+		/**
+		 * Tarefa a ser executada.
+		 */
+		private final Runnable tarefa;
+
+		/**
+		 * Prazo, em nanossegundos desde o in&iacute;cio da roda.
+		 */
+		private final long prazo;
+
+		/**
+		 * Voltas completas da roda que ainda faltam at&eacute; o prazo. Acessado
+		 * apenas pela <i>thread</i> da roda.
+		 */
+		private long voltas;
+
+		/**
+		 * Construtor respons&aacute;vel por criar o agendamento.
+		 *
+		 * @param tarefa
+		 *            Tarefa a ser executada.
+		 * @param prazo
+		 *            Prazo, em nanossegundos desde o in&iacute;cio da roda.
+		 */
+		private Agendamento(final Runnable tarefa, final long prazo) {
+			this.tarefa = tarefa;
+			this.prazo = prazo;
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,221 @@
+package br.com.pgioseffi.requisicoes.soap;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * <p>
+ * Classe respons&aacute;vel por evitar requisi&ccedil;&otilde;es repetidas,
+ * decorando outro {@link TransporteSOAP transporte} com um
+ * {@link CacheRespostas cache de respostas} indexado pelo conte&uacute;do da
+ * requisi&ccedil;&atilde;o.
+ * </p>
+ * <p>
+ * Uma requisi&ccedil;&atilde;o id&ecirc;ntica a outra respondida dentro da
+ * validade recebe a mesma resposta sem chamada remota. Requisi&ccedil;&otilde;es
+ * id&ecirc;nticas simult&acirc;neas s&atilde;o agrupadas: apenas a primeira
+ * &eacute; enviada e todas recebem a sua resposta. Uma falha &eacute;
+ * repassada a todas as requisi&ccedil;&otilde;es agrupadas e nunca &eacute;
+ * armazenada.
+ * </p>
+ * <p>
+ * A validade, em segundos, &eacute; a op&ccedil;&atilde;o <code>cacheTtl</code>
+ * da linha de configura&ccedil;&otilde;es, que permite um valor por endpoint,
+ * ou o valor global. Zero desabilita o cache para a requisi&ccedil;&atilde;o,
+ * assim como os {@link ArquivoRequisicao#getAnexos() anexos} MTOM/XOP.
+ * Como a resposta precisa ser copiada para cada arquivo, a mesma &eacute;
+ * recebida em mem&oacute;ria.
+ * </p>
+ *
+ * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
+ *         &lt;pgioseffi@gmail.com&gt;</a>
+ *
+ * @since 1.1.0
+ *
+ * @see TransporteSOAP
+ * @see CacheRespostas
+ * @see ArquivoRequisicao#getCacheTtl(int)
+ */
+final class TransporteCache implements TransporteSOAP {
+
+	/**
+	 * Constante utilizada para manter o {@link Logger log} da classe.
+	 *
+	 * @see Logger
+	 */
+	private static final Logger LOGGER = LogManager.getLogger(TransporteCache.class);
+
+	/**
+	 * Transporte decorado, que efetivamente envia as requisi&ccedil;&otilde;es.
+	 */
+	private final TransporteSOAP delegado;
+
+	/**
+	 * Cache das respostas.
+	 */
+	private final CacheRespostas cache;
+
+	/**
+	 * Validade padr&atilde;o, em segundos, das respostas.
+	 */
+	private final int validadePadrao;
+
+	/**
+	 * Requisi&ccedil;&otilde;es em andamento, indexadas pela chave, aguardadas
+	 * pelas requisi&ccedil;&otilde;es id&ecirc;nticas.
+	 */
+	private final ConcurrentMap<String, CompletableFuture<byte[]>> emAndamento = new ConcurrentHashMap<>();
+
+	/**
+	 * Construtor respons&aacute;vel por decorar o transporte informado.
+	 *
+	 * @param delegado
+	 *            Transporte que efetivamente envia as requisi&ccedil;&otilde;es.
+	 * @param cache
+	 *            Cache das respostas.
+	 * @param validadePadrao
+	 *            Validade padr&atilde;o, em segundos, das respostas.
+	 */
+	TransporteCache(final TransporteSOAP delegado, final CacheRespostas cache, final int validadePadrao) {
+		this.delegado = delegado;
+		this.cache = cache;
+		this.validadePadrao = Math.max(0, validadePadrao);
+
+		TransporteCache.LOGGER.info("Cache de respostas habilitado. Validade padr\u00E3o: " + this.validadePadrao + " segundo(s).");
+	}
+
+	@Override
+	public CompletableFuture<Void> enviar(final ArquivoRequisicao requisicao, final ArquivoResposta resposta) {
+		final int validade = requisicao.getCacheTtl(this.validadePadrao);
+		// A chave não cobre o conteúdo dos anexos e a resposta em memória não
+		// seria separada em partes.
+		if (validade <= 0 || requisicao.isMtom()) {
+			return this.delegado.enviar(requisicao, resposta);
+		}
+
+		final String chave;
+		try {
+			chave = CacheRespostas.calcularChave(requisicao);
+		} catch (final IOException e) {
+			TransporteCache.LOGGER.warn("Erro ao calcular a chave do cache. A requisi\u00E7\u00E3o ser\u00E1 enviada. ERRO: " + e.getMessage());
+			return this.delegado.enviar(requisicao, resposta);
+		}
+
+		final byte[] armazenada = this.cache.recuperar(chave);
+		if (armazenada != null) {
+			return this.responderCache(requisicao, resposta, armazenada, "acerto");
+		}
+
+		final CompletableFuture<byte[]> nova = new CompletableFuture<>();
+		final CompletableFuture<byte[]> existente = this.emAndamento.putIfAbsent(chave, nova);
+		if (existente != null) {
+			MetricasRobo.registrarCache("agrupada");
+			requisicao.marcarRespondidaCache();
+			return existente.thenAccept(conteudo -> TransporteCache.escrever(resposta, conteudo));
+		}
+
+		// Outra requisição idêntica pode ter terminado entre a consulta ao cache e o
+		// registro desta.
+		final byte[] recente = this.cache.recuperar(chave);
+		if (recente != null) {
+			this.emAndamento.remove(chave, nova);
+			nova.complete(recente);
+			return this.responderCache(requisicao, resposta, recente, "acerto");
+		}
+
+		MetricasRobo.registrarCache("falta");
+
+		final ArquivoResposta memoria = ArquivoResposta.emMemoria();
+		CompletableFuture<Void> envio;
+		try {
+			envio = this.delegado.enviar(requisicao, memoria);
+		} catch (final RuntimeException e) {
+			envio = new CompletableFuture<>();
+			envio.completeExceptionally(e);
+		}
+
+		envio.whenComplete((nada, erro) -> {
+			if (erro != null) {
+				this.emAndamento.remove(chave, nova);
+				nova.completeExceptionally(erro);
+				return;
+			}
+
+			// A resposta é armazenada antes de a requisição deixar de estar em
+			// andamento, para que uma requisição idêntica sempre encontre uma das duas.
+			final byte[] conteudo = memoria.getConteudo();
+			this.cache.armazenar(chave, conteudo, TimeUnit.SECONDS.toMillis(validade));
+			this.emAndamento.remove(chave, nova);
+			nova.complete(conteudo);
+		});
+
+		return nova.thenAccept(conteudo -> TransporteCache.escrever(resposta, conteudo));
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por responder uma requisi&ccedil;&atilde;o
+	 * com uma resposta j&aacute; armazenada.
+	 *
+	 * @param requisicao
+	 *            Arquivo de requisi&ccedil;&atilde;o.
+	 * @param resposta
+	 *            Arquivo de resposta.
+	 * @param conteudo
+	 *            Resposta armazenada.
+	 * @param resultado
+	 *            Resultado registrado nas m&eacute;tricas.
+	 *
+	 * @return Objeto {@link CompletableFuture} j&aacute; completado.
+	 */
+	private CompletableFuture<Void> responderCache(final ArquivoRequisicao requisicao, final ArquivoResposta resposta, final byte[] conteudo, final String resultado) {
+		MetricasRobo.registrarCache(resultado);
+		requisicao.marcarRespondidaCache();
+
+		final CompletableFuture<Void> retorno = new CompletableFuture<>();
+		try {
+			TransporteCache.escrever(resposta, conteudo);
+			retorno.complete(null);
+		} catch (final UncheckedIOException e) {
+			retorno.completeExceptionally(e.getCause());
+		}
+
+		return retorno;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por escrever uma resposta no arquivo de
+	 * resposta.
+	 *
+	 * @param resposta
+	 *            Arquivo de resposta.
+	 * @param conteudo
+	 *            Resposta SOAP.
+	 *
+	 * @throws UncheckedIOException
+	 *             Caso n&atilde;o seja poss&iacute;vel escrever a resposta.
+	 */
+	private static void escrever(final ArquivoResposta resposta, final byte[] conteudo) {
+		try {
+			resposta.getSaida().write(conteudo);
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void removerConexoesOciosas() {
+		this.delegado.removerConexoesOciosas();
+	}
+
+	@Override
+	public void close() {
+		this.delegado.close();
+	}
+}
\ No newline at end of file
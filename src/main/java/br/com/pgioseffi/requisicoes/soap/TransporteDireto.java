@@ -0,0 +1,219 @@
+package br.com.pgioseffi.requisicoes.soap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.xml.soap.MimeHeader;
+import javax.xml.soap.MimeHeaders;
+
+/**
+ * <p>
+ * Classe respons&aacute;vel pelo transporte de passagem direta do rob&ocirc;,
+ * que apenas repassa bytes.
+ * </p>
+ * <p>
+ * Ao contr&aacute;rio do {@link TransporteSAAJ transporte SAAJ}, o envelope
+ * n&atilde;o &eacute; interpretado em uma {@link javax.xml.soap.SOAPMessage
+ * SOAPMessage} nem a resposta serializada a partir de uma: os bytes do arquivo
+ * de requisi&ccedil;&atilde;o s&atilde;o enviados como est&atilde;o, com os
+ * cabe&ccedil;alhos <code>Content-Type</code>, <code>SOAPAction</code> e
+ * <code>Authorization</code> montados a partir da primeira linha do arquivo, e
+ * os bytes do corpo da resposta s&atilde;o copiados para o arquivo de resposta.
+ * Nenhuma &aacute;rvore DOM &eacute; constru&iacute;da.
+ * </p>
+ * <p>
+ * A chamada &eacute; bloqueante e utiliza o {@link HttpURLConnection} da JVM.
+ * Como a resposta &eacute; sempre lida at&eacute; o fim e a conex&atilde;o
+ * n&atilde;o &eacute; desconectada em caso de sucesso, o <i>socket</i> volta
+ * ao cache de conex&otilde;es <i>keep-alive</i> da JVM.
+ * </p>
+ * <p>
+ * Assim como no SAAJ, apenas respostas com c&oacute;digo <code>2xx</code> ou
+ * <code>500</code> (SOAP <i>fault</i>) s&atilde;o gravadas.
+ * </p>
+ * <p>
+ * Quando habilitado, o cabe&ccedil;alho <code>Accept-Encoding: gzip</code>
+ * &eacute; enviado e uma resposta compactada &eacute; descompactada &agrave;
+ * medida que &eacute; lida, sem ser mantida em mem&oacute;ria. Com a
+ * op&ccedil;&atilde;o {@link ArquivoRequisicao#isCompressaoRequisicao()
+ * compressao=gzip} o envelope tamb&eacute;m &eacute; enviado compactado, em
+ * <i>chunks</i>, j&aacute; que o seu tamanho final n&atilde;o &eacute;
+ * conhecido de antem&atilde;o.
+ * </p>
+ * <p>
+ * Requisi&ccedil;&otilde;es com {@link ArquivoRequisicao#getAnexos() anexos}
+ * s&atilde;o enviadas como {@link CorpoMtom MTOM/XOP}, lidas diretamente dos
+ * arquivos, e respostas <code>multipart/related</code> s&atilde;o
+ * {@link DivisorMultipart separadas} em anexos ao lado do arquivo de resposta.
+ * </p>
+ *
+ * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
+ *         &lt;pgioseffi@gmail.com&gt;</a>
+ *
+ * @since 1.1.0
+ *
+ * @see TransporteSOAP
+ * @see ArquivoRequisicao#isPassagemDireta()
+ * @see HttpURLConnection
+ */
+final class TransporteDireto implements TransporteSOAP {
+
+	/**
+	 * Tamanho do <i>buffer</i> de c&oacute;pia entre os fluxos.
+	 */
+	private static final int TAMANHO_BUFFER = 16 * 1024;
+
+	/**
+	 * Tempo m&aacute;ximo padr&atilde;o, em milissegundos, para estabelecer a
+	 * conex&atilde;o.
+	 */
+	private final int timeoutConexao;
+
+	/**
+	 * Tempo m&aacute;ximo padr&atilde;o, em milissegundos, de espera por dados da
+	 * resposta.
+	 */
+	private final int timeoutLeitura;
+
+	/**
+	 * Indica se o cabe&ccedil;alho <code>Accept-Encoding: gzip</code> deve ser
+	 * enviado.
+	 */
+	private final boolean compressaoResposta;
+
+	/**
+	 * Construtor respons&aacute;vel por ajustar o limite de <i>sockets</i>
+	 * ociosos mantidos pela JVM por destino, caso o mesmo n&atilde;o tenha sido
+	 * informado.
+	 *
+	 * @param maximoPorEndpoint
+	 *            Quantidade m&aacute;xima de conex&otilde;es simult&acirc;neas por
+	 *            endpoint.
+	 * @param timeoutConexao
+	 *            Tempo m&aacute;ximo padr&atilde;o, em milissegundos, para
+	 *            estabelecer a conex&atilde;o.
+	 * @param timeoutLeitura
+	 *            Tempo m&aacute;ximo padr&atilde;o, em milissegundos, de espera
+	 *            por dados da resposta.
+	 * @param compressaoResposta
+	 *            Indica se o cabe&ccedil;alho <code>Accept-Encoding: gzip</code>
+	 *            deve ser enviado.
+	 */
+	TransporteDireto(final int maximoPorEndpoint, final int timeoutConexao, final int timeoutLeitura, final boolean compressaoResposta) {
+		this.timeoutConexao = timeoutConexao;
+		this.timeoutLeitura = timeoutLeitura;
+		this.compressaoResposta = compressaoResposta;
+
+		// Precisa ser definida antes da primeira conexão HTTP da JVM, pois é lida uma
+		// única vez pelo cache de keep-alive.
+		if (System.getProperty("http.maxConnections") == null) {
+			System.setProperty("http.maxConnections", String.valueOf(Math.max(1, maximoPorEndpoint)));
+		}
+	}
+
+	@Override
+	public CompletableFuture<Void> enviar(final ArquivoRequisicao requisicao, final ArquivoResposta resposta) {
+		final CompletableFuture<Void> futuro = new CompletableFuture<>();
+
+		HttpURLConnection conexao = null;
+		try {
+			conexao = (HttpURLConnection) new URL(requisicao.getUrl()).openConnection();
+			conexao.setRequestMethod("POST");
+			conexao.setDoOutput(true);
+			conexao.setUseCaches(false);
+			conexao.setConnectTimeout(requisicao.getTimeoutConexao(this.timeoutConexao));
+			conexao.setReadTimeout(requisicao.getTimeoutLeitura(this.timeoutLeitura));
+			conexao.setRequestProperty("Content-Type", requisicao.getTipoConteudoEnvio());
+
+			final boolean compactarRequisicao = requisicao.isCompressaoRequisicao();
+			if (compactarRequisicao) {
+				conexao.setChunkedStreamingMode(TransporteDireto.TAMANHO_BUFFER);
+				conexao.setRequestProperty("Content-Encoding", "gzip");
+			} else {
+				conexao.setFixedLengthStreamingMode(requisicao.getTamanhoEnvio());
+			}
+
+			if (this.compressaoResposta) {
+				conexao.setRequestProperty("Accept-Encoding", "gzip");
+			}
+
+			final MimeHeaders mimeHeaders = requisicao.getMimeHeaders();
+			if (mimeHeaders != null) {
+				for (final Iterator<?> iterator = mimeHeaders.getAllHeaders(); iterator.hasNext();) {
+					final MimeHeader mimeHeader = (MimeHeader) iterator.next();
+					conexao.setRequestProperty(mimeHeader.getName(), mimeHeader.getValue());
+				}
+			}
+
+			try (OutputStream saida = compactarRequisicao ? new GZIPOutputStream(conexao.getOutputStream(), TransporteDireto.TAMANHO_BUFFER) : conexao.getOutputStream()) {
+				TransporteDireto.copiar(requisicao.abrirEnvio(), saida);
+			}
+
+			// Mesmo critério do SAAJ: sucesso ou SOAP fault.
+			final int codigo = conexao.getResponseCode();
+			if (codigo / 100 != 2 && codigo != HttpURLConnection.HTTP_INTERNAL_ERROR) {
+				throw new IOException("Resposta inv\u00E1lida: (" + codigo + ") " + conexao.getResponseMessage());
+			}
+
+			try (InputStream entrada = codigo == HttpURLConnection.HTTP_INTERNAL_ERROR ? conexao.getErrorStream() : conexao.getInputStream()) {
+				if (entrada != null) {
+					// Respostas MTOM têm as partes separadas enquanto são recebidas.
+					final DivisorMultipart divisor = DivisorMultipart.criar(conexao.getContentType(), resposta);
+					TransporteDireto.copiar("gzip".equalsIgnoreCase(conexao.getContentEncoding()) ? new GZIPInputStream(entrada, TransporteDireto.TAMANHO_BUFFER) : entrada,
+							divisor == null ? resposta.getSaida() : divisor);
+					if (divisor != null) {
+						divisor.close();
+					}
+				}
+			}
+
+			futuro.complete(null);
+		} catch (final IOException | RuntimeException e) {
+			// Uma conexão que falhou não deve voltar ao cache de keep-alive.
+			if (conexao != null) {
+				conexao.disconnect();
+			}
+
+			futuro.completeExceptionally(e);
+		}
+
+		return futuro;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por copiar todos os bytes de um fluxo para
+	 * outro sem fechar nenhum dos dois.
+	 *
+	 * @param entrada
+	 *            Fluxo de origem, lido at&eacute; o fim.
+	 * @param saida
+	 *            Fluxo de destino.
+	 *
+	 * @throws IOException
+	 *             Caso n&atilde;o seja poss&iacute;vel ler ou escrever.
+	 */
+	private static void copiar(final InputStream entrada, final OutputStream saida) throws IOException {
+		final byte[] buffer = new byte[TransporteDireto.TAMANHO_BUFFER];
+		int lidos;
+		while ((lidos = entrada.read(buffer)) >= 0) {
+			saida.write(buffer, 0, lidos);
+		}
+	}
+
+	@Override
+	public void removerConexoesOciosas() {
+		// Os sockets ociosos são fechados pelo próprio cache de keep-alive da JVM.
+	}
+
+	@Override
+	public void close() {
+		// Não há recursos próprios a liberar.
+	}
+}
\ No newline at end of file
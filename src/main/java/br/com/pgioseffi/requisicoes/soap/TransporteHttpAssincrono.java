@@ -0,0 +1,642 @@
+package br.com.pgioseffi.requisicoes.soap;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import javax.xml.soap.MimeHeader;
+import javax.xml.soap.MimeHeaders;
+
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.AsyncResponseConsumer;
+import org.apache.hc.core5.http.nio.CapacityChannel;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.apache.hc.core5.http.nio.support.AsyncRequestBuilder;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * <p>
+ * Classe respons&aacute;vel pelo transporte n&atilde;o bloqueante do
+ * rob&ocirc;, atrav&eacute;s do cliente HTTP ass&iacute;ncrono do Apache
+ * HttpComponents.
+ * </p>
+ * <p>
+ * Assim como no {@link TransporteDireto transporte direto}, o envelope SOAP
+ * n&atilde;o &eacute; interpretado: seus bytes s&atilde;o enviados em blocos lidos diretamente do {@link ArquivoRequisicao arquivo de
+ * requisi&ccedil;&atilde;o} e os bytes da resposta s&atilde;o escritos no
+ * {@link ArquivoResposta arquivo de resposta} &agrave; medida que chegam. Toda a
+ * entrada e sa&iacute;da &eacute; feita por um pequeno conjunto de
+ * <i>threads</i> de I/O, de maneira que centenas de requisi&ccedil;&otilde;es
+ * podem aguardar endpoints lentos sem ocupar uma <i>thread</i> cada.
+ * </p>
+ * <p>
+ * As conex&otilde;es s&atilde;o mantidas com <i>keep-alive</i> HTTP/1.1 e,
+ * quando o endpoint suporta HTTP/2 (negociado via ALPN em conex&otilde;es TLS),
+ * as requisi&ccedil;&otilde;es para o mesmo endpoint s&atilde;o multiplexadas
+ * em uma &uacute;nica conex&atilde;o.
+ * </p>
+ * <p>
+ * Assim como no {@link TransporteSAAJ transporte padr&atilde;o}, apenas
+ * respostas com c&oacute;digo <code>2xx</code> ou <code>500</code> (SOAP
+ * <i>fault</i>) s&atilde;o gravadas. Qualquer outro c&oacute;digo completa o
+ * futuro com erro.
+ * </p>
+ * <p>
+ * Quando habilitado, o cabe&ccedil;alho <code>Accept-Encoding: gzip</code>
+ * &eacute; enviado e uma resposta compactada &eacute;
+ * {@link DescompactadorGzip descompactada} &agrave; medida que chega, nas
+ * pr&oacute;prias <i>threads</i> de I/O. Com a op&ccedil;&atilde;o
+ * {@link ArquivoRequisicao#isCompressaoRequisicao() compressao=gzip} cada bloco
+ * lido do arquivo &eacute; compactado antes de ser escrito no canal e o corpo
+ * &eacute; enviado sem tamanho conhecido.
+ * </p>
+ * <p>
+ * Da mesma maneira, requisi&ccedil;&otilde;es com
+ * {@link ArquivoRequisicao#getAnexos() anexos} s&atilde;o enviadas em blocos
+ * lidos diretamente do envelope e dos anexos, como {@link CorpoMtom MTOM/XOP},
+ * e respostas <code>multipart/related</code> s&atilde;o
+ * {@link DivisorMultipart separadas} em anexos &agrave; medida que chegam.
+ * </p>
+ *
+ * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
+ *         &lt;pgioseffi@gmail.com&gt;</a>
+ *
+ * @since 1.1.0
+ *
+ * @see TransporteSOAP
+ * @see CloseableHttpAsyncClient
+ * @see HttpVersionPolicy
+ * @see DescompactadorGzip
+ */
+final class TransporteHttpAssincrono implements TransporteSOAP {
+
+	/**
+	 * Constante utilizada para manter o {@link Logger log} da classe.
+	 *
+	 * @see Logger
+	 */
+	private static final Logger LOGGER = LogManager.getLogger(TransporteHttpAssincrono.class);
+
+	/**
+	 * Tamanho dos blocos do envelope SOAP lidos do arquivo a cada escrita no
+	 * canal.
+	 */
+	private static final int TAMANHO_BLOCO = 16 * 1024;
+
+	/**
+	 * Gerenciador das conex&otilde;es do cliente.
+	 */
+	private final PoolingAsyncClientConnectionManager gerenciadorConexoes;
+
+	/**
+	 * Cliente HTTP ass&iacute;ncrono j&aacute; iniciado.
+	 */
+	private final CloseableHttpAsyncClient cliente;
+
+	/**
+	 * Tempo m&aacute;ximo que uma conex&atilde;o pode ficar ociosa.
+	 */
+	private final TimeValue ociosidadeMaxima;
+
+	/**
+	 * Tempo m&aacute;ximo padr&atilde;o, em milissegundos, para estabelecer a
+	 * conex&atilde;o.
+	 */
+	private final int timeoutConexao;
+
+	/**
+	 * Tempo m&aacute;ximo padr&atilde;o, em milissegundos, de espera por dados da
+	 * resposta.
+	 */
+	private final int timeoutLeitura;
+
+	/**
+	 * Indica se o cabe&ccedil;alho <code>Accept-Encoding: gzip</code> deve ser
+	 * enviado.
+	 */
+	private final boolean compressaoResposta;
+
+	/**
+	 * Construtor respons&aacute;vel por criar e iniciar o cliente HTTP
+	 * ass&iacute;ncrono.
+	 *
+	 * @param maximoPorEndpoint
+	 *            Quantidade m&aacute;xima de conex&otilde;es simult&acirc;neas por
+	 *            endpoint.
+	 * @param maximoTotal
+	 *            Quantidade m&aacute;xima de conex&otilde;es simult&acirc;neas
+	 *            somando todos os endpoints.
+	 * @param ociosidadeMaxima
+	 *            Tempo m&aacute;ximo que uma conex&atilde;o pode ficar ociosa.
+	 * @param unidade
+	 *            Unidade do tempo m&aacute;ximo de ociosidade.
+	 * @param threadsIo
+	 *            Quantidade de <i>threads</i> de I/O.
+	 * @param versao
+	 *            Pol&iacute;tica de vers&atilde;o do protocolo HTTP.
+	 * @param timeoutConexao
+	 *            Tempo m&aacute;ximo padr&atilde;o, em milissegundos, para
+	 *            estabelecer a conex&atilde;o.
+	 * @param timeoutLeitura
+	 *            Tempo m&aacute;ximo padr&atilde;o, em milissegundos, de espera
+	 *            por dados da resposta.
+	 * @param compressaoResposta
+	 *            Indica se o cabe&ccedil;alho <code>Accept-Encoding: gzip</code>
+	 *            deve ser enviado.
+	 */
+	TransporteHttpAssincrono(final int maximoPorEndpoint, final int maximoTotal, final long ociosidadeMaxima, final TimeUnit unidade, final int threadsIo,
+			final HttpVersionPolicy versao, final int timeoutConexao, final int timeoutLeitura, final boolean compressaoResposta) {
+		final int quantidadePorEndpoint = Math.max(1, maximoPorEndpoint);
+
+		this.timeoutConexao = timeoutConexao;
+		this.timeoutLeitura = timeoutLeitura;
+		this.compressaoResposta = compressaoResposta;
+
+		this.ociosidadeMaxima = TimeValue.of(ociosidadeMaxima, unidade);
+		this.gerenciadorConexoes = PoolingAsyncClientConnectionManagerBuilder.create().setMaxConnPerRoute(quantidadePorEndpoint)
+				.setMaxConnTotal(Math.max(quantidadePorEndpoint, maximoTotal)).build();
+
+		// Redirecionamentos de POST seriam repetidos como GET, então tratamos o código
+		// 3xx como erro, assim como qualquer outro código inesperado.
+		this.cliente = HttpAsyncClients.custom().setConnectionManager(this.gerenciadorConexoes).setVersionPolicy(versao)
+				.setIOReactorConfig(IOReactorConfig.custom().setIoThreadCount(Math.max(1, threadsIo)).build()).disableRedirectHandling().disableCookieManagement().build();
+		this.cliente.start();
+
+		TransporteHttpAssincrono.LOGGER.info("Transporte HTTP ass\u00EDncrono iniciado. Conex\u00F5es por endpoint: " + quantidadePorEndpoint + ". Threads de I/O: " + Math.max(1, threadsIo)
+				+ ". Vers\u00E3o HTTP: " + versao + ".");
+	}
+
+	@Override
+	public CompletableFuture<Void> enviar(final ArquivoRequisicao requisicao, final ArquivoResposta resposta) {
+		final CompletableFuture<Void> futuro = new CompletableFuture<>();
+
+		try {
+			final AsyncRequestBuilder construtor = AsyncRequestBuilder.post(requisicao.getUrl()).setEntity(new ProdutorEnvelope(requisicao));
+
+			final MimeHeaders mimeHeaders = requisicao.getMimeHeaders();
+			if (mimeHeaders != null) {
+				for (final Iterator<?> iterator = mimeHeaders.getAllHeaders(); iterator.hasNext();) {
+					final MimeHeader mimeHeader = (MimeHeader) iterator.next();
+					construtor.addHeader(mimeHeader.getName(), mimeHeader.getValue());
+				}
+			}
+
+			if (this.compressaoResposta) {
+				construtor.addHeader("Accept-Encoding", "gzip");
+			}
+
+			// Os tempos máximos são definidos por requisição, pois podem ser sobrescritos
+			// pelo arquivo.
+			final HttpClientContext contexto = HttpClientContext.create();
+			contexto.setRequestConfig(RequestConfig.custom().setConnectTimeout(Timeout.ofMilliseconds(requisicao.getTimeoutConexao(this.timeoutConexao)))
+					.setResponseTimeout(Timeout.ofMilliseconds(requisicao.getTimeoutLeitura(this.timeoutLeitura))).build());
+
+			final Future<Integer> execucao = this.cliente.execute(construtor.build(), new ConsumidorResposta(resposta), contexto, new FutureCallback<Integer>() {
+
+				@Override
+				public void completed(final Integer codigo) {
+					futuro.complete(null);
+				}
+
+				@Override
+				public void failed(final Exception e) {
+					futuro.completeExceptionally(e);
+				}
+
+				@Override
+				public void cancelled() {
+					futuro.cancel(false);
+				}
+			});
+
+			// Cancelar o futuro devolvido, como faz o envio redundante, aborta a troca e
+			// libera a conexão.
+			futuro.whenComplete((resultado, erro) -> {
+				if (futuro.isCancelled()) {
+					execucao.cancel(true);
+				}
+			});
+		} catch (final IOException | RuntimeException e) {
+			futuro.completeExceptionally(e);
+		}
+
+		return futuro;
+	}
+
+	@Override
+	public void removerConexoesOciosas() {
+		this.gerenciadorConexoes.closeExpired();
+		this.gerenciadorConexoes.closeIdle(this.ociosidadeMaxima);
+	}
+
+	@Override
+	public void close() {
+		this.cliente.close(CloseMode.GRACEFUL);
+		TransporteHttpAssincrono.LOGGER.info("Transporte HTTP ass\u00EDncrono fechado.");
+	}
+
+	/**
+	 * Classe respons&aacute;vel por produzir o corpo da requisi&ccedil;&atilde;o
+	 * lendo o envelope SOAP em blocos diretamente do arquivo, sempre que o canal
+	 * aceitar mais dados, compactando cada bloco quando solicitado.
+	 */
+	private static final class ProdutorEnvelope implements AsyncEntityProducer {
+
+		/**
+		 * Arquivo de requisi&ccedil;&atilde;o aberto.
+		 */
+		private final ArquivoRequisicao requisicao;
+
+		/**
+		 * Tamanho, em bytes, do corpo HTTP: o envelope SOAP ou, com anexos, a
+		 * mensagem MTOM.
+		 */
+		private final long tamanho;
+
+		/**
+		 * Tipo de conte&uacute;do do corpo HTTP.
+		 */
+		private final String tipoConteudo;
+
+		/**
+		 * Bloco lido do arquivo.
+		 */
+		private final ByteBuffer leitura = ByteBuffer.allocate(TransporteHttpAssincrono.TAMANHO_BLOCO);
+
+		/**
+		 * Bytes compactados ainda n&atilde;o escritos no canal. Ser&aacute;
+		 * <code><strong>null</strong></code> caso o envelope seja enviado sem
+		 * compress&atilde;o.
+		 */
+		private final BufferCompactado compactados;
+
+		/**
+		 * Compactador dos blocos lidos. Ser&aacute;
+		 * <code><strong>null</strong></code> caso o envelope seja enviado sem
+		 * compress&atilde;o.
+		 */
+		private final GZIPOutputStream compactador;
+
+		/**
+		 * Bloco, lido do arquivo ou compactado, ainda n&atilde;o escrito por
+		 * completo no canal.
+		 */
+		private ByteBuffer bloco;
+
+		/**
+		 * Quantidade de bytes do envelope j&aacute; lidos do arquivo.
+		 */
+		private long lidos;
+
+		/**
+		 * Indica se o rodap&eacute; da compress&atilde;o j&aacute; foi gerado.
+		 */
+		private boolean finalizado;
+
+		/**
+		 * Construtor respons&aacute;vel por criar o produtor do envelope.
+		 *
+		 * @param requisicao
+		 *            Arquivo de requisi&ccedil;&atilde;o aberto.
+		 *
+		 * @throws IOException
+		 *             Lan&ccedil;ada pelo m&eacute;todo
+		 *             {@link ArquivoRequisicao#getTamanhoEnvio()}.
+		 */
+		ProdutorEnvelope(final ArquivoRequisicao requisicao) throws IOException {
+			this.requisicao = requisicao;
+			this.tamanho = requisicao.getTamanhoEnvio();
+			this.tipoConteudo = requisicao.getTipoConteudoEnvio();
+			this.leitura.flip();
+
+			if (requisicao.isCompressaoRequisicao()) {
+				// O cabeçalho gzip, escrito na criação do compactador, é o primeiro bloco.
+				this.compactados = new BufferCompactado();
+				this.compactador = new GZIPOutputStream(this.compactados, TransporteHttpAssincrono.TAMANHO_BLOCO);
+				this.bloco = this.compactados.envolver();
+			} else {
+				this.compactados = null;
+				this.compactador = null;
+				this.bloco = this.leitura;
+			}
+		}
+
+		@Override
+		public int available() {
+			// Sem compressão o tamanho restante é exato. Com ela basta indicar que ainda há
+			// algo a escrever.
+			if (this.compactador != null) {
+				return this.finalizado ? this.bloco.remaining() : Math.max(1, this.bloco.remaining());
+			}
+
+			return (int) Math.min(Integer.MAX_VALUE, this.tamanho - this.lidos + this.bloco.remaining());
+		}
+
+		@Override
+		public void produce(final DataStreamChannel canal) throws IOException {
+			// Escreve enquanto o canal aceitar. Quando o mesmo estiver cheio seremos
+			// chamados novamente, sem bloquear a thread de I/O.
+			while (true) {
+				if (!this.bloco.hasRemaining()) {
+					if (!this.preencherBloco()) {
+						canal.endStream();
+						return;
+					}
+
+					// Um bloco compactado pode ficar vazio enquanto o compactador acumula dados.
+					continue;
+				}
+
+				canal.write(this.bloco);
+				if (this.bloco.hasRemaining()) {
+					return;
+				}
+			}
+		}
+
+		/**
+		 * M&eacute;todo respons&aacute;vel por preparar o pr&oacute;ximo bloco a
+		 * ser escrito no canal, lendo o arquivo e, quando solicitado, compactando o
+		 * que foi lido.
+		 *
+		 * @return O intr&iacute;nseco <code><strong>boolean</strong></code> contendo o
+		 *         valor <code><strong>false</strong></code> caso n&atilde;o haja mais
+		 *         nada a escrever ou <code><strong>true</strong></code> caso
+		 *         contr&aacute;rio.
+		 *
+		 * @throws IOException
+		 *             Caso n&atilde;o seja poss&iacute;vel ler o arquivo.
+		 */
+		private boolean preencherBloco() throws IOException {
+			if (this.lidos >= this.tamanho) {
+				if (this.compactador == null || this.finalizado) {
+					return false;
+				}
+
+				this.compactados.reset();
+				this.compactador.finish();
+				this.finalizado = true;
+				this.bloco = this.compactados.envolver();
+				return true;
+			}
+
+			this.leitura.clear();
+			this.leitura.limit((int) Math.min(this.leitura.capacity(), this.tamanho - this.lidos));
+			final int lidosAgora = this.requisicao.lerEnvio(this.leitura, this.lidos);
+			if (lidosAgora < 0) {
+				throw new IOException("Arquivo de requisi\u00E7\u00E3o terminou antes do tamanho esperado.");
+			}
+
+			this.lidos += lidosAgora;
+			this.leitura.flip();
+
+			if (this.compactador == null) {
+				this.bloco = this.leitura;
+				return true;
+			}
+
+			// O bloco anterior já foi escrito por completo, então o buffer pode ser
+			// reaproveitado.
+			this.compactados.reset();
+			this.compactador.write(this.leitura.array(), this.leitura.arrayOffset() + this.leitura.position(), this.leitura.remaining());
+			this.bloco = this.compactados.envolver();
+			return true;
+		}
+
+		@Override
+		public long getContentLength() {
+			return this.compactador != null ? -1L : this.tamanho;
+		}
+
+		@Override
+		public String getContentType() {
+			return this.tipoConteudo;
+		}
+
+		@Override
+		public String getContentEncoding() {
+			return this.compactador != null ? "gzip" : null;
+		}
+
+		@Override
+		public boolean isChunked() {
+			return this.compactador != null;
+		}
+
+		@Override
+		public Set<String> getTrailerNames() {
+			return Collections.emptySet();
+		}
+
+		@Override
+		public boolean isRepeatable() {
+			return false;
+		}
+
+		@Override
+		public void failed(final Exception e) {
+			// A falha é propagada ao futuro pelo próprio cliente.
+		}
+
+		@Override
+		public void releaseResources() {
+			// O arquivo pertence a quem chamou o transporte. Apenas o compactador, que
+			// escreve em memória, é liberado.
+			if (this.compactador != null) {
+				try {
+					this.compactador.close();
+				} catch (final IOException e) {
+					TransporteHttpAssincrono.LOGGER.debug("Erro ao liberar o compactador do envelope. ERRO: " + e.getMessage(), e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Classe respons&aacute;vel por acumular os bytes compactados de um bloco,
+	 * permitindo escrev&ecirc;-los no canal sem c&oacute;pias.
+	 */
+	private static final class BufferCompactado extends ByteArrayOutputStream {
+
+		/**
+		 * Construtor respons&aacute;vel por criar o <i>buffer</i> com a
+		 * capacidade de um bloco.
+		 */
+		BufferCompactado() {
+			super(TransporteHttpAssincrono.TAMANHO_BLOCO);
+		}
+
+		/**
+		 * M&eacute;todo respons&aacute;vel por envolver os bytes acumulados, que
+		 * n&atilde;o podem ser alterados at&eacute; serem escritos.
+		 *
+		 * @return Os bytes acumulados, prontos para leitura.
+		 */
+		ByteBuffer envolver() {
+			return ByteBuffer.wrap(this.buf, 0, this.count);
+		}
+	}
+
+	/**
+	 * Classe respons&aacute;vel por consumir a resposta HTTP escrevendo seus bytes
+	 * no arquivo de resposta &agrave; medida que chegam.
+	 */
+	private static final class ConsumidorResposta implements AsyncResponseConsumer<Integer> {
+
+		/**
+		 * Fluxo de escrita do arquivo de resposta ou, quando a resposta chega
+		 * compactada ou em partes, o {@link DescompactadorGzip descompactador} ou
+		 * o {@link DivisorMultipart divisor} que escrevem no mesmo.
+		 */
+		private OutputStream saida;
+
+		/**
+		 * Arquivo de resposta.
+		 */
+		private final ArquivoResposta resposta;
+
+		/**
+		 * Divisor da resposta. Ser&aacute; <code><strong>null</strong></code> caso
+		 * a resposta n&atilde;o seja <code>multipart/related</code>.
+		 */
+		private DivisorMultipart divisor;
+
+		/**
+		 * Descompactador da resposta. Ser&aacute;
+		 * <code><strong>null</strong></code> caso a resposta n&atilde;o chegue
+		 * compactada.
+		 */
+		private DescompactadorGzip descompactador;
+
+		/**
+		 * C&oacute;digo HTTP da resposta.
+		 */
+		private int codigo;
+
+		/**
+		 * Objeto notificado ao fim da resposta.
+		 */
+		private FutureCallback<Integer> retorno;
+
+		/**
+		 * Construtor respons&aacute;vel por criar o consumidor da resposta.
+		 *
+		 * @param resposta
+		 *            Arquivo de resposta.
+		 */
+		ConsumidorResposta(final ArquivoResposta resposta) {
+			this.resposta = resposta;
+			this.saida = resposta.getSaida();
+		}
+
+		@Override
+		public void consumeResponse(final HttpResponse response, final EntityDetails entityDetails, final HttpContext context, final FutureCallback<Integer> resultCallback)
+				throws HttpException, IOException {
+			this.codigo = response.getCode();
+
+			// Mesmo critério do SAAJ: sucesso ou SOAP fault.
+			if (this.codigo / 100 != 2 && this.codigo != HttpStatus.SC_INTERNAL_SERVER_ERROR) {
+				throw new HttpException("Resposta inv\u00E1lida: (" + this.codigo + ") " + response.getReasonPhrase());
+			}
+
+			if (entityDetails == null) {
+				resultCallback.completed(Integer.valueOf(this.codigo));
+			} else {
+				// As partes são separadas depois da descompactação.
+				this.divisor = DivisorMultipart.criar(entityDetails.getContentType(), this.resposta);
+				if (this.divisor != null) {
+					this.saida = this.divisor;
+				}
+
+				if ("gzip".equalsIgnoreCase(entityDetails.getContentEncoding())) {
+					this.descompactador = new DescompactadorGzip(this.saida);
+					this.saida = this.descompactador;
+				}
+
+				this.retorno = resultCallback;
+			}
+		}
+
+		@Override
+		public void informationResponse(final HttpResponse response, final HttpContext context) {
+			// Respostas 1xx não têm conteúdo a ser gravado.
+		}
+
+		@Override
+		public void updateCapacity(final CapacityChannel capacityChannel) throws IOException {
+			capacityChannel.update(Integer.MAX_VALUE);
+		}
+
+		@Override
+		public void consume(final ByteBuffer src) throws IOException {
+			if (src.hasArray()) {
+				this.saida.write(src.array(), src.arrayOffset() + src.position(), src.remaining());
+				src.position(src.limit());
+				return;
+			}
+
+			final byte[] bytes = new byte[Math.min(src.remaining(), TransporteHttpAssincrono.TAMANHO_BLOCO)];
+			while (src.hasRemaining()) {
+				final int quantidade = Math.min(bytes.length, src.remaining());
+				src.get(bytes, 0, quantidade);
+				this.saida.write(bytes, 0, quantidade);
+			}
+		}
+
+		@Override
+		public void streamEnd(final List<? extends Header> trailers) throws IOException {
+			if (this.descompactador != null) {
+				this.descompactador.close();
+			}
+
+			if (this.divisor != null) {
+				this.divisor.close();
+			}
+
+			if (this.retorno != null) {
+				this.retorno.completed(Integer.valueOf(this.codigo));
+			}
+		}
+
+		@Override
+		public void failed(final Exception cause) {
+			// A falha é propagada ao futuro pelo próprio cliente.
+		}
+
+		@Override
+		public void releaseResources() {
+			// O arquivo de resposta pertence a quem chamou o transporte.
+			if (this.descompactador != null) {
+				this.descompactador.descartar();
+			}
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,488 @@
+package br.com.pgioseffi.requisicoes.soap;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * <p>
+ * Classe respons&aacute;vel por reduzir a lat&ecirc;ncia de cauda das
+ * requisi&ccedil;&otilde;es {@link ArquivoRequisicao#isIdempotente()
+ * idempotentes} atrav&eacute;s de requisi&ccedil;&otilde;es redundantes
+ * (<i>hedged requests</i>), decorando outro {@link TransporteSOAP transporte}.
+ * </p>
+ * <p>
+ * Para cada endpoint &eacute; mantida uma janela com as lat&ecirc;ncias das
+ * &uacute;ltimas tentativas bem sucedidas. Quando uma requisi&ccedil;&atilde;o
+ * idempotente ainda n&atilde;o foi respondida ap&oacute;s o percentil
+ * configurado dessa janela, uma segunda tentativa &eacute; enviada ao mesmo
+ * endpoint. A primeira resposta vence e a outra tentativa &eacute; cancelada.
+ * Cada tentativa escreve em uma {@link ArquivoResposta#criarAlternativa(String)
+ * resposta alternativa}, de maneira que apenas a vencedora chegue ao arquivo de
+ * resposta.
+ * </p>
+ * <p>
+ * A quantidade de tentativas redundantes &eacute; limitada a um percentual das
+ * requisi&ccedil;&otilde;es idempotentes, para que um endpoint lento n&atilde;o
+ * receba o dobro da carga justamente quando est&aacute; sobrecarregado.
+ * </p>
+ * <p>
+ * O cancelamento interrompe a troca em andamento nos transportes
+ * ass&iacute;ncronos. Nos transportes bloqueantes a tentativa perdedora segue
+ * at&eacute; o fim, limitada pelo tempo m&aacute;ximo de leitura, e sua
+ * resposta &eacute; descartada.
+ * </p>
+ *
+ * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
+ *         &lt;pgioseffi@gmail.com&gt;</a>
+ *
+ * @since 1.1.0
+ *
+ * @see TransporteSOAP
+ * @see ArquivoRequisicao#isIdempotente()
+ * @see RodaTemporizacao
+ */
+final class TransporteRedundante implements TransporteSOAP {
+
+	/**
+	 * Constante utilizada para manter o {@link Logger log} da classe.
+	 *
+	 * @see Logger
+	 */
+	private static final Logger LOGGER = LogManager.getLogger(TransporteRedundante.class);
+
+	/**
+	 * Quantidade de lat&ecirc;ncias mantidas por endpoint.
+	 */
+	private static final int TAMANHO_JANELA = 256;
+
+	/**
+	 * Transporte decorado, que efetivamente envia as tentativas.
+	 */
+	private final TransporteSOAP delegado;
+
+	/**
+	 * Percentil, entre zero e um, das lat&ecirc;ncias a partir do qual a
+	 * tentativa redundante &eacute; enviada.
+	 */
+	private final double percentil;
+
+	/**
+	 * Quantidade m&iacute;nima de lat&ecirc;ncias de um endpoint antes de
+	 * enviar tentativas redundantes ao mesmo.
+	 */
+	private final int amostrasMinimas;
+
+	/**
+	 * Percentual m&aacute;ximo de tentativas redundantes em rela&ccedil;&atilde;o
+	 * &agrave;s requisi&ccedil;&otilde;es idempotentes.
+	 */
+	private final int percentualMaximo;
+
+	/**
+	 * Lat&ecirc;ncias de cada endpoint, indexadas pela URL.
+	 */
+	private final ConcurrentMap<String, JanelaLatencias> latencias = new ConcurrentHashMap<>();
+
+	/**
+	 * Quantidade de requisi&ccedil;&otilde;es idempotentes enviadas.
+	 */
+	private final AtomicLong requisicoes = new AtomicLong();
+
+	/**
+	 * Quantidade de tentativas redundantes enviadas.
+	 */
+	private final AtomicLong redundantes = new AtomicLong();
+
+	/**
+	 * Executor das tentativas, para que um transporte bloqueante n&atilde;o
+	 * impe&ccedil;a o envio da tentativa redundante.
+	 */
+	private final ExecutorService executor;
+
+	/**
+	 * Roda de temporiza&ccedil;&atilde;o que dispara as tentativas redundantes.
+	 */
+	private final RodaTemporizacao roda;
+
+	/**
+	 * Construtor respons&aacute;vel por decorar o transporte informado.
+	 *
+	 * @param delegado
+	 *            Transporte que efetivamente envia as tentativas.
+	 * @param percentil
+	 *            Percentil, entre 1 e 99, das lat&ecirc;ncias a partir do qual a
+	 *            tentativa redundante &eacute; enviada.
+	 * @param amostrasMinimas
+	 *            Quantidade m&iacute;nima de lat&ecirc;ncias de um endpoint antes
+	 *            de enviar tentativas redundantes ao mesmo.
+	 * @param percentualMaximo
+	 *            Percentual m&aacute;ximo de tentativas redundantes em
+	 *            rela&ccedil;&atilde;o &agrave;s requisi&ccedil;&otilde;es
+	 *            idempotentes.
+	 */
+	TransporteRedundante(final TransporteSOAP delegado, final int percentil, final int amostrasMinimas, final int percentualMaximo) {
+		this.delegado = delegado;
+		this.percentil = Math.min(99, Math.max(1, percentil)) / 100D;
+		this.amostrasMinimas = Math.min(TransporteRedundante.TAMANHO_JANELA, Math.max(1, amostrasMinimas));
+		this.percentualMaximo = Math.max(0, percentualMaximo);
+
+		final AtomicInteger contador = new AtomicInteger();
+		this.executor = Executors.newCachedThreadPool(runnable -> {
+			final Thread thread = new Thread(runnable, "robo-redundante-" + contador.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.roda = new RodaTemporizacao(10L, TimeUnit.MILLISECONDS, 512, this.executor);
+
+		TransporteRedundante.LOGGER.info("Requisi\u00E7\u00F5es redundantes habilitadas para requisi\u00E7\u00F5es idempotentes. Percentil: " + percentil
+				+ ". Percentual m\u00E1ximo: " + this.percentualMaximo + "%.");
+	}
+
+	@Override
+	public CompletableFuture<Void> enviar(final ArquivoRequisicao requisicao, final ArquivoResposta resposta) {
+		if (!requisicao.isIdempotente()) {
+			return this.delegado.enviar(requisicao, resposta);
+		}
+
+		this.requisicoes.incrementAndGet();
+
+		final JanelaLatencias janela = this.latencias.computeIfAbsent(requisicao.getUrl(), url -> new JanelaLatencias());
+		final long limiar = janela.calcularPercentil(this.percentil, this.amostrasMinimas);
+
+		// Sem amostras suficientes não há como saber o que é uma resposta lenta, então
+		// apenas medimos a latência.
+		if (limiar < 0L) {
+			final long inicio = System.nanoTime();
+			return this.delegado.enviar(requisicao, resposta).whenComplete((resultado, erro) -> {
+				if (erro == null) {
+					janela.registrar(System.nanoTime() - inicio);
+				}
+			});
+		}
+
+		final Envio envio = new Envio(requisicao, resposta, janela);
+		this.iniciarTentativa(envio);
+
+		try {
+			this.roda.agendar(() -> this.dispararRedundante(envio, limiar), limiar, TimeUnit.NANOSECONDS);
+		} catch (final RejectedExecutionException e) {
+			// Transporte encerrado: segue apenas com a primeira tentativa.
+		}
+
+		return envio.resultado;
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por enviar a tentativa redundante caso a
+	 * requisi&ccedil;&atilde;o ainda n&atilde;o tenha sido conclu&iacute;da e o
+	 * percentual m&aacute;ximo permita.
+	 *
+	 * @param envio
+	 *            Envio da requisi&ccedil;&atilde;o.
+	 * @param limiar
+	 *            Lat&ecirc;ncia, em nanossegundos, que disparou a tentativa.
+	 */
+	private void dispararRedundante(final Envio envio, final long limiar) {
+		synchronized (envio) {
+			if (envio.concluido) {
+				return;
+			}
+
+			if (this.redundantes.get() * 100L >= this.requisicoes.get() * this.percentualMaximo) {
+				TransporteRedundante.LOGGER.debug("Percentual m\u00E1ximo de requisi\u00E7\u00F5es redundantes atingido. Endpoint: " + envio.requisicao.getUrl());
+				return;
+			}
+
+			this.redundantes.incrementAndGet();
+		}
+
+		TransporteRedundante.LOGGER.debug("Enviando requisi\u00E7\u00E3o redundante ao endpoint " + envio.requisicao.getUrl() + " ap\u00F3s " + TimeUnit.NANOSECONDS.toMillis(limiar) + " ms.");
+		this.iniciarTentativa(envio);
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por iniciar uma tentativa de envio da
+	 * requisi&ccedil;&atilde;o no executor, escrevendo em uma resposta
+	 * alternativa.
+	 *
+	 * @param envio
+	 *            Envio da requisi&ccedil;&atilde;o.
+	 */
+	private void iniciarTentativa(final Envio envio) {
+		final int numero;
+		synchronized (envio) {
+			numero = ++envio.tentativas;
+			envio.emAndamento++;
+		}
+
+		try {
+			this.executor.execute(() -> {
+				// A requisição pode ter sido concluída enquanto a tentativa aguardava o
+				// executor.
+				synchronized (envio) {
+					if (envio.concluido) {
+						envio.emAndamento--;
+						return;
+					}
+				}
+
+				final ArquivoResposta alternativa;
+				try {
+					alternativa = envio.resposta.criarAlternativa(String.valueOf(numero));
+				} catch (final IOException | RuntimeException e) {
+					this.concluirTentativa(envio, null, null, 0L, e);
+					return;
+				}
+
+				final long inicio = System.nanoTime();
+				final CompletableFuture<Void> futuro = this.delegado.enviar(envio.requisicao, alternativa);
+
+				synchronized (envio) {
+					envio.futuros.add(futuro);
+				}
+
+				futuro.whenComplete((resultado, erro) -> this.concluirTentativa(envio, futuro, alternativa, inicio, erro));
+			});
+		} catch (final RejectedExecutionException e) {
+			this.concluirTentativa(envio, null, null, 0L, e);
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por concluir uma tentativa. A primeira
+	 * tentativa bem sucedida &eacute; transferida para a resposta original e as
+	 * demais s&atilde;o canceladas. A requisi&ccedil;&atilde;o falha apenas
+	 * quando todas as tentativas falham.
+	 *
+	 * @param envio
+	 *            Envio da requisi&ccedil;&atilde;o.
+	 * @param futuro
+	 *            Futuro da tentativa ou <code><strong>null</strong></code> caso a
+	 *            mesma n&atilde;o tenha sido iniciada.
+	 * @param alternativa
+	 *            Resposta alternativa da tentativa ou
+	 *            <code><strong>null</strong></code> caso a mesma n&atilde;o tenha
+	 *            sido criada.
+	 * @param inicio
+	 *            Instante, em nanossegundos, do in&iacute;cio da tentativa.
+	 * @param erro
+	 *            Erro da tentativa ou <code><strong>null</strong></code> em caso de
+	 *            sucesso.
+	 */
+	private void concluirTentativa(final Envio envio, final CompletableFuture<Void> futuro, final ArquivoResposta alternativa, final long inicio, final Throwable erro) {
+		final List<CompletableFuture<Void>> perdedores;
+		Throwable falha = erro;
+
+		synchronized (envio) {
+			envio.emAndamento--;
+
+			if (envio.concluido) {
+				// Tentativa perdedora: sua resposta é descartada.
+				TransporteRedundante.fechar(alternativa);
+				return;
+			}
+
+			if (erro == null) {
+				try {
+					alternativa.transferirPara(envio.resposta);
+				} catch (final IOException | RuntimeException e) {
+					TransporteRedundante.fechar(alternativa);
+					falha = e;
+				}
+			} else {
+				TransporteRedundante.fechar(alternativa);
+			}
+
+			// Aguarda as demais tentativas antes de desistir da requisição.
+			if (falha != null && envio.emAndamento > 0) {
+				return;
+			}
+
+			envio.concluido = true;
+			perdedores = new ArrayList<>(envio.futuros);
+		}
+
+		if (falha == null) {
+			envio.janela.registrar(System.nanoTime() - inicio);
+		}
+
+		for (final CompletableFuture<Void> perdedor : perdedores) {
+			if (perdedor != futuro) {
+				perdedor.cancel(true);
+			}
+		}
+
+		if (falha == null) {
+			envio.resultado.complete(null);
+		} else {
+			envio.resultado.completeExceptionally(falha);
+		}
+	}
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por fechar uma resposta alternativa
+	 * n&atilde;o utilizada, excluindo seu arquivo tempor&aacute;rio.
+	 *
+	 * @param alternativa
+	 *            Resposta alternativa ou <code><strong>null</strong></code>.
+	 */
+	private static void fechar(final ArquivoResposta alternativa) {
+		if (alternativa == null) {
+			return;
+		}
+
+		try {
+			alternativa.close();
+		} catch (final IOException e) {
+			TransporteRedundante.LOGGER.warn("Erro ao descartar resposta de tentativa. ERRO: " + e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public void removerConexoesOciosas() {
+		this.delegado.removerConexoesOciosas();
+	}
+
+	@Override
+	public void close() {
+		this.roda.close();
+		this.delegado.close();
+		this.executor.shutdownNow();
+	}
+
+	/**
+	 * Classe respons&aacute;vel por manter o estado do envio de uma
+	 * requisi&ccedil;&atilde;o idempotente. O acesso &eacute; sincronizado pela
+	 * pr&oacute;pria inst&acirc;ncia.
+	 */
+	private static final class Envio {
+
+		/**
+		 * Requisi&ccedil;&atilde;o enviada.
+		 */
+		private final ArquivoRequisicao requisicao;
+
+		/**
+		 * Resposta original, que recebe a tentativa vencedora.
+		 */
+		private final ArquivoResposta resposta;
+
+		/**
+		 * Lat&ecirc;ncias do endpoint.
+		 */
+		private final JanelaLatencias janela;
+
+		/**
+		 * Futuro devolvido a quem enviou a requisi&ccedil;&atilde;o.
+		 */
+		private final CompletableFuture<Void> resultado = new CompletableFuture<>();
+
+		/**
+		 * Futuros das tentativas iniciadas.
+		 */
+		private final List<CompletableFuture<Void>> futuros = new ArrayList<>(2);
+
+		/**
+		 * Quantidade de tentativas iniciadas.
+		 */
+		private int tentativas;
+
+		/**
+		 * Quantidade de tentativas ainda n&atilde;o conclu&iacute;das.
+		 */
+		private int emAndamento;
+
+		/**
+		 * Indica se o resultado j&aacute; foi decidido.
+		 */
+		private boolean concluido;
+
+		/**
+		 * Construtor respons&aacute;vel por criar o estado do envio.
+		 *
+		 * @param requisicao
+		 *            Requisi&ccedil;&atilde;o enviada.
+		 * @param resposta
+		 *            Resposta original.
+		 * @param janela
+		 *            Lat&ecirc;ncias do endpoint.
+		 */
+		private Envio(final ArquivoRequisicao requisicao, final ArquivoResposta resposta, final JanelaLatencias janela) {
+			this.requisicao = requisicao;
+			this.resposta = resposta;
+			this.janela = janela;
+		}
+	}
+
+	/**
+	 * Classe respons&aacute;vel por manter, em um <i>buffer</i> circular, as
+	 * lat&ecirc;ncias das &uacute;ltimas tentativas bem sucedidas de um endpoint.
+	 */
+	private static final class JanelaLatencias {
+
+		/**
+		 * Lat&ecirc;ncias, em nanossegundos.
+		 */
+		private final long[] amostras = new long[TransporteRedundante.TAMANHO_JANELA];
+
+		/**
+		 * Quantidade de lat&ecirc;ncias registradas, limitada ao tamanho da janela.
+		 */
+		private int quantidade;
+
+		/**
+		 * Posi&ccedil;&atilde;o da pr&oacute;xima lat&ecirc;ncia.
+		 */
+		private int proxima;
+
+		/**
+		 * M&eacute;todo respons&aacute;vel por registrar uma lat&ecirc;ncia,
+		 * substituindo a mais antiga caso a janela esteja cheia.
+		 *
+		 * @param latenciaNanos
+		 *            Lat&ecirc;ncia, em nanossegundos.
+		 */
+		private synchronized void registrar(final long latenciaNanos) {
+			this.amostras[this.proxima] = latenciaNanos;
+			this.proxima = (this.proxima + 1) % this.amostras.length;
+			this.quantidade = Math.min(this.amostras.length, this.quantidade + 1);
+		}
+
+		/**
+		 * M&eacute;todo respons&aacute;vel por calcular um percentil das
+		 * lat&ecirc;ncias da janela.
+		 *
+		 * @param percentil
+		 *            Percentil, entre zero e um.
+		 * @param amostrasMinimas
+		 *            Quantidade m&iacute;nima de lat&ecirc;ncias para o
+		 *            c&aacute;lculo.
+		 *
+		 * @return O percentil, em nanossegundos, ou <code>-1</code> caso n&atilde;o
+		 *         haja lat&ecirc;ncias suficientes.
+		 */
+		private synchronized long calcularPercentil(final double percentil, final int amostrasMinimas) {
+			if (this.quantidade < amostrasMinimas) {
+				return -1L;
+			}
+
+			final long[] ordenadas = Arrays.copyOf(this.amostras, this.quantidade);
+			Arrays.sort(ordenadas);
+			return ordenadas[Math.max(0, (int) Math.ceil(percentil * ordenadas.length) - 1)];
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,154 @@
+package br.com.pgioseffi.requisicoes.soap;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.soap.MessageFactory;
+import javax.xml.soap.SOAPException;
+import javax.xml.soap.SOAPMessage;
+
+/**
+ * <p>
+ * Classe respons&aacute;vel pelo transporte padr&atilde;o do rob&ocirc;,
+ * atrav&eacute;s do SAAJ.
+ * </p>
+ * <p>
+ * O envelope &eacute; lido em uma {@link SOAPMessage} e enviado pelo
+ * {@link PoolConexoesSOAP pool de conex&otilde;es SOAP}. A chamada &eacute;
+ * bloqueante, portanto a <i>thread</i> que envia fica ocupada durante toda a
+ * ida e volta e o futuro &eacute; devolvido j&aacute; completado.
+ * </p>
+ * <p>
+ * Arquivos com a op&ccedil;&atilde;o {@link ArquivoRequisicao#isPassagemDireta()
+ * passagem=direta} s&atilde;o enviados pelo {@link TransporteDireto transporte
+ * direto}, sem a interpreta&ccedil;&atilde;o do envelope, que tamb&eacute;m
+ * &eacute; o &uacute;nico a compactar as mensagens na rede. O mesmo acontece
+ * com os arquivos com {@link ArquivoRequisicao#getAnexos() anexos}, enviados
+ * como {@link CorpoMtom MTOM/XOP} sem que os anexos sejam lidos para a
+ * mem&oacute;ria. As respostas do SAAJ s&atilde;o sempre serializadas como
+ * recebidas.
+ * </p>
+ *
+ * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
+ *         &lt;pgioseffi@gmail.com&gt;</a>
+ *
+ * @since 1.1.0
+ *
+ * @see TransporteSOAP
+ * @see PoolConexoesSOAP
+ * @see MessageFactory
+ * @see TransporteDireto
+ * @see MedicaoArquivo
+ */
+final class TransporteSAAJ implements TransporteSOAP {
+
+	/**
+	 * F&aacute;brica de mensagens SOAP, obtida uma &uacute;nica vez ao
+	 * inv&eacute;s de a cada requisi&ccedil;&atilde;o.
+	 */
+	private final MessageFactory fabricaMensagens;
+
+	/**
+	 * Pool de conex&otilde;es SOAP por endpoint.
+	 */
+	private final PoolConexoesSOAP poolConexoes;
+
+	/**
+	 * Transporte utilizado pelos arquivos com a op&ccedil;&atilde;o
+	 * <code>passagem=direta</code>.
+	 */
+	private final TransporteDireto passagemDireta;
+
+	/**
+	 * Tempo m&aacute;ximo padr&atilde;o, em milissegundos, para estabelecer a
+	 * conex&atilde;o.
+	 */
+	private final int timeoutConexao;
+
+	/**
+	 * Tempo m&aacute;ximo padr&atilde;o, em milissegundos, de espera por dados da
+	 * resposta.
+	 */
+	private final int timeoutLeitura;
+
+	/**
+	 * Construtor respons&aacute;vel por obter a f&aacute;brica de mensagens e
+	 * criar o pool de conex&otilde;es.
+	 *
+	 * @param maximoPorEndpoint
+	 *            Quantidade m&aacute;xima de conex&otilde;es simult&acirc;neas por
+	 *            endpoint.
+	 * @param ociosidadeMaxima
+	 *            Tempo m&aacute;ximo que uma conex&atilde;o pode ficar ociosa.
+	 * @param unidade
+	 *            Unidade do tempo m&aacute;ximo de ociosidade.
+	 * @param timeoutConexao
+	 *            Tempo m&aacute;ximo padr&atilde;o, em milissegundos, para
+	 *            estabelecer a conex&atilde;o.
+	 * @param timeoutLeitura
+	 *            Tempo m&aacute;ximo padr&atilde;o, em milissegundos, de espera
+	 *            por dados da resposta.
+	 * @param compressaoResposta
+	 *            Indica se a {@link TransporteDireto passagem direta} deve aceitar
+	 *            respostas compactadas com <i>gzip</i>.
+	 *
+	 * @throws SOAPException
+	 *             Lan&ccedil;ada pelos m&eacute;todos
+	 *             {@link MessageFactory#newInstance()} e
+	 *             {@link javax.xml.soap.SOAPConnectionFactory#newInstance()
+	 *             SOAPConnectionFactory.newInstance()}.
+	 */
+	TransporteSAAJ(final int maximoPorEndpoint, final long ociosidadeMaxima, final TimeUnit unidade, final int timeoutConexao, final int timeoutLeitura,
+			final boolean compressaoResposta) throws SOAPException {
+		this.fabricaMensagens = MessageFactory.newInstance();
+		this.poolConexoes = new PoolConexoesSOAP(maximoPorEndpoint, ociosidadeMaxima, unidade, timeoutConexao, timeoutLeitura);
+		this.passagemDireta = new TransporteDireto(maximoPorEndpoint, timeoutConexao, timeoutLeitura, compressaoResposta);
+		this.timeoutConexao = timeoutConexao;
+		this.timeoutLeitura = timeoutLeitura;
+	}
+
+	@Override
+	public CompletableFuture<Void> enviar(final ArquivoRequisicao requisicao, final ArquivoResposta resposta) {
+		if (requisicao.isPassagemDireta() || requisicao.isMtom()) {
+			return this.passagemDireta.enviar(requisicao, resposta);
+		}
+
+		final CompletableFuture<Void> futuro = new CompletableFuture<>();
+
+		try {
+			// Cria o objeto com a mensagem SOAP a ser enviada lendo o envelope diretamente
+			// do arquivo.
+			final long inicioMensagem = System.nanoTime();
+			final SOAPMessage message = this.fabricaMensagens.createMessage(requisicao.getMimeHeaders(), requisicao.abrirCorpo());
+			requisicao.getMedicao().registrar(MedicaoArquivo.Etapa.MENSAGEM, inicioMensagem);
+
+			// Recupera a resposta depois de executada a requisição com a mensagem SOAP
+			// acima e a escreve direto no arquivo de resposta.
+			final SOAPMessage retorno = this.poolConexoes.chamar(message, requisicao.getUrl(), requisicao.getTimeoutConexao(this.timeoutConexao),
+					requisicao.getTimeoutLeitura(this.timeoutLeitura));
+
+			final long inicioEscrita = System.nanoTime();
+			retorno.writeTo(resposta.getSaida());
+			requisicao.getMedicao().registrar(MedicaoArquivo.Etapa.ESCRITA, inicioEscrita);
+			futuro.complete(null);
+		} catch (final IOException | SOAPException | RuntimeException e) {
+			futuro.completeExceptionally(e);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			futuro.completeExceptionally(e);
+		}
+
+		return futuro;
+	}
+
+	@Override
+	public void removerConexoesOciosas() {
+		this.poolConexoes.removerConexoesOciosas();
+	}
+
+	@Override
+	public void close() {
+		this.poolConexoes.close();
+	}
+}
\ No newline at end of file
@@ -0,0 +1,65 @@
+package br.com.pgioseffi.requisicoes.soap;
+
+import java.io.Closeable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * <p>
+ * Interface respons&aacute;vel por definir como o envelope SOAP de um
+ * {@link ArquivoRequisicao arquivo de requisi&ccedil;&atilde;o} chega ao
+ * endpoint e como a resposta chega ao {@link ArquivoResposta arquivo de
+ * resposta}.
+ * </p>
+ * <p>
+ * O envio &eacute; sempre representado por um {@link CompletableFuture}, de
+ * maneira que implementa&ccedil;&otilde;es bloqueantes, como a
+ * {@link TransporteSAAJ padr&atilde;o}, simplesmente o devolvam completado e
+ * implementa&ccedil;&otilde;es n&atilde;o bloqueantes, como a
+ * {@link TransporteHttpAssincrono ass&iacute;ncrona}, o completem quando a
+ * resposta terminar de chegar, sem ocupar uma <i>thread</i> durante a espera.
+ * </p>
+ * <p>
+ * Os arquivos de requisi&ccedil;&atilde;o e de resposta continuam sob
+ * responsabilidade de quem chama: o transporte n&atilde;o os fecha nem confirma
+ * a resposta.
+ * </p>
+ *
+ * @author <a href="mailto:pgioseffi@gmail.com">Philippe Gioseffi
+ *         &lt;pgioseffi@gmail.com&gt;</a>
+ *
+ * @since 1.1.0
+ *
+ * @see ExecutaRequisicaoSOAP
+ * @see TransporteSAAJ
+ * @see TransporteDireto
+ * @see TransporteHttpAssincrono
+ */
+interface TransporteSOAP extends Closeable {
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por enviar o envelope SOAP e escrever a
+	 * resposta na {@link ArquivoResposta#getSaida() sa&iacute;da} do arquivo de
+	 * resposta.
+	 *
+	 * @param requisicao
+	 *            Arquivo de requisi&ccedil;&atilde;o aberto. Deve permanecer
+	 *            aberto at&eacute; o futuro ser completado.
+	 * @param resposta
+	 *            Arquivo de resposta ainda n&atilde;o confirmado.
+	 *
+	 * @return Objeto {@link CompletableFuture} completado quando a resposta
+	 *         tiver sido escrita por completo ou completado com a exce&ccedil;&atilde;o
+	 *         em caso de falha.
+	 */
+	CompletableFuture<Void> enviar(ArquivoRequisicao requisicao, ArquivoResposta resposta);
+
+	/**
+	 * M&eacute;todo respons&aacute;vel por fechar as conex&otilde;es ociosas
+	 * h&aacute; mais tempo que o m&aacute;ximo configurado. Deve ser chamado
+	 * periodicamente.
+	 */
+	void removerConexoesOciosas();
+
+	@Override
+	void close();
+}
\ No newline at end of file